@@ -1,6 +1,7 @@
 package com.example.demo.config;
 
 import com.example.demo.model.Article;
+import com.example.demo.model.LogAnalytics;
 import com.example.demo.utils.CacheUtil;
 import java.util.List;
 import org.springframework.context.annotation.Bean;
@@ -28,4 +29,32 @@ public class CacheConfig {
     public CacheUtil<String, List<Article>> articleCacheByAuthor() {
         return new CacheUtil<>(10);
     }
-}
\ No newline at end of file
+
+    /**
+     * Создает кэш путей к готовым результатам обработки логов.
+     * Ключ состоит из даты и размера с временем изменения файла логов, поэтому
+     * после любой записи в лог старые результаты перестают находиться.
+     *
+     * @return новый экземпляр {@link CacheUtil}:
+     *         ключ - дата и версия файла логов (String),
+     *         значение - путь к файлу с результатом (String)
+     */
+    @Bean
+    public CacheUtil<String, String> logResultCache() {
+        return new CacheUtil<>(100);
+    }
+
+    /**
+     * Создает кэш сводок по логам за закрытые интервалы времени.
+     * Записи в закрытый интервал больше не добавляются, поэтому сводка
+     * не устаревает и повторные запросы не сканируют лог.
+     *
+     * @return новый экземпляр {@link CacheUtil}:
+     *         ключ - интервал и количество сигнатур ошибок (String),
+     *         значение - сводка (LogAnalytics)
+     */
+    @Bean
+    public CacheUtil<String, LogAnalytics> logAnalyticsCache() {
+        return new CacheUtil<>(100);
+    }
+}
@@ -0,0 +1,24 @@
+package com.example.demo.config;
+
+import java.time.Clock;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Configuration class that provides the clock used by services that decide by the
+ * current time, so that tests can fix it.
+ */
+@Configuration
+public class ClockConfig {
+
+    /**
+     * Creates the clock of the system default time zone, the zone log timestamps are
+     * compared in.
+     *
+     * @return the system clock
+     */
+    @Bean
+    public Clock clock() {
+        return Clock.systemDefaultZone();
+    }
+}
@@ -0,0 +1,464 @@
+package com.example.demo.config;
+
+import java.nio.file.Paths;
+import java.time.Duration;
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+import org.springframework.util.unit.DataSize;
+
+/**
+ * Settings of the log processing subsystem, bound from {@code app.logs.*} properties.
+ */
+@Getter
+@Setter
+@Component
+@ConfigurationProperties(prefix = "app.logs")
+public class LogProperties {
+
+    /**
+     * Log file that tasks are extracted from.
+     */
+    private String file = "application.log";
+
+    /**
+     * Artificial delay before a task starts scanning.
+     */
+    private Duration processingDelay = Duration.ofSeconds(20);
+
+    /**
+     * Size of the read and write buffers used while streaming an extraction.
+     */
+    private DataSize bufferSize = DataSize.ofKilobytes(64);
+
+    /**
+     * Maximum number of dates one batch task may extract.
+     */
+    private int maxBatchDates = 31;
+
+    /**
+     * Whether result files are written gzip-compressed while extracting.
+     */
+    private boolean compressResults = false;
+
+    /**
+     * Directory holding the result files of log tasks. Files left there by a previous run
+     * are removed on startup, so it must not be shared with other data.
+     */
+    private String resultDir = Paths.get(System.getProperty("java.io.tmpdir"), "log-results")
+            .toString();
+
+    /**
+     * Sparse timestamp index kept next to the log file.
+     */
+    private final Index index = new Index();
+
+    /**
+     * Rolled archives of the log file.
+     */
+    private final Archives archives = new Archives();
+
+    /**
+     * Per-day slices materialized after every day closes.
+     */
+    private final Slices slices = new Slices();
+
+    /**
+     * Keyword index kept next to the log file.
+     */
+    private final Keywords keywords = new Keywords();
+
+    /**
+     * Index from request correlation IDs to log records, kept next to the log file.
+     */
+    private final Requests requests = new Requests();
+
+    /**
+     * Queues and workers that run log tasks.
+     */
+    private final Lanes lanes = new Lanes();
+
+    /**
+     * In-memory buffer of recent log events.
+     */
+    private final Memory memory = new Memory();
+
+    /**
+     * Synchronous preview returned when a task is created.
+     */
+    private final Preview preview = new Preview();
+
+    /**
+     * Parallel scanning of large ranges.
+     */
+    private final Scan scan = new Scan();
+
+    /**
+     * Limits on finished tasks and their result files.
+     */
+    private final Retention retention = new Retention();
+
+    /**
+     * Progress events pushed to subscribed clients.
+     */
+    private final Events events = new Events();
+
+    /**
+     * Live tail of the log file.
+     */
+    private final Tail tail = new Tail();
+
+    /**
+     * Settings of the sparse timestamp index.
+     */
+    @Getter
+    @Setter
+    public static class Index {
+
+        /**
+         * Whether tasks seek to the requested day through the index instead of scanning
+         * the whole file.
+         */
+        private boolean enabled = true;
+
+        /**
+         * Approximate distance between two index entries.
+         */
+        private DataSize interval = DataSize.ofMegabytes(1);
+
+        /**
+         * Delay between two background passes that index the bytes appended to the log.
+         */
+        private Duration refreshInterval = Duration.ofSeconds(10);
+    }
+
+    /**
+     * Settings of the keyword inverted index. The log is divided into blocks that start at
+     * log records, and the index maps every token of a record line to the blocks that
+     * contain it, so keyword queries only read the blocks that can match.
+     */
+    @Getter
+    @Setter
+    public static class Keywords {
+
+        /**
+         * Whether the index is maintained and used by keyword queries.
+         */
+        private boolean enabled = false;
+
+        /**
+         * Approximate size of one block; smaller blocks narrow scans further but make the
+         * index larger.
+         */
+        private DataSize blockSize = DataSize.ofKilobytes(256);
+
+        /**
+         * Delay between two background passes that index the bytes appended to the log.
+         */
+        private Duration refreshInterval = Duration.ofMinutes(1);
+
+        /**
+         * Number of token occurrences buffered in memory before they are written out as a
+         * new segment of the index.
+         */
+        private int maxBufferedPostings = 1_000_000;
+
+        /**
+         * Number of segments above which the smallest ones are merged.
+         */
+        private int maxSegments = 8;
+    }
+
+    /**
+     * Settings of the request correlation index. Lines logged while serving an HTTP
+     * request carry its ID, and the index maps every ID to the records that carry it.
+     */
+    @Getter
+    @Setter
+    public static class Requests {
+
+        /**
+         * Whether the index is maintained and used by request lookups; without it a lookup
+         * scans the whole log.
+         */
+        private boolean enabled = true;
+
+        /**
+         * Delay between two background passes that index the bytes appended to the log.
+         */
+        private Duration refreshInterval = Duration.ofSeconds(10);
+
+        /**
+         * Number of entries buffered in memory before they are written out as a new
+         * segment of the index.
+         */
+        private int maxBufferedEntries = 1_000_000;
+
+        /**
+         * Number of segments above which all segments are merged into one.
+         */
+        private int maxSegments = 8;
+
+        /**
+         * Maximum number of lines returned for one request.
+         */
+        private int maxLines = 10_000;
+
+        /**
+         * Whether a valid {@code X-Request-Id} sent by the client becomes the correlation ID
+         * of the request. Only enable it behind a proxy that sets the header: every request
+         * sent with the same ID, by any client, is logged under it and returned together by
+         * a lookup. Otherwise the ID is generated and the client's value is only logged.
+         */
+        private boolean trustClientId = false;
+    }
+
+    /**
+     * Settings of the log task lanes. Tasks are queued in a small or a large lane by the
+     * number of bytes they are expected to scan; a shared set of workers serves the lanes
+     * in turn.
+     */
+    @Getter
+    @Setter
+    public static class Lanes {
+
+        /**
+         * Tasks expected to scan at least this many bytes are queued in the large lane.
+         */
+        private DataSize largeThreshold = DataSize.ofMegabytes(256);
+
+        /**
+         * Number of worker threads shared by both lanes; at least two, so that one can run
+         * a large task while another serves small ones.
+         */
+        private int workers = 4;
+
+        /**
+         * Maximum number of workers running large tasks at once; at least one worker is
+         * always left for small tasks.
+         */
+        private int maxLargeRunning = 2;
+
+        /**
+         * Number of small tasks that may wait before new ones are rejected.
+         */
+        private int smallQueueCapacity = 50;
+
+        /**
+         * Number of large tasks that may wait before new ones are rejected.
+         */
+        private int largeQueueCapacity = 10;
+    }
+
+    /**
+     * Settings of the parallel chunked scan.
+     */
+    @Getter
+    @Setter
+    public static class Scan {
+
+        /**
+         * Whether ranges spanning at least two chunks are filtered concurrently.
+         */
+        private boolean parallel = false;
+
+        /**
+         * Approximate size of one chunk; chunks are extended to the next line break.
+         */
+        private DataSize chunkSize = DataSize.ofMegabytes(4);
+
+        /**
+         * Number of worker threads filtering chunks.
+         */
+        private int parallelism = Runtime.getRuntime().availableProcessors();
+    }
+
+    /**
+     * Settings of the task and result file retention.
+     */
+    @Getter
+    @Setter
+    public static class Retention {
+
+        /**
+         * Maximum number of task IDs kept; the least recently used finished tasks are
+         * dropped first.
+         */
+        private int maxTasks = 1000;
+
+        /**
+         * Time after which a finished task expires, counted from its completion or from
+         * the latest download, page read or reuse of its result, whichever is later.
+         */
+        private Duration ttl = Duration.ofHours(1);
+
+        /**
+         * Maximum total size of result files; the results least recently completed,
+         * downloaded, paged or reused are dropped first.
+         */
+        private DataSize diskQuota = DataSize.ofGigabytes(1);
+
+        /**
+         * Delay between two retention sweeps.
+         */
+        private Duration sweepInterval = Duration.ofMinutes(1);
+    }
+
+    /**
+     * Settings of the task progress events.
+     */
+    @Getter
+    @Setter
+    public static class Events {
+
+        /**
+         * Delay between two progress events of a running task.
+         */
+        private Duration interval = Duration.ofSeconds(1);
+
+        /**
+         * Time after which an event stream is closed even if the task is still running.
+         */
+        private Duration timeout = Duration.ofMinutes(30);
+    }
+
+    /**
+     * Settings of the rolled archives that tasks read besides the active log file.
+     */
+    @Getter
+    @Setter
+    public static class Archives {
+
+        /**
+         * Whether tasks also read archives named like Spring Boot's rolling policy, e.g.
+         * {@code application.log.2025-04-30.0.gz}, from the directory of the log file.
+         */
+        private boolean enabled = true;
+
+        /**
+         * Whether gzip archives are rewritten in place in the background as
+         * block-compressed gzip with a block table, so that tasks decompress only the
+         * blocks of their time range. Off by default: the rewrite replaces the files of the
+         * rolling policy, which other tools reading or shipping them may not expect.
+         */
+        private boolean blockCompression = false;
+
+        /**
+         * Maximum uncompressed size of a block of a rewritten archive.
+         */
+        private DataSize blockSize = DataSize.ofKilobytes(64);
+
+        /**
+         * Delay between background passes that rewrite new archives.
+         */
+        private Duration compactInterval = Duration.ofMinutes(1);
+
+        /**
+         * Minimum age of an archive before it is rewritten, so that archives still being
+         * compressed by the rolling policy are left alone.
+         */
+        private Duration minAge = Duration.ofMinutes(1);
+    }
+
+    /**
+     * Settings of the per-day slices. After midnight a job writes the result of a date
+     * task for every closed day into the slice directory, so that tasks for past dates
+     * complete without scanning the log.
+     */
+    @Getter
+    @Setter
+    public static class Slices {
+
+        /**
+         * Whether closed days are materialized and date tasks are served from slices.
+         */
+        private boolean enabled = true;
+
+        /**
+         * Directory holding the slices. It must differ from the result directory, whose
+         * files are removed on startup.
+         */
+        private String dir = Paths.get(System.getProperty("java.io.tmpdir"), "log-slices")
+                .toString();
+
+        /**
+         * Number of past days whose slices are kept; missing slices of these days are
+         * materialized by the next run.
+         */
+        private Duration retention = Duration.ofDays(14);
+
+        /**
+         * Cron expression of the materialization job, in the server time zone.
+         */
+        private String cron = "0 5 0 * * *";
+    }
+
+    /**
+     * Settings of the synchronous preview of a task result.
+     */
+    @Getter
+    @Setter
+    public static class Preview {
+
+        /**
+         * Maximum number of lines a preview may request.
+         */
+        private int maxLines = 1000;
+
+        /**
+         * Maximum number of log bytes scanned for a preview.
+         */
+        private DataSize maxScan = DataSize.ofMegabytes(8);
+
+        /**
+         * Maximum time spent scanning for a preview.
+         */
+        private Duration timeBudget = Duration.ofMillis(100);
+    }
+
+    /**
+     * Settings of the in-memory buffer of recent log events. The buffer is filled by the
+     * {@code MEMORY} appender declared in {@code logback-spring.xml}, which reads its limits
+     * from these properties when logging is initialized.
+     */
+    @Getter
+    @Setter
+    public static class Memory {
+
+        /**
+         * Whether log tasks and the live tail read recent events from memory when the
+         * buffer covers them.
+         */
+        private boolean enabled = true;
+
+        /**
+         * Maximum number of events kept in memory.
+         */
+        private int maxEvents = 10_000;
+
+        /**
+         * Maximum total size of the events kept in memory.
+         */
+        private DataSize maxSize = DataSize.ofMegabytes(16);
+    }
+
+    /**
+     * Settings of the live tail.
+     */
+    @Getter
+    @Setter
+    public static class Tail {
+
+        /**
+         * Longest wait for a file system event before the log is checked anyway; covers
+         * platforms where the watch service polls or misses events.
+         */
+        private Duration pollInterval = Duration.ofSeconds(1);
+
+        /**
+         * Maximum number of concurrent tail streams.
+         */
+        private int maxSubscribers = 100;
+    }
+}
@@ -0,0 +1,17 @@
+package com.example.demo.config;
+
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.annotation.EnableScheduling;
+
+/**
+ * Configuration class that enables scheduled background jobs, such as the retention
+ * sweep of log tasks.
+ *
+ * <p>The jobs share the scheduler pool sized by {@code spring.task.scheduling.pool.size}.
+ * Several of them scan the log for a long time, so the pool has at least a thread for each job;
+ * a smaller pool delays the short jobs behind the long ones.
+ */
+@Configuration
+@EnableScheduling
+public class SchedulingConfig {
+}
@@ -1,27 +1,46 @@
 package com.example.demo.controller;
 
+import com.example.demo.exception.BadRequestException;
 import com.example.demo.exception.ResourceNotFoundException;
+import com.example.demo.model.LogAnalytics;
+import com.example.demo.model.LogDaySummary;
+import com.example.demo.model.LogLinesPage;
+import com.example.demo.model.LogQuery;
+import com.example.demo.model.LogRequestLines;
 import com.example.demo.model.LogTask;
 import com.example.demo.model.LogTaskStatus;
 import com.example.demo.service.LogService;
+import com.example.demo.service.LogTailService;
+import com.example.demo.service.LogTaskEvents;
+import com.example.demo.utils.FileDownloadUtil;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.responses.ApiResponse;
 import io.swagger.v3.oas.annotations.tags.Tag;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import jakarta.validation.Valid;
+import java.io.IOException;
+import java.nio.file.NoSuchFileException;
 import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.time.LocalDateTime;
+import java.util.List;
 import java.util.Map;
 import lombok.RequiredArgsConstructor;
-import org.springframework.core.io.Resource;
-import org.springframework.core.io.UrlResource;
-import org.springframework.http.HttpHeaders;
+import org.springframework.format.annotation.DateTimeFormat;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.DeleteMapping;
 import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.ModelAttribute;
 import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
 /**
  * Контроллер для обработки операций с логами.
@@ -32,53 +51,132 @@ import org.springframework.web.bind.annotation.RestController;
 @RequiredArgsConstructor
 public class LogController {
     private final LogService logService;
+    private final LogTaskEvents taskEvents;
+    private final LogTailService tailService;
 
     /**
      * Запускает асинхронную обработку файла логов.
+     * Строки отбираются по дате, по списку дат либо по структурированному запросу
+     * в теле; если указано несколько, приоритет у даты, затем у списка дат.
+     * Список дат обрабатывается одной задачей за один проход по файлу, а результатом
+     * становится zip-архив с отдельным файлом на каждую дату. Если очередь задач
+     * переполнена, возвращается 429 с заголовком Retry-After.
+     * Если указан preview, ответ сразу содержит первые найденные строки
+     * (поиск ограничен по объему и времени), а полное извлечение продолжается
+     * асинхронно.
      *
      * @param date Дата в формате yyyy-MM-dd
-     * @return CompletableFuture с ResponseEntity, содержащим ID задачи
+     * @param dates Даты и диапазоны дат в формате yyyy-MM-dd или yyyy-MM-dd..yyyy-MM-dd
+     * @param preview Количество строк, возвращаемых сразу; не поддерживается для списка дат
+     * @param query Запрос по интервалу времени, уровням, логгеру, потоку и тексту
+     * @return ResponseEntity, содержащий ID задачи или ID задачи с первыми строками
      */
     @Operation(summary = "Create log task", description = "Starts async log file processing")
     @ApiResponse(responseCode = "202", description = "Task accepted")
-    @ApiResponse(responseCode = "400", description = "Invalid date format")
+    @ApiResponse(responseCode = "400", description = "Invalid date format or query")
+    @ApiResponse(responseCode = "429", description = "Task queue is full, see Retry-After")
     @PostMapping
-    public ResponseEntity<String> createLogTask(
-            @RequestParam String date) {
-        String taskId = logService.createLogTask(date);
+    public ResponseEntity<Object> createLogTask(
+            @RequestParam(required = false) String date,
+            @RequestParam(required = false) List<String> dates,
+            @RequestParam(required = false) Integer preview,
+            @RequestBody(required = false) @Valid LogQuery query) {
+        if (preview != null) {
+            if (date != null) {
+                return ResponseEntity.ok(logService.createLogTask(date, preview));
+            } else if (dates == null && query != null) {
+                return ResponseEntity.ok(logService.createLogTask(query, preview));
+            }
+            throw new BadRequestException("Preview requires a date or a query");
+        }
+        String taskId;
+        if (date != null) {
+            taskId = logService.createLogTask(date);
+        } else if (dates != null) {
+            taskId = logService.createLogTask(dates);
+        } else if (query != null) {
+            taskId = logService.createLogTask(query);
+        } else {
+            throw new BadRequestException("Either date, dates or query must be specified");
+        }
         return ResponseEntity.ok(taskId);
     }
 
     /**
-     * Возвращает статус задачи обработки логов.
+     * Возвращает статус задачи обработки логов и ход ее выполнения.
      *
      * @param taskId ID задачи для проверки
-     * @return ResponseEntity с объектом LogTask, содержащим статус
+     * @return ResponseEntity со статусом, числом просмотренных и всех байт,
+     *         найденных строк и оценкой оставшегося времени
      */
     @Operation(summary = "Get task status")
     @GetMapping("/{taskId}/status")
     public ResponseEntity<Map<String, Object>> getTaskStatus(
             @PathVariable String taskId) {
         LogTask task = logService.getTaskStatus(taskId);
-        return ResponseEntity.ok(Map.of(
-                "status", task.getStatus().name()
-        ));
+        return ResponseEntity.ok(LogTaskEvents.describe(task));
+    }
+
+    /**
+     * Отменяет задачу обработки логов.
+     * Если результат задачи нужен и другим идентификаторам, отменяется только
+     * переданный идентификатор; иначе сканирование останавливается, а частичный
+     * результат удаляется. Завершенные задачи не изменяются.
+     *
+     * @param taskId ID задачи для отмены
+     * @return ResponseEntity со статусом задачи после отмены
+     */
+    @Operation(summary = "Cancel log task")
+    @ApiResponse(responseCode = "200", description = "Task cancelled or already finished")
+    @ApiResponse(responseCode = "404", description = "Task not found")
+    @DeleteMapping("/{taskId}")
+    public ResponseEntity<Map<String, Object>> cancelTask(@PathVariable String taskId) {
+        LogTask task = logService.cancelTask(taskId);
+        return ResponseEntity.ok(LogTaskEvents.describe(task));
+    }
+
+    /**
+     * Открывает поток Server-Sent Events с ходом выполнения задачи.
+     * Событие progress приходит сразу и затем периодически, событие status —
+     * по завершении задачи, после чего поток закрывается.
+     *
+     * @param taskId ID задачи для отслеживания
+     * @return поток событий задачи
+     */
+    @Operation(summary = "Follow task progress", description = "Server-Sent Events stream")
+    @ApiResponse(responseCode = "200", description = "Event stream opened")
+    @ApiResponse(responseCode = "404", description = "Task not found")
+    @GetMapping(value = "/{taskId}/events", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter followTask(@PathVariable String taskId) {
+        return taskEvents.subscribe(logService.getTaskStatus(taskId));
     }
 
     /**
      * Скачивает обработанный файл логов.
+     * Поддерживает запросы диапазонов (Range, If-Range) и условные запросы
+     * (If-None-Match, If-Modified-Since), поэтому прерванную загрузку можно продолжить.
+     * Сжатый результат отдается как есть клиентам с Accept-Encoding: gzip
+     * и распаковывается на лету для остальных; результат пакетной задачи
+     * отдается zip-архивом.
      *
      * @param taskId ID задачи для скачивания
-     * @return ResponseEntity с файлом логов в виде Resource
+     * @param request текущий HTTP-запрос
+     * @param response HTTP-ответ, в который записывается файл
+     * @return ResponseEntity с описанием ошибки или null, если файл уже записан в ответ
      */
     @Operation(summary = "Download log file")
     @ApiResponse(responseCode = "200", description = "File downloaded")
+    @ApiResponse(responseCode = "206", description = "Requested range downloaded")
+    @ApiResponse(responseCode = "304", description = "File not modified")
     @ApiResponse(responseCode = "404", description = "Task or file not found")
+    @ApiResponse(responseCode = "416", description = "Requested range not satisfiable")
     @ApiResponse(responseCode = "425", description = "File not ready yet")
     @GetMapping("/{taskId}/download")
-    public ResponseEntity<Object> downloadLogFile(@PathVariable String taskId) {
+    public ResponseEntity<Object> downloadLogFile(@PathVariable String taskId,
+                                                  HttpServletRequest request,
+                                                  HttpServletResponse response) {
         try {
-            LogTask task = logService.getTaskStatus(taskId);
+            LogTask task = logService.getTaskForDownload(taskId);
 
             if (task.getStatus() != LogTaskStatus.COMPLETED) {
                 return ResponseEntity.ok()
@@ -89,19 +187,146 @@ public class LogController {
             }
 
             Path filePath = Paths.get(task.getFilePath());
-            Resource resource = new UrlResource(filePath.toUri());
-
-            return ResponseEntity.ok()
-                    .header(HttpHeaders.CONTENT_DISPOSITION,
-                            "attachment; filename=\"logs-" + task.getDate() + ".log\"")
-                    .body(resource);
+            String contentType = MediaType.TEXT_PLAIN_VALUE + ";charset=UTF-8";
+            String fileName = "logs-" + task.getDate() + ".log";
+            if (filePath.getFileName().toString().endsWith(".zip")) {
+                FileDownloadUtil.sendFile(request, response, filePath, "application/zip",
+                        "logs-" + task.getDate() + ".zip");
+            } else if (filePath.getFileName().toString().endsWith(".gz")) {
+                FileDownloadUtil.sendGzip(request, response, filePath, contentType, fileName);
+            } else {
+                FileDownloadUtil.sendFile(request, response, filePath, contentType, fileName);
+            }
+            return null;
 
         } catch (ResourceNotFoundException e) {
             return ResponseEntity.status(HttpStatus.NOT_FOUND)
                     .body(Map.of("error", e.getMessage()));
+        } catch (NoSuchFileException e) {
+            return ResponseEntity.status(HttpStatus.NOT_FOUND)
+                    .body(Map.of("error", "Log file not found"));
         } catch (Exception e) {
             return ResponseEntity.internalServerError()
                     .body(Map.of("error", "Internal server error"));
         }
     }
-}
\ No newline at end of file
+
+    /**
+     * Возвращает страницу строк результата задачи без скачивания всего файла.
+     * Страница читается по индексу смещений строк, записанному при извлечении.
+     *
+     * @param taskId ID задачи
+     * @param from номер первой строки, начиная с 0
+     * @param limit максимальное количество строк
+     * @return ResponseEntity со страницей строк
+     * @throws IOException если результат не удалось прочитать
+     */
+    @Operation(summary = "Read result lines", description = "Page of lines of a task result")
+    @ApiResponse(responseCode = "200", description = "Lines returned")
+    @ApiResponse(responseCode = "400", description = "Invalid page or batch task")
+    @ApiResponse(responseCode = "404", description = "Task or file not found")
+    @ApiResponse(responseCode = "425", description = "File not ready yet")
+    @GetMapping("/{taskId}/lines")
+    public ResponseEntity<LogLinesPage> getLines(@PathVariable String taskId,
+                                                 @RequestParam(defaultValue = "0") long from,
+                                                 @RequestParam(defaultValue = "200") int limit)
+            throws IOException {
+        return ResponseEntity.ok(logService.getLines(taskId, from, limit));
+    }
+
+    /**
+     * Открывает поток Server-Sent Events со строками, дописываемыми в лог.
+     * Поддерживает те же фильтры, что и задачи, в виде параметров запроса;
+     * каждое событие lines содержит пачку подходящих строк. Если поток отстал
+     * и часть событий потеряна, приходит событие gap с их количеством.
+     *
+     * @param query фильтр строк
+     * @return поток новых строк лога
+     */
+    @Operation(summary = "Tail log file", description = "Server-Sent Events stream of new lines")
+    @ApiResponse(responseCode = "200", description = "Event stream opened")
+    @ApiResponse(responseCode = "400", description = "Invalid query")
+    @ApiResponse(responseCode = "429", description = "Too many streams, see Retry-After")
+    @GetMapping(value = "/tail", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter tail(@Valid @ModelAttribute LogQuery query) {
+        return tailService.subscribe(query);
+    }
+
+    /**
+     * Возвращает сводку по логам за интервал: количество записей по минутам
+     * в разрезе уровней и логгеров и самые частые сигнатуры ошибок.
+     * Сводки за завершившиеся интервалы кэшируются.
+     *
+     * @param from начало интервала (включительно)
+     * @param to конец интервала (не включительно)
+     * @param top количество сигнатур ошибок
+     * @return ResponseEntity со сводкой
+     * @throws IOException если лог не удалось прочитать
+     */
+    @Operation(summary = "Analyze log interval",
+            description = "Per-minute level and logger counts and top error signatures")
+    @ApiResponse(responseCode = "200", description = "Analytics computed")
+    @ApiResponse(responseCode = "400", description = "Invalid interval")
+    @GetMapping("/analytics")
+    public ResponseEntity<LogAnalytics> analyze(
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME)
+            LocalDateTime from,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME)
+            LocalDateTime to,
+            @RequestParam(defaultValue = "10") int top) throws IOException {
+        return ResponseEntity.ok(logService.analyze(from, to, top));
+    }
+
+    /**
+     * Возвращает количество записей лога по дням и уровням логирования.
+     * Счётчики ведёт фоновый индексатор, поэтому ответ не требует чтения всего лога.
+     *
+     * @return ResponseEntity со счётчиками по дням
+     * @throws IOException если лог или его индекс не удалось прочитать
+     */
+    @Operation(summary = "Count log records per day",
+            description = "Record counts per day and level maintained by the background indexer")
+    @ApiResponse(responseCode = "200", description = "Counters returned")
+    @GetMapping("/days")
+    public ResponseEntity<List<LogDaySummary>> getDaySummaries() throws IOException {
+        return ResponseEntity.ok(logService.getDaySummaries());
+    }
+
+    /**
+     * Возвращает строки лога, записанные при обработке одного HTTP-запроса.
+     * ID запроса приходит в заголовке ответа X-Request-Id; записи находятся
+     * по индексу, поэтому лог целиком не читается.
+     *
+     * @param requestId ID корреляции запроса
+     * @return ResponseEntity со строками запроса
+     * @throws IOException если лог или индекс не удалось прочитать
+     */
+    @Operation(summary = "Get request log lines",
+            description = "Log lines of one HTTP request found by its X-Request-Id")
+    @ApiResponse(responseCode = "200", description = "Lines found")
+    @ApiResponse(responseCode = "400", description = "Invalid request ID")
+    @ApiResponse(responseCode = "404", description = "No lines carry the request ID")
+    @GetMapping("/requests/{requestId}")
+    public ResponseEntity<LogRequestLines> getRequestLines(@PathVariable String requestId)
+            throws IOException {
+        return ResponseEntity.ok(logService.getRequestLines(requestId));
+    }
+
+    /**
+     * Перестраивает индекс ключевых слов с начала лога.
+     * Индекс строится в фоне; пока он не догонит лог, поиск по ключевым словам
+     * читает лог целиком.
+     *
+     * @return ResponseEntity без тела
+     * @throws IOException если файлы индекса не удалось удалить
+     */
+    @Operation(summary = "Rebuild keyword index",
+            description = "Drops the keyword index; it is rebuilt in the background")
+    @ApiResponse(responseCode = "202", description = "Rebuild scheduled")
+    @ApiResponse(responseCode = "400", description = "Keyword index is disabled")
+    @PostMapping("/keyword-index/rebuild")
+    public ResponseEntity<Void> rebuildKeywordIndex() throws IOException {
+        logService.rebuildKeywordIndex();
+        return ResponseEntity.accepted().build();
+    }
+}
@@ -1,24 +1,34 @@
 package com.example.demo.controller;
 
+import com.example.demo.service.LogRetentionService;
+import com.example.demo.service.LogTaskScheduler;
 import com.example.demo.service.VisitCounterService;
+import java.util.Map;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RestController;
 
 /**
- * Controller that provides statistics related to user visits.
+ * Controller that provides statistics related to user visits and log tasks.
  */
 @RestController
 @RequestMapping("/stats")
 public class StatsController {
     private final VisitCounterService visitCounterService;
+    private final LogRetentionService logRetentionService;
+    private final LogTaskScheduler logTaskScheduler;
 
     /**
-     * Constructs the controller with the given {@link VisitCounterService}.
+     * Constructs the controller with the given {@link VisitCounterService},
+     * {@link LogRetentionService} and {@link LogTaskScheduler}.
      */
-    public StatsController(VisitCounterService visitCounterService) {
+    public StatsController(VisitCounterService visitCounterService,
+                           LogRetentionService logRetentionService,
+                           LogTaskScheduler logTaskScheduler) {
         this.visitCounterService = visitCounterService;
+        this.logRetentionService = logRetentionService;
+        this.logTaskScheduler = logTaskScheduler;
     }
 
     /**
@@ -28,4 +38,23 @@ public class StatsController {
     public ResponseEntity<Integer> getUserVisitsCount() {
         return ResponseEntity.ok(visitCounterService.getCount());
     }
-}
\ No newline at end of file
+
+    /**
+     * Returns the number of kept log task IDs and the bytes held by their result files.
+     */
+    @GetMapping("/logs")
+    public ResponseEntity<Map<String, Long>> getLogTaskStats() {
+        return ResponseEntity.ok(Map.of(
+                "tasks", (long) logRetentionService.getTaskCount(),
+                "bytesHeld", logRetentionService.getBytesHeld()
+        ));
+    }
+
+    /**
+     * Returns the queue depth, running tasks and wait times of every log task lane.
+     */
+    @GetMapping("/logs/lanes")
+    public ResponseEntity<Map<String, LogTaskScheduler.LaneStats>> getLogLaneStats() {
+        return ResponseEntity.ok(logTaskScheduler.stats());
+    }
+}
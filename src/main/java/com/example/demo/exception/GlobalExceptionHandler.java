@@ -6,6 +6,7 @@ import java.util.HashMap;
 import java.util.Map;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.validation.FieldError;
@@ -84,6 +85,41 @@ public class GlobalExceptionHandler {
         return new ResponseEntity<>(response, HttpStatus.NOT_FOUND);
     }
 
+    /**
+     * Handles requests for results of unfinished tasks (HTTP 425).
+     *
+     * @param ex the TaskNotReadyException
+     * @return ResponseEntity with error details and HTTP 425 status
+     */
+    @ExceptionHandler(TaskNotReadyException.class)
+    public ResponseEntity<ErrorResponse> handleTaskNotReady(TaskNotReadyException ex) {
+        logger.debug("Task not ready: {}", ex.getMessage());
+        ErrorResponse response = new ErrorResponse(
+                HttpStatus.TOO_EARLY.value(),
+                ex.getMessage()
+        );
+        return new ResponseEntity<>(response, HttpStatus.TOO_EARLY);
+    }
+
+    /**
+     * Handles saturation of a bounded resource (HTTP 429).
+     *
+     * @param ex the TooManyRequestsException
+     * @return ResponseEntity with error details, a Retry-After header and HTTP 429 status
+     */
+    @ExceptionHandler(TooManyRequestsException.class)
+    public ResponseEntity<ErrorResponse> handleTooManyRequests(TooManyRequestsException ex) {
+        logger.warn("Too many requests: {}", ex.getMessage());
+        ErrorResponse response = new ErrorResponse(
+                HttpStatus.TOO_MANY_REQUESTS.value(),
+                ex.getMessage()
+        );
+        return ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS)
+                .header(HttpHeaders.RETRY_AFTER, String.valueOf(
+                        (ex.getRetryAfter().toMillis() + 999) / 1000))
+                .body(response);
+    }
+
     /**
      * Handles all other unexpected exceptions (HTTP 500).
      *
@@ -0,0 +1,23 @@
+package com.example.demo.exception;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.ResponseStatus;
+
+/**
+ * Exception thrown when the result of a task is requested before the task has completed.
+ *
+ * <p>This exception results in an HTTP 425 (Too Early) status code being returned
+ * to the client, who may retry once the task has finished.
+ */
+@ResponseStatus(HttpStatus.TOO_EARLY)
+public class TaskNotReadyException extends IllegalStateException {
+
+    /**
+     * Constructs a new TaskNotReadyException with the specified detail message.
+     *
+     * @param message the detail message describing the state of the task
+     */
+    public TaskNotReadyException(String message) {
+        super(message);
+    }
+}
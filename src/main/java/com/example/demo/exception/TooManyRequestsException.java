@@ -0,0 +1,30 @@
+package com.example.demo.exception;
+
+import java.time.Duration;
+import lombok.Getter;
+
+/**
+ * Exception thrown when the server is temporarily unable to accept more work.
+ *
+ * <p>It is translated into an HTTP 429 (Too Many Requests) response whose
+ * {@code Retry-After} header tells the client when a new attempt is likely to succeed.
+ */
+@Getter
+public class TooManyRequestsException extends RuntimeException {
+
+    /**
+     * Suggested delay before the client retries.
+     */
+    private final Duration retryAfter;
+
+    /**
+     * Constructs a new TooManyRequestsException.
+     *
+     * @param message the detail message explaining which resource is saturated
+     * @param retryAfter suggested delay before the client retries
+     */
+    public TooManyRequestsException(String message, Duration retryAfter) {
+        super(message);
+        this.retryAfter = retryAfter;
+    }
+}
@@ -0,0 +1,73 @@
+package com.example.demo.filter;
+
+import com.example.demo.config.LogProperties;
+import com.example.demo.utils.RequestIdConverter;
+import jakarta.servlet.Filter;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.ServletRequest;
+import jakarta.servlet.ServletResponse;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.regex.Pattern;
+import lombok.extern.slf4j.Slf4j;
+import org.slf4j.MDC;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+
+/**
+ * Filter that gives every request a correlation ID, puts it into the MDC for the log
+ * layout and returns it in the {@code X-Request-Id} response header.
+ * The ID is generated by the server unless {@code app.logs.requests.trust-client-id} is
+ * set, in which case a valid ID sent by the client in the same header is reused.
+ */
+@Slf4j
+@Component
+@Order(0) // Раньше остальных фильтров, чтобы их записи тоже получили ID
+public class RequestIdFilter implements Filter {
+
+    /**
+     * Header carrying the correlation ID in requests and responses.
+     */
+    public static final String HEADER = "X-Request-Id";
+
+    /**
+     * Accepted IDs: they are written into log lines and looked up as they are.
+     */
+    public static final Pattern VALID_ID = Pattern.compile("[A-Za-z0-9_-]{1,64}");
+
+    private final LogProperties properties;
+
+    /**
+     * Constructs the filter with the log subsystem settings.
+     *
+     * @param properties log processing settings
+     */
+    public RequestIdFilter(LogProperties properties) {
+        this.properties = properties;
+    }
+
+    @Override
+    public void doFilter(ServletRequest request, ServletResponse response, FilterChain chain)
+            throws IOException, ServletException {
+        String clientId = ((HttpServletRequest) request).getHeader(HEADER);
+        boolean valid = clientId != null && VALID_ID.matcher(clientId).matches();
+        boolean reuse = valid && properties.getRequests().isTrustClientId();
+        String requestId = reuse
+                ? clientId : String.format("%016x", ThreadLocalRandom.current().nextLong());
+        ((HttpServletResponse) response).setHeader(HEADER, requestId);
+
+        MDC.put(RequestIdConverter.MDC_KEY, requestId);
+        try {
+            if (valid && !reuse) {
+                // Чужой ID не становится ключом поиска, но остается в логе запроса
+                log.debug("Client request ID: {}", clientId);
+            }
+            chain.doFilter(request, response);
+        } finally {
+            MDC.remove(RequestIdConverter.MDC_KEY);
+        }
+    }
+}
@@ -0,0 +1,47 @@
+package com.example.demo.model;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Сводка по логам за интервал времени, собранная за один проход.
+ *
+ * @param from начало интервала (включительно)
+ * @param to конец интервала (не включительно)
+ * @param minutes количество записей по минутам, только для минут, в которые они были
+ * @param topErrors самые частые сигнатуры ошибок в порядке убывания
+ */
+public record LogAnalytics(
+        LocalDateTime from,
+        LocalDateTime to,
+        List<MinuteCounts> minutes,
+        List<ErrorSignature> topErrors) {
+
+    /**
+     * Количество записей за одну минуту.
+     *
+     * @param minute начало минуты
+     * @param levels количество записей по уровням логирования
+     * @param loggers количество записей по логгерам
+     */
+    public record MinuteCounts(
+            LocalDateTime minute,
+            Map<String, Long> levels,
+            Map<String, Long> loggers) {
+    }
+
+    /**
+     * Сигнатура ошибки: логгер и сообщение, в котором числа заменены на {@code #}.
+     *
+     * @param signature сигнатура
+     * @param count оценка количества, не меньше точного значения
+     * @param error максимальное превышение оценки над точным значением
+     */
+    public record ErrorSignature(
+            @Schema(example = "c.e.demo.service.LogService: Task failed: #") String signature,
+            long count,
+            long error) {
+    }
+}
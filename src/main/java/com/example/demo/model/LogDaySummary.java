@@ -0,0 +1,19 @@
+package com.example.demo.model;
+
+import java.time.LocalDate;
+import java.util.Map;
+
+/**
+ * Счётчики записей лога за один день, которые фоновый индексатор ведёт инкрементально.
+ *
+ * @param date день
+ * @param offset смещение первой строки дня в файле лога
+ * @param records количество записей (строки продолжения не учитываются)
+ * @param levels количество записей по стандартным уровням логирования
+ */
+public record LogDaySummary(
+        LocalDate date,
+        long offset,
+        long records,
+        Map<String, Long> levels) {
+}
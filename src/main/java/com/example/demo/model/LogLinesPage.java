@@ -0,0 +1,16 @@
+package com.example.demo.model;
+
+import java.util.List;
+
+/**
+ * Страница строк результата задачи обработки логов.
+ *
+ * @param from номер первой строки страницы, начиная с 0
+ * @param totalLines общее количество строк в результате
+ * @param lines строки страницы без символов конца строки
+ */
+public record LogLinesPage(
+        long from,
+        long totalLines,
+        List<String> lines) {
+}
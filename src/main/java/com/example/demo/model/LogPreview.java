@@ -0,0 +1,16 @@
+package com.example.demo.model;
+
+import java.util.List;
+
+/**
+ * Созданная задача обработки логов вместе с первыми найденными строками.
+ *
+ * @param taskId ID задачи, которая продолжает полное извлечение асинхронно
+ * @param lines первые подходящие строки без символов конца строки
+ * @param complete true, если строки содержат весь результат задачи
+ */
+public record LogPreview(
+        String taskId,
+        List<String> lines,
+        boolean complete) {
+}
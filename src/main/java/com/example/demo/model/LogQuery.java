@@ -0,0 +1,47 @@
+package com.example.demo.model;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import jakarta.validation.constraints.Size;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Set;
+import lombok.Data;
+import org.springframework.format.annotation.DateTimeFormat;
+
+/**
+ * Структурированный запрос к логам.
+ * Все заданные условия должны выполняться одновременно; пустые условия не ограничивают
+ * выборку. Условия проверяются по первой строке записи, строки продолжения
+ * (например, стек вызовов) попадают в результат вместе с ней.
+ */
+@Data
+public class LogQuery {
+
+    @Schema(description = "Начало интервала (включительно), точность до секунды",
+            example = "2025-04-30T10:00:00")
+    @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME)
+    private LocalDateTime from;
+
+    @Schema(description = "Конец интервала (не включительно), точность до секунды",
+            example = "2025-04-30T11:00:00")
+    @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME)
+    private LocalDateTime to;
+
+    @Schema(description = "Допустимые уровни логирования", example = "[\"WARN\", \"ERROR\"]")
+    private Set<String> levels;
+
+    @Schema(description = "Префикс имени логгера в том виде, в каком он записан в лог",
+            example = "c.e.demo.service")
+    private String logger;
+
+    @Schema(description = "Имя потока", example = "LogTask-1")
+    private String thread;
+
+    @Size(max = 16, message = "Не более 16 ключевых слов")
+    @Schema(description = "Подстроки, каждая из которых должна встретиться в строке")
+    private List<String> keywords;
+
+    @Size(max = 16, message = "Не более 16 регулярных выражений")
+    @Schema(description = "Регулярные выражения, каждое из которых должно найтись в сообщении")
+    private List<String> regexes;
+}
@@ -0,0 +1,16 @@
+package com.example.demo.model;
+
+import java.util.List;
+
+/**
+ * Строки лога, записанные при обработке одного HTTP-запроса.
+ *
+ * @param requestId ID корреляции запроса из заголовка X-Request-Id
+ * @param lines строки записей запроса в порядке лога, вместе со строками продолжения
+ * @param complete false, если строк больше, чем разрешено вернуть
+ */
+public record LogRequestLines(
+        String requestId,
+        List<String> lines,
+        boolean complete) {
+}
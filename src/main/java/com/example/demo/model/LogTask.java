@@ -1,5 +1,8 @@
 package com.example.demo.model;
 
+import java.time.Instant;
+import java.util.List;
+import lombok.AccessLevel;
 import lombok.Getter;
 import lombok.Setter;
 
@@ -12,9 +15,22 @@ import lombok.Setter;
 public class LogTask {
     private String id;
     private String date;
-    private LogTaskStatus status;
+    /** Структурированный запрос; null для задач, фильтрующих только по дате. */
+    private LogQuery query;
+    /** Даты пакетной задачи по возрастанию; null для задач по одной дате или запросу. */
+    private List<String> dates;
+    private volatile LogTaskStatus status;
     private String filePath;
     private String errorMessage;
+    private Instant createdAt = Instant.now();
+    /** Время перехода в конечный статус; null, пока задача выполняется. */
+    private volatile Instant completedAt;
+    /** Время последнего обращения к результату; до первого обращения — время создания. */
+    private volatile Instant lastAccessedAt = createdAt;
+    private final LogTaskProgress progress = new LogTaskProgress();
+    @Getter(AccessLevel.NONE)
+    @Setter(AccessLevel.NONE)
+    private int holders = 1;
 
     /**
      * Создает новую задачу обработки логов со всеми параметрами.
@@ -26,5 +42,57 @@ public class LogTask {
         this.id = id;
         this.date = date;
         this.status = status;
+        if (status != LogTaskStatus.PROCESSING) {
+            this.completedAt = createdAt;
+        }
     }
-}
\ No newline at end of file
+
+    /**
+     * Устанавливает статус задачи и при первом переходе в конечный статус
+     * запоминает время завершения.
+     *
+     * @param status новый статус
+     */
+    public void setStatus(LogTaskStatus status) {
+        if (status != LogTaskStatus.PROCESSING && completedAt == null) {
+            completedAt = Instant.now();
+        }
+        this.status = status;
+    }
+
+    /**
+     * Отмечает обращение к результату задачи: скачивание, чтение строк
+     * или повторное использование результата.
+     */
+    public void markAccessed() {
+        lastAccessedAt = Instant.now();
+    }
+
+    /**
+     * Регистрирует еще один идентификатор, использующий результат задачи.
+     *
+     * @return false, если задача уже отменена и присоединиться к ней нельзя
+     */
+    public synchronized boolean retain() {
+        if (progress.isCancelled()) {
+            return false;
+        }
+        holders++;
+        return true;
+    }
+
+    /**
+     * Снимает регистрацию идентификатора; задача отменяется, когда ее результат
+     * больше никому не нужен.
+     *
+     * @return true, если задача была отменена этим вызовом
+     */
+    public synchronized boolean release() {
+        holders--;
+        if (holders == 0) {
+            progress.cancel();
+            return true;
+        }
+        return false;
+    }
+}
@@ -0,0 +1,97 @@
+package com.example.demo.model;
+
+import java.time.Duration;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Ход выполнения задачи обработки логов и запрос на ее отмену.
+ * Сканирование добавляет приращения и проверяет отмену один раз на заполненный буфер,
+ * поэтому это не замедляет цикл обработки строк; чтение возможно из любого потока.
+ */
+public class LogTaskProgress {
+    private final CountDownLatch cancellation = new CountDownLatch(1);
+    private final AtomicLong bytesScanned = new AtomicLong();
+    private final AtomicLong linesMatched = new AtomicLong();
+    private volatile long totalBytes;
+    private volatile long startedAtNanos;
+
+    /**
+     * Отмечает начало сканирования.
+     *
+     * @param totalBytes количество байт, которое предстоит просмотреть
+     */
+    public void start(long totalBytes) {
+        this.totalBytes = totalBytes;
+        this.startedAtNanos = System.nanoTime();
+    }
+
+    /**
+     * Добавляет приращение прогресса; может вызываться из нескольких потоков.
+     *
+     * @param bytes количество просмотренных байт
+     * @param lines количество найденных строк
+     */
+    public void add(long bytes, long lines) {
+        bytesScanned.addAndGet(bytes);
+        if (lines != 0) {
+            linesMatched.addAndGet(lines);
+        }
+    }
+
+    public long getBytesScanned() {
+        return bytesScanned.get();
+    }
+
+    public long getTotalBytes() {
+        return totalBytes;
+    }
+
+    public long getLinesMatched() {
+        return linesMatched.get();
+    }
+
+    /**
+     * Оценивает оставшееся время по средней скорости с начала сканирования.
+     *
+     * @return оценка оставшегося времени или null, если сканирование еще не началось
+     */
+    public Duration getEta() {
+        long started = startedAtNanos;
+        long scanned = bytesScanned.get();
+        if (started == 0 || scanned == 0) {
+            return null;
+        }
+        long remaining = Math.max(0, totalBytes - scanned);
+        double nanosPerByte = (double) (System.nanoTime() - started) / scanned;
+        return Duration.ofNanos((long) (nanosPerByte * remaining));
+    }
+
+    /**
+     * Запрашивает отмену задачи.
+     */
+    public void cancel() {
+        cancellation.countDown();
+    }
+
+    /**
+     * Проверяет, запрошена ли отмена задачи.
+     *
+     * @return true, если задача отменена
+     */
+    public boolean isCancelled() {
+        return cancellation.getCount() == 0;
+    }
+
+    /**
+     * Ждет отмены задачи не дольше заданного времени.
+     *
+     * @param timeout максимальное время ожидания
+     * @return true, если задача отменена
+     * @throws InterruptedException если поток был прерван во время ожидания
+     */
+    public boolean awaitCancellation(Duration timeout) throws InterruptedException {
+        return cancellation.await(timeout.toNanos(), TimeUnit.NANOSECONDS);
+    }
+}
@@ -8,5 +8,6 @@ public enum LogTaskStatus {
     PENDING,
     PROCESSING,
     COMPLETED,
-    FAILED
+    FAILED,
+    CANCELLED
 }
@@ -27,6 +27,19 @@ public class LogTaskRepository {
         return task;
     }
 
+    /**
+     * Связывает дополнительный идентификатор с уже существующей задачей.
+     * Запросы по новому идентификатору возвращают общую задачу и её результат.
+     *
+     * @param taskId новый идентификатор задачи
+     * @param task задача, результат которой используется совместно
+     * @return общая задача
+     */
+    public LogTask link(String taskId, LogTask task) {
+        storage.put(taskId, task);
+        return task;
+    }
+
     /**
      * Находит задачу по её идентификатору.
      *
@@ -37,4 +50,34 @@ public class LogTaskRepository {
     public Optional<LogTask> findById(String taskId) {
         return Optional.ofNullable(storage.get(taskId));
     }
+
+    /**
+     * Возвращает снимок всех идентификаторов с их задачами.
+     * Связанные идентификаторы указывают на одну и ту же задачу.
+     *
+     * @return неизменяемая копия хранилища
+     */
+    public Map<String, LogTask> findAll() {
+        return Map.copyOf(storage);
+    }
+
+    /**
+     * Удаляет идентификатор, если он всё ещё указывает на заданную задачу.
+     *
+     * @param taskId идентификатор задачи
+     * @param task задача, на которую должен указывать идентификатор
+     * @return true, если идентификатор был удален
+     */
+    public boolean delete(String taskId, LogTask task) {
+        return storage.remove(taskId, task);
+    }
+
+    /**
+     * Возвращает количество хранимых идентификаторов задач.
+     *
+     * @return количество идентификаторов
+     */
+    public int count() {
+        return storage.size();
+    }
 }
\ No newline at end of file
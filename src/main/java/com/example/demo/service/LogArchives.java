@@ -0,0 +1,202 @@
+package com.example.demo.service;
+
+import com.example.demo.config.LogProperties;
+import com.example.demo.utils.ArchiveSlice;
+import com.example.demo.utils.BlockGzipIndex;
+import com.example.demo.utils.BlockGzipOutputStream;
+import com.example.demo.utils.ByteRange;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Optional;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.zip.GZIPInputStream;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+/**
+ * Finds the rolled archives of the log file that can hold records of a period.
+ *
+ * <p>Archives are recognized by the names Spring Boot's rolling policy gives them,
+ * {@code <log file>.<yyyy-MM-dd>.<index>} optionally followed by {@code .gz}, where the
+ * date is the day the archived records were written. Archives are picked by that date
+ * only, so archives outside the requested period are never opened.
+ *
+ * <p>When {@code app.logs.archives.block-compression} is on, a background pass rewrites
+ * gzip archives in place as block-compressed gzip with a
+ * {@link BlockGzipIndex block table}. The result is still a valid gzip file, and a scan
+ * of part of a day decompresses only the blocks of that part. Archives are rewritten
+ * through a temporary file and replaced atomically; a reader that opened the old file
+ * keeps reading it.
+ */
+@Slf4j
+@Service
+public class LogArchives {
+    private static final String GZIP_SUFFIX = ".gz";
+    private static final String TABLE_SUFFIX = ".blocks";
+
+    private final LogProperties properties;
+
+    /**
+     * Constructs a LogArchives with the log subsystem settings.
+     *
+     * @param properties log processing settings
+     */
+    public LogArchives(LogProperties properties) {
+        this.properties = properties;
+    }
+
+    /**
+     * Returns the archives of the days from {@code first} to {@code last}, inclusive, in
+     * the order they were written.
+     *
+     * @param first first day, or null for no lower bound
+     * @param last last day, or null for no upper bound
+     * @return the matching archives, empty if archives are disabled
+     * @throws IOException if the directory of the log file cannot be listed
+     */
+    public List<Path> select(LocalDate first, LocalDate last) throws IOException {
+        if (!properties.getArchives().isEnabled()) {
+            return List.of();
+        }
+        Path logFile = Paths.get(properties.getFile()).toAbsolutePath();
+        Path dir = logFile.getParent();
+        if (dir == null || !Files.isDirectory(dir)) {
+            return List.of();
+        }
+        Pattern name = Pattern.compile(Pattern.quote(logFile.getFileName().toString())
+                + "\\.(\\d{4}-\\d{2}-\\d{2})\\.(\\d{1,9})(?:\\.gz)?");
+        List<Archive> archives = new ArrayList<>();
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(dir,
+                logFile.getFileName() + ".*")) {
+            for (Path file : files) {
+                Matcher matcher = name.matcher(file.getFileName().toString());
+                if (!matcher.matches()) {
+                    continue;
+                }
+                LocalDate day;
+                try {
+                    day = LocalDate.parse(matcher.group(1));
+                } catch (DateTimeParseException e) {
+                    continue;
+                }
+                if ((first == null || !day.isBefore(first)) && (last == null || !day.isAfter(last))
+                        && Files.isRegularFile(file)) {
+                    archives.add(new Archive(file, day, Long.parseLong(matcher.group(2))));
+                }
+            }
+        }
+        archives.sort(Comparator.comparing(Archive::day).thenComparingLong(Archive::index));
+        return archives.stream().map(Archive::file).toList();
+    }
+
+    /**
+     * Returns the parts of the archives from {@code first} to {@code last} that can hold
+     * records logged from {@code fromSecond} to {@code toSecond}: the covering blocks of
+     * indexed archives, and whole other archives. Archives without such records are left
+     * out.
+     *
+     * @param first first day, or null for no lower bound
+     * @param last last day, or null for no upper bound
+     * @param fromSecond start of the period in epoch seconds of the local date-time,
+     *                   inclusive
+     * @param toSecond end of the period in epoch seconds of the local date-time, exclusive
+     * @return the parts to read, in the order they were written
+     * @throws IOException if the archives or their block tables cannot be read
+     */
+    public List<ArchiveSlice> slices(LocalDate first, LocalDate last, long fromSecond,
+                                     long toSecond) throws IOException {
+        List<ArchiveSlice> slices = new ArrayList<>();
+        for (Path archive : select(first, last)) {
+            Optional<BlockGzipIndex> index = BlockGzipIndex.load(archive);
+            if (index.isEmpty()) {
+                slices.add(ArchiveSlice.of(archive));
+                continue;
+            }
+            ByteRange range = index.get().locate(fromSecond, toSecond);
+            if (range.length() > 0) {
+                slices.add(new ArchiveSlice(archive, range));
+            }
+        }
+        return slices;
+    }
+
+    /**
+     * Rewrites the gzip archives that have no valid block table yet and removes the block
+     * tables of archives that no longer exist.
+     */
+    @Scheduled(fixedDelayString = "#{@logProperties.archives.compactInterval.toMillis()}")
+    public void compactInBackground() {
+        LogProperties.Archives settings = properties.getArchives();
+        if (!settings.isEnabled() || !settings.isBlockCompression()) {
+            return;
+        }
+        try {
+            Instant settledBefore = Instant.now().minus(settings.getMinAge());
+            for (Path archive : select(null, null)) {
+                if (archive.getFileName().toString().endsWith(GZIP_SUFFIX)
+                        && BlockGzipIndex.load(archive).isEmpty()
+                        && Files.getLastModifiedTime(archive).toInstant().isBefore(settledBefore)) {
+                    compact(archive);
+                }
+            }
+            removeOrphanedTables();
+        } catch (IOException e) {
+            log.warn("Failed to compact log archives", e);
+        }
+    }
+
+    /**
+     * Rewrites one gzip archive as block-compressed gzip and writes its block table.
+     *
+     * @param archive the archive to rewrite
+     * @throws IOException if the archive cannot be read or rewritten
+     */
+    void compact(Path archive) throws IOException {
+        Path tempFile = archive.resolveSibling(archive.getFileName() + ".tmp");
+        BlockGzipOutputStream out = new BlockGzipOutputStream(Files.newOutputStream(tempFile),
+                (int) properties.getArchives().getBlockSize().toBytes());
+        try {
+            try (InputStream in = new GZIPInputStream(Files.newInputStream(archive));
+                 out) {
+                in.transferTo(out);
+            }
+            Files.move(tempFile, archive, StandardCopyOption.REPLACE_EXISTING,
+                    StandardCopyOption.ATOMIC_MOVE);
+            out.writeIndex(archive);
+            log.debug("Rewrote log archive {} as block-compressed gzip", archive);
+        } finally {
+            Files.deleteIfExists(tempFile);
+        }
+    }
+
+    private void removeOrphanedTables() throws IOException {
+        Path logFile = Paths.get(properties.getFile()).toAbsolutePath();
+        try (DirectoryStream<Path> tables = Files.newDirectoryStream(logFile.getParent(),
+                logFile.getFileName() + ".*" + TABLE_SUFFIX)) {
+            for (Path table : tables) {
+                String name = table.getFileName().toString();
+                Path archive = table.resolveSibling(
+                        name.substring(0, name.length() - TABLE_SUFFIX.length()));
+                if (!Files.exists(archive)) {
+                    Files.deleteIfExists(table);
+                }
+            }
+        }
+    }
+
+    private record Archive(Path file, LocalDate day, long index) {
+    }
+}
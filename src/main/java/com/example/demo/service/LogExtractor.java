@@ -0,0 +1,836 @@
+package com.example.demo.service;
+
+import com.example.demo.config.LogProperties;
+import com.example.demo.model.LogTaskProgress;
+import com.example.demo.utils.ArchiveSlice;
+import com.example.demo.utils.ByteRange;
+import com.example.demo.utils.LineMatcher;
+import jakarta.annotation.PreDestroy;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.FilterInputStream;
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.List;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.zip.GZIPInputStream;
+import org.springframework.stereotype.Service;
+
+/**
+ * Streams the lines of a log file that match a task filter into a result stream.
+ *
+ * <p>The file is read into a reusable byte buffer and lines are matched in place, without
+ * decoding them into strings; runs of adjacent matching lines are copied to the result as
+ * they are, line terminators included. Memory held by one extraction therefore depends
+ * only on the buffer size, not on the size of the log or on the number of matched lines.
+ * With {@code app.logs.scan.parallel} enabled, large ranges are split into chunks that
+ * are filtered concurrently and merged back in file order. Progress is reported and
+ * cancellation is checked once per buffer, never per line.
+ */
+@Service
+public class LogExtractor {
+    private static final int PROBE_SIZE = 4096;
+
+    private final LogProperties properties;
+    private final ForkJoinPool scanPool;
+
+    /**
+     * Constructs a LogExtractor with the log subsystem settings.
+     *
+     * @param properties log processing settings
+     */
+    public LogExtractor(LogProperties properties) {
+        this.properties = properties;
+        this.scanPool = new ForkJoinPool(properties.getScan().getParallelism());
+    }
+
+    /**
+     * Copies every line inside {@code range} of {@code source} accepted by {@code matcher}
+     * to {@code target}.
+     *
+     * @param source log file to scan
+     * @param range part of the file to scan; it must start at the beginning of a line
+     * @param matcher filter applied to every line
+     * @param target stream receiving the matched lines; it is flushed but not closed
+     * @return number of bytes written to {@code target}
+     * @throws IOException if the log cannot be read or the result cannot be written
+     */
+    public long extract(Path source, ByteRange range, LineMatcher matcher, OutputStream target)
+            throws IOException {
+        return extract(source, range, matcher, target, new LogTaskProgress());
+    }
+
+    /**
+     * Copies every line inside {@code range} of {@code source} accepted by {@code matcher}
+     * to {@code target}, reporting the scanned bytes and matched lines to {@code progress}.
+     *
+     * @param source log file to scan
+     * @param range part of the file to scan; it must start at the beginning of a line
+     * @param matcher filter applied to every line
+     * @param target stream receiving the matched lines; it is flushed but not closed
+     * @param progress progress of the task, started with the length of the scanned range
+     * @return number of bytes written to {@code target}
+     * @throws IOException if the log cannot be read or the result cannot be written
+     * @throws CancellationException if {@code progress} was cancelled during the scan
+     */
+    public long extract(Path source, ByteRange range, LineMatcher matcher, OutputStream target,
+                        LogTaskProgress progress) throws IOException {
+        int bufferSize = (int) properties.getBufferSize().toBytes();
+        CountingOutputStream counter = new CountingOutputStream(target);
+        OutputStream out = new BufferedOutputStream(counter, bufferSize);
+        try (FileChannel channel = FileChannel.open(source, StandardOpenOption.READ)) {
+            ByteRange bounded = new ByteRange(Math.min(range.start(), channel.size()),
+                    Math.min(range.end(), channel.size()));
+            progress.start(bounded.length());
+            LogProperties.Scan scan = properties.getScan();
+            if (scan.isParallel() && bounded.length() >= 2 * scan.getChunkSize().toBytes()) {
+                extractParallel(channel, bounded, matcher, out, progress);
+            } else {
+                copyMatching(channel, bounded, matcher.fork(), out, new byte[bufferSize],
+                        progress);
+            }
+        }
+        out.flush();
+        return counter.getCount();
+    }
+
+    /**
+     * Copies every line inside {@code ranges} of {@code source} accepted by {@code matcher}
+     * to {@code target}, for scans narrowed to the parts of the file that can match. The
+     * ranges are filtered one after another with a fresh fork of {@code matcher} each.
+     *
+     * @param source log file to scan
+     * @param ranges ascending, disjoint parts of the file to scan; each must start at the
+     *               beginning of a log record
+     * @param matcher filter applied to every line
+     * @param target stream receiving the matched lines; it is flushed but not closed
+     * @param progress progress of the task, started with the total length of the ranges
+     * @return number of bytes written to {@code target}
+     * @throws IOException if the log cannot be read or the result cannot be written
+     * @throws CancellationException if {@code progress} was cancelled during the scan
+     */
+    public long extract(Path source, List<ByteRange> ranges, LineMatcher matcher,
+                        OutputStream target, LogTaskProgress progress) throws IOException {
+        if (ranges.size() == 1) {
+            return extract(source, ranges.get(0), matcher, target, progress);
+        }
+        int bufferSize = (int) properties.getBufferSize().toBytes();
+        CountingOutputStream counter = new CountingOutputStream(target);
+        OutputStream out = new BufferedOutputStream(counter, bufferSize);
+        try (FileChannel channel = FileChannel.open(source, StandardOpenOption.READ)) {
+            long size = channel.size();
+            List<ByteRange> bounded = ranges.stream()
+                    .map(range -> new ByteRange(Math.min(range.start(), size),
+                            Math.min(range.end(), size)))
+                    .filter(range -> range.length() > 0)
+                    .toList();
+            progress.start(bounded.stream().mapToLong(ByteRange::length).sum());
+            byte[] buf = new byte[bufferSize];
+            for (ByteRange range : bounded) {
+                copyMatching(channel, range, matcher.fork(), out, buf, progress);
+            }
+        }
+        out.flush();
+        return counter.getCount();
+    }
+
+    /**
+     * Copies every line of {@code content} accepted by {@code matcher} to {@code target},
+     * for log records that are already in memory.
+     *
+     * @param content log records as written to the log file
+     * @param matcher filter applied to every line
+     * @param target stream receiving the matched lines; it is flushed but not closed
+     * @param progress progress of the task, started with the length of {@code content}
+     * @return number of bytes written to {@code target}
+     * @throws IOException if the result cannot be written
+     * @throws CancellationException if {@code progress} was cancelled before the scan
+     */
+    public long extract(byte[] content, LineMatcher matcher, OutputStream target,
+                        LogTaskProgress progress) throws IOException {
+        CountingOutputStream counter = new CountingOutputStream(target);
+        OutputStream out = new BufferedOutputStream(counter,
+                (int) properties.getBufferSize().toBytes());
+        progress.start(content.length);
+        checkCancelled(progress);
+        LineMatcher fork = matcher.fork();
+        MatchCounter matched = new MatchCounter();
+        int pending = copyMatchingLines(content, 0, content.length, fork, out, matched);
+        if (pending < content.length && fork.matches(content, pending, content.length)) {
+            out.write(content, pending, content.length - pending);
+            matched.lines++;
+        }
+        progress.add(content.length, matched.take());
+        out.flush();
+        return counter.getCount();
+    }
+
+    /**
+     * Collects the first matching lines of {@code range} of {@code source} within a byte
+     * and time budget, for an immediate preview of a task result.
+     *
+     * @param source log file to scan
+     * @param range part of the file to scan; it must start at the beginning of a log record
+     * @param matcher filter applied to every line
+     * @param lines receiver of the matching lines, without line terminators
+     * @param maxLines maximum number of lines to collect
+     * @param maxBytes maximum number of bytes to scan
+     * @param budget maximum time to spend scanning
+     * @return {@code true} if the whole range was scanned and {@code lines} holds all of
+     *         its matches
+     * @throws IOException if the log cannot be read
+     */
+    public boolean preview(Path source, ByteRange range, LineMatcher matcher, List<String> lines,
+                           int maxLines, long maxBytes, Duration budget) throws IOException {
+        long deadline = System.nanoTime() + budget.toNanos();
+        LineMatcher fork = matcher.fork();
+        try (FileChannel channel = FileChannel.open(source, StandardOpenOption.READ)) {
+            long end = Math.min(range.end(), channel.size());
+            long limit = Math.min(end, range.start() + maxBytes);
+            byte[] buf = new byte[(int) properties.getBufferSize().toBytes()];
+            long bufStart = range.start();
+            int filled = 0;
+            while (bufStart + filled < limit) {
+                int capacity = (int) Math.min(buf.length - filled, limit - bufStart - filled);
+                int read = channel.read(ByteBuffer.wrap(buf, filled, capacity), bufStart + filled);
+                if (read <= 0) {
+                    break;
+                }
+                filled += read;
+                int pending = collectLines(buf, filled, fork, lines, maxLines);
+                if (lines.size() >= maxLines) {
+                    return false;
+                }
+                if (pending == 0 && filled == buf.length) {
+                    buf = Arrays.copyOf(buf, buf.length * 2);
+                    continue;
+                }
+                System.arraycopy(buf, pending, buf, 0, filled - pending);
+                bufStart += pending;
+                filled -= pending;
+                if (System.nanoTime() > deadline) {
+                    return false;
+                }
+            }
+            if (bufStart + filled < end) {
+                return false;
+            }
+            collectTrailingLine(buf, filled, fork, lines);
+            return true;
+        }
+    }
+
+    /**
+     * Collects the first matching lines of log records that are already in memory.
+     *
+     * @param content log records as written to the log file
+     * @param matcher filter applied to every line
+     * @param lines receiver of the matching lines, without line terminators
+     * @param maxLines maximum number of lines to collect
+     * @return {@code true} if {@code lines} holds all matches of {@code content}
+     */
+    public boolean preview(byte[] content, LineMatcher matcher, List<String> lines,
+                           int maxLines) {
+        LineMatcher fork = matcher.fork();
+        int pending = collectLines(content, content.length, fork, lines, maxLines);
+        if (lines.size() >= maxLines) {
+            return false;
+        }
+        collectTrailingLine(Arrays.copyOfRange(content, pending, content.length),
+                content.length - pending, fork, lines);
+        return true;
+    }
+
+    /**
+     * Adds the matching complete lines in {@code buf[0, filled)} to {@code lines} until it
+     * holds {@code maxLines}.
+     *
+     * @return index of the first byte not examined
+     */
+    private static int collectLines(byte[] buf, int filled, LineMatcher matcher,
+                                    List<String> lines, int maxLines) {
+        int lineStart = 0;
+        for (int i = 0; i < filled && lines.size() < maxLines; i++) {
+            if (buf[i] != '\n') {
+                continue;
+            }
+            int lineEnd = i > lineStart && buf[i - 1] == '\r' ? i - 1 : i;
+            if (matcher.matches(buf, lineStart, lineEnd)) {
+                lines.add(new String(buf, lineStart, lineEnd - lineStart, StandardCharsets.UTF_8));
+            }
+            lineStart = i + 1;
+        }
+        return lineStart;
+    }
+
+    private static void collectTrailingLine(byte[] buf, int filled, LineMatcher matcher,
+                                            List<String> lines) {
+        if (filled > 0 && matcher.matches(buf, 0, filled)) {
+            lines.add(new String(buf, 0, filled, StandardCharsets.UTF_8));
+        }
+    }
+
+    /**
+     * Feeds every line inside {@code range} of {@code source} to {@code visitor} in file
+     * order on the calling thread, for visitors that aggregate lines instead of selecting
+     * them. Lines the visitor accepts are discarded.
+     *
+     * @param source log file to scan
+     * @param range part of the file to scan; it must start at the beginning of a line
+     * @param visitor receiver of every line; it is not forked
+     * @param progress progress of the scan, started with the length of the scanned range
+     * @throws IOException if the log cannot be read
+     * @throws CancellationException if {@code progress} was cancelled during the scan
+     */
+    public void scan(Path source, ByteRange range, LineMatcher visitor, LogTaskProgress progress)
+            throws IOException {
+        scan(source, range, List.of(), visitor, progress);
+    }
+
+    /**
+     * Feeds every line of parts of rolled {@code archives} and then every line inside
+     * {@code range}
+     * of {@code source} to {@code visitor}, in that order on the calling thread.
+     *
+     * @param source log file to scan
+     * @param range part of the file to scan; it must start at the beginning of a line
+     * @param archives parts of rolled archives of the log, plain or gzip-compressed, in
+     *                 the order they were written
+     * @param visitor receiver of every line; it is not forked
+     * @param progress progress of the scan, started with the compressed size of the
+     *                 archives plus the length of the scanned range
+     * @throws IOException if the log or an archive cannot be read
+     * @throws CancellationException if {@code progress} was cancelled during the scan
+     */
+    public void scan(Path source, ByteRange range, List<ArchiveSlice> archives,
+                     LineMatcher visitor, LogTaskProgress progress) throws IOException {
+        byte[] buf = new byte[(int) properties.getBufferSize().toBytes()];
+        try (FileChannel channel = FileChannel.open(source, StandardOpenOption.READ)) {
+            ByteRange bounded = new ByteRange(Math.min(range.start(), channel.size()),
+                    Math.min(range.end(), channel.size()));
+            progress.start(sizeOf(archives) + bounded.length());
+            for (ArchiveSlice archive : archives) {
+                try (CountingInputStream compressed = open(archive);
+                     InputStream in = decompress(archive, compressed, buf.length)) {
+                    copyMatching(in, compressed, visitor, OutputStream.nullOutputStream(), buf,
+                            progress);
+                }
+            }
+            copyMatching(channel, bounded, visitor, OutputStream.nullOutputStream(), buf,
+                    progress);
+        }
+    }
+
+    /**
+     * Copies every line of parts of rolled {@code archives} and then every line inside
+     * {@code ranges} of {@code source} accepted by {@code matcher} to {@code target}, in
+     * that order. The archives are decompressed and filtered concurrently on the scan
+     * pool, each into a spool file in {@code spoolDir} that is copied to {@code target}
+     * in turn.
+     *
+     * @param source log file to scan
+     * @param ranges ascending, disjoint parts of the file to scan; each must start at the
+     *               beginning of a log record
+     * @param archives parts of rolled archives of the log, plain or gzip-compressed, in
+     *                 the order they were written
+     * @param matcher filter applied to every line
+     * @param target stream receiving the matched lines; it is flushed but not closed
+     * @param progress progress of the task, started with the compressed size of the
+     *                 archives plus the total length of the ranges
+     * @param spoolDir directory for the filtered archives
+     * @return number of bytes written to {@code target}
+     * @throws IOException if the log or an archive cannot be read or the result cannot be
+     *         written
+     * @throws CancellationException if {@code progress} was cancelled during the scan
+     */
+    public long extract(Path source, List<ByteRange> ranges, List<ArchiveSlice> archives,
+                        LineMatcher matcher, OutputStream target, LogTaskProgress progress,
+                        Path spoolDir) throws IOException {
+        if (archives.isEmpty()) {
+            return extract(source, ranges, matcher, target, progress);
+        }
+        int bufferSize = (int) properties.getBufferSize().toBytes();
+        CountingOutputStream counter = new CountingOutputStream(target);
+        OutputStream out = new BufferedOutputStream(counter, bufferSize);
+        try (FileChannel channel = FileChannel.open(source, StandardOpenOption.READ)) {
+            long size = channel.size();
+            List<ByteRange> bounded = ranges.stream()
+                    .map(range -> new ByteRange(Math.min(range.start(), size),
+                            Math.min(range.end(), size)))
+                    .filter(range -> range.length() > 0)
+                    .toList();
+            progress.start(sizeOf(archives)
+                    + bounded.stream().mapToLong(ByteRange::length).sum());
+            copyArchives(archives, matcher, out, progress, spoolDir, bufferSize);
+            byte[] buf = new byte[bufferSize];
+            for (ByteRange range : bounded) {
+                copyMatching(channel, range, matcher.fork(), out, buf, progress);
+            }
+        }
+        out.flush();
+        return counter.getCount();
+    }
+
+    private void copyArchives(List<ArchiveSlice> archives, LineMatcher matcher,
+                              OutputStream target,
+                              LogTaskProgress progress, Path spoolDir, int bufferSize)
+            throws IOException {
+        AtomicBoolean aborted = new AtomicBoolean();
+        List<Future<Path>> parts = new ArrayList<>();
+        int next = 0;
+        try {
+            for (ArchiveSlice archive : archives) {
+                parts.add(scanPool.submit(() -> filterArchive(
+                        archive, matcher, progress, spoolDir, bufferSize, aborted)));
+            }
+            for (; next < parts.size(); next++) {
+                Path part = parts.get(next).get();
+                try {
+                    Files.copy(part, target);
+                } finally {
+                    Files.deleteIfExists(part);
+                }
+                checkCancelled(progress);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Archive scan interrupted");
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof CancellationException cancelled) {
+                throw cancelled;
+            }
+            throw new IOException("Archive scan failed", e.getCause());
+        } finally {
+            aborted.set(true);
+            for (int i = next; i < parts.size(); i++) {
+                discard(parts.get(i));
+            }
+        }
+    }
+
+    /**
+     * Filters one archive into a spool file, or returns {@code null} when the scan was
+     * aborted before it started. An abort raised while copying stops it at the next read.
+     */
+    private static Path filterArchive(ArchiveSlice archive, LineMatcher matcher,
+                                      LogTaskProgress progress, Path spoolDir, int bufferSize,
+                                      AtomicBoolean aborted) throws IOException {
+        if (aborted.get()) {
+            return null;
+        }
+        Path part = Files.createTempFile(spoolDir, "logs-archive-", ".part");
+        try (CountingInputStream compressed = open(archive);
+             InputStream in = new AbortableInputStream(
+                     decompress(archive, compressed, bufferSize), aborted);
+             OutputStream out = new BufferedOutputStream(Files.newOutputStream(part),
+                     bufferSize)) {
+            copyMatching(in, compressed, matcher.fork(), out, new byte[bufferSize], progress);
+        } catch (IOException | RuntimeException e) {
+            Files.deleteIfExists(part);
+            throw e;
+        }
+        return part;
+    }
+
+    /**
+     * Waits for an archive that will not be copied and deletes its spool file. Cancelling
+     * the future is not enough: a running task keeps going and still creates the file.
+     */
+    private static void discard(Future<Path> part) {
+        boolean interrupted = false;
+        try {
+            while (true) {
+                try {
+                    Path path = part.get();
+                    if (path != null) {
+                        Files.deleteIfExists(path);
+                    }
+                    return;
+                } catch (InterruptedException e) {
+                    interrupted = true;
+                } catch (ExecutionException | CancellationException | IOException e) {
+                    // The archive failed or was aborted and cleaned up after itself.
+                    return;
+                }
+            }
+        } finally {
+            if (interrupted) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    /**
+     * Opens the compressed bytes of an archive part.
+     */
+    private static CountingInputStream open(ArchiveSlice archive) throws IOException {
+        FileChannel channel = FileChannel.open(archive.file(), StandardOpenOption.READ);
+        try {
+            long end = Math.min(archive.range().end(), channel.size());
+            long start = Math.min(archive.range().start(), end);
+            channel.position(start);
+            return new CountingInputStream(Channels.newInputStream(channel), end - start);
+        } catch (IOException | RuntimeException e) {
+            channel.close();
+            throw e;
+        }
+    }
+
+    private static InputStream decompress(ArchiveSlice archive, InputStream compressed,
+                                          int bufferSize) throws IOException {
+        return archive.file().getFileName().toString().endsWith(".gz")
+                ? new GZIPInputStream(compressed, bufferSize)
+                : compressed;
+    }
+
+    private static long sizeOf(List<ArchiveSlice> archives) throws IOException {
+        long total = 0;
+        for (ArchiveSlice archive : archives) {
+            long size = Files.size(archive.file());
+            total += Math.min(archive.range().end(), size)
+                    - Math.min(archive.range().start(), size);
+        }
+        return total;
+    }
+
+    /**
+     * Splits the range into chunks that start at log records, so that continuation lines
+     * stay with their record, filters them on the scan pool and
+     * writes their output in file order. At most two chunks per worker are in flight, so
+     * memory stays bounded by {@code 2 * parallelism * chunkSize}.
+     */
+    private void extractParallel(FileChannel channel, ByteRange range, LineMatcher matcher,
+                                 OutputStream target, LogTaskProgress progress)
+            throws IOException {
+        long chunkSize = properties.getScan().getChunkSize().toBytes();
+        int window = 2 * scanPool.getParallelism();
+        Deque<Future<byte[]>> inFlight = new ArrayDeque<>();
+        long position = range.start();
+
+        try {
+            while (position < range.end() || !inFlight.isEmpty()) {
+                while (position < range.end() && inFlight.size() < window) {
+                    long chunkEnd = nextRecordStart(channel, position + chunkSize, range.end());
+                    ByteRange chunk = new ByteRange(position, chunkEnd);
+                    inFlight.add(scanPool.submit(
+                            () -> filterChunk(channel, chunk, matcher, progress)));
+                    position = chunkEnd;
+                }
+                byte[] output = inFlight.removeFirst().get();
+                checkCancelled(progress);
+                target.write(output);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Parallel log scan interrupted");
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof CancellationException cancelled) {
+                throw cancelled;
+            }
+            throw new IOException("Parallel log scan failed", e.getCause());
+        } finally {
+            inFlight.forEach(future -> future.cancel(true));
+        }
+    }
+
+    private byte[] filterChunk(FileChannel channel, ByteRange chunk, LineMatcher matcher,
+                               LogTaskProgress progress) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        copyMatching(channel, chunk, matcher.fork(), out, new byte[(int) chunk.length()],
+                progress);
+        return out.toByteArray();
+    }
+
+    /**
+     * Filters {@code range} through {@code buf}, growing the buffer only when a single
+     * line does not fit into it.
+     */
+    private static void copyMatching(FileChannel channel, ByteRange range, LineMatcher matcher,
+                                     OutputStream out, byte[] buf, LogTaskProgress progress)
+            throws IOException {
+        long bufStart = range.start();
+        int filled = 0;
+        int scanned = 0;
+        MatchCounter matched = new MatchCounter();
+
+        while (bufStart + filled < range.end()) {
+            int capacity = (int) Math.min(buf.length - filled, range.end() - bufStart - filled);
+            int read = channel.read(ByteBuffer.wrap(buf, filled, capacity), bufStart + filled);
+            if (read <= 0) {
+                break;
+            }
+            filled += read;
+            int pending = copyMatchingLines(buf, scanned, filled, matcher, out, matched);
+            if (pending == 0 && filled == buf.length) {
+                buf = Arrays.copyOf(buf, buf.length * 2);
+                scanned = filled;
+                continue;
+            }
+            progress.add(pending, matched.take());
+            checkCancelled(progress);
+            System.arraycopy(buf, pending, buf, 0, filled - pending);
+            bufStart += pending;
+            filled -= pending;
+            scanned = filled;
+        }
+        if (filled > 0 && matcher.matches(buf, 0, filled)) {
+            out.write(buf, 0, filled);
+            matched.lines++;
+        }
+        progress.add(filled, matched.take());
+    }
+
+    /**
+     * Filters a stream through {@code buf} like the file variant; progress is reported in
+     * the bytes {@code consumed} has read, i.e. compressed bytes for an archive.
+     */
+    private static void copyMatching(InputStream in, CountingInputStream consumed,
+                                     LineMatcher matcher, OutputStream out, byte[] buf,
+                                     LogTaskProgress progress) throws IOException {
+        int filled = 0;
+        int scanned = 0;
+        long reported = 0;
+        MatchCounter matched = new MatchCounter();
+
+        for (int read; (read = in.read(buf, filled, buf.length - filled)) >= 0; ) {
+            filled += read;
+            int pending = copyMatchingLines(buf, scanned, filled, matcher, out, matched);
+            if (pending == 0 && filled == buf.length) {
+                buf = Arrays.copyOf(buf, buf.length * 2);
+                scanned = filled;
+                continue;
+            }
+            long position = consumed.getCount();
+            progress.add(position - reported, matched.take());
+            reported = position;
+            checkCancelled(progress);
+            System.arraycopy(buf, pending, buf, 0, filled - pending);
+            filled -= pending;
+            scanned = filled;
+        }
+        if (filled > 0 && matcher.matches(buf, 0, filled)) {
+            out.write(buf, 0, filled);
+            matched.lines++;
+        }
+        progress.add(consumed.getCount() - reported, matched.take());
+    }
+
+    private static void checkCancelled(LogTaskProgress progress) {
+        if (progress.isCancelled()) {
+            throw new CancellationException("Log scan cancelled");
+        }
+    }
+
+    /**
+     * Copies the complete lines in {@code buf[0, filled)} that match, looking for line
+     * breaks from {@code scanFrom} on; bytes before it are known to hold no line break.
+     *
+     * @return index of the first byte of the trailing incomplete line
+     */
+    private static int copyMatchingLines(byte[] buf, int scanFrom, int filled,
+                                         LineMatcher matcher, OutputStream out,
+                                         MatchCounter matched) throws IOException {
+        int lineStart = 0;
+        int runStart = -1;
+        for (int i = scanFrom; i < filled; i++) {
+            if (buf[i] != '\n') {
+                continue;
+            }
+            int lineEnd = i > lineStart && buf[i - 1] == '\r' ? i - 1 : i;
+            if (matcher.matches(buf, lineStart, lineEnd)) {
+                matched.lines++;
+                if (runStart < 0) {
+                    runStart = lineStart;
+                }
+            } else if (runStart >= 0) {
+                out.write(buf, runStart, lineStart - runStart);
+                runStart = -1;
+            }
+            lineStart = i + 1;
+        }
+        if (runStart >= 0) {
+            out.write(buf, runStart, lineStart - runStart);
+        }
+        return lineStart;
+    }
+
+    /**
+     * Returns the offset of the first line at or after {@code from} that starts a log
+     * record, i.e. follows a newline and begins with a timestamp digit, or {@code limit} if
+     * there is none before it.
+     */
+    private static long nextRecordStart(FileChannel channel, long from, long limit)
+            throws IOException {
+        ByteBuffer probe = ByteBuffer.allocate(PROBE_SIZE);
+        long position = from - 1;
+        boolean afterNewline = false;
+        while (position < limit) {
+            probe.clear().limit((int) Math.min(PROBE_SIZE, limit - position));
+            int read = channel.read(probe, position);
+            if (read <= 0) {
+                return limit;
+            }
+            for (int i = 0; i < read; i++) {
+                byte b = probe.get(i);
+                if (afterNewline && b >= '0' && b <= '9') {
+                    return position + i;
+                }
+                afterNewline = b == '\n';
+            }
+            position += read;
+        }
+        return limit;
+    }
+
+    /**
+     * Stops the scan workers when the application context closes.
+     */
+    @PreDestroy
+    public void shutdown() {
+        scanPool.shutdownNow();
+    }
+
+    /**
+     * Lines matched since the last progress update of one scan.
+     */
+    private static final class MatchCounter {
+        private long lines;
+
+        long take() {
+            long taken = lines;
+            lines = 0;
+            return taken;
+        }
+    }
+
+    /**
+     * Pass-through stream that reads at most {@code limit} bytes of the underlying stream
+     * and counts them.
+     */
+    private static final class CountingInputStream extends FilterInputStream {
+        private final long limit;
+        private long count;
+
+        CountingInputStream(InputStream in, long limit) {
+            super(in);
+            this.limit = limit;
+        }
+
+        @Override
+        public int read() throws IOException {
+            if (count >= limit) {
+                return -1;
+            }
+            int b = in.read();
+            if (b >= 0) {
+                count++;
+            }
+            return b;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            if (count >= limit) {
+                return -1;
+            }
+            int read = in.read(b, off, (int) Math.min(len, limit - count));
+            if (read > 0) {
+                count += read;
+            }
+            return read;
+        }
+
+        @Override
+        public long skip(long n) throws IOException {
+            long skipped = in.skip(Math.min(n, limit - count));
+            count += skipped;
+            return skipped;
+        }
+
+        @Override
+        public int available() throws IOException {
+            return (int) Math.min(in.available(), limit - count);
+        }
+
+        long getCount() {
+            return count;
+        }
+    }
+
+    /**
+     * Pass-through stream that stops with a {@link CancellationException} once the shared
+     * abort flag is set.
+     */
+    private static final class AbortableInputStream extends FilterInputStream {
+        private final AtomicBoolean aborted;
+
+        AbortableInputStream(InputStream in, AtomicBoolean aborted) {
+            super(in);
+            this.aborted = aborted;
+        }
+
+        @Override
+        public int read() throws IOException {
+            checkAborted();
+            return in.read();
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            checkAborted();
+            return in.read(b, off, len);
+        }
+
+        private void checkAborted() {
+            if (aborted.get()) {
+                throw new CancellationException("Archive scan aborted");
+            }
+        }
+    }
+
+    /**
+     * Pass-through stream that counts the bytes written to the underlying stream.
+     */
+    private static final class CountingOutputStream extends FilterOutputStream {
+        private long count;
+
+        CountingOutputStream(OutputStream out) {
+            super(out);
+        }
+
+        @Override
+        public void write(int b) throws IOException {
+            out.write(b);
+            count++;
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            out.write(b, off, len);
+            count += len;
+        }
+
+        long getCount() {
+            return count;
+        }
+    }
+}
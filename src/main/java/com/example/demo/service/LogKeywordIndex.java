@@ -0,0 +1,787 @@
+package com.example.demo.service;
+
+import com.example.demo.config.LogProperties;
+import com.example.demo.utils.ByteRange;
+import com.example.demo.utils.LogFingerprint;
+import com.example.demo.utils.LogTimestamps;
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.PriorityQueue;
+import java.util.concurrent.locks.ReentrantLock;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+/**
+ * On-disk inverted index from the tokens of log records to the blocks of the log file
+ * that contain them.
+ *
+ * <p>The log is divided into blocks of roughly {@code app.logs.keywords.block-size} bytes
+ * that start at log records, so a record never spans two blocks. Every record line is split
+ * into tokens, i.e. maximal runs of letters, digits, underscores and non-ASCII bytes, and
+ * each token is mapped to the ascending list of blocks it occurs in, delta- and
+ * varint-encoded. Continuation lines are not indexed because keyword filters only look at
+ * the first line of a record.
+ *
+ * <p>The index is extended by a background pass every
+ * {@code app.logs.keywords.refresh-interval}. Postings are buffered in memory up to
+ * {@code app.logs.keywords.max-buffered-postings} and then written as an immutable, sorted
+ * segment; when there are more than {@code app.logs.keywords.max-segments} segments the
+ * smallest ones are merged in one streaming pass, so memory stays bounded by the buffer
+ * and one posting list per merged segment. A checkpoint next to the log records the
+ * indexed length, the fingerprint of the log and the live segments; a log that shrank or
+ * was replaced is indexed again from scratch, and {@link #rebuild()} does the same on
+ * request.
+ *
+ * <p>Lookups never wait for indexing: they work on the last committed snapshot and fall
+ * back to a full scan when the snapshot does not describe the current log.
+ */
+@Slf4j
+@Service
+public class LogKeywordIndex {
+    private static final String DIRECTORY_SUFFIX = ".kwi";
+    private static final String CHECKPOINT = "checkpoint";
+    private static final String BLOCKS = "blocks";
+    private static final String SEGMENT_PREFIX = "segment-";
+    private static final String TEMP_SUFFIX = ".tmp";
+    private static final long CHECKPOINT_MAGIC = 0x4C4F474B5749_0001L;
+    private static final long SEGMENT_MAGIC = 0x4C4F474B5753_0001L;
+    private static final int SEGMENT_HEADER_BYTES = Long.BYTES + Integer.BYTES + Long.BYTES;
+    private static final int MAX_TOKEN_LENGTH = 64;
+
+    private final LogProperties properties;
+    private final ReentrantLock lock = new ReentrantLock();
+
+    private Path logFile;
+    private Path directory;
+    private long[] blockStarts = new long[64];
+    private int blockCount;
+    private int persistedBlocks;
+    private long indexedUpTo;
+    private long fingerprint;
+    private final List<Segment> segments = new ArrayList<>();
+    private long nextSegmentId;
+    private final Map<String, Postings> buffer = new HashMap<>();
+    private int bufferedPostings;
+    private volatile Snapshot snapshot;
+
+    /**
+     * Constructs a LogKeywordIndex with the log subsystem settings.
+     *
+     * @param properties log processing settings
+     */
+    public LogKeywordIndex(LogProperties properties) {
+        this.properties = properties;
+    }
+
+    /**
+     * Finds the parts of the log file whose records can contain all {@code keywords}.
+     *
+     * @param keywords substrings that a matching record line must contain
+     * @return ascending, disjoint ranges that start at log records and include everything
+     *         appended after the last indexing pass, or an empty optional if the index
+     *         cannot narrow the scan and the whole file has to be read
+     */
+    public Optional<List<ByteRange>> candidates(List<String> keywords) {
+        Snapshot current = snapshot;
+        if (!properties.getKeywords().isEnabled() || current == null || keywords == null) {
+            return Optional.empty();
+        }
+        List<Constraint> constraints = new ArrayList<>();
+        keywords.forEach(keyword -> constraints.addAll(Constraint.of(keyword)));
+        if (constraints.isEmpty()) {
+            return Optional.empty();
+        }
+        try {
+            if (!current.logFile().equals(Paths.get(properties.getFile()))
+                    || Files.size(current.logFile()) < current.indexedUpTo()
+                    || LogFingerprint.read(current.logFile()) != current.fingerprint()) {
+                return Optional.empty();
+            }
+            BitSet[] matches = new BitSet[constraints.size()];
+            Arrays.setAll(matches, i -> new BitSet(current.blockCount()));
+            for (Path segment : current.segments()) {
+                collect(segment, constraints, matches);
+            }
+            BitSet blocks = matches[0];
+            for (int i = 1; i < matches.length; i++) {
+                blocks.and(matches[i]);
+            }
+            return Optional.of(current.ranges(blocks));
+        } catch (IOException e) {
+            // A merge may have removed a segment of this snapshot in the meantime.
+            log.debug("Keyword index lookup failed, scanning the whole log: {}", e.getMessage());
+            return Optional.empty();
+        }
+    }
+
+    /**
+     * Indexes the bytes appended to the log since the previous pass. Does nothing while the
+     * log does not exist or the index is disabled.
+     */
+    @Scheduled(fixedDelayString = "#{@logProperties.keywords.refreshInterval.toMillis()}")
+    public void refreshInBackground() {
+        if (!properties.getKeywords().isEnabled()
+                || !Files.exists(Paths.get(properties.getFile()))) {
+            return;
+        }
+        try {
+            refresh();
+        } catch (IOException e) {
+            log.warn("Keyword indexing of {} failed: {}", properties.getFile(), e.getMessage());
+        }
+    }
+
+    /**
+     * Indexes the record lines appended to the log since the previous call.
+     *
+     * @throws IOException if the log or the index cannot be read or written
+     */
+    public void refresh() throws IOException {
+        lock.lock();
+        try {
+            Path current = Paths.get(properties.getFile());
+            if (!current.equals(logFile)) {
+                load(current);
+            }
+            long fileSize = Files.size(logFile);
+            if (fileSize < indexedUpTo
+                    || indexedUpTo > 0 && LogFingerprint.read(logFile) != fingerprint) {
+                log.info("Log file {} was rotated or rewritten, rebuilding keyword index",
+                        logFile);
+                clear();
+            }
+            if (fileSize == indexedUpTo) {
+                return;
+            }
+            try (FileChannel channel = FileChannel.open(logFile, StandardOpenOption.READ)) {
+                scan(channel);
+            }
+            flush();
+            mergeSegments();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Drops the whole index; the next background pass builds it again from the beginning of
+     * the log. Until then keyword queries scan the whole file.
+     *
+     * @throws IOException if the index files cannot be deleted
+     */
+    public void rebuild() throws IOException {
+        lock.lock();
+        try {
+            Path current = Paths.get(properties.getFile());
+            if (!current.equals(logFile)) {
+                load(current);
+            }
+            log.info("Rebuilding keyword index of {} on request", logFile);
+            clear();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void scan(FileChannel channel) throws IOException {
+        long blockSize = properties.getKeywords().getBlockSize().toBytes();
+        int maxBuffered = properties.getKeywords().getMaxBufferedPostings();
+        byte[] buf = new byte[(int) properties.getBufferSize().toBytes()];
+        long bufStart = indexedUpTo;
+        int filled = 0;
+        int scanned = 0;
+
+        while (true) {
+            int read = channel.read(ByteBuffer.wrap(buf, filled, buf.length - filled),
+                    bufStart + filled);
+            if (read <= 0) {
+                break;
+            }
+            filled += read;
+            int lineStart = 0;
+            for (int i = scanned; i < filled; i++) {
+                if (buf[i] != '\n') {
+                    continue;
+                }
+                long lineOffset = bufStart + lineStart;
+                if (lineOffset == 0) {
+                    fingerprint = LogFingerprint.of(buf, 0, i);
+                }
+                boolean record = LogTimestamps.epochSecond(buf, lineStart, i - lineStart) >= 0;
+                if (blockCount == 0
+                        || record && lineOffset >= blockStarts[blockCount - 1] + blockSize) {
+                    addBlock(lineOffset);
+                }
+                if (record) {
+                    tokenize(buf, lineStart, i, blockCount - 1);
+                }
+                lineStart = i + 1;
+                if (bufferedPostings >= maxBuffered) {
+                    indexedUpTo = bufStart + lineStart;
+                    flush();
+                }
+            }
+            if (lineStart == 0 && filled == buf.length) {
+                buf = Arrays.copyOf(buf, buf.length * 2);
+                scanned = filled;
+                continue;
+            }
+            System.arraycopy(buf, lineStart, buf, 0, filled - lineStart);
+            bufStart += lineStart;
+            filled -= lineStart;
+            scanned = filled;
+        }
+        indexedUpTo = bufStart;
+    }
+
+    private void tokenize(byte[] buf, int start, int end, int block) {
+        int p = start;
+        while (p < end) {
+            while (p < end && !isTokenByte(buf[p])) {
+                p++;
+            }
+            int tokenStart = p;
+            while (p < end && isTokenByte(buf[p])) {
+                p++;
+            }
+            if (p > tokenStart) {
+                String token = new String(buf, tokenStart,
+                        Math.min(p - tokenStart, MAX_TOKEN_LENGTH), StandardCharsets.ISO_8859_1);
+                if (buffer.computeIfAbsent(token, key -> new Postings()).add(block)) {
+                    bufferedPostings++;
+                }
+            }
+        }
+    }
+
+    private void addBlock(long offset) {
+        if (blockCount == blockStarts.length) {
+            blockStarts = Arrays.copyOf(blockStarts, blockCount * 2);
+        }
+        blockStarts[blockCount++] = offset;
+    }
+
+    /**
+     * Commits the buffered postings as a new segment together with the new blocks and the
+     * checkpoint. The checkpoint is replaced atomically last, so files written by a pass
+     * that did not commit are ignored and removed on the next start.
+     */
+    private void flush() throws IOException {
+        Files.createDirectories(directory);
+        if (!buffer.isEmpty()) {
+            Path file = directory.resolve(SEGMENT_PREFIX + nextSegmentId++);
+            List<String> terms = new ArrayList<>(buffer.keySet());
+            terms.sort(null);
+            try (SegmentWriter writer = new SegmentWriter(file)) {
+                for (String term : terms) {
+                    Postings postings = buffer.get(term);
+                    writer.add(term, postings.blocks, postings.size);
+                }
+            }
+            segments.add(new Segment(file, Files.size(file)));
+            buffer.clear();
+            bufferedPostings = 0;
+        }
+        try (FileChannel blocks = FileChannel.open(directory.resolve(BLOCKS),
+                StandardOpenOption.CREATE, StandardOpenOption.WRITE)) {
+            ByteBuffer appended = ByteBuffer.allocate((blockCount - persistedBlocks) * Long.BYTES);
+            for (int i = persistedBlocks; i < blockCount; i++) {
+                appended.putLong(blockStarts[i]);
+            }
+            appended.flip();
+            long position = (long) persistedBlocks * Long.BYTES;
+            while (appended.hasRemaining()) {
+                position += blocks.write(appended, position);
+            }
+            blocks.truncate(position);
+            persistedBlocks = blockCount;
+        }
+        writeCheckpoint();
+        publish();
+    }
+
+    /**
+     * Merges the smallest segments into one while there are too many of them.
+     */
+    private void mergeSegments() throws IOException {
+        int maxSegments = Math.max(1, properties.getKeywords().getMaxSegments());
+        if (segments.size() <= maxSegments) {
+            return;
+        }
+        List<Segment> merged = new ArrayList<>(segments);
+        merged.sort(Comparator.comparingLong(Segment::size));
+        merged = merged.subList(0, Math.max(2, segments.size() - maxSegments / 2));
+
+        Path file = directory.resolve(SEGMENT_PREFIX + nextSegmentId++);
+        List<SegmentReader> readers = new ArrayList<>();
+        try (SegmentWriter writer = new SegmentWriter(file)) {
+            PriorityQueue<SegmentReader> queue =
+                    new PriorityQueue<>(Comparator.comparing(SegmentReader::term));
+            for (Segment segment : merged) {
+                SegmentReader reader = new SegmentReader(segment.file());
+                readers.add(reader);
+                if (reader.next()) {
+                    queue.add(reader);
+                }
+            }
+            while (!queue.isEmpty()) {
+                String term = queue.peek().term();
+                int[] blocks = new int[0];
+                while (!queue.isEmpty() && queue.peek().term().equals(term)) {
+                    SegmentReader reader = queue.poll();
+                    blocks = union(blocks, reader.postings());
+                    if (reader.next()) {
+                        queue.add(reader);
+                    }
+                }
+                writer.add(term, blocks, blocks.length);
+            }
+        } finally {
+            for (SegmentReader reader : readers) {
+                reader.close();
+            }
+        }
+
+        segments.removeAll(merged);
+        segments.add(new Segment(file, Files.size(file)));
+        writeCheckpoint();
+        publish();
+        for (Segment segment : merged) {
+            Files.deleteIfExists(segment.file());
+        }
+        log.debug("Merged {} keyword index segments into {}", merged.size(), file);
+    }
+
+    private void writeCheckpoint() throws IOException {
+        ByteBuffer checkpoint = ByteBuffer.allocate(6 * Long.BYTES + segments.size() * Long.BYTES)
+                .putLong(CHECKPOINT_MAGIC).putLong(indexedUpTo).putLong(fingerprint)
+                .putLong(blockCount).putLong(nextSegmentId).putLong(segments.size());
+        for (Segment segment : segments) {
+            checkpoint.putLong(segmentId(segment.file()));
+        }
+        Path target = directory.resolve(CHECKPOINT);
+        Path temp = directory.resolve(CHECKPOINT + TEMP_SUFFIX);
+        Files.write(temp, checkpoint.array());
+        Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING,
+                StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    private void load(Path file) throws IOException {
+        logFile = file;
+        directory = file.resolveSibling(file.getFileName() + DIRECTORY_SUFFIX);
+        resetState();
+        Path checkpointFile = directory.resolve(CHECKPOINT);
+        if (!Files.exists(checkpointFile)) {
+            clear();
+            return;
+        }
+        try {
+            ByteBuffer checkpoint = ByteBuffer.wrap(Files.readAllBytes(checkpointFile));
+            if (checkpoint.getLong() != CHECKPOINT_MAGIC) {
+                throw new IOException("unknown format");
+            }
+            long persistedUpTo = checkpoint.getLong();
+            long persistedFingerprint = checkpoint.getLong();
+            int persistedBlockCount = (int) checkpoint.getLong();
+            nextSegmentId = checkpoint.getLong();
+            long segmentCount = checkpoint.getLong();
+            for (long i = 0; i < segmentCount; i++) {
+                Path segment = directory.resolve(SEGMENT_PREFIX + checkpoint.getLong());
+                segments.add(new Segment(segment, Files.size(segment)));
+            }
+            try (FileChannel blocks = FileChannel.open(directory.resolve(BLOCKS),
+                    StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+                ByteBuffer starts = ByteBuffer.allocate(persistedBlockCount * Long.BYTES);
+                while (starts.hasRemaining() && blocks.read(starts, starts.position()) > 0) {
+                    continue;
+                }
+                if (starts.hasRemaining()) {
+                    throw new EOFException("blocks file is shorter than the checkpoint");
+                }
+                blocks.truncate((long) persistedBlockCount * Long.BYTES);
+                starts.flip();
+                while (starts.hasRemaining()) {
+                    addBlock(starts.getLong());
+                }
+            }
+            persistedBlocks = blockCount;
+            indexedUpTo = persistedUpTo;
+            fingerprint = persistedFingerprint;
+        } catch (IOException | RuntimeException e) {
+            log.warn("Ignoring unreadable keyword index {}: {}", directory, e.getMessage());
+            clear();
+            return;
+        }
+        deleteUncommittedFiles();
+        publish();
+    }
+
+    /**
+     * Removes segments and temporary files left by a pass that stopped before committing.
+     */
+    private void deleteUncommittedFiles() throws IOException {
+        List<Path> live = segments.stream().map(Segment::file).toList();
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(directory)) {
+            for (Path file : files) {
+                String name = file.getFileName().toString();
+                if (name.endsWith(TEMP_SUFFIX)
+                        || name.startsWith(SEGMENT_PREFIX) && !live.contains(file)) {
+                    Files.deleteIfExists(file);
+                }
+            }
+        }
+    }
+
+    private void clear() throws IOException {
+        resetState();
+        snapshot = null;
+        if (Files.isDirectory(directory)) {
+            try (DirectoryStream<Path> files = Files.newDirectoryStream(directory)) {
+                for (Path file : files) {
+                    Files.deleteIfExists(file);
+                }
+            }
+        }
+    }
+
+    private void resetState() {
+        blockCount = 0;
+        persistedBlocks = 0;
+        indexedUpTo = 0;
+        fingerprint = 0;
+        nextSegmentId = 0;
+        segments.clear();
+        buffer.clear();
+        bufferedPostings = 0;
+    }
+
+    private void publish() {
+        snapshot = new Snapshot(logFile, Arrays.copyOf(blockStarts, blockCount), blockCount,
+                indexedUpTo, fingerprint, segments.stream().map(Segment::file).toList());
+    }
+
+    private static void collect(Path segment, List<Constraint> constraints, BitSet[] matches)
+            throws IOException {
+        try (SegmentReader reader = new SegmentReader(segment)) {
+            while (reader.next()) {
+                int[] blocks = null;
+                for (int i = 0; i < constraints.size(); i++) {
+                    if (constraints.get(i).matches(reader.term())) {
+                        if (blocks == null) {
+                            blocks = reader.postings();
+                        }
+                        for (int block : blocks) {
+                            matches[i].set(block);
+                        }
+                    }
+                }
+            }
+        }
+    }
+
+    private static int[] union(int[] a, int[] b) {
+        int[] result = new int[a.length + b.length];
+        int i = 0;
+        int j = 0;
+        int size = 0;
+        while (i < a.length || j < b.length) {
+            int next = j >= b.length || i < a.length && a[i] <= b[j] ? a[i++] : b[j++];
+            if (size == 0 || result[size - 1] != next) {
+                result[size++] = next;
+            }
+        }
+        return Arrays.copyOf(result, size);
+    }
+
+    private static boolean isTokenByte(byte b) {
+        return b < 0 || b >= 'a' && b <= 'z' || b >= 'A' && b <= 'Z' || b >= '0' && b <= '9'
+                || b == '_';
+    }
+
+    private static long segmentId(Path segment) {
+        return Long.parseLong(segment.getFileName().toString().substring(SEGMENT_PREFIX.length()));
+    }
+
+    private static void writeVarint(OutputStream out, long value) throws IOException {
+        while ((value & ~0x7FL) != 0) {
+            out.write((int) (value & 0x7F) | 0x80);
+            value >>>= 7;
+        }
+        out.write((int) value);
+    }
+
+    private static long readVarint(InputStream in) throws IOException {
+        long value = 0;
+        for (int shift = 0; ; shift += 7) {
+            int b = in.read();
+            if (b < 0) {
+                throw new EOFException("Truncated keyword index segment");
+            }
+            value |= (long) (b & 0x7F) << shift;
+            if ((b & 0x80) == 0) {
+                return value;
+            }
+        }
+    }
+
+    /**
+     * Committed state that lookups work on without taking the lock.
+     */
+    private record Snapshot(Path logFile, long[] blockStarts, int blockCount, long indexedUpTo,
+                            long fingerprint, List<Path> segments) {
+
+        /**
+         * Turns a set of blocks into merged byte ranges, followed by the unindexed tail.
+         */
+        List<ByteRange> ranges(BitSet blocks) {
+            List<ByteRange> ranges = new ArrayList<>();
+            long start = -1;
+            long end = -1;
+            for (int block = blocks.nextSetBit(0); block >= 0 && block < blockCount;
+                 block = blocks.nextSetBit(block + 1)) {
+                long blockStart = blockStarts[block];
+                long blockEnd = block + 1 < blockCount ? blockStarts[block + 1] : indexedUpTo;
+                if (blockStart != end) {
+                    if (start >= 0) {
+                        ranges.add(new ByteRange(start, end));
+                    }
+                    start = blockStart;
+                }
+                end = blockEnd;
+            }
+            if (start >= 0 && end == indexedUpTo) {
+                ranges.add(new ByteRange(start, Long.MAX_VALUE));
+            } else {
+                if (start >= 0) {
+                    ranges.add(new ByteRange(start, end));
+                }
+                ranges.add(new ByteRange(indexedUpTo, Long.MAX_VALUE));
+            }
+            return ranges;
+        }
+    }
+
+    private record Segment(Path file, long size) {
+    }
+
+    /**
+     * Condition that a keyword puts on the tokens of a matching line. Only the first and the
+     * last token of a keyword can be cut off by the keyword's ends; the tokens in between
+     * must occur in the line as they are.
+     */
+    private record Constraint(String token, Kind kind) {
+
+        enum Kind { EXACT, PREFIX, SUFFIX, INFIX }
+
+        static List<Constraint> of(String keyword) {
+            byte[] bytes = keyword.getBytes(StandardCharsets.UTF_8);
+            List<Constraint> constraints = new ArrayList<>();
+            int p = 0;
+            while (p < bytes.length) {
+                while (p < bytes.length && !isTokenByte(bytes[p])) {
+                    p++;
+                }
+                int start = p;
+                while (p < bytes.length && isTokenByte(bytes[p])) {
+                    p++;
+                }
+                if (p == start) {
+                    break;
+                }
+                boolean openStart = start == 0;
+                boolean openEnd = p == bytes.length;
+                Kind kind = openStart && openEnd ? Kind.INFIX
+                        : openStart ? Kind.SUFFIX
+                        : openEnd ? Kind.PREFIX
+                        : Kind.EXACT;
+                constraints.add(new Constraint(
+                        new String(bytes, start, p - start, StandardCharsets.ISO_8859_1), kind));
+            }
+            return constraints;
+        }
+
+        /**
+         * Checks whether a line holding {@code term} can satisfy this constraint; terms of
+         * the maximum length may have been cut and match anything they do not contradict.
+         */
+        boolean matches(String term) {
+            boolean truncated = term.length() == MAX_TOKEN_LENGTH;
+            return switch (kind) {
+                case EXACT -> term.equals(token) || truncated && token.startsWith(term);
+                case PREFIX -> term.startsWith(token) || truncated && token.startsWith(term);
+                case SUFFIX -> term.endsWith(token) || truncated;
+                case INFIX -> term.contains(token) || truncated;
+            };
+        }
+    }
+
+    /**
+     * Blocks a buffered term occurs in, in ascending order without duplicates.
+     */
+    private static final class Postings {
+        private int[] blocks = new int[2];
+        private int size;
+
+        boolean add(int block) {
+            if (size > 0 && blocks[size - 1] == block) {
+                return false;
+            }
+            if (size == blocks.length) {
+                blocks = Arrays.copyOf(blocks, size * 2);
+            }
+            blocks[size++] = block;
+            return true;
+        }
+    }
+
+    /**
+     * Writes a segment: a header, the sorted terms with the length of their postings, and
+     * the postings as delta-encoded varints. Postings are staged in a side file because the
+     * header must record where they start.
+     */
+    private static final class SegmentWriter implements Closeable {
+        private final Path file;
+        private final Path postingsFile;
+        private final DataOutputStream terms;
+        private final DataOutputStream postings;
+        private final ByteArrayOutputStream encoded = new ByteArrayOutputStream();
+        private int termCount;
+
+        SegmentWriter(Path file) throws IOException {
+            this.file = file;
+            this.postingsFile = file.resolveSibling(file.getFileName() + TEMP_SUFFIX);
+            this.terms = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(file)));
+            this.postings = new DataOutputStream(
+                    new BufferedOutputStream(Files.newOutputStream(postingsFile)));
+            terms.write(new byte[SEGMENT_HEADER_BYTES]);
+        }
+
+        void add(String term, int[] blocks, int count) throws IOException {
+            encoded.reset();
+            writeVarint(encoded, count);
+            int previous = 0;
+            for (int i = 0; i < count; i++) {
+                writeVarint(encoded, blocks[i] - previous);
+                previous = blocks[i];
+            }
+            byte[] bytes = term.getBytes(StandardCharsets.ISO_8859_1);
+            writeVarint(terms, bytes.length);
+            terms.write(bytes);
+            writeVarint(terms, encoded.size());
+            encoded.writeTo(postings);
+            termCount++;
+        }
+
+        @Override
+        public void close() throws IOException {
+            terms.close();
+            postings.close();
+            try (FileChannel target = FileChannel.open(file, StandardOpenOption.WRITE);
+                 FileChannel source = FileChannel.open(postingsFile, StandardOpenOption.READ)) {
+                long postingsStart = target.size();
+                long position = 0;
+                while (position < source.size()) {
+                    position += source.transferTo(position, source.size() - position,
+                            target.position(postingsStart + position));
+                }
+                ByteBuffer header = ByteBuffer.allocate(SEGMENT_HEADER_BYTES)
+                        .putLong(SEGMENT_MAGIC).putInt(termCount).putLong(postingsStart).flip();
+                target.write(header, 0);
+            } finally {
+                Files.deleteIfExists(postingsFile);
+            }
+        }
+    }
+
+    /**
+     * Reads the terms of a segment in order, with a second stream positioned at the
+     * postings of the current term.
+     */
+    private static final class SegmentReader implements Closeable {
+        private final FileChannel termChannel;
+        private final FileChannel postingsChannel;
+        private final DataInputStream terms;
+        private final DataInputStream postings;
+        private final int termCount;
+        private int read;
+        private String term;
+        private long pendingPostings;
+
+        SegmentReader(Path file) throws IOException {
+            termChannel = FileChannel.open(file, StandardOpenOption.READ);
+            postingsChannel = FileChannel.open(file, StandardOpenOption.READ);
+            ByteBuffer header = ByteBuffer.allocate(SEGMENT_HEADER_BYTES);
+            termChannel.read(header, 0);
+            if (header.getLong(0) != SEGMENT_MAGIC) {
+                close();
+                throw new IOException("Not a keyword index segment: " + file);
+            }
+            termCount = header.getInt(Long.BYTES);
+            terms = new DataInputStream(new BufferedInputStream(
+                    Channels.newInputStream(termChannel.position(SEGMENT_HEADER_BYTES))));
+            postings = new DataInputStream(new BufferedInputStream(Channels.newInputStream(
+                    postingsChannel.position(header.getLong(Long.BYTES + Integer.BYTES)))));
+        }
+
+        boolean next() throws IOException {
+            postings.skipNBytes(pendingPostings);
+            if (read == termCount) {
+                return false;
+            }
+            byte[] bytes = new byte[(int) readVarint(terms)];
+            terms.readFully(bytes);
+            term = new String(bytes, StandardCharsets.ISO_8859_1);
+            pendingPostings = readVarint(terms);
+            read++;
+            return true;
+        }
+
+        String term() {
+            return term;
+        }
+
+        int[] postings() throws IOException {
+            int[] blocks = new int[(int) readVarint(postings)];
+            int previous = 0;
+            for (int i = 0; i < blocks.length; i++) {
+                previous += (int) readVarint(postings);
+                blocks[i] = previous;
+            }
+            pendingPostings = 0;
+            return blocks;
+        }
+
+        @Override
+        public void close() throws IOException {
+            termChannel.close();
+            postingsChannel.close();
+        }
+    }
+}
@@ -0,0 +1,474 @@
+package com.example.demo.service;
+
+import com.example.demo.config.LogProperties;
+import com.example.demo.model.LogDaySummary;
+import com.example.demo.utils.ByteRange;
+import com.example.demo.utils.LogFingerprint;
+import com.example.demo.utils.LogLine;
+import com.example.demo.utils.LogTimestamps;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.TreeMap;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+/**
+ * Sparse on-disk index that maps log timestamps to byte offsets in the log file.
+ *
+ * <p>An entry is recorded for the first line of every day and then roughly every
+ * {@code app.logs.index.interval} bytes, so the first byte of any day is known exactly
+ * and the index stays small. Alongside the offsets the index counts the records of every
+ * day by level. Both are extended incrementally by a background pass every
+ * {@code app.logs.index.refresh-interval}, so lookups only parse the few bytes appended
+ * since that pass.
+ *
+ * <p>The checkpoint lives next to the log: a {@code .idx} file with the offsets, the
+ * indexed length and a fingerprint of the first line, and a {@code .days} file with the
+ * counters. On restart indexing resumes from the checkpoint. A log that shrank or whose
+ * first line changed has been rotated or rewritten, and is indexed again from the start.
+ */
+@Slf4j
+@Service
+public class LogOffsetIndex {
+    private static final String INDEX_SUFFIX = ".idx";
+    private static final String DAYS_SUFFIX = ".days";
+    private static final long MAGIC = 0x4C4F47494458_0002L;
+    private static final long DAYS_MAGIC = 0x4C4F47444159_0001L;
+    private static final int HEADER_BYTES = 3 * Long.BYTES;
+    private static final int ENTRY_BYTES = 2 * Long.BYTES;
+    private static final String[] LEVELS = {"TRACE", "DEBUG", "INFO", "WARN", "ERROR"};
+    private static final byte[][] LEVEL_BYTES = new byte[LEVELS.length][];
+    private static final int DAY_BYTES = (3 + LEVELS.length) * Long.BYTES;
+
+    static {
+        for (int i = 0; i < LEVELS.length; i++) {
+            LEVEL_BYTES[i] = LEVELS[i].getBytes(StandardCharsets.US_ASCII);
+        }
+    }
+
+    private final LogProperties properties;
+    private final LogLine line = new LogLine();
+
+    private Path logFile;
+    private long[] timestamps = new long[64];
+    private long[] offsets = new long[64];
+    private int size;
+    private long indexedUpTo;
+    private long fingerprint;
+    private final Map<Long, DayCounts> days = new TreeMap<>();
+    private volatile Snapshot snapshot;
+
+    /**
+     * Constructs a LogOffsetIndex with the log subsystem settings.
+     *
+     * @param properties log processing settings
+     */
+    public LogOffsetIndex(LogProperties properties) {
+        this.properties = properties;
+    }
+
+    /**
+     * Finds the part of the log file that holds the lines of one day.
+     *
+     * @param day the day to look up
+     * @return range starting at the first line of {@code day} and ending at the first line
+     *         of a later day, or at the end of the file if no later day has been written
+     * @throws IOException if the log or the index cannot be read
+     */
+    public synchronized ByteRange locate(LocalDate day) throws IOException {
+        return locate(LogTimestamps.epochSecond(day),
+                LogTimestamps.epochSecond(day.plusDays(1)));
+    }
+
+    /**
+     * Finds the part of the log file that holds the lines of a time interval.
+     *
+     * @param from start of the interval in epoch seconds, inclusive
+     * @param to end of the interval in epoch seconds, exclusive
+     * @return range that contains every line of the interval; it starts at a line boundary
+     *         and may also contain up to one index interval of earlier lines
+     * @throws IOException if the log or the index cannot be read
+     */
+    public synchronized ByteRange locate(long from, long to) throws IOException {
+        refresh();
+        return range(timestamps, offsets, size, indexedUpTo, Files.size(logFile), from, to);
+    }
+
+    /**
+     * Estimates the part of the log file that holds the lines of a time interval from the
+     * last completed refresh, without waiting for a refresh in progress.
+     *
+     * @param from start of the interval in epoch seconds, inclusive
+     * @param to end of the interval in epoch seconds, exclusive
+     * @return range as {@link #locate(long, long)} would return it, except that it ends
+     *         at {@link Long#MAX_VALUE} instead of the end of the file, or an empty
+     *         optional if the current log has not been indexed yet
+     */
+    public Optional<ByteRange> estimate(long from, long to) {
+        Snapshot current = snapshot;
+        if (current == null || !current.logFile().equals(Paths.get(properties.getFile()))) {
+            return Optional.empty();
+        }
+        return Optional.of(range(current.timestamps(), current.offsets(),
+                current.timestamps().length, current.indexedUpTo(), Long.MAX_VALUE, from, to));
+    }
+
+    /**
+     * Returns the record counters of every day written to the log.
+     *
+     * @return one summary per day in ascending order of days
+     * @throws IOException if the log or the index cannot be read
+     */
+    public synchronized List<LogDaySummary> days() throws IOException {
+        refresh();
+        List<LogDaySummary> summaries = new ArrayList<>(days.size());
+        days.forEach((day, counts) -> {
+            Map<String, Long> levels = new LinkedHashMap<>();
+            for (int i = 0; i < LEVELS.length; i++) {
+                levels.put(LEVELS[i], counts.levels[i]);
+            }
+            summaries.add(new LogDaySummary(LocalDate.ofEpochDay(day), counts.offset,
+                    counts.records, levels));
+        });
+        return summaries;
+    }
+
+    /**
+     * Indexes the bytes appended to the log since the previous pass, so that lookups do not
+     * have to. Does nothing while the log does not exist or the index is disabled.
+     */
+    @Scheduled(fixedDelayString = "#{@logProperties.index.refreshInterval.toMillis()}")
+    public void refreshInBackground() {
+        if (!properties.getIndex().isEnabled() || !Files.exists(Paths.get(properties.getFile()))) {
+            return;
+        }
+        try {
+            refresh();
+        } catch (IOException e) {
+            log.warn("Background indexing of {} failed: {}", properties.getFile(),
+                    e.getMessage());
+        }
+    }
+
+    /**
+     * Indexes the lines appended to the log since the previous call.
+     *
+     * @throws IOException if the log or the index cannot be read or written
+     */
+    public synchronized void refresh() throws IOException {
+        Path current = Paths.get(properties.getFile());
+        if (!current.equals(logFile)) {
+            load(current);
+        }
+        long fileSize = Files.size(logFile);
+        if (fileSize < indexedUpTo) {
+            log.info("Log file {} shrank below the indexed position, rebuilding index", logFile);
+            reset();
+        } else if (indexedUpTo > 0 && LogFingerprint.read(logFile) != fingerprint) {
+            log.info("Log file {} was replaced, rebuilding index", logFile);
+            reset();
+        }
+        if (fileSize == indexedUpTo) {
+            publish();
+            return;
+        }
+
+        int persisted = size;
+        try (FileChannel channel = FileChannel.open(logFile, StandardOpenOption.READ)) {
+            scan(channel);
+        }
+        persist(persisted);
+        publish();
+    }
+
+    /**
+     * Makes the entries indexed so far visible to {@link #estimate}; they are copied only
+     * when they changed since the previous refresh.
+     */
+    private void publish() {
+        Snapshot current = snapshot;
+        if (current != null && current.logFile().equals(logFile)
+                && current.indexedUpTo() == indexedUpTo
+                && current.timestamps().length == size) {
+            return;
+        }
+        snapshot = new Snapshot(logFile, Arrays.copyOf(timestamps, size),
+                Arrays.copyOf(offsets, size), indexedUpTo);
+    }
+
+    private void scan(FileChannel channel) throws IOException {
+        long interval = properties.getIndex().getInterval().toBytes();
+        byte[] buf = new byte[(int) properties.getBufferSize().toBytes()];
+        long bufStart = indexedUpTo;
+        int filled = 0;
+        int scanned = 0;
+        long lastDay = size > 0 ? dayOf(timestamps[size - 1]) : Long.MIN_VALUE;
+        long nextOffset = size > 0 ? offsets[size - 1] + interval : 0;
+        long countedDay = Long.MIN_VALUE;
+        DayCounts counts = null;
+
+        while (true) {
+            int read = channel.read(ByteBuffer.wrap(buf, filled, buf.length - filled),
+                    bufStart + filled);
+            if (read <= 0) {
+                break;
+            }
+            filled += read;
+            int lineStart = 0;
+            for (int i = scanned; i < filled; i++) {
+                if (buf[i] != '\n') {
+                    continue;
+                }
+                long lineOffset = bufStart + lineStart;
+                if (lineOffset == 0) {
+                    fingerprint = LogFingerprint.of(buf, 0, i);
+                }
+                int lineEnd = i > lineStart && buf[i - 1] == '\r' ? i - 1 : i;
+                if (line.parse(buf, lineStart, lineEnd)) {
+                    long timestamp = line.timestamp();
+                    long day = dayOf(timestamp);
+                    if ((size == 0 || day != lastDay || lineOffset >= nextOffset)
+                            && (size == 0 || timestamp >= timestamps[size - 1])) {
+                        add(timestamp, lineOffset);
+                        lastDay = day;
+                        nextOffset = lineOffset + interval;
+                    }
+                    if (day != countedDay) {
+                        countedDay = day;
+                        counts = days.computeIfAbsent(day, key -> new DayCounts(lineOffset));
+                    }
+                    count(counts);
+                }
+                lineStart = i + 1;
+            }
+            if (lineStart == 0 && filled == buf.length) {
+                buf = Arrays.copyOf(buf, buf.length * 2);
+                scanned = filled;
+                continue;
+            }
+            System.arraycopy(buf, lineStart, buf, 0, filled - lineStart);
+            bufStart += lineStart;
+            filled -= lineStart;
+            scanned = filled;
+        }
+        indexedUpTo = bufStart;
+    }
+
+    private void count(DayCounts counts) {
+        counts.records++;
+        for (int i = 0; i < LEVEL_BYTES.length; i++) {
+            if (line.levelEquals(LEVEL_BYTES[i])) {
+                counts.levels[i]++;
+                return;
+            }
+        }
+    }
+
+    private void load(Path file) throws IOException {
+        logFile = file;
+        size = 0;
+        indexedUpTo = 0;
+        fingerprint = 0;
+        days.clear();
+        Path indexFile = indexFile();
+        if (!Files.exists(indexFile)) {
+            return;
+        }
+        long persistedUpTo;
+        try (FileChannel channel = FileChannel.open(indexFile, StandardOpenOption.READ)) {
+            ByteBuffer header = ByteBuffer.allocate(HEADER_BYTES);
+            if (channel.read(header, 0) < HEADER_BYTES || header.getLong(0) != MAGIC) {
+                log.warn("Ignoring unreadable log index {}", indexFile);
+                return;
+            }
+            persistedUpTo = header.getLong(Long.BYTES);
+            ByteBuffer entries = ByteBuffer.allocate(
+                    (int) (channel.size() - HEADER_BYTES) / ENTRY_BYTES * ENTRY_BYTES);
+            channel.read(entries, HEADER_BYTES);
+            entries.flip();
+            // Entries past the header position were appended by a run that stopped
+            // before committing them.
+            while (entries.remaining() >= ENTRY_BYTES) {
+                long timestamp = entries.getLong();
+                long offset = entries.getLong();
+                if (offset < persistedUpTo) {
+                    add(timestamp, offset);
+                }
+            }
+            fingerprint = header.getLong(2 * Long.BYTES);
+        }
+        if (persistedUpTo > 0 && !loadDays(persistedUpTo)) {
+            log.warn("Log day counters {} do not match the index, rebuilding index",
+                    daysFile());
+            size = 0;
+            fingerprint = 0;
+            days.clear();
+            return;
+        }
+        indexedUpTo = persistedUpTo;
+    }
+
+    private boolean loadDays(long expectedUpTo) throws IOException {
+        Path daysFile = daysFile();
+        if (!Files.exists(daysFile)) {
+            return false;
+        }
+        ByteBuffer buffer = ByteBuffer.wrap(Files.readAllBytes(daysFile));
+        if (buffer.remaining() < 3 * Long.BYTES || buffer.getLong() != DAYS_MAGIC
+                || buffer.getLong() != expectedUpTo) {
+            return false;
+        }
+        long count = buffer.getLong();
+        if (buffer.remaining() != count * DAY_BYTES) {
+            return false;
+        }
+        for (long i = 0; i < count; i++) {
+            DayCounts counts = new DayCounts(0);
+            long day = buffer.getLong();
+            counts.offset = buffer.getLong();
+            counts.records = buffer.getLong();
+            for (int level = 0; level < LEVELS.length; level++) {
+                counts.levels[level] = buffer.getLong();
+            }
+            days.put(day, counts);
+        }
+        return true;
+    }
+
+    /**
+     * Commits the checkpoint: the counters are replaced atomically first and the index
+     * header last, so a crash in between leaves files that disagree and are rebuilt rather
+     * than counters that miss or repeat lines.
+     */
+    private void persist(int from) throws IOException {
+        ByteBuffer counters = ByteBuffer.allocate(3 * Long.BYTES + days.size() * DAY_BYTES)
+                .putLong(DAYS_MAGIC).putLong(indexedUpTo).putLong(days.size());
+        days.forEach((day, counts) -> {
+            counters.putLong(day).putLong(counts.offset).putLong(counts.records);
+            for (long levelCount : counts.levels) {
+                counters.putLong(levelCount);
+            }
+        });
+        Path daysFile = daysFile();
+        Path tempFile = daysFile.resolveSibling(daysFile.getFileName() + ".tmp");
+        Files.write(tempFile, counters.array());
+        Files.move(tempFile, daysFile, StandardCopyOption.REPLACE_EXISTING,
+                StandardCopyOption.ATOMIC_MOVE);
+
+        try (FileChannel channel = FileChannel.open(indexFile(), StandardOpenOption.CREATE,
+                StandardOpenOption.WRITE)) {
+            ByteBuffer entries = ByteBuffer.allocate((size - from) * ENTRY_BYTES);
+            for (int i = from; i < size; i++) {
+                entries.putLong(timestamps[i]).putLong(offsets[i]);
+            }
+            entries.flip();
+            long position = HEADER_BYTES + (long) from * ENTRY_BYTES;
+            while (entries.hasRemaining()) {
+                position += channel.write(entries, position);
+            }
+            channel.truncate(position);
+
+            ByteBuffer header = ByteBuffer.allocate(HEADER_BYTES)
+                    .putLong(MAGIC).putLong(indexedUpTo).putLong(fingerprint).flip();
+            channel.write(header, 0);
+        }
+    }
+
+    private void reset() throws IOException {
+        size = 0;
+        indexedUpTo = 0;
+        fingerprint = 0;
+        days.clear();
+        Files.deleteIfExists(indexFile());
+        Files.deleteIfExists(daysFile());
+    }
+
+    private void add(long timestamp, long offset) {
+        if (size == timestamps.length) {
+            timestamps = Arrays.copyOf(timestamps, size * 2);
+            offsets = Arrays.copyOf(offsets, size * 2);
+        }
+        timestamps[size] = timestamp;
+        offsets[size] = offset;
+        size++;
+    }
+
+    /**
+     * Looks up the range of an interval in the first {@code size} entries; lines past the
+     * last entry run from {@code indexedEnd} or the last entry up to {@code fileEnd}.
+     */
+    private static ByteRange range(long[] timestamps, long[] offsets, int size,
+                                   long indexedEnd, long fileEnd, long from, long to) {
+        int first = lowerBound(timestamps, size, from);
+        // The previous entry may still precede lines of the interval unless it belongs to
+        // an earlier day: every day starts with an entry of its own.
+        if (first > 0 && dayOf(timestamps[first - 1]) == dayOf(from)) {
+            first--;
+        }
+        int last = lowerBound(timestamps, size, to);
+        long start = first < size ? offsets[first] : indexedEnd;
+        long end = last < size ? offsets[last] : fileEnd;
+        return new ByteRange(start, Math.max(start, end));
+    }
+
+    private static int lowerBound(long[] timestamps, int size, long timestamp) {
+        int low = 0;
+        int high = size;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (timestamps[mid] < timestamp) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
+    private Path indexFile() {
+        return logFile.resolveSibling(logFile.getFileName() + INDEX_SUFFIX);
+    }
+
+    private Path daysFile() {
+        return logFile.resolveSibling(logFile.getFileName() + DAYS_SUFFIX);
+    }
+
+    private static long dayOf(long epochSecond) {
+        return Math.floorDiv(epochSecond, 86_400);
+    }
+
+    /**
+     * Entries published by the last completed refresh; the arrays are never modified.
+     */
+    private record Snapshot(Path logFile, long[] timestamps, long[] offsets,
+                            long indexedUpTo) {
+    }
+
+    /**
+     * Counters of one day.
+     */
+    private static final class DayCounts {
+        private long offset;
+        private long records;
+        private final long[] levels = new long[LEVELS.length];
+
+        DayCounts(long offset) {
+            this.offset = offset;
+        }
+    }
+}
@@ -0,0 +1,55 @@
+package com.example.demo.service;
+
+import com.example.demo.exception.BadRequestException;
+import com.example.demo.model.LogQuery;
+import java.util.Locale;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.regex.Pattern;
+import java.util.regex.PatternSyntaxException;
+
+/**
+ * Checks the {@link LogQuery} filters accepted by the log task and live tail endpoints
+ * before they are compiled.
+ */
+public final class LogQueryValidator {
+    private static final Set<String> LEVELS = Set.of("TRACE", "DEBUG", "INFO", "WARN", "ERROR");
+
+    private LogQueryValidator() {
+        throw new UnsupportedOperationException("Utility class");
+    }
+
+    /**
+     * Validates a query and normalizes its level names to upper case.
+     *
+     * @param query the query to check
+     * @throws BadRequestException if the interval is empty, a level is unknown or a
+     *         regular expression is invalid
+     */
+    public static void validate(LogQuery query) {
+        if (query.getFrom() != null && query.getTo() != null
+                && !query.getFrom().isBefore(query.getTo())) {
+            throw new BadRequestException("Query start must be before its end");
+        }
+        if (query.getLevels() != null) {
+            Set<String> levels = new TreeSet<>();
+            for (String level : query.getLevels()) {
+                String normalized = level.toUpperCase(Locale.ROOT);
+                if (!LEVELS.contains(normalized)) {
+                    throw new BadRequestException("Unknown log level: " + level);
+                }
+                levels.add(normalized);
+            }
+            query.setLevels(levels);
+        }
+        if (query.getRegexes() != null) {
+            for (String regex : query.getRegexes()) {
+                try {
+                    Pattern.compile(regex);
+                } catch (PatternSyntaxException e) {
+                    throw new BadRequestException("Invalid regular expression: " + regex);
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,607 @@
+package com.example.demo.service;
+
+import com.example.demo.config.LogProperties;
+import com.example.demo.utils.LogFingerprint;
+import com.example.demo.utils.LogLine;
+import com.example.demo.utils.RequestIdConverter;
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.PriorityQueue;
+import java.util.concurrent.locks.ReentrantLock;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+/**
+ * On-disk index from request correlation IDs to the offsets of the log records written
+ * while serving them.
+ *
+ * <p>Record lines that carry a {@code [rid=<id>]} group, see {@link RequestIdConverter},
+ * are indexed by a 64-bit hash of the ID. Entries are 16 bytes, the hash and the offset of
+ * the record, and are kept in immutable segments sorted by hash, so a lookup is a binary
+ * search per segment followed by one short read per record. Hash collisions are resolved
+ * by checking the ID in the record itself. Continuation lines, such as stack traces, are
+ * returned with their record.
+ *
+ * <p>The index is extended by a background pass every
+ * {@code app.logs.requests.refresh-interval}; every pass that found IDs writes a segment,
+ * and when there are more than {@code app.logs.requests.max-segments} segments they are
+ * merged into one. A checkpoint next to the log records the indexed length, the
+ * fingerprint of the log and the live segments; a log that shrank or was replaced is
+ * indexed again from scratch. Lookups scan the bytes appended since the last pass, and
+ * the whole log while there is no usable index. Rolled archives are not indexed.
+ */
+@Slf4j
+@Service
+public class LogRequestIndex {
+    private static final String DIRECTORY_SUFFIX = ".rqi";
+    private static final String CHECKPOINT = "checkpoint";
+    private static final String SEGMENT_PREFIX = "segment-";
+    private static final String TEMP_SUFFIX = ".tmp";
+    private static final long CHECKPOINT_MAGIC = 0x4C4F47525149_0001L;
+    private static final int ENTRY_BYTES = 2 * Long.BYTES;
+    private static final int RECORD_BUFFER_BYTES = 8192;
+    private static final byte[] GROUP_PREFIX =
+            RequestIdConverter.GROUP_PREFIX.getBytes(StandardCharsets.US_ASCII);
+
+    private final LogProperties properties;
+    private final ReentrantLock lock = new ReentrantLock();
+    private final LogLine line = new LogLine();
+
+    private Path logFile;
+    private Path directory;
+    private long indexedUpTo;
+    private long fingerprint;
+    private final List<Path> segments = new ArrayList<>();
+    private long nextSegmentId;
+    private long[] hashes = new long[1024];
+    private long[] offsets = new long[1024];
+    private int buffered;
+    private volatile Snapshot snapshot;
+
+    /**
+     * Constructs a LogRequestIndex with the log subsystem settings.
+     *
+     * @param properties log processing settings
+     */
+    public LogRequestIndex(LogProperties properties) {
+        this.properties = properties;
+    }
+
+    /**
+     * Collects the lines of the records logged while serving a request, in log order.
+     *
+     * @param requestId the correlation ID of the request
+     * @param lines list the lines are added to
+     * @param maxLines maximum number of lines to add
+     * @return {@code false} if more lines were found than {@code maxLines}
+     * @throws IOException if the log cannot be read
+     */
+    public boolean lines(String requestId, List<String> lines, int maxLines) throws IOException {
+        Path file = Paths.get(properties.getFile());
+        byte[] group = (RequestIdConverter.GROUP_PREFIX + requestId)
+                .getBytes(StandardCharsets.US_ASCII);
+        long[] records = new long[0];
+        long tailStart = 0;
+        Snapshot current = snapshot;
+        if (properties.getRequests().isEnabled() && current != null
+                && current.logFile().equals(file)
+                && Files.size(file) >= current.indexedUpTo()
+                && LogFingerprint.read(file) == current.fingerprint()) {
+            try {
+                // One record more than lines fit, so that a truncated result is noticed.
+                records = find(current.segments(), hash(group, GROUP_PREFIX.length, group.length),
+                        maxLines + 1);
+                tailStart = current.indexedUpTo();
+            } catch (IOException e) {
+                // A merge may have removed a segment of this snapshot in the meantime.
+                log.debug("Request index lookup failed, scanning the whole log: {}",
+                        e.getMessage());
+                records = new long[0];
+            }
+        }
+        LogLine parsed = new LogLine();
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            for (long record : records) {
+                if (!collect(channel, record, true, group, parsed, lines, maxLines)) {
+                    return false;
+                }
+            }
+            return collect(channel, tailStart, false, group, parsed, lines, maxLines);
+        }
+    }
+
+    /**
+     * Indexes the bytes appended to the log since the previous pass. Does nothing while the
+     * log does not exist or the index is disabled.
+     */
+    @Scheduled(fixedDelayString = "#{@logProperties.requests.refreshInterval.toMillis()}")
+    public void refreshInBackground() {
+        if (!properties.getRequests().isEnabled()
+                || !Files.exists(Paths.get(properties.getFile()))) {
+            return;
+        }
+        try {
+            refresh();
+        } catch (IOException e) {
+            log.warn("Request indexing of {} failed: {}", properties.getFile(), e.getMessage());
+        }
+    }
+
+    /**
+     * Indexes the record lines appended to the log since the previous call.
+     *
+     * @throws IOException if the log or the index cannot be read or written
+     */
+    public void refresh() throws IOException {
+        lock.lock();
+        try {
+            Path current = Paths.get(properties.getFile());
+            if (!current.equals(logFile)) {
+                load(current);
+            }
+            long fileSize = Files.size(logFile);
+            if (fileSize < indexedUpTo
+                    || indexedUpTo > 0 && LogFingerprint.read(logFile) != fingerprint) {
+                log.info("Log file {} was rotated or rewritten, rebuilding request index",
+                        logFile);
+                clear();
+            }
+            if (fileSize == indexedUpTo) {
+                return;
+            }
+            try (FileChannel channel = FileChannel.open(logFile, StandardOpenOption.READ)) {
+                scan(channel);
+            }
+            flush();
+            mergeSegments();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void scan(FileChannel channel) throws IOException {
+        int maxBuffered = properties.getRequests().getMaxBufferedEntries();
+        byte[] buf = new byte[(int) properties.getBufferSize().toBytes()];
+        long bufStart = indexedUpTo;
+        int filled = 0;
+        int scanned = 0;
+
+        while (true) {
+            int read = channel.read(ByteBuffer.wrap(buf, filled, buf.length - filled),
+                    bufStart + filled);
+            if (read <= 0) {
+                break;
+            }
+            filled += read;
+            int lineStart = 0;
+            for (int i = scanned; i < filled; i++) {
+                if (buf[i] != '\n') {
+                    continue;
+                }
+                long lineOffset = bufStart + lineStart;
+                if (lineOffset == 0) {
+                    fingerprint = LogFingerprint.of(buf, 0, i);
+                }
+                if (line.parse(buf, lineStart, i)) {
+                    int idStart = line.groupValueStart(GROUP_PREFIX);
+                    if (idStart >= 0) {
+                        add(hash(buf, idStart, line.groupEnd(idStart)), lineOffset);
+                    }
+                }
+                lineStart = i + 1;
+                if (buffered >= maxBuffered) {
+                    indexedUpTo = bufStart + lineStart;
+                    flush();
+                }
+            }
+            if (lineStart == 0 && filled == buf.length) {
+                buf = Arrays.copyOf(buf, buf.length * 2);
+                scanned = filled;
+                continue;
+            }
+            System.arraycopy(buf, lineStart, buf, 0, filled - lineStart);
+            bufStart += lineStart;
+            filled -= lineStart;
+            scanned = filled;
+        }
+        indexedUpTo = bufStart;
+    }
+
+    private void add(long hash, long offset) {
+        if (buffered == hashes.length) {
+            hashes = Arrays.copyOf(hashes, buffered * 2);
+            offsets = Arrays.copyOf(offsets, buffered * 2);
+        }
+        hashes[buffered] = hash;
+        offsets[buffered] = offset;
+        buffered++;
+    }
+
+    /**
+     * Commits the buffered entries as a new segment together with the checkpoint. The
+     * checkpoint is replaced atomically last, so files written by a pass that did not
+     * commit are ignored and removed on the next start.
+     */
+    private void flush() throws IOException {
+        Files.createDirectories(directory);
+        if (buffered > 0) {
+            sort(0, buffered - 1);
+            Path file = directory.resolve(SEGMENT_PREFIX + nextSegmentId++);
+            try (DataOutputStream out = new DataOutputStream(
+                    new BufferedOutputStream(Files.newOutputStream(file)))) {
+                for (int i = 0; i < buffered; i++) {
+                    out.writeLong(hashes[i]);
+                    out.writeLong(offsets[i]);
+                }
+            }
+            segments.add(file);
+            buffered = 0;
+        }
+        writeCheckpoint();
+        publish();
+    }
+
+    /**
+     * Merges all segments into one once there are too many of them.
+     */
+    private void mergeSegments() throws IOException {
+        if (segments.size() <= Math.max(1, properties.getRequests().getMaxSegments())) {
+            return;
+        }
+        List<Path> merged = new ArrayList<>(segments);
+        Path file = directory.resolve(SEGMENT_PREFIX + nextSegmentId++);
+        List<SegmentReader> readers = new ArrayList<>();
+        try (DataOutputStream out = new DataOutputStream(
+                new BufferedOutputStream(Files.newOutputStream(file)))) {
+            PriorityQueue<SegmentReader> queue = new PriorityQueue<>(Comparator
+                    .comparingLong(SegmentReader::hash).thenComparingLong(SegmentReader::offset));
+            for (Path segment : merged) {
+                SegmentReader reader = new SegmentReader(segment);
+                readers.add(reader);
+                if (reader.next()) {
+                    queue.add(reader);
+                }
+            }
+            while (!queue.isEmpty()) {
+                SegmentReader reader = queue.poll();
+                out.writeLong(reader.hash());
+                out.writeLong(reader.offset());
+                if (reader.next()) {
+                    queue.add(reader);
+                }
+            }
+        } finally {
+            for (SegmentReader reader : readers) {
+                reader.close();
+            }
+        }
+
+        segments.clear();
+        segments.add(file);
+        writeCheckpoint();
+        publish();
+        for (Path segment : merged) {
+            Files.deleteIfExists(segment);
+        }
+        log.debug("Merged {} request index segments into {}", merged.size(), file);
+    }
+
+    private void writeCheckpoint() throws IOException {
+        ByteBuffer checkpoint = ByteBuffer.allocate(5 * Long.BYTES + segments.size() * Long.BYTES)
+                .putLong(CHECKPOINT_MAGIC).putLong(indexedUpTo).putLong(fingerprint)
+                .putLong(nextSegmentId).putLong(segments.size());
+        for (Path segment : segments) {
+            checkpoint.putLong(segmentId(segment));
+        }
+        Path target = directory.resolve(CHECKPOINT);
+        Path temp = directory.resolve(CHECKPOINT + TEMP_SUFFIX);
+        Files.write(temp, checkpoint.array());
+        Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING,
+                StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    private void load(Path file) throws IOException {
+        logFile = file;
+        directory = file.resolveSibling(file.getFileName() + DIRECTORY_SUFFIX);
+        resetState();
+        Path checkpointFile = directory.resolve(CHECKPOINT);
+        if (!Files.exists(checkpointFile)) {
+            clear();
+            return;
+        }
+        try {
+            ByteBuffer checkpoint = ByteBuffer.wrap(Files.readAllBytes(checkpointFile));
+            if (checkpoint.getLong() != CHECKPOINT_MAGIC) {
+                throw new IOException("unknown format");
+            }
+            long persistedUpTo = checkpoint.getLong();
+            long persistedFingerprint = checkpoint.getLong();
+            nextSegmentId = checkpoint.getLong();
+            long segmentCount = checkpoint.getLong();
+            for (long i = 0; i < segmentCount; i++) {
+                Path segment = directory.resolve(SEGMENT_PREFIX + checkpoint.getLong());
+                if (Files.size(segment) % ENTRY_BYTES != 0) {
+                    throw new EOFException("truncated segment " + segment.getFileName());
+                }
+                segments.add(segment);
+            }
+            indexedUpTo = persistedUpTo;
+            fingerprint = persistedFingerprint;
+        } catch (IOException | RuntimeException e) {
+            log.warn("Ignoring unreadable request index {}: {}", directory, e.getMessage());
+            clear();
+            return;
+        }
+        deleteUncommittedFiles();
+        publish();
+    }
+
+    /**
+     * Removes segments and temporary files left by a pass that stopped before committing.
+     */
+    private void deleteUncommittedFiles() throws IOException {
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(directory)) {
+            for (Path file : files) {
+                String name = file.getFileName().toString();
+                if (name.endsWith(TEMP_SUFFIX)
+                        || name.startsWith(SEGMENT_PREFIX) && !segments.contains(file)) {
+                    Files.deleteIfExists(file);
+                }
+            }
+        }
+    }
+
+    private void clear() throws IOException {
+        resetState();
+        snapshot = null;
+        if (Files.isDirectory(directory)) {
+            try (DirectoryStream<Path> files = Files.newDirectoryStream(directory)) {
+                for (Path file : files) {
+                    Files.deleteIfExists(file);
+                }
+            }
+        }
+    }
+
+    private void resetState() {
+        indexedUpTo = 0;
+        fingerprint = 0;
+        nextSegmentId = 0;
+        segments.clear();
+        buffered = 0;
+    }
+
+    private void publish() {
+        snapshot = new Snapshot(logFile, indexedUpTo, fingerprint, List.copyOf(segments));
+    }
+
+    /**
+     * Offsets of the records indexed under {@code hash}, in ascending order.
+     */
+    private static long[] find(List<Path> segments, long hash, int limit) throws IOException {
+        long[] found = new long[16];
+        int count = 0;
+        ByteBuffer entry = ByteBuffer.allocate(ENTRY_BYTES);
+        for (Path segment : segments) {
+            try (FileChannel channel = FileChannel.open(segment, StandardOpenOption.READ)) {
+                long low = 0;
+                long high = channel.size() / ENTRY_BYTES;
+                while (low < high) {
+                    long mid = (low + high) >>> 1;
+                    if (Long.compare(readEntry(channel, mid, entry), hash) < 0) {
+                        low = mid + 1;
+                    } else {
+                        high = mid;
+                    }
+                }
+                long entries = channel.size() / ENTRY_BYTES;
+                for (long i = low; i < entries && count < limit; i++) {
+                    if (readEntry(channel, i, entry) != hash) {
+                        break;
+                    }
+                    if (count == found.length) {
+                        found = Arrays.copyOf(found, count * 2);
+                    }
+                    found[count++] = entry.getLong(Long.BYTES);
+                }
+            }
+        }
+        long[] offsets = Arrays.copyOf(found, count);
+        Arrays.sort(offsets);
+        return offsets;
+    }
+
+    private static long readEntry(FileChannel channel, long index, ByteBuffer entry)
+            throws IOException {
+        entry.clear();
+        long position = index * ENTRY_BYTES;
+        while (entry.hasRemaining()) {
+            if (channel.read(entry, position + entry.position()) < 0) {
+                throw new EOFException("Truncated request index segment");
+            }
+        }
+        return entry.getLong(0);
+    }
+
+    /**
+     * Adds the lines of the records that carry {@code group}, starting at {@code from}:
+     * only the record there if {@code singleRecord}, otherwise every record up to the last
+     * complete line of the log.
+     *
+     * @return {@code false} if {@code maxLines} was reached before the end
+     */
+    private boolean collect(FileChannel channel, long from, boolean singleRecord, byte[] group,
+                            LogLine parsed, List<String> lines, int maxLines)
+            throws IOException {
+        byte[] buf = new byte[singleRecord
+                ? RECORD_BUFFER_BYTES : (int) properties.getBufferSize().toBytes()];
+        long bufStart = from;
+        int filled = 0;
+        int scanned = 0;
+        boolean started = false;
+        boolean matching = false;
+
+        while (true) {
+            int read = channel.read(ByteBuffer.wrap(buf, filled, buf.length - filled),
+                    bufStart + filled);
+            if (read <= 0) {
+                return true;
+            }
+            filled += read;
+            int lineStart = 0;
+            for (int i = scanned; i < filled; i++) {
+                if (buf[i] != '\n') {
+                    continue;
+                }
+                if (parsed.parse(buf, lineStart, i)) {
+                    if (singleRecord && started) {
+                        return true;
+                    }
+                    started = true;
+                    matching = parsed.hasGroup(group);
+                }
+                if (matching) {
+                    if (lines.size() >= maxLines) {
+                        return false;
+                    }
+                    lines.add(new String(buf, lineStart, i - lineStart, StandardCharsets.UTF_8));
+                }
+                lineStart = i + 1;
+            }
+            if (lineStart == 0 && filled == buf.length) {
+                buf = Arrays.copyOf(buf, buf.length * 2);
+                scanned = filled;
+                continue;
+            }
+            System.arraycopy(buf, lineStart, buf, 0, filled - lineStart);
+            bufStart += lineStart;
+            filled -= lineStart;
+            scanned = filled;
+        }
+    }
+
+    /**
+     * Sorts the buffered entries by hash; entries of equal hash keep the ascending order
+     * of their offsets.
+     */
+    private void sort(int low, int high) {
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            long pivotHash = hashes[mid];
+            long pivotOffset = offsets[mid];
+            int i = low;
+            int j = high;
+            while (i <= j) {
+                while (compare(i, pivotHash, pivotOffset) < 0) {
+                    i++;
+                }
+                while (compare(j, pivotHash, pivotOffset) > 0) {
+                    j--;
+                }
+                if (i <= j) {
+                    swap(i++, j--);
+                }
+            }
+            if (j - low < high - i) {
+                sort(low, j);
+                low = i;
+            } else {
+                sort(i, high);
+                high = j;
+            }
+        }
+    }
+
+    private int compare(int index, long hash, long offset) {
+        int byHash = Long.compare(hashes[index], hash);
+        return byHash != 0 ? byHash : Long.compare(offsets[index], offset);
+    }
+
+    private void swap(int a, int b) {
+        long hash = hashes[a];
+        hashes[a] = hashes[b];
+        hashes[b] = hash;
+        long offset = offsets[a];
+        offsets[a] = offsets[b];
+        offsets[b] = offset;
+    }
+
+    /**
+     * 64-bit FNV-1a hash of an ID.
+     */
+    private static long hash(byte[] buf, int start, int end) {
+        long hash = 0xcbf29ce484222325L;
+        for (int i = start; i < end; i++) {
+            hash ^= buf[i] & 0xFF;
+            hash *= 0x100000001b3L;
+        }
+        return hash;
+    }
+
+    private static long segmentId(Path segment) {
+        return Long.parseLong(segment.getFileName().toString().substring(SEGMENT_PREFIX.length()));
+    }
+
+    /**
+     * Committed state that lookups work on without taking the lock.
+     */
+    private record Snapshot(Path logFile, long indexedUpTo, long fingerprint,
+                            List<Path> segments) {
+    }
+
+    /**
+     * Streams the entries of a segment in order.
+     */
+    private static final class SegmentReader implements AutoCloseable {
+        private final DataInputStream in;
+        private long remaining;
+        private long hash;
+        private long offset;
+
+        SegmentReader(Path file) throws IOException {
+            this.remaining = Files.size(file) / ENTRY_BYTES;
+            this.in = new DataInputStream(new BufferedInputStream(Files.newInputStream(file)));
+        }
+
+        boolean next() throws IOException {
+            if (remaining == 0) {
+                return false;
+            }
+            remaining--;
+            hash = in.readLong();
+            offset = in.readLong();
+            return true;
+        }
+
+        long hash() {
+            return hash;
+        }
+
+        long offset() {
+            return offset;
+        }
+
+        @Override
+        public void close() throws IOException {
+            in.close();
+        }
+    }
+}
@@ -0,0 +1,216 @@
+package com.example.demo.service;
+
+import com.example.demo.config.LogProperties;
+import com.example.demo.model.LogTask;
+import com.example.demo.model.LogTaskStatus;
+import com.example.demo.repository.LogTaskRepository;
+import com.example.demo.utils.ResultLineIndex;
+import jakarta.annotation.PostConstruct;
+import java.io.IOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+/**
+ * Keeps the number of log tasks and the disk space of their result files bounded.
+ *
+ * <p>A task is last used when it finishes or when its result is downloaded, paged or
+ * reused for a new request, whichever is later. A periodic sweep drops finished tasks
+ * unused for {@code app.logs.retention.ttl}, then the least recently used finished tasks
+ * beyond {@code max-tasks}, then the tasks of the least recently used results while the
+ * files exceed {@code disk-quota}. A result file is
+ * deleted once no remaining task refers to it; tasks that are still processing are never
+ * dropped. Slices of closed days are kept by {@link LogSliceStore} and neither count
+ * towards the quota nor are deleted with their tasks.
+ */
+@Slf4j
+@Service
+public class LogRetentionService {
+    private static final String RESULT_PREFIX = "logs-";
+
+    private final LogTaskRepository taskRepository;
+    private final LogSliceStore sliceStore;
+    private final LogProperties properties;
+
+    /**
+     * Constructs a LogRetentionService with required dependencies.
+     *
+     * @param taskRepository repository for log tasks
+     * @param sliceStore materialized results of closed days, which have their own retention
+     * @param properties log processing settings
+     */
+    public LogRetentionService(LogTaskRepository taskRepository, LogSliceStore sliceStore,
+                               LogProperties properties) {
+        this.taskRepository = taskRepository;
+        this.sliceStore = sliceStore;
+        this.properties = properties;
+    }
+
+    /**
+     * Removes result files left by a previous run; their tasks did not survive the restart.
+     */
+    @PostConstruct
+    public void purgeOrphanedResults() {
+        Path dir = Paths.get(properties.getResultDir());
+        if (!Files.isDirectory(dir)) {
+            return;
+        }
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(dir, RESULT_PREFIX + "*")) {
+            for (Path file : files) {
+                Files.deleteIfExists(file);
+            }
+        } catch (IOException e) {
+            log.warn("Failed to purge stale log results in {}", dir, e);
+        }
+    }
+
+    /**
+     * Applies the TTL, task count and disk quota limits.
+     */
+    @Scheduled(fixedDelayString = "#{@logProperties.retention.sweepInterval.toMillis()}")
+    public synchronized void sweep() {
+        LogProperties.Retention retention = properties.getRetention();
+        Map<String, LogTask> tasks = taskRepository.findAll();
+        Set<String> releasedFiles = new HashSet<>();
+        Instant expiredBefore = Instant.now().minus(retention.getTtl());
+
+        List<Map.Entry<String, LogTask>> finished = new ArrayList<>();
+        for (Map.Entry<String, LogTask> entry : tasks.entrySet()) {
+            LogTask task = entry.getValue();
+            if (task.getStatus() == LogTaskStatus.PROCESSING) {
+                continue;
+            }
+            if (lastUsed(task).isBefore(expiredBefore)) {
+                drop(entry, releasedFiles);
+            } else {
+                finished.add(entry);
+            }
+        }
+
+        finished.sort(Comparator.comparing(entry -> lastUsed(entry.getValue())));
+        int excess = taskRepository.count() - retention.getMaxTasks();
+        while (excess > 0 && !finished.isEmpty()) {
+            drop(finished.remove(0), releasedFiles);
+            excess--;
+        }
+
+        Map<String, Long> sizes = resultSizes(finished);
+        long held = sizes.values().stream().mapToLong(Long::longValue).sum();
+        long quota = retention.getDiskQuota().toBytes();
+        if (held > quota) {
+            Map<String, Instant> lastUse = new HashMap<>();
+            for (Map.Entry<String, LogTask> entry : finished) {
+                LogTask task = entry.getValue();
+                if (sizes.containsKey(task.getFilePath())) {
+                    lastUse.merge(task.getFilePath(), lastUsed(task),
+                            (a, b) -> a.isAfter(b) ? a : b);
+                }
+            }
+            List<String> files = new ArrayList<>(lastUse.keySet());
+            files.sort(Comparator.comparing(lastUse::get));
+            for (int i = 0; i < files.size() && held > quota; i++) {
+                String file = files.get(i);
+                held -= sizes.get(file);
+                for (Map.Entry<String, LogTask> entry : finished) {
+                    if (file.equals(entry.getValue().getFilePath())) {
+                        drop(entry, releasedFiles);
+                    }
+                }
+            }
+        }
+
+        deleteUnreferenced(releasedFiles);
+    }
+
+    /**
+     * Returns the number of task IDs currently kept.
+     *
+     * @return live task IDs, including IDs linked to a shared task
+     */
+    public int getTaskCount() {
+        return taskRepository.count();
+    }
+
+    /**
+     * Returns the disk space held by the result files of the kept tasks.
+     *
+     * @return total size of distinct result files in bytes
+     */
+    public long getBytesHeld() {
+        return resultSizes(new ArrayList<>(taskRepository.findAll().entrySet())).values()
+                .stream().mapToLong(Long::longValue).sum();
+    }
+
+    private void drop(Map.Entry<String, LogTask> entry, Set<String> releasedFiles) {
+        if (taskRepository.delete(entry.getKey(), entry.getValue())
+                && entry.getValue().getFilePath() != null) {
+            releasedFiles.add(entry.getValue().getFilePath());
+        }
+    }
+
+    private void deleteUnreferenced(Set<String> releasedFiles) {
+        if (releasedFiles.isEmpty()) {
+            return;
+        }
+        for (LogTask task : taskRepository.findAll().values()) {
+            releasedFiles.remove(task.getFilePath());
+        }
+        for (String file : releasedFiles) {
+            if (sliceStore.contains(file)) {
+                continue;
+            }
+            try {
+                Files.deleteIfExists(Paths.get(file));
+                ResultLineIndex.delete(Paths.get(file));
+                log.debug("Deleted expired log result {}", file);
+            } catch (IOException e) {
+                log.warn("Failed to delete log result {}", file, e);
+            }
+        }
+    }
+
+    /**
+     * Sizes of the distinct result files of completed tasks; files that disappeared count
+     * as empty.
+     */
+    private Map<String, Long> resultSizes(List<Map.Entry<String, LogTask>> tasks) {
+        Map<String, Long> sizes = new HashMap<>();
+        for (Map.Entry<String, LogTask> entry : tasks) {
+            LogTask task = entry.getValue();
+            if (task.getStatus() == LogTaskStatus.COMPLETED && task.getFilePath() != null
+                    && !sliceStore.contains(task.getFilePath())) {
+                sizes.computeIfAbsent(task.getFilePath(), LogRetentionService::sizeOf);
+            }
+        }
+        return sizes;
+    }
+
+    /**
+     * Time the task was last used: its completion or the latest access to its result.
+     */
+    private static Instant lastUsed(LogTask task) {
+        Instant completedAt = task.getCompletedAt();
+        Instant accessedAt = task.getLastAccessedAt();
+        return completedAt != null && completedAt.isAfter(accessedAt) ? completedAt : accessedAt;
+    }
+
+    private static long sizeOf(String file) {
+        try {
+            return Files.size(Paths.get(file));
+        } catch (IOException e) {
+            return 0;
+        }
+    }
+}
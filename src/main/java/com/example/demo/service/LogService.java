@@ -1,38 +1,108 @@
 package com.example.demo.service;
 
+import com.example.demo.config.LogProperties;
+import com.example.demo.exception.BadRequestException;
 import com.example.demo.exception.ResourceNotFoundException;
+import com.example.demo.exception.TaskNotReadyException;
+import com.example.demo.exception.TooManyRequestsException;
+import com.example.demo.filter.RequestIdFilter;
+import com.example.demo.model.LogAnalytics;
+import com.example.demo.model.LogDaySummary;
+import com.example.demo.model.LogLinesPage;
+import com.example.demo.model.LogPreview;
+import com.example.demo.model.LogQuery;
+import com.example.demo.model.LogRequestLines;
 import com.example.demo.model.LogTask;
+import com.example.demo.model.LogTaskProgress;
 import com.example.demo.model.LogTaskStatus;
 import com.example.demo.repository.LogTaskRepository;
+import com.example.demo.utils.ArchiveSlice;
+import com.example.demo.utils.ByteRange;
+import com.example.demo.utils.CacheUtil;
+import com.example.demo.utils.DateLineMatcher;
+import com.example.demo.utils.DateLineRouter;
+import com.example.demo.utils.LogAnalyzer;
+import com.example.demo.utils.LineIndexingOutputStream;
+import com.example.demo.utils.LineMatcher;
+import com.example.demo.utils.LogQueryMatcher;
+import com.example.demo.utils.LogTimestamps;
+import com.example.demo.utils.ResultLineIndex;
+import java.io.BufferedOutputStream;
 import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
 import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
 import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.BasicFileAttributes;
 import java.nio.file.attribute.PosixFilePermission;
+import java.time.Clock;
 import java.time.LocalDate;
+import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Objects;
+import java.util.Optional;
+import java.util.Map;
 import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.atomic.AtomicLong;
+import java.util.zip.GZIPOutputStream;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.context.annotation.Lazy;
-import org.springframework.scheduling.annotation.Async;
+import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 /**
  * Service for processing log files asynchronously.
+ *
+ * <p>A task selects lines either by date or by a structured {@link LogQuery}; a batch task
+ * extracts several dates into one zip archive in a single scan. Rolled archives of the
+ * days a task covers are read before the active log file. Requests for
+ * a date or query that is already being processed join the running task, and a finished
+ * extraction is reused while the log file keeps the same size and modification time.
+ * A running task is cancelled once every ID that shares it has been cancelled.
  */
 @Slf4j
 @Service
 public class LogService {
-    private static final String LOG_FILE_PATH = "application.log";
+    private static final String GZIP_SUFFIX = ".gz";
+    private static final String ZIP_SUFFIX = ".zip";
+    private static final String QUERY_KEY_PREFIX = "query|";
+    private static final String BATCH_KEY_PREFIX = "batch|";
+    private static final String DATE_RANGE_SEPARATOR = "..";
+    private static final int MAX_TOP_ERRORS = 100;
+    private static final int MIN_ERROR_CAPACITY = 100;
+    private static final int MAX_PAGE_LINES = 10_000;
     private static final DateTimeFormatter DATE_FORMATTER =
             DateTimeFormatter.ofPattern("yyyy-MM-dd");
 
     private final LogTaskRepository taskRepository;
+    private final LogExtractor logExtractor;
+    private final LogOffsetIndex logIndex;
+    private final LogKeywordIndex keywordIndex;
+    private final LogRequestIndex requestIndex;
+    private final RecentLogEvents recentEvents;
+    private final LogArchives logArchives;
+    private final LogSliceStore sliceStore;
+    private final LogProperties properties;
+    private final CacheUtil<String, String> logResultCache;
+    private final CacheUtil<String, LogAnalytics> logAnalyticsCache;
+    private final LogTaskEvents taskEvents;
+    private final LogTaskScheduler taskScheduler;
+    private final Clock clock;
+    private final Map<String, LogTask> inFlight = new ConcurrentHashMap<>();
     private final AtomicLong idCounter = new AtomicLong(1);
     private final LogService selfProxy;
 
@@ -40,47 +110,351 @@ public class LogService {
      * Constructs a LogService with required dependencies.
      *
      * @param taskRepository repository for log tasks
+     * @param logExtractor streaming extractor of matching log lines
+     * @param logIndex sparse timestamp index of the log file
+     * @param keywordIndex inverted index from record tokens to blocks of the log file
+     * @param requestIndex index from request correlation IDs to records of the log file
+     * @param recentEvents recent log events kept in memory
+     * @param logArchives selector of the rolled archives of the log file
+     * @param sliceStore materialized results of closed days
+     * @param properties log processing settings
+     * @param logResultCache result file paths keyed by date and log file version
+     * @param logAnalyticsCache analytics of closed time intervals
+     * @param taskEvents notifier of clients following task progress
+     * @param taskScheduler lanes and workers that run the tasks
+     * @param clock source of the current time for closed intervals and days
      */
-    public LogService(LogTaskRepository taskRepository, @Lazy LogService selfProxy) {
+    public LogService(LogTaskRepository taskRepository, LogExtractor logExtractor,
+                      LogOffsetIndex logIndex, LogKeywordIndex keywordIndex,
+                      LogRequestIndex requestIndex,
+                      RecentLogEvents recentEvents, LogArchives logArchives,
+                      LogSliceStore sliceStore, LogProperties properties,
+                      CacheUtil<String, String> logResultCache,
+                      CacheUtil<String, LogAnalytics> logAnalyticsCache,
+                      LogTaskEvents taskEvents, LogTaskScheduler taskScheduler, Clock clock,
+                      @Lazy LogService selfProxy) {
         this.taskRepository = taskRepository;
+        this.logExtractor = logExtractor;
+        this.logIndex = logIndex;
+        this.keywordIndex = keywordIndex;
+        this.requestIndex = requestIndex;
+        this.recentEvents = recentEvents;
+        this.logArchives = logArchives;
+        this.sliceStore = sliceStore;
+        this.properties = properties;
+        this.logResultCache = logResultCache;
+        this.logAnalyticsCache = logAnalyticsCache;
+        this.taskEvents = taskEvents;
+        this.taskScheduler = taskScheduler;
+        this.clock = clock;
         this.selfProxy = selfProxy;
     }
 
     /**
      * Creates a new log processing task.
      *
+     * <p>If the day is closed and its slice has been materialized, the new task is
+     * completed immediately with the slice. If the same date is already being processed,
+     * the new ID is linked to the running task. If an extraction for the date was completed
+     * against the current version of the log file, the new task is completed immediately
+     * with that result.
+     *
      * @param date the date to filter logs in format yyyy-MM-dd
      * @return the created task ID
      * @throws IllegalArgumentException if date format is invalid
+     * @throws TooManyRequestsException if the lane for the task is full
      */
     @Transactional
     public String createLogTask(String date) {
         validateDate(date);
+        return startTask(date, date, null, null);
+    }
+
+    /**
+     * Creates one task that extracts several dates in a single pass over the log file.
+     *
+     * <p>Every element is a date in format yyyy-MM-dd or an inclusive range
+     * {@code yyyy-MM-dd..yyyy-MM-dd}. The lines of every date are selected as by
+     * {@link #createLogTask(String)} and the task result is a zip archive with one file per
+     * date. A single date creates an ordinary date task.
+     *
+     * @param dates dates and date ranges to extract
+     * @return the created task ID
+     * @throws BadRequestException if a date or range is invalid or there are too many dates
+     * @throws TooManyRequestsException if the lane for the task is full
+     */
+    @Transactional
+    public String createLogTask(List<String> dates) {
+        List<String> days = expandDates(dates);
+        if (days.size() == 1) {
+            return createLogTask(days.get(0));
+        }
+        String label = days.get(0) + DATE_RANGE_SEPARATOR + days.get(days.size() - 1);
+        return startTask(BATCH_KEY_PREFIX + String.join(",", days), label, null, days);
+    }
+
+    /**
+     * Creates a new log processing task for a structured query.
+     *
+     * <p>Level names are case-insensitive. Identical queries share running tasks and
+     * cached results in the same way as tasks for a date.
+     *
+     * @param query the query selecting log records
+     * @return the created task ID
+     * @throws BadRequestException if the interval is empty, a level is unknown or a
+     *         regular expression is invalid
+     * @throws TooManyRequestsException if the lane for the task is full
+     */
+    @Transactional
+    public String createLogTask(LogQuery query) {
+        LogQueryValidator.validate(query);
+        String label = query.getFrom() != null
+                ? query.getFrom().toLocalDate().format(DATE_FORMATTER) : "query";
+        return startTask(queryKey(query), label, query, null);
+    }
+
+    /**
+     * Creates a log processing task for a date and returns it together with the first
+     * matching lines; the full extraction continues asynchronously.
+     *
+     * @param date the date to filter logs in format yyyy-MM-dd
+     * @param previewLines maximum number of lines to return immediately
+     * @return the created task ID and the preview lines
+     * @throws IllegalArgumentException if date format is invalid
+     * @throws BadRequestException if {@code previewLines} is out of range
+     * @throws TooManyRequestsException if the lane for the task is full
+     * @see #preview(String, int)
+     */
+    @Transactional
+    public LogPreview createLogTask(String date, int previewLines) {
+        validatePreviewLines(previewLines);
+        return preview(createLogTask(date), previewLines);
+    }
+
+    /**
+     * Creates a log processing task for a structured query and returns it together with
+     * the first matching lines; the full extraction continues asynchronously.
+     *
+     * @param query the query selecting log records
+     * @param previewLines maximum number of lines to return immediately
+     * @return the created task ID and the preview lines
+     * @throws BadRequestException if the query is invalid or {@code previewLines} is out
+     *         of range
+     * @throws TooManyRequestsException if the lane for the task is full
+     * @see #preview(String, int)
+     */
+    @Transactional
+    public LogPreview createLogTask(LogQuery query, int previewLines) {
+        validatePreviewLines(previewLines);
+        return preview(createLogTask(query), previewLines);
+    }
+
+    /**
+     * Collects the first lines of a task result without waiting for the task.
+     *
+     * <p>A completed result is read through its line index. Otherwise the task's range is
+     * scanned from its start, served from memory when the recent events cover it, and the
+     * scan stops at {@code app.logs.preview.max-scan} bytes or after
+     * {@code app.logs.preview.time-budget}, whichever comes first. Rolled archives are left
+     * to the task, so a preview of archived days is never complete. A log that cannot be
+     * read yields an empty preview; the task reports the failure.
+     */
+    private LogPreview preview(String taskId, int maxLines) {
+        LogTask task = getTaskStatus(taskId);
+        LogProperties.Preview settings = properties.getPreview();
+        try {
+            if (task.getStatus() == LogTaskStatus.COMPLETED) {
+                LogLinesPage page = ResultLineIndex.read(Paths.get(task.getFilePath()), 0,
+                        maxLines);
+                return new LogPreview(taskId, page.lines(), page.totalLines() <= maxLines);
+            }
+            List<String> lines = new ArrayList<>();
+            Optional<byte[]> recent = recentEvents(task);
+            boolean complete = recent.isPresent()
+                    ? logExtractor.preview(recent.get(), matcherFor(task), lines, maxLines)
+                    : logExtractor.preview(Paths.get(properties.getFile()), scanRange(task),
+                            matcherFor(task), lines, maxLines,
+                            settings.getMaxScan().toBytes(), settings.getTimeBudget())
+                    && archivesFor(task).isEmpty();
+            return new LogPreview(taskId, lines, complete);
+        } catch (IOException e) {
+            log.debug("Cannot preview task {}: {}", taskId, e.getMessage());
+            return new LogPreview(taskId, List.of(), false);
+        }
+    }
+
+    private void validatePreviewLines(int previewLines) {
+        int limit = properties.getPreview().getMaxLines();
+        if (previewLines < 1 || previewLines > limit) {
+            throw new BadRequestException("Preview must hold 1 to " + limit + " lines");
+        }
+    }
+
+    private String startTask(String key, String date, LogQuery query, List<String> dates) {
         String taskId = String.valueOf(idCounter.getAndIncrement());
+
+        String cachedPath = query == null && dates == null
+                ? sliceStore.find(date).map(Path::toString).orElse(null) : null;
+        if (cachedPath == null) {
+            cachedPath = cachedResult(key);
+        }
+        if (cachedPath != null) {
+            LogTask task = new LogTask(taskId, date, LogTaskStatus.COMPLETED);
+            task.setQuery(query);
+            task.setDates(dates);
+            task.setFilePath(cachedPath);
+            taskRepository.save(task);
+            log.debug("Task {} reuses extracted logs for {}", taskId, key);
+            return taskId;
+        }
+
         LogTask task = new LogTask(taskId, date, LogTaskStatus.PROCESSING);
+        task.setQuery(query);
+        task.setDates(dates);
+        LogTask running;
+        while ((running = inFlight.putIfAbsent(key, task)) != null) {
+            if (running.retain()) {
+                taskRepository.link(taskId, running);
+                log.debug("Task {} joins running task {} for {}", taskId, running.getId(), key);
+                return taskId;
+            }
+            inFlight.remove(key, running);
+        }
         taskRepository.save(task);
 
-        selfProxy.processTask(task);
+        try {
+            taskScheduler.submit(taskId, estimateScanBytes(task),
+                    () -> selfProxy.processTask(task));
+        } catch (RuntimeException e) {
+            // Other IDs may have joined the task while it was being submitted: cancel it so
+            // that no more can, and fail it so that they see the rejection.
+            task.getProgress().cancel();
+            inFlight.remove(key, task);
+            selfProxy.updateTaskStatus(task, LogTaskStatus.FAILED, e.getMessage());
+            taskRepository.delete(taskId, task);
+            throw e;
+        }
 
         return taskId;
     }
 
     /**
-     * Asynchronously processes the task of filtering and saving logs for the specified date.
+     * Returns the record counters of every day in the log, as kept by the background
+     * indexer; only bytes appended since its last pass are parsed.
+     *
+     * @return one summary per day in ascending order of days
+     * @throws IOException if the log or its index cannot be read
+     */
+    public List<LogDaySummary> getDaySummaries() throws IOException {
+        return logIndex.days();
+    }
+
+    /**
+     * Drops the keyword index so that the background indexer builds it again from the
+     * beginning of the log; keyword queries scan the whole log until it has caught up.
      *
+     * @throws BadRequestException if the keyword index is disabled
+     * @throws IOException if the index files cannot be deleted
+     */
+    public void rebuildKeywordIndex() throws IOException {
+        if (!properties.getKeywords().isEnabled()) {
+            throw new BadRequestException("Keyword index is disabled");
+        }
+        keywordIndex.rebuild();
+    }
+
+    /**
+     * Returns the lines logged while serving one HTTP request, found through the request
+     * correlation index; lines appended since its last pass are scanned directly.
+     *
+     * @param requestId the correlation ID the request was served with
+     * @return the lines of the request's records in log order
+     * @throws BadRequestException if the ID cannot be a correlation ID
+     * @throws ResourceNotFoundException if no line of the log carries the ID
+     * @throws IOException if the log or the index cannot be read
+     */
+    public LogRequestLines getRequestLines(String requestId) throws IOException {
+        if (requestId == null || !RequestIdFilter.VALID_ID.matcher(requestId).matches()) {
+            throw new BadRequestException("Invalid request ID: " + requestId);
+        }
+        List<String> lines = new ArrayList<>();
+        boolean complete = requestIndex.lines(requestId, lines,
+                properties.getRequests().getMaxLines());
+        if (lines.isEmpty()) {
+            throw new ResourceNotFoundException("No log lines for request: " + requestId);
+        }
+        return new LogRequestLines(requestId, lines, complete);
+    }
+
+    /**
+     * Computes per-minute counts by level and logger and the most frequent error
+     * signatures of a time interval in one pass over the log.
+     *
+     * <p>Error signatures are counted in a fixed-size heavy-hitters table, so memory does
+     * not grow with the number of distinct errors and the reported counts are upper
+     * bounds. Results for intervals that ended in the past are cached.
+     *
+     * @param from start of the interval, inclusive
+     * @param to end of the interval, exclusive
+     * @param topErrors number of error signatures to return
+     * @return the analytics of the interval
+     * @throws BadRequestException if the interval is empty or {@code topErrors} is out of range
+     * @throws IOException if the log cannot be read
+     */
+    public LogAnalytics analyze(LocalDateTime from, LocalDateTime to, int topErrors)
+            throws IOException {
+        if (from == null || to == null || !from.isBefore(to)) {
+            throw new BadRequestException("Analytics interval must have a start before its end");
+        }
+        if (topErrors < 1 || topErrors > MAX_TOP_ERRORS) {
+            throw new BadRequestException("Number of error signatures must be between 1 and "
+                    + MAX_TOP_ERRORS);
+        }
+        String key = from + "|" + to + "|" + topErrors;
+        LogAnalytics cached = logAnalyticsCache.get(key);
+        if (cached != null) {
+            return cached;
+        }
+
+        ByteRange range = properties.getIndex().isEnabled()
+                ? logIndex.locate(LogTimestamps.epochSecond(from), LogTimestamps.epochSecond(to))
+                : ByteRange.ALL;
+        LogAnalyzer analyzer = new LogAnalyzer(from, to,
+                Math.max(MIN_ERROR_CAPACITY, 10 * topErrors));
+        logExtractor.scan(Paths.get(properties.getFile()), range, analyzer,
+                new LogTaskProgress());
+        LogAnalytics analytics = analyzer.result(from, to, topErrors);
+
+        // Lines of a closed interval are all written, so its analytics never change.
+        if (to.isBefore(LocalDateTime.now(clock))) {
+            logAnalyticsCache.put(key, analytics);
+        }
+        return analytics;
+    }
+
+    /**
+     * Processes the task of filtering and saving logs on a worker of the task scheduler.
+     *
+     * @param task the task to run
      */
-    @Async("logTaskExecutor")
     @Transactional
     public void processTask(LogTask task) {
         try {
-            Thread.sleep(20000);
-
-            Path logFile = Paths.get(LOG_FILE_PATH);
-            List<String> filteredLines = Files.lines(logFile)
-                    .filter(line -> line.contains(task.getDate()))
-                    .toList();
+            if (task.getProgress().awaitCancellation(properties.getProcessingDelay())) {
+                throw new CancellationException("Cancelled before start");
+            }
 
-            Path tempFile = createTempFile(task.getDate(), filteredLines);
+            Path logFile = Paths.get(properties.getFile());
+            String resultKey = resultKey(taskKey(task), logFile);
+            Path tempFile = createTempFile(task, logFile);
+            if (task.getProgress().isCancelled()) {
+                Files.deleteIfExists(tempFile);
+                ResultLineIndex.delete(tempFile);
+                throw new CancellationException("Cancelled after scan");
+            }
+            if (resultKey != null) {
+                logResultCache.put(resultKey, tempFile.toString());
+            }
 
             selfProxy.updateTaskStatus(
                     task,
@@ -97,6 +471,9 @@ public class LogService {
             );
             log.warn("Task {} was interrupted", task.getId());
 
+        } catch (CancellationException e) {
+            log.info("Task {} stopped after cancellation", task.getId());
+
         } catch (Exception e) {
             selfProxy.updateTaskStatus(
                     task,
@@ -104,9 +481,48 @@ public class LogService {
                     e.getMessage()
             );
             log.error("Task failed: {}", task.getId(), e);
+        } finally {
+            inFlight.remove(taskKey(task), task);
         }
     }
 
+    /**
+     * Cancels a task for the given ID.
+     *
+     * <p>If other IDs share the running task, only this ID is detached and marked as
+     * cancelled; otherwise the scan is stopped before its next buffer and its partial
+     * output is deleted. Finished tasks are returned unchanged.
+     *
+     * @param taskId the ID of the task to cancel
+     * @return the task now associated with the ID
+     * @throws ResourceNotFoundException if task not found
+     */
+    @Transactional
+    public LogTask cancelTask(String taskId) {
+        LogTask task = getTaskStatus(taskId);
+        boolean lastHolder;
+        // Checked together with the release, so a task that completes concurrently is
+        // either released while still running or returned as finished.
+        synchronized (task) {
+            if (task.getStatus() != LogTaskStatus.PROCESSING) {
+                return task;
+            }
+            lastHolder = task.release();
+        }
+        if (!lastHolder) {
+            LogTask detached = new LogTask(taskId, task.getDate(), LogTaskStatus.CANCELLED);
+            detached.setQuery(task.getQuery());
+            detached.setDates(task.getDates());
+            taskRepository.save(detached);
+            log.info("Task {} detached from running task {}", taskId, task.getId());
+            return detached;
+        }
+        inFlight.remove(taskKey(task), task);
+        selfProxy.updateTaskStatus(task, LogTaskStatus.CANCELLED, "Cancelled by request");
+        log.info("Task {} cancelled", task.getId());
+        return task;
+    }
+
     /**
      * Updates the status of a log task and optionally sets an error message.
      */
@@ -116,13 +532,26 @@ public class LogService {
         Objects.requireNonNull(task, "Task must not be null");
         Objects.requireNonNull(status, "Status must not be null");
 
-        task.setStatus(status);
+        synchronized (task) {
+            // A task cancelled while it was finishing stays cancelled, and a finished task
+            // cannot be cancelled any more.
+            if (task.getStatus() == LogTaskStatus.CANCELLED
+                    || status == LogTaskStatus.CANCELLED
+                    && task.getStatus() != LogTaskStatus.PROCESSING) {
+                return;
+            }
+            task.setStatus(status);
+        }
         if (status == LogTaskStatus.COMPLETED) {
             task.setFilePath(filePathOrErrorMessage);
         } else {
             task.setErrorMessage(filePathOrErrorMessage);
         }
-        taskRepository.save(task);
+        // The ID may have been detached from this task when it was cancelled for that ID.
+        if (taskRepository.findById(task.getId()).orElse(task) == task) {
+            taskRepository.save(task);
+        }
+        taskEvents.statusChanged(task);
     }
 
     /**
@@ -139,19 +568,36 @@ public class LogService {
                         new ResourceNotFoundException("Task not found with id: " + taskId));
     }
 
+    /**
+     * Gets a task whose result is about to be downloaded and, if the result is ready,
+     * records the access so that retention keeps it while it is in use.
+     *
+     * @param taskId the ID of the task to download
+     * @return the log task with current status
+     * @throws ResourceNotFoundException if task not found
+     */
+    @Transactional(readOnly = true)
+    public LogTask getTaskForDownload(String taskId) {
+        LogTask task = getTaskStatus(taskId);
+        if (task.getStatus() == LogTaskStatus.COMPLETED) {
+            task.markAccessed();
+        }
+        return task;
+    }
+
     /**
      * Gets the path to processed log file.
      *
      * @param taskId the ID of completed task
      * @return path to the log file
-     * @throws IllegalStateException if file not ready
+     * @throws TaskNotReadyException if file not ready
      * @throws ResourceNotFoundException if file path not found
      */
     @Transactional(readOnly = true)
     public Path getLogFilePath(String taskId) {
         LogTask task = selfProxy.getTaskStatus(taskId);
         if (task.getStatus() != LogTaskStatus.COMPLETED) {
-            throw new IllegalStateException("Log file not ready yet"); // Это вызовет 425
+            throw new TaskNotReadyException("Log file not ready yet");
         }
         if (task.getFilePath() == null) {
             throw new ResourceNotFoundException("Log file path not found");
@@ -159,20 +605,394 @@ public class LogService {
         return Paths.get(task.getFilePath());
     }
 
-    private Path createTempFile(String date, List<String> content) throws IOException {
-        Path tempDir = Paths.get(System.getProperty("java.io.tmpdir"));
-        Path tempFile = Files.createTempFile(tempDir, "logs-" + date + "-", ".log");
+    /**
+     * Reads a page of lines of a completed task's result, using the line-offset index
+     * written during extraction. Batch results are archives and cannot be paged.
+     *
+     * @param taskId the ID of completed task
+     * @param from number of the first line to return, counted from 0
+     * @param limit maximum number of lines to return
+     * @return the page of lines
+     * @throws BadRequestException if the page bounds are invalid or the task is a batch
+     * @throws TaskNotReadyException if the result is not ready yet
+     * @throws ResourceNotFoundException if the task or its result file is not found
+     * @throws IOException if the result cannot be read
+     */
+    @Transactional(readOnly = true)
+    public LogLinesPage getLines(String taskId, long from, int limit) throws IOException {
+        if (from < 0 || limit < 1 || limit > MAX_PAGE_LINES) {
+            throw new BadRequestException("Page must start at a line >= 0 and hold 1 to "
+                    + MAX_PAGE_LINES + " lines");
+        }
+        LogTask task = getTaskStatus(taskId);
+        if (task.getStatus() != LogTaskStatus.COMPLETED) {
+            throw new TaskNotReadyException("Log file not ready yet");
+        }
+        if (task.getDates() != null) {
+            throw new BadRequestException("Batch results can only be downloaded");
+        }
+        task.markAccessed();
+        try {
+            return ResultLineIndex.read(Paths.get(task.getFilePath()), from, limit);
+        } catch (NoSuchFileException e) {
+            throw new ResourceNotFoundException("Log file not found");
+        }
+    }
+
+    private Path createTempFile(LogTask task, Path logFile) throws IOException {
+        Path tempDir = Files.createDirectories(Paths.get(properties.getResultDir()));
+        if (task.getDates() != null) {
+            return createBatchFile(task, logFile, tempDir);
+        }
+        boolean compress = properties.isCompressResults();
+        Path tempFile = Files.createTempFile(tempDir, "logs-" + task.getDate() + "-",
+                compress ? ".log" + GZIP_SUFFIX : ".log");
 
         try {
             setFilePermissions(tempFile);
-            Files.write(tempFile, content, StandardOpenOption.WRITE,
+            try (OutputStream file = Files.newOutputStream(tempFile, StandardOpenOption.WRITE,
                     StandardOpenOption.TRUNCATE_EXISTING);
-            tempFile.toFile().deleteOnExit();
+                 OutputStream compressed = compress ? new GZIPOutputStream(file,
+                         (int) properties.getBufferSize().toBytes()) : file;
+                 LineIndexingOutputStream out = new LineIndexingOutputStream(compressed)) {
+                LineMatcher matcher = matcherFor(task);
+                Optional<byte[]> recent = recentEvents(task);
+                long written = recent.isPresent()
+                        ? logExtractor.extract(recent.get(), matcher, out, task.getProgress())
+                        : logExtractor.extract(logFile, scanRanges(task), archivesFor(task),
+                                matcher, out, task.getProgress(), tempDir);
+                log.debug("Extracted {} bytes for task {} into {}", written, task.getId(),
+                        tempFile);
+                out.writeIndex(tempFile);
+            }
             return tempFile;
-        } catch (IOException e) {
+        } catch (IOException | RuntimeException e) {
             Files.deleteIfExists(tempFile);
+            ResultLineIndex.delete(tempFile);
+            throw e;
+        }
+    }
+
+    /**
+     * Routes the lines of every date of a batch task into a part file in one scan, then
+     * packs the parts into a zip archive with one entry per date.
+     */
+    private Path createBatchFile(LogTask task, Path logFile, Path tempDir) throws IOException {
+        Path zipFile = Files.createTempFile(tempDir, "logs-" + task.getDate() + "-", ZIP_SUFFIX);
+        Map<String, Path> parts = new LinkedHashMap<>();
+        try {
+            setFilePermissions(zipFile);
+            for (String date : task.getDates()) {
+                parts.put(date, Files.createTempFile(tempDir, "logs-" + date + "-part-", ".log"));
+            }
+            Map<String, OutputStream> outputs = new LinkedHashMap<>();
+            try {
+                for (Map.Entry<String, Path> part : parts.entrySet()) {
+                    outputs.put(part.getKey(), new BufferedOutputStream(
+                            Files.newOutputStream(part.getValue())));
+                }
+                logExtractor.scan(logFile, scanRange(task), archivesFor(task),
+                        new DateLineRouter(outputs), task.getProgress());
+            } catch (UncheckedIOException e) {
+                throw e.getCause();
+            } finally {
+                for (OutputStream output : outputs.values()) {
+                    output.close();
+                }
+            }
+
+            try (ZipOutputStream zip = new ZipOutputStream(Files.newOutputStream(zipFile,
+                    StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING))) {
+                for (Map.Entry<String, Path> part : parts.entrySet()) {
+                    zip.putNextEntry(new ZipEntry("logs-" + part.getKey() + ".log"));
+                    Files.copy(part.getValue(), zip);
+                    zip.closeEntry();
+                }
+            }
+            log.debug("Extracted {} dates for task {} into {}", parts.size(), task.getId(),
+                    zipFile);
+            return zipFile;
+        } catch (IOException | RuntimeException e) {
+            Files.deleteIfExists(zipFile);
             throw e;
+        } finally {
+            for (Path part : parts.values()) {
+                Files.deleteIfExists(part);
+            }
+        }
+    }
+
+    /**
+     * Materializes the slices of the closed days that have none yet, routing every day's
+     * lines in one scan as a batch task does, then deletes the slices that outlived
+     * {@code app.logs.slices.retention}. Days missed while the application was down are
+     * caught up by the next run.
+     */
+    @Scheduled(cron = "#{@logProperties.slices.cron}")
+    public void materializeSlices() {
+        if (!properties.getSlices().isEnabled()) {
+            return;
+        }
+        LocalDate today = LocalDate.now(clock);
+        sliceStore.purgeExpired(today);
+        List<String> days = sliceStore.missingDays(today);
+        if (days.isEmpty()) {
+            return;
+        }
+        LogTask task = new LogTask("slices",
+                days.get(0) + DATE_RANGE_SEPARATOR + days.get(days.size() - 1),
+                LogTaskStatus.PROCESSING);
+        task.setDates(days);
+        try {
+            writeSlices(task);
+            log.info("Materialized log slices of {} days {}", days.size(), task.getDate());
+        } catch (IOException | RuntimeException e) {
+            log.error("Failed to materialize log slices of {}", task.getDate(), e);
+        }
+    }
+
+    private void writeSlices(LogTask task) throws IOException {
+        Map<String, Path> temps = new LinkedHashMap<>();
+        Map<String, LineIndexingOutputStream> outputs = new LinkedHashMap<>();
+        try {
+            for (String date : task.getDates()) {
+                Path temp = sliceStore.create(date);
+                temps.put(date, temp);
+                outputs.put(date, new LineIndexingOutputStream(new GZIPOutputStream(
+                        Files.newOutputStream(temp), (int) properties.getBufferSize().toBytes())));
+            }
+            try {
+                logExtractor.scan(Paths.get(properties.getFile()), scanRange(task),
+                        archivesFor(task), new DateLineRouter(new LinkedHashMap<>(outputs)),
+                        task.getProgress());
+            } catch (UncheckedIOException e) {
+                throw e.getCause();
+            }
+            for (Map.Entry<String, LineIndexingOutputStream> output : outputs.entrySet()) {
+                output.getValue().close();
+                Path slice = sliceStore.publish(temps.get(output.getKey()), output.getKey());
+                output.getValue().writeIndex(slice);
+            }
+        } finally {
+            for (OutputStream output : outputs.values()) {
+                output.close();
+            }
+            for (Path temp : temps.values()) {
+                Files.deleteIfExists(temp);
+            }
+        }
+    }
+
+    private static LineMatcher matcherFor(LogTask task) {
+        return task.getQuery() != null
+                ? LogQueryMatcher.compile(task.getQuery())
+                : new DateLineMatcher(task.getDate());
+    }
+
+    private String cachedResult(String key) {
+        String resultKey = resultKey(key, Paths.get(properties.getFile()));
+        if (resultKey == null) {
+            return null;
+        }
+        String path = logResultCache.get(resultKey);
+        return path != null && Files.exists(Paths.get(path)) ? path : null;
+    }
+
+    /**
+     * Identifies what a task selects: its date, or its normalized query.
+     */
+    private static String taskKey(LogTask task) {
+        if (task.getDates() != null) {
+            return BATCH_KEY_PREFIX + String.join(",", task.getDates());
+        }
+        return task.getQuery() != null ? queryKey(task.getQuery()) : task.getDate();
+    }
+
+    /**
+     * Builds the key of a query from its conditions as the matcher applies them: times to
+     * the second, empty conditions dropped and condition lists in a fixed order. Strings
+     * are length-prefixed, so no value can run into the next one.
+     */
+    private static String queryKey(LogQuery query) {
+        StringBuilder key = new StringBuilder(QUERY_KEY_PREFIX);
+        key.append(query.getFrom() != null ? LogTimestamps.epochSecond(query.getFrom()) : "")
+                .append('|')
+                .append(query.getTo() != null ? LogTimestamps.epochSecond(query.getTo()) : "")
+                .append('|');
+        appendAll(key, query.getLevels());
+        append(key, query.getLogger());
+        append(key, query.getThread());
+        appendAll(key, query.getKeywords());
+        appendAll(key, query.getRegexes());
+        return key.toString();
+    }
+
+    private static void appendAll(StringBuilder key, Collection<String> values) {
+        List<String> sorted = values == null ? List.of()
+                : values.stream().filter(value -> !value.isEmpty()).distinct().sorted().toList();
+        key.append(sorted.size()).append('|');
+        sorted.forEach(value -> append(key, value));
+    }
+
+    private static void append(StringBuilder key, String value) {
+        String text = value == null ? "" : value;
+        key.append(text.length()).append(':').append(text);
+    }
+
+    /**
+     * Identifies the extraction of a task key from the current version of the log file,
+     * or returns null if the log file cannot be inspected.
+     */
+    private String resultKey(String key, Path logFile) {
+        try {
+            BasicFileAttributes attributes =
+                    Files.readAttributes(logFile, BasicFileAttributes.class);
+            return key + '|' + attributes.size() + '|'
+                    + attributes.lastModifiedTime().toMillis();
+        } catch (IOException e) {
+            return null;
+        }
+    }
+
+    /**
+     * Number of log bytes a task is expected to scan, used to pick its lane; a log that
+     * cannot be read yet counts as empty and the task fails when it runs.
+     */
+    private long estimateScanBytes(LogTask task) {
+        Interval interval = scanInterval(task);
+        try {
+            // Runs on the request thread: a refresh of a cold index can take long, so the
+            // estimate uses the last published index and the whole file until there is one.
+            ByteRange range = interval == null ? ByteRange.ALL
+                    : logIndex.estimate(interval.from(), interval.to()).orElse(ByteRange.ALL);
+            long end = Math.min(range.end(), Files.size(Paths.get(properties.getFile())));
+            long archived = 0;
+            for (ArchiveSlice archive : archivesFor(task)) {
+                archived += Math.min(archive.range().length(), Files.size(archive.file()));
+            }
+            return archived + Math.max(0, end - range.start());
+        } catch (IOException e) {
+            log.debug("Cannot estimate the size of task {}: {}", task.getId(), e.getMessage());
+            return 0;
+        }
+    }
+
+    /**
+     * Recent log events that hold every line a task can select, if they are still in
+     * memory; only tasks with a start time can be answered without the file.
+     */
+    private Optional<byte[]> recentEvents(LogTask task) {
+        LogQuery query = task.getQuery();
+        LocalDate day = query == null ? LocalDate.parse(task.getDate(), DATE_FORMATTER) : null;
+        LocalDateTime from = day != null ? day.atStartOfDay() : query.getFrom();
+        if (from == null) {
+            return Optional.empty();
         }
+        // Later days stay in memory too; their events must not reach a date task.
+        LocalDateTime to = day != null ? day.plusDays(1).atStartOfDay() : query.getTo();
+        Optional<byte[]> recent = recentEvents.since(from, to);
+        recent.ifPresent(content -> log.debug("Task {} reads {} bytes of recent events from "
+                + "memory", task.getId(), content.length));
+        return recent;
+    }
+
+    /**
+     * Parts of the rolled archives that can hold lines a task selects: archives are picked
+     * by the days they were written on and, when they have a block table, narrowed to the
+     * blocks of the task's time range. A query without a start or end is not bounded on
+     * that side.
+     */
+    private List<ArchiveSlice> archivesFor(LogTask task) throws IOException {
+        if (task.getDates() != null) {
+            List<ArchiveSlice> archives = new ArrayList<>();
+            for (String date : task.getDates()) {
+                LocalDate day = LocalDate.parse(date, DATE_FORMATTER);
+                archives.addAll(logArchives.slices(day, day, Long.MIN_VALUE, Long.MAX_VALUE));
+            }
+            return archives;
+        }
+        LogQuery query = task.getQuery();
+        if (query == null) {
+            LocalDate day = LocalDate.parse(task.getDate(), DATE_FORMATTER);
+            return logArchives.slices(day, day, LogTimestamps.epochSecond(day),
+                    LogTimestamps.epochSecond(day.plusDays(1)));
+        }
+        LocalDateTime from = query.getFrom();
+        LocalDateTime to = query.getTo();
+        return logArchives.slices(
+                from != null ? from.toLocalDate() : null,
+                to != null ? to.minusNanos(1).toLocalDate() : null,
+                from != null ? LogTimestamps.epochSecond(from) : Long.MIN_VALUE,
+                to != null ? LogTimestamps.epochSecond(to) : Long.MAX_VALUE);
+    }
+
+    /**
+     * Parts of the log a task has to read: its time range, narrowed to the blocks that
+     * can hold its keywords when the keyword index covers them.
+     */
+    private List<ByteRange> scanRanges(LogTask task) throws IOException {
+        ByteRange range = scanRange(task);
+        LogQuery query = task.getQuery();
+        if (query == null || query.getKeywords() == null || query.getKeywords().isEmpty()) {
+            return List.of(range);
+        }
+        Optional<List<ByteRange>> candidates = keywordIndex.candidates(query.getKeywords());
+        if (candidates.isEmpty()) {
+            return List.of(range);
+        }
+        List<ByteRange> ranges = new ArrayList<>();
+        for (ByteRange candidate : candidates.get()) {
+            long start = Math.max(candidate.start(), range.start());
+            long end = Math.min(candidate.end(), range.end());
+            if (start < end) {
+                ranges.add(new ByteRange(start, end));
+            }
+        }
+        log.debug("Keyword index narrowed scan for task {} to {} ranges", task.getId(),
+                ranges.size());
+        return ranges;
+    }
+
+    private ByteRange scanRange(LogTask task) throws IOException {
+        Interval interval = scanInterval(task);
+        if (interval == null) {
+            return ByteRange.ALL;
+        }
+        ByteRange range = logIndex.locate(interval.from(), interval.to());
+        log.debug("Index narrowed scan for task {} to bytes {}-{}", task.getId(),
+                range.start(), range.end());
+        return range;
+    }
+
+    /**
+     * Interval of epoch seconds the index can narrow a task's scan to, or null if the
+     * task scans the whole log.
+     */
+    private Interval scanInterval(LogTask task) {
+        if (!properties.getIndex().isEnabled()) {
+            return null;
+        }
+        LogQuery query = task.getQuery();
+        if (task.getDates() != null) {
+            List<String> dates = task.getDates();
+            return new Interval(
+                    LogTimestamps.epochSecond(LocalDate.parse(dates.get(0), DATE_FORMATTER)),
+                    LogTimestamps.epochSecond(LocalDate.parse(dates.get(dates.size() - 1),
+                            DATE_FORMATTER).plusDays(1)));
+        }
+        if (query == null) {
+            LocalDate day = LocalDate.parse(task.getDate(), DATE_FORMATTER);
+            return new Interval(LogTimestamps.epochSecond(day),
+                    LogTimestamps.epochSecond(day.plusDays(1)));
+        }
+        if (query.getFrom() != null || query.getTo() != null) {
+            return new Interval(
+                    query.getFrom() != null
+                            ? LogTimestamps.epochSecond(query.getFrom()) : Long.MIN_VALUE,
+                    query.getTo() != null
+                            ? LogTimestamps.epochSecond(query.getTo()) : Long.MAX_VALUE);
+        }
+        return null;
     }
 
     private void setFilePermissions(Path file) throws IOException {
@@ -188,6 +1008,46 @@ public class LogService {
         }
     }
 
+    /**
+     * Expands dates and inclusive date ranges into distinct dates in ascending order.
+     *
+     * @throws BadRequestException if an element is invalid or there are too many dates
+     */
+    private List<String> expandDates(List<String> dates) {
+        if (dates == null || dates.isEmpty()) {
+            throw new BadRequestException("At least one date must be specified");
+        }
+        int limit = properties.getMaxBatchDates();
+        Set<LocalDate> days = new TreeSet<>();
+        for (String element : dates) {
+            String trimmed = element.trim();
+            int separator = trimmed.indexOf(DATE_RANGE_SEPARATOR);
+            LocalDate first;
+            LocalDate last;
+            try {
+                first = LocalDate.parse(separator < 0 ? trimmed
+                        : trimmed.substring(0, separator), DATE_FORMATTER);
+                last = separator < 0 ? first : LocalDate.parse(
+                        trimmed.substring(separator + DATE_RANGE_SEPARATOR.length()),
+                        DATE_FORMATTER);
+            } catch (DateTimeParseException e) {
+                throw new BadRequestException("Invalid date or range: " + element
+                        + ". Expected yyyy-MM-dd or yyyy-MM-dd..yyyy-MM-dd");
+            }
+            if (last.isBefore(first)) {
+                throw new BadRequestException("Date range must not end before it starts: "
+                        + element);
+            }
+            for (LocalDate day = first; !day.isAfter(last); day = day.plusDays(1)) {
+                if (days.add(day) && days.size() > limit) {
+                    throw new BadRequestException("A batch may contain at most " + limit
+                            + " dates");
+                }
+            }
+        }
+        return days.stream().map(DATE_FORMATTER::format).toList();
+    }
+
     private void validateDate(String date) {
         try {
             LocalDate.parse(date, DATE_FORMATTER);
@@ -195,4 +1055,10 @@ public class LogService {
             throw new IllegalArgumentException("Invalid date format. Expected yyyy-MM-dd");
         }
     }
-}
\ No newline at end of file
+
+    /**
+     * Interval of epoch seconds, the start inclusive and the end exclusive.
+     */
+    private record Interval(long from, long to) {
+    }
+}
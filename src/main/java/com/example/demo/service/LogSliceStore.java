@@ -0,0 +1,163 @@
+package com.example.demo.service;
+
+import com.example.demo.config.LogProperties;
+import com.example.demo.utils.ResultLineIndex;
+import java.io.IOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.time.LocalDate;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+
+/**
+ * Directory of materialized per-day slices: the gzip-compressed result of a date task for
+ * every closed day, with its line-offset index.
+ *
+ * <p>Slices are named {@code logs-<yyyy-MM-dd>.log.gz}. They are written to a temporary
+ * file and moved into place atomically, so a slice that can be found is complete. Slices
+ * older than {@code app.logs.slices.retention} are deleted by {@link #purgeExpired}.
+ */
+@Slf4j
+@Service
+public class LogSliceStore {
+    private static final String SLICE_PREFIX = "logs-";
+    private static final String SLICE_SUFFIX = ".log.gz";
+    private static final String TEMP_SUFFIX = ".tmp";
+    private static final Pattern SLICE_NAME = Pattern.compile(
+            Pattern.quote(SLICE_PREFIX) + "(\\d{4}-\\d{2}-\\d{2})" + Pattern.quote(SLICE_SUFFIX));
+
+    private final LogProperties properties;
+
+    /**
+     * Constructs a LogSliceStore with the log subsystem settings.
+     *
+     * @param properties log processing settings
+     */
+    public LogSliceStore(LogProperties properties) {
+        this.properties = properties;
+    }
+
+    /**
+     * Returns the slice of a day if it has been materialized.
+     *
+     * @param date the day in format yyyy-MM-dd
+     * @return the slice file, empty if there is none or slices are disabled
+     */
+    public Optional<Path> find(String date) {
+        if (!properties.getSlices().isEnabled()) {
+            return Optional.empty();
+        }
+        Path slice = sliceOf(date);
+        return Files.isRegularFile(slice) ? Optional.of(slice) : Optional.empty();
+    }
+
+    /**
+     * Returns the closed days within the retention period that have no slice yet.
+     *
+     * @param today the current day, which is never materialized
+     * @return the missing days in ascending order, in format yyyy-MM-dd
+     */
+    public List<String> missingDays(LocalDate today) {
+        List<String> days = new ArrayList<>();
+        long retained = properties.getSlices().getRetention().toDays();
+        for (LocalDate day = today.minusDays(retained); day.isBefore(today);
+             day = day.plusDays(1)) {
+            if (!Files.exists(sliceOf(day.toString()))) {
+                days.add(day.toString());
+            }
+        }
+        return days;
+    }
+
+    /**
+     * Creates an empty temporary file to write the slice of a day to.
+     *
+     * @param date the day in format yyyy-MM-dd
+     * @return the temporary file, to be passed to {@link #publish}
+     * @throws IOException if the directory or file cannot be created
+     */
+    public Path create(String date) throws IOException {
+        Path dir = Files.createDirectories(directory());
+        return Files.createTempFile(dir, SLICE_PREFIX + date + "-", TEMP_SUFFIX);
+    }
+
+    /**
+     * Moves a written temporary file into place as the slice of a day.
+     *
+     * @param temp the file returned by {@link #create}
+     * @param date the day in format yyyy-MM-dd
+     * @return the slice file
+     * @throws IOException if the file cannot be moved
+     */
+    public Path publish(Path temp, String date) throws IOException {
+        Path slice = sliceOf(date);
+        Files.move(temp, slice, StandardCopyOption.REPLACE_EXISTING,
+                StandardCopyOption.ATOMIC_MOVE);
+        return slice;
+    }
+
+    /**
+     * Tells whether a file belongs to the store; such files are never deleted together
+     * with the tasks that refer to them.
+     *
+     * @param file the file path
+     * @return true if the file is in the slice directory
+     */
+    public boolean contains(String file) {
+        Path parent = Paths.get(file).toAbsolutePath().getParent();
+        return parent != null && parent.equals(directory());
+    }
+
+    /**
+     * Deletes the slices of days before the retention period, their line indexes and
+     * temporary files left by an interrupted materialization.
+     *
+     * @param today the current day
+     */
+    public void purgeExpired(LocalDate today) {
+        Path dir = directory();
+        if (!Files.isDirectory(dir)) {
+            return;
+        }
+        LocalDate oldest = today.minusDays(properties.getSlices().getRetention().toDays());
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(dir, SLICE_PREFIX + "*")) {
+            for (Path file : files) {
+                String name = file.getFileName().toString();
+                Matcher matcher = SLICE_NAME.matcher(name);
+                if (name.endsWith(TEMP_SUFFIX)
+                        || matcher.matches() && isBefore(matcher.group(1), oldest)) {
+                    Files.deleteIfExists(file);
+                    ResultLineIndex.delete(file);
+                    log.debug("Deleted log slice {}", file);
+                }
+            }
+        } catch (IOException e) {
+            log.warn("Failed to purge log slices in {}", dir, e);
+        }
+    }
+
+    private static boolean isBefore(String date, LocalDate oldest) {
+        try {
+            return LocalDate.parse(date).isBefore(oldest);
+        } catch (DateTimeParseException e) {
+            return false;
+        }
+    }
+
+    private Path sliceOf(String date) {
+        return directory().resolve(SLICE_PREFIX + date + SLICE_SUFFIX);
+    }
+
+    private Path directory() {
+        return Paths.get(properties.getSlices().getDir()).toAbsolutePath();
+    }
+}
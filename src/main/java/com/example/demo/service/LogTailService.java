@@ -0,0 +1,291 @@
+package com.example.demo.service;
+
+import com.example.demo.config.LogProperties;
+import com.example.demo.exception.BadRequestException;
+import com.example.demo.exception.TooManyRequestsException;
+import com.example.demo.model.LogQuery;
+import com.example.demo.utils.LineMatcher;
+import com.example.demo.utils.LogFileFollower;
+import com.example.demo.utils.LogRingBuffer;
+import com.example.demo.utils.LogQueryMatcher;
+import jakarta.annotation.PreDestroy;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+/**
+ * Streams lines appended to the log file to subscribers over Server-Sent Events.
+ *
+ * <p>A single reader thread follows the file with a {@link WatchService} and a tracked
+ * position, splits every batch of appended bytes into lines once and fans the lines out to
+ * all subscribers, each through its own compiled {@link LogQuery} filter. Every subscriber
+ * receives one {@code lines} event per batch that has matching lines. The reader starts
+ * with the first subscriber and stops after the last one leaves, so an idle application
+ * keeps no file handle open.
+ *
+ * <p>When recent events are kept in memory, the reader follows the in-memory buffer
+ * instead and wakes up as soon as an event is appended, without touching the file. If it
+ * falls so far behind that unread events are evicted, every subscriber receives a
+ * {@code gap} event with the number of lost events, and the reader continues from the
+ * oldest event still in the buffer.
+ */
+@Slf4j
+@Service
+public class LogTailService {
+    private static final String LINES_EVENT = "lines";
+    private static final String GAP_EVENT = "gap";
+    /**
+     * Streams stay open for long, so a client turned away at the cap should not retry
+     * at once.
+     */
+    private static final Duration RETRY_AFTER = Duration.ofSeconds(30);
+
+    private final LogProperties properties;
+    private final RecentLogEvents recentEvents;
+    private final List<Subscriber> subscribers = new CopyOnWriteArrayList<>();
+    /** Slots taken by open streams, reserved before a subscriber is added. */
+    private final AtomicInteger reserved = new AtomicInteger();
+    private final Object lifecycle = new Object();
+    private Thread reader;
+    private volatile boolean stopped;
+    private int[] lineStarts = new int[1024];
+
+    /**
+     * Constructs a LogTailService with the log subsystem settings.
+     *
+     * @param properties log processing settings
+     * @param recentEvents recent log events kept in memory
+     */
+    public LogTailService(LogProperties properties, RecentLogEvents recentEvents) {
+        this.properties = properties;
+        this.recentEvents = recentEvents;
+    }
+
+    /**
+     * Opens a tail stream of the lines appended from now on that match {@code query}.
+     *
+     * @param query filter applied to the appended lines
+     * @return emitter that receives the matching lines
+     * @throws BadRequestException if the query is invalid
+     * @throws TooManyRequestsException if too many streams are open
+     */
+    public SseEmitter subscribe(LogQuery query) {
+        LogQueryValidator.validate(query);
+        LineMatcher matcher = LogQueryMatcher.compile(query).fork();
+        int max = properties.getTail().getMaxSubscribers();
+        int taken;
+        do {
+            taken = reserved.get();
+            if (taken >= max) {
+                throw new TooManyRequestsException(
+                        "Too many live tail streams, try again later", RETRY_AFTER);
+            }
+        } while (!reserved.compareAndSet(taken, taken + 1));
+        SseEmitter emitter = new SseEmitter(properties.getEvents().getTimeout().toMillis());
+        Subscriber subscriber = new Subscriber(emitter, matcher);
+        subscribers.add(subscriber);
+        emitter.onCompletion(() -> remove(subscriber));
+        emitter.onTimeout(() -> remove(subscriber));
+        emitter.onError(error -> remove(subscriber));
+
+        synchronized (lifecycle) {
+            if (reader == null && !stopped) {
+                reader = new Thread(this::follow, "LogTail");
+                reader.setDaemon(true);
+                reader.start();
+            }
+        }
+        return emitter;
+    }
+
+    /**
+     * Stops the reader thread when the application context closes.
+     */
+    @PreDestroy
+    public void shutdown() {
+        synchronized (lifecycle) {
+            stopped = true;
+            if (reader != null) {
+                reader.interrupt();
+            }
+        }
+    }
+
+    private void follow() {
+        Optional<LogRingBuffer> memory = recentEvents.buffer();
+        if (memory.isPresent()) {
+            followMemory(memory.get());
+        } else {
+            followFile();
+        }
+    }
+
+    /**
+     * Follows the in-memory buffer from its current end.
+     */
+    private void followMemory(LogRingBuffer buffer) {
+        long pollMillis = properties.getTail().getPollInterval().toMillis();
+        ByteArrayOutputStream batch = new ByteArrayOutputStream();
+        long cursor = buffer.nextSequence();
+        try {
+            while (true) {
+                batch.reset();
+                long next = buffer.read(cursor, batch);
+                if (next < 0) {
+                    // The batch may hold events read before the eviction was noticed; they
+                    // are counted as lost rather than sent without the ones around them.
+                    next = buffer.oldestSequence();
+                    log.warn("Live tail fell behind the in-memory log buffer, {} events lost",
+                            next - cursor);
+                    sendGap(next - cursor);
+                } else if (batch.size() > 0) {
+                    dispatch(batch.toByteArray(), batch.size());
+                }
+                cursor = next;
+                synchronized (lifecycle) {
+                    if (subscribers.isEmpty() || stopped) {
+                        reader = null;
+                        return;
+                    }
+                }
+                buffer.awaitAppend(cursor, pollMillis, TimeUnit.MILLISECONDS);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (RuntimeException e) {
+            log.error("Live tail of the in-memory log buffer failed", e);
+            failAll(e);
+        }
+        synchronized (lifecycle) {
+            reader = null;
+        }
+    }
+
+    private void followFile() {
+        Path file = Paths.get(properties.getFile()).toAbsolutePath();
+        long pollMillis = properties.getTail().getPollInterval().toMillis();
+        try (LogFileFollower follower = new LogFileFollower(file,
+                (int) properties.getBufferSize().toBytes(), true);
+             WatchService watcher = file.getFileSystem().newWatchService()) {
+            file.getParent().register(watcher, StandardWatchEventKinds.ENTRY_CREATE,
+                    StandardWatchEventKinds.ENTRY_MODIFY);
+            while (true) {
+                follower.readAppended(this::dispatch);
+                synchronized (lifecycle) {
+                    if (subscribers.isEmpty() || stopped) {
+                        reader = null;
+                        return;
+                    }
+                }
+                WatchKey key = watcher.poll(pollMillis, TimeUnit.MILLISECONDS);
+                if (key != null) {
+                    key.pollEvents();
+                    key.reset();
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (IOException | RuntimeException e) {
+            log.error("Live tail of {} failed", file, e);
+            failAll(e);
+        }
+        synchronized (lifecycle) {
+            reader = null;
+        }
+    }
+
+    /**
+     * Splits the appended bytes into lines once and sends every subscriber its matches.
+     */
+    private void dispatch(byte[] buf, int end) {
+        int lines = 0;
+        for (int start = 0; start < end; ) {
+            if (lines == lineStarts.length) {
+                lineStarts = Arrays.copyOf(lineStarts, lines * 2);
+            }
+            lineStarts[lines++] = start;
+            while (buf[start] != '\n') {
+                start++;
+            }
+            start++;
+        }
+
+        for (Subscriber subscriber : subscribers) {
+            ByteArrayOutputStream matched = new ByteArrayOutputStream();
+            for (int i = 0; i < lines; i++) {
+                int lineStart = lineStarts[i];
+                int next = i + 1 < lines ? lineStarts[i + 1] : end;
+                int lineEnd = next - 1;
+                if (lineEnd > lineStart && buf[lineEnd - 1] == '\r') {
+                    lineEnd--;
+                }
+                if (subscriber.matcher().matches(buf, lineStart, lineEnd)) {
+                    matched.write(buf, lineStart, next - lineStart);
+                }
+            }
+            if (matched.size() > 0) {
+                send(subscriber, matched.toString(StandardCharsets.UTF_8));
+            }
+        }
+    }
+
+    /**
+     * Tells every subscriber how many events it will never receive.
+     */
+    private void sendGap(long missedEvents) {
+        for (Subscriber subscriber : subscribers) {
+            send(subscriber, SseEmitter.event().name(GAP_EVENT)
+                    .data(Map.of("missedEvents", missedEvents)));
+        }
+    }
+
+    private void send(Subscriber subscriber, String lines) {
+        send(subscriber, SseEmitter.event().name(LINES_EVENT).data(lines));
+    }
+
+    private void send(Subscriber subscriber, SseEmitter.SseEventBuilder event) {
+        try {
+            subscriber.emitter().send(event);
+        } catch (IOException | IllegalStateException e) {
+            log.debug("Dropping live tail subscriber: {}", e.getMessage());
+            remove(subscriber);
+            subscriber.emitter().completeWithError(e);
+        }
+    }
+
+    private void failAll(Exception e) {
+        for (Subscriber subscriber : subscribers) {
+            remove(subscriber);
+            subscriber.emitter().completeWithError(e);
+        }
+    }
+
+    /**
+     * Removes a subscriber and frees its slot; a subscriber removed on several paths frees
+     * the slot only once.
+     */
+    private void remove(Subscriber subscriber) {
+        if (subscribers.remove(subscriber)) {
+            reserved.decrementAndGet();
+        }
+    }
+
+    private record Subscriber(SseEmitter emitter, LineMatcher matcher) {
+    }
+}
@@ -0,0 +1,140 @@
+package com.example.demo.service;
+
+import com.example.demo.config.LogProperties;
+import com.example.demo.model.LogTask;
+import com.example.demo.model.LogTaskProgress;
+import com.example.demo.model.LogTaskStatus;
+import java.io.IOException;
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+/**
+ * Pushes the state of log tasks to clients over Server-Sent Events.
+ *
+ * <p>A subscriber receives a {@code progress} event right away and then every
+ * {@code app.logs.events.interval} while the task runs, and a final {@code status} event
+ * when the task finishes, after which the stream is closed. Progress is sampled from the
+ * task, so the scan itself never waits for slow clients.
+ */
+@Slf4j
+@Service
+public class LogTaskEvents {
+    private static final String PROGRESS_EVENT = "progress";
+    private static final String STATUS_EVENT = "status";
+
+    private final LogProperties properties;
+    private final Map<LogTask, List<SseEmitter>> subscribers = new ConcurrentHashMap<>();
+
+    /**
+     * Constructs a LogTaskEvents with the log subsystem settings.
+     *
+     * @param properties log processing settings
+     */
+    public LogTaskEvents(LogProperties properties) {
+        this.properties = properties;
+    }
+
+    /**
+     * Opens an event stream for a task.
+     *
+     * @param task the task to follow
+     * @return emitter that receives the events of the task
+     */
+    public SseEmitter subscribe(LogTask task) {
+        SseEmitter emitter = new SseEmitter(properties.getEvents().getTimeout().toMillis());
+        List<SseEmitter> emitters =
+                subscribers.computeIfAbsent(task, key -> new CopyOnWriteArrayList<>());
+        emitters.add(emitter);
+        Runnable unsubscribe = () -> emitters.remove(emitter);
+        emitter.onCompletion(unsubscribe);
+        emitter.onTimeout(unsubscribe);
+        emitter.onError(error -> unsubscribe.run());
+
+        send(emitter, PROGRESS_EVENT, task);
+        // The task may have finished before the emitter was registered, and its list may
+        // already have been taken out of the map, so the emitter is closed here directly.
+        if (task.getStatus() != LogTaskStatus.PROCESSING) {
+            finish(emitters, emitter, task);
+        }
+        return emitter;
+    }
+
+    /**
+     * Sends the final state of a task to its subscribers and closes their streams.
+     *
+     * @param task the task whose status changed
+     */
+    public void statusChanged(LogTask task) {
+        List<SseEmitter> emitters = subscribers.remove(task);
+        if (emitters == null) {
+            return;
+        }
+        for (SseEmitter emitter : emitters) {
+            finish(emitters, emitter, task);
+        }
+    }
+
+    /**
+     * Sends the current progress of every running task that has subscribers.
+     */
+    @Scheduled(fixedDelayString = "#{@logProperties.events.interval.toMillis()}")
+    public void pushProgress() {
+        subscribers.forEach((task, emitters) -> {
+            if (task.getStatus() != LogTaskStatus.PROCESSING) {
+                statusChanged(task);
+                return;
+            }
+            emitters.forEach(emitter -> send(emitter, PROGRESS_EVENT, task));
+        });
+    }
+
+    /**
+     * Describes the status and progress of a task.
+     *
+     * @param task the task to describe
+     * @return status, scanned and total bytes, matched lines and, while the task runs,
+     *         the estimated remaining seconds
+     */
+    public static Map<String, Object> describe(LogTask task) {
+        LogTaskProgress progress = task.getProgress();
+        Map<String, Object> state = new LinkedHashMap<>();
+        state.put("status", task.getStatus().name());
+        state.put("bytesScanned", progress.getBytesScanned());
+        state.put("totalBytes", progress.getTotalBytes());
+        state.put("linesMatched", progress.getLinesMatched());
+        Duration eta = progress.getEta();
+        if (task.getStatus() == LogTaskStatus.PROCESSING && eta != null) {
+            state.put("etaSeconds", eta.toSeconds());
+        }
+        return state;
+    }
+
+    /**
+     * Sends the final status to one emitter and closes it, unless a concurrent caller has
+     * already taken it out of its list.
+     */
+    private static void finish(List<SseEmitter> emitters, SseEmitter emitter, LogTask task) {
+        if (emitters.remove(emitter) && send(emitter, STATUS_EVENT, task)) {
+            emitter.complete();
+        }
+    }
+
+    private static boolean send(SseEmitter emitter, String name, LogTask task) {
+        try {
+            emitter.send(SseEmitter.event().name(name).data(describe(task)));
+            return true;
+        } catch (IOException | IllegalStateException e) {
+            log.debug("Dropping event stream of task {}: {}", task.getId(), e.getMessage());
+            emitter.completeWithError(e);
+            return false;
+        }
+    }
+}
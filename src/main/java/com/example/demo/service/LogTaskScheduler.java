@@ -0,0 +1,268 @@
+package com.example.demo.service;
+
+import com.example.demo.config.LogProperties;
+import com.example.demo.exception.TooManyRequestsException;
+import jakarta.annotation.PreDestroy;
+import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+
+/**
+ * Runs log tasks on a fixed set of workers fed by two bounded lanes.
+ *
+ * <p>Each task is queued in the small or the large lane by the number of bytes it is
+ * expected to scan. Idle workers take tasks from the lanes in turn, so a burst in one
+ * lane cannot starve the other, and large tasks never occupy more than
+ * {@code app.logs.lanes.max-large-running} workers, so a short query does not wait behind
+ * a month-long one. A full lane rejects new tasks with a {@link TooManyRequestsException}
+ * whose retry delay is estimated from the lane's recent run times. Queue depth and wait
+ * times are kept per lane for {@link #stats()}.
+ */
+@Slf4j
+@Service
+public class LogTaskScheduler {
+    private static final Duration MIN_RETRY_AFTER = Duration.ofSeconds(1);
+    private static final Duration MAX_RETRY_AFTER = Duration.ofMinutes(10);
+    private static final int SMALL = 0;
+    private static final int LARGE = 1;
+
+    private final long largeThreshold;
+    private final Lane[] lanes;
+    private final Thread[] workers;
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition dispatchable = lock.newCondition();
+    private int nextLane;
+    private boolean stopped;
+
+    /**
+     * Constructs a LogTaskScheduler and starts its workers.
+     *
+     * @param properties log processing settings
+     */
+    public LogTaskScheduler(LogProperties properties) {
+        LogProperties.Lanes settings = properties.getLanes();
+        int workerCount = Math.max(2, settings.getWorkers());
+        if (workerCount != settings.getWorkers()) {
+            log.warn("app.logs.lanes.workers={} leaves no worker for small tasks while a large "
+                    + "one runs, using {} workers", settings.getWorkers(), workerCount);
+        }
+        int maxLargeRunning = Math.max(1,
+                Math.min(settings.getMaxLargeRunning(), workerCount - 1));
+        this.largeThreshold = settings.getLargeThreshold().toBytes();
+        this.lanes = new Lane[] {
+                new Lane("small", settings.getSmallQueueCapacity(), workerCount),
+                new Lane("large", settings.getLargeQueueCapacity(), maxLargeRunning)
+        };
+        this.workers = new Thread[workerCount];
+        for (int i = 0; i < workerCount; i++) {
+            workers[i] = new Thread(this::work, "LogTask-" + (i + 1));
+            workers[i].setDaemon(true);
+            workers[i].start();
+        }
+    }
+
+    /**
+     * Queues a task in the lane that matches its expected size.
+     *
+     * @param taskId ID of the task, for logging
+     * @param estimatedBytes number of bytes the task is expected to scan
+     * @param work the task
+     * @throws TooManyRequestsException if the lane is full
+     */
+    public void submit(String taskId, long estimatedBytes, Runnable work) {
+        Lane lane = lanes[estimatedBytes >= largeThreshold ? LARGE : SMALL];
+        lock.lock();
+        try {
+            if (stopped) {
+                throw new IllegalStateException("Log task scheduler is shut down");
+            }
+            if (lane.queue.size() >= lane.capacity) {
+                lane.rejected++;
+                throw new TooManyRequestsException("Too many " + lane.name
+                        + " log tasks are queued, try again later", lane.retryAfter());
+            }
+            lane.queue.addLast(new Queued(work, System.nanoTime()));
+            lane.submitted++;
+            dispatchable.signal();
+        } finally {
+            lock.unlock();
+        }
+        log.debug("Task {} queued in the {} lane ({} bytes)", taskId, lane.name, estimatedBytes);
+    }
+
+    /**
+     * Returns the queue depth, load and wait times of every lane.
+     *
+     * @return statistics keyed by lane name
+     */
+    public Map<String, LaneStats> stats() {
+        long now = System.nanoTime();
+        Map<String, LaneStats> stats = new LinkedHashMap<>();
+        lock.lock();
+        try {
+            for (Lane lane : lanes) {
+                Queued oldest = lane.queue.peekFirst();
+                stats.put(lane.name, new LaneStats(
+                        lane.queue.size(),
+                        lane.running,
+                        lane.submitted,
+                        lane.rejected,
+                        lane.dispatched == 0 ? 0
+                                : TimeUnit.NANOSECONDS.toMillis(lane.totalWaitNanos / lane.dispatched),
+                        TimeUnit.NANOSECONDS.toMillis(lane.maxWaitNanos),
+                        oldest == null ? 0
+                                : TimeUnit.NANOSECONDS.toMillis(now - oldest.queuedAtNanos)));
+            }
+        } finally {
+            lock.unlock();
+        }
+        return stats;
+    }
+
+    /**
+     * Stops the workers when the application context closes; queued tasks are dropped
+     * and running ones are interrupted.
+     */
+    @PreDestroy
+    public void shutdown() {
+        lock.lock();
+        try {
+            stopped = true;
+            for (Lane lane : lanes) {
+                lane.queue.clear();
+            }
+            dispatchable.signalAll();
+        } finally {
+            lock.unlock();
+        }
+        for (Thread worker : workers) {
+            worker.interrupt();
+        }
+    }
+
+    private void work() {
+        while (true) {
+            Lane lane;
+            Queued queued;
+            lock.lock();
+            try {
+                while ((lane = nextDispatchable()) == null) {
+                    if (stopped) {
+                        return;
+                    }
+                    dispatchable.awaitUninterruptibly();
+                }
+                queued = lane.queue.pollFirst();
+                long waitNanos = System.nanoTime() - queued.queuedAtNanos;
+                lane.running++;
+                lane.dispatched++;
+                lane.totalWaitNanos += waitNanos;
+                lane.maxWaitNanos = Math.max(lane.maxWaitNanos, waitNanos);
+            } finally {
+                lock.unlock();
+            }
+
+            long startNanos = System.nanoTime();
+            try {
+                queued.work.run();
+            } catch (Throwable e) {
+                // An error must not kill the worker, or the lanes would lose a thread for good.
+                log.error("Log task failed in the {} lane", lane.name, e);
+            } finally {
+                lock.lock();
+                try {
+                    lane.running--;
+                    lane.recordRunTime(System.nanoTime() - startNanos);
+                    dispatchable.signal();
+                } finally {
+                    lock.unlock();
+                }
+            }
+        }
+    }
+
+    /**
+     * Picks the next lane with a queued task and a free worker slot, starting after the
+     * lane served last. Must be called with the lock held.
+     */
+    private Lane nextDispatchable() {
+        if (stopped) {
+            return null;
+        }
+        for (int i = 0; i < lanes.length; i++) {
+            int index = (nextLane + i) % lanes.length;
+            Lane lane = lanes[index];
+            if (!lane.queue.isEmpty() && lane.running < lane.maxRunning) {
+                nextLane = (index + 1) % lanes.length;
+                return lane;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Statistics of one lane.
+     *
+     * @param queued number of tasks waiting for a worker
+     * @param running number of tasks being run
+     * @param submitted number of tasks accepted since startup
+     * @param rejected number of tasks rejected because the lane was full
+     * @param averageWaitMillis average time accepted tasks waited for a worker
+     * @param maxWaitMillis longest time a task waited for a worker
+     * @param oldestWaitMillis time the oldest queued task has been waiting so far
+     */
+    public record LaneStats(int queued, int running, long submitted, long rejected,
+                            long averageWaitMillis, long maxWaitMillis, long oldestWaitMillis) {
+    }
+
+    private record Queued(Runnable work, long queuedAtNanos) {
+    }
+
+    /**
+     * Queue and counters of one lane; guarded by the scheduler lock.
+     */
+    private static final class Lane {
+        private final String name;
+        private final int capacity;
+        private final int maxRunning;
+        private final ArrayDeque<Queued> queue = new ArrayDeque<>();
+        private int running;
+        private long submitted;
+        private long rejected;
+        private long dispatched;
+        private long totalWaitNanos;
+        private long maxWaitNanos;
+        private long averageRunNanos;
+
+        Lane(String name, int capacity, int maxRunning) {
+            this.name = name;
+            this.capacity = capacity;
+            this.maxRunning = maxRunning;
+        }
+
+        /**
+         * Keeps an exponentially weighted average, so the estimate follows recent tasks.
+         */
+        void recordRunTime(long nanos) {
+            averageRunNanos = averageRunNanos == 0 ? nanos : (averageRunNanos * 7 + nanos) / 8;
+        }
+
+        /**
+         * Expected time until one of the lane's workers finishes its task and a queue slot
+         * frees up, if tasks keep running for the average time.
+         */
+        Duration retryAfter() {
+            Duration estimate = Duration.ofNanos(averageRunNanos / maxRunning);
+            if (estimate.compareTo(MIN_RETRY_AFTER) < 0) {
+                return MIN_RETRY_AFTER;
+            }
+            return estimate.compareTo(MAX_RETRY_AFTER) > 0 ? MAX_RETRY_AFTER : estimate;
+        }
+    }
+}
@@ -0,0 +1,89 @@
+package com.example.demo.service;
+
+import ch.qos.logback.classic.Logger;
+import ch.qos.logback.classic.LoggerContext;
+import ch.qos.logback.core.Appender;
+import com.example.demo.config.LogProperties;
+import com.example.demo.utils.LogRingBuffer;
+import com.example.demo.utils.RingBufferAppender;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.temporal.ChronoUnit;
+import java.util.Optional;
+import org.slf4j.ILoggerFactory;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Service;
+
+/**
+ * Gives access to the recent log events kept in memory by the {@code MEMORY} appender.
+ *
+ * <p>The appender is looked up on every call, because logging may be reconfigured while
+ * the application runs. Its buffer is only offered when the in-memory buffer is enabled
+ * and the appender mirrors the log file that tasks read; otherwise callers read the file.
+ */
+@Service
+public class RecentLogEvents {
+    static final String APPENDER_NAME = "MEMORY";
+
+    private final LogProperties properties;
+
+    /**
+     * Constructs a RecentLogEvents with the log subsystem settings.
+     *
+     * @param properties log processing settings
+     */
+    public RecentLogEvents(LogProperties properties) {
+        this.properties = properties;
+    }
+
+    /**
+     * Returns the buffer of recent events of the log file, if there is one.
+     *
+     * @return the buffer, or an empty optional if tasks have to read the file
+     */
+    public Optional<LogRingBuffer> buffer() {
+        if (!properties.getMemory().isEnabled()) {
+            return Optional.empty();
+        }
+        ILoggerFactory factory = LoggerFactory.getILoggerFactory();
+        if (!(factory instanceof LoggerContext context)) {
+            return Optional.empty();
+        }
+        Appender<?> appender = context.getLogger(Logger.ROOT_LOGGER_NAME)
+                .getAppender(APPENDER_NAME);
+        if (!(appender instanceof RingBufferAppender memory) || !memory.isStarted()
+                || memory.getFile() == null || !sameFile(memory.getFile(), properties.getFile())) {
+            return Optional.empty();
+        }
+        return Optional.of(memory.getBuffer());
+    }
+
+    /**
+     * Returns the recent events logged at or after {@code from} and before {@code to} if
+     * none of them has been evicted from memory yet. Both bounds are truncated to whole
+     * seconds, the precision at which log queries compare timestamps.
+     *
+     * @param from start of the requested period
+     * @param to end of the requested period, exclusive, or null if it is open-ended
+     * @return the events as written to the log file, or an empty optional if the file has
+     *         to be read
+     */
+    public Optional<byte[]> since(LocalDateTime from, LocalDateTime to) {
+        long fromMillis = epochMillis(from);
+        long toMillis = to != null ? epochMillis(to) : Long.MAX_VALUE;
+        return buffer().flatMap(buffer -> buffer.since(fromMillis, toMillis));
+    }
+
+    private static long epochMillis(LocalDateTime time) {
+        return time.truncatedTo(ChronoUnit.SECONDS)
+                .atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
+    }
+
+    private static boolean sameFile(String first, String second) {
+        Path a = Paths.get(first).toAbsolutePath().normalize();
+        Path b = Paths.get(second).toAbsolutePath().normalize();
+        return a.equals(b);
+    }
+}
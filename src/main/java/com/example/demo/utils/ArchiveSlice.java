@@ -0,0 +1,22 @@
+package com.example.demo.utils;
+
+import java.nio.file.Path;
+
+/**
+ * Part of a rolled log archive that a scan has to read.
+ *
+ * @param file the archive, plain or gzip-compressed
+ * @param range compressed bytes to read; for a gzip archive it starts at a gzip member
+ */
+public record ArchiveSlice(Path file, ByteRange range) {
+
+    /**
+     * Creates a slice covering a whole archive.
+     *
+     * @param file the archive
+     * @return the slice
+     */
+    public static ArchiveSlice of(Path file) {
+        return new ArchiveSlice(file, ByteRange.ALL);
+    }
+}
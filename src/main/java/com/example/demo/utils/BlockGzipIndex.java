@@ -0,0 +1,122 @@
+package com.example.demo.utils;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.Optional;
+
+/**
+ * Block table of an archive written by {@link BlockGzipOutputStream}, stored next to it
+ * as {@code <archive>.blocks}.
+ *
+ * <p>For every block the table holds its compressed offset and the timestamp of the
+ * record its first line belongs to, which for a block starting with continuation lines is
+ * a record of an earlier block. The blocks that hold lines of records of a time range
+ * therefore form one contiguous compressed byte range. That range starts at a gzip member
+ * and decompresses on its own.
+ *
+ * <p>File layout: {@code MAGIC, archive size, block count} as longs, followed by one
+ * {@code offset, epoch second} pair per block. A table whose archive size differs from
+ * the archive, or that was written in an earlier layout, is ignored, so the archive is
+ * compacted again.
+ */
+public final class BlockGzipIndex {
+    private static final long MAGIC = 0x42475A49_4458_0002L;
+    private static final String SUFFIX = ".blocks";
+    private static final int HEADER_BYTES = 3 * Long.BYTES;
+    private static final int ENTRY_BYTES = 2 * Long.BYTES;
+
+    private final long archiveSize;
+    private final long[] offsets;
+    private final long[] seconds;
+
+    private BlockGzipIndex(long archiveSize, long[] offsets, long[] seconds) {
+        this.archiveSize = archiveSize;
+        this.offsets = offsets;
+        this.seconds = seconds;
+    }
+
+    /**
+     * Returns the table file of an archive.
+     *
+     * @param archive the archive
+     * @return path of its block table
+     */
+    public static Path sidecar(Path archive) {
+        return archive.resolveSibling(archive.getFileName() + SUFFIX);
+    }
+
+    /**
+     * Loads the block table of an archive if it has a valid one.
+     *
+     * @param archive the archive
+     * @return the table, or an empty optional if there is none or it does not match the
+     *         archive
+     * @throws IOException if the archive or its table cannot be read
+     */
+    public static Optional<BlockGzipIndex> load(Path archive) throws IOException {
+        Path table = sidecar(archive);
+        if (!Files.exists(table)) {
+            return Optional.empty();
+        }
+        ByteBuffer buf = ByteBuffer.wrap(Files.readAllBytes(table));
+        if (buf.remaining() < HEADER_BYTES || buf.getLong() != MAGIC) {
+            return Optional.empty();
+        }
+        long archiveSize = buf.getLong();
+        long count = buf.getLong();
+        if (archiveSize != Files.size(archive) || count <= 0
+                || buf.remaining() != count * ENTRY_BYTES) {
+            return Optional.empty();
+        }
+        long[] offsets = new long[(int) count];
+        long[] seconds = new long[(int) count];
+        for (int i = 0; i < count; i++) {
+            offsets[i] = buf.getLong();
+            seconds[i] = buf.getLong();
+        }
+        return Optional.of(new BlockGzipIndex(archiveSize, offsets, seconds));
+    }
+
+    /**
+     * Writes the block table of an archive through a temporary file.
+     */
+    static void write(Path archive, long archiveSize, long[] offsets, long[] seconds)
+            throws IOException {
+        ByteBuffer buf = ByteBuffer.allocate(HEADER_BYTES + offsets.length * ENTRY_BYTES);
+        buf.putLong(MAGIC).putLong(archiveSize).putLong(offsets.length);
+        for (int i = 0; i < offsets.length; i++) {
+            buf.putLong(offsets[i]).putLong(seconds[i]);
+        }
+        Path table = sidecar(archive);
+        Path tempFile = table.resolveSibling(table.getFileName() + ".tmp");
+        Files.write(tempFile, buf.array());
+        Files.move(tempFile, table, StandardCopyOption.REPLACE_EXISTING,
+                StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    /**
+     * Returns the compressed bytes holding every record logged from {@code fromSecond},
+     * inclusive, to {@code toSecond}, exclusive.
+     *
+     * @param fromSecond start of the range in epoch seconds of the local date-time
+     * @param toSecond end of the range in epoch seconds of the local date-time
+     * @return the range of whole blocks to decompress; empty if no block can match
+     */
+    public ByteRange locate(long fromSecond, long toSecond) {
+        int first = 0;
+        while (first + 1 < seconds.length && seconds[first + 1] < fromSecond) {
+            first++;
+        }
+        int end = first;
+        while (end < seconds.length && seconds[end] < toSecond) {
+            end++;
+        }
+        if (end == first) {
+            return new ByteRange(offsets[first], offsets[first]);
+        }
+        return new ByteRange(offsets[first], end < offsets.length ? offsets[end] : archiveSize);
+    }
+}
@@ -0,0 +1,174 @@
+package com.example.demo.utils;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.zip.CRC32;
+import java.util.zip.Deflater;
+
+/**
+ * Writes log text as a block-compressed gzip file in the style of BGZF: a series of
+ * independent gzip members of at most {@code blockSize} uncompressed bytes each.
+ *
+ * <p>The output is an ordinary multi-member gzip file that any gzip reader decompresses
+ * in full. Blocks end at line breaks whenever a line fits into a block, and the writer
+ * records where every block starts and the timestamp of the record its first line belongs
+ * to, so that
+ * {@link BlockGzipIndex} can later decompress only the blocks of a time range.
+ */
+public class BlockGzipOutputStream extends OutputStream {
+    private static final byte[] HEADER = {
+        0x1f, (byte) 0x8b, Deflater.DEFLATED, 0, 0, 0, 0, 0, 0, (byte) 0xff
+    };
+    private static final int TRAILER_BYTES = 8;
+
+    private final OutputStream out;
+    private final byte[] block;
+    private final byte[] deflated;
+    private final Deflater deflater = new Deflater(Deflater.DEFAULT_COMPRESSION, true);
+    private final CRC32 crc = new CRC32();
+    private int filled;
+    private long compressedOffset;
+    private long lastSecond = Long.MIN_VALUE;
+    private long[] offsets = new long[64];
+    private long[] seconds = new long[64];
+    private int blocks;
+    private boolean closed;
+
+    /**
+     * Creates a writer of blocks of at most {@code blockSize} uncompressed bytes.
+     *
+     * @param out stream receiving the compressed blocks
+     * @param blockSize maximum uncompressed size of a block
+     */
+    public BlockGzipOutputStream(OutputStream out, int blockSize) {
+        this.out = out;
+        this.block = new byte[blockSize];
+        this.deflated = new byte[blockSize + blockSize / 8 + 64];
+    }
+
+    @Override
+    public void write(int b) throws IOException {
+        write(new byte[] {(byte) b}, 0, 1);
+    }
+
+    @Override
+    public void write(byte[] b, int off, int len) throws IOException {
+        while (len > 0) {
+            int count = Math.min(len, block.length - filled);
+            System.arraycopy(b, off, block, filled, count);
+            filled += count;
+            off += count;
+            len -= count;
+            if (filled == block.length) {
+                writeBlock(lastLineBreak() + 1);
+            }
+        }
+    }
+
+    /**
+     * Writes the buffered bytes as a final block and closes the underlying stream.
+     */
+    @Override
+    public void close() throws IOException {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        try {
+            if (filled > 0) {
+                writeBlock(filled);
+            }
+        } finally {
+            deflater.end();
+            out.close();
+        }
+    }
+
+    /**
+     * Stores the block table of the closed output next to the archive it was written to.
+     *
+     * @param archive the file holding the output
+     * @throws IOException if the table cannot be written
+     */
+    public void writeIndex(Path archive) throws IOException {
+        if (!closed) {
+            throw new IllegalStateException("Block output must be closed before indexing");
+        }
+        BlockGzipIndex.write(archive, compressedOffset, Arrays.copyOf(offsets, blocks),
+                Arrays.copyOf(seconds, blocks));
+    }
+
+    /**
+     * Returns the index of the last line break in the full block, or the block end if it
+     * holds a single unterminated line.
+     */
+    private int lastLineBreak() {
+        for (int i = filled - 1; i >= 0; i--) {
+            if (block[i] == '\n') {
+                return i;
+            }
+        }
+        return filled - 1;
+    }
+
+    private void writeBlock(int length) throws IOException {
+        if (blocks == offsets.length) {
+            offsets = Arrays.copyOf(offsets, blocks * 2);
+            seconds = Arrays.copyOf(seconds, blocks * 2);
+        }
+        // A block starting with continuation lines belongs to the last record written.
+        long startSecond = LogTimestamps.epochSecond(block, 0, length);
+        offsets[blocks] = compressedOffset;
+        seconds[blocks] = Math.max(lastSecond, startSecond);
+        lastSecond = Math.max(lastSecond, lastRecordSecond(length));
+        blocks++;
+
+        out.write(HEADER);
+        deflater.reset();
+        deflater.setInput(block, 0, length);
+        deflater.finish();
+        long size = HEADER.length + TRAILER_BYTES;
+        while (!deflater.finished()) {
+            int count = deflater.deflate(deflated);
+            out.write(deflated, 0, count);
+            size += count;
+        }
+        crc.reset();
+        crc.update(block, 0, length);
+        writeIntLe((int) crc.getValue());
+        writeIntLe(length);
+        compressedOffset += size;
+
+        System.arraycopy(block, length, block, 0, filled - length);
+        filled -= length;
+    }
+
+    /**
+     * Returns the timestamp of the last log record in {@code block[0, length)}, or
+     * {@link Long#MIN_VALUE} if it holds continuation lines only.
+     */
+    private long lastRecordSecond(int length) {
+        int end = length;
+        while (end > 0) {
+            int start = end - 1;
+            while (start > 0 && block[start - 1] != '\n') {
+                start--;
+            }
+            long second = LogTimestamps.epochSecond(block, start, end - start);
+            if (second >= 0) {
+                return second;
+            }
+            end = start;
+        }
+        return Long.MIN_VALUE;
+    }
+
+    private void writeIntLe(int value) throws IOException {
+        out.write(value);
+        out.write(value >>> 8);
+        out.write(value >>> 16);
+        out.write(value >>> 24);
+    }
+}
@@ -0,0 +1,33 @@
+package com.example.demo.utils;
+
+/**
+ * Half-open range {@code [start, end)} of byte offsets in a file.
+ *
+ * @param start offset of the first byte in the range
+ * @param end offset just past the last byte in the range
+ */
+public record ByteRange(long start, long end) {
+
+    /**
+     * Range covering a whole file, whatever its size.
+     */
+    public static final ByteRange ALL = new ByteRange(0, Long.MAX_VALUE);
+
+    /**
+     * Creates a range, rejecting a negative start or an end before the start.
+     */
+    public ByteRange {
+        if (start < 0 || end < start) {
+            throw new IllegalArgumentException("Invalid byte range [" + start + ", " + end + ")");
+        }
+    }
+
+    /**
+     * Returns the number of bytes in the range.
+     *
+     * @return {@code end - start}
+     */
+    public long length() {
+        return end - start;
+    }
+}
@@ -0,0 +1,62 @@
+package com.example.demo.utils;
+
+/**
+ * Substring search over raw bytes, used to filter log lines without decoding them.
+ */
+public final class ByteSearch {
+
+    private ByteSearch() {
+        throw new UnsupportedOperationException("Utility class");
+    }
+
+    /**
+     * Finds the first occurrence of {@code needle} in {@code buf[from, to)}.
+     *
+     * @param buf buffer to search
+     * @param from index of the first byte to search
+     * @param to index just past the last byte to search
+     * @param needle bytes to look for
+     * @return index of the first match, or -1 if there is none
+     */
+    public static int indexOf(byte[] buf, int from, int to, byte[] needle) {
+        if (needle.length == 0) {
+            return from;
+        }
+        byte first = needle[0];
+        int last = to - needle.length;
+        for (int i = from; i <= last; i++) {
+            if (buf[i] != first) {
+                continue;
+            }
+            int j = 1;
+            while (j < needle.length && buf[i + j] == needle[j]) {
+                j++;
+            }
+            if (j == needle.length) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Checks whether {@code buf[from, to)} starts with {@code prefix}.
+     *
+     * @param buf buffer to check
+     * @param from index of the first byte to check
+     * @param to index just past the last readable byte
+     * @param prefix expected leading bytes
+     * @return {@code true} if the range starts with {@code prefix}
+     */
+    public static boolean startsWith(byte[] buf, int from, int to, byte[] prefix) {
+        if (to - from < prefix.length) {
+            return false;
+        }
+        for (int i = 0; i < prefix.length; i++) {
+            if (buf[from + i] != prefix[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
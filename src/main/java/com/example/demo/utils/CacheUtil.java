@@ -1,26 +1,54 @@
 package com.example.demo.utils;
 
-import java.util.LinkedHashMap;
-import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
 import java.util.concurrent.locks.ReentrantLock;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 /**
- * Потокобезопасный LRU-кэш на основе LinkedHashMap с логирование операций.
+ * Потокобезопасный кэш ограниченного размера с вытеснением по политике W-TinyLFU
+ * и логированием записи и вытеснения.
+ *
+ * <p>Чтение не берет блокировок: значение ищется в {@link ConcurrentHashMap}, а факт
+ * обращения записывается в один из полосатых буферов чтения. Буферы разбираются
+ * под блокировкой вытеснения при записи или когда буфер заполнился; если блокировка
+ * занята или буфер полон, обращение просто теряется, что на точность политики почти
+ * не влияет. Чтения не логируются, чтобы читающие потоки не выстраивались в очередь
+ * к аппендеру.
+ *
+ * <p>Новые записи попадают в небольшое LRU-окно (около 1% емкости). Вытесненные из окна
+ * кандидаты сравниваются с жертвой основной области по частоте обращений, которую
+ * оценивает count-min sketch с 4-битными счетчиками, и остаются только если обращались
+ * к ним чаще. Основная область делится на испытательный и защищенный сегменты (SLRU).
+ * Поэтому однократный проход по множеству ключей не вымывает из кэша часто
+ * используемые записи, в отличие от чистого LRU.
  *
  * @param <K> тип ключа кэша
  * @param <V> тип значения кэша
  */
 public class CacheUtil<K, V> {
     private static final Logger LOGGER = LoggerFactory.getLogger(CacheUtil.class);
+    private static final int STRIPE_COUNT = ceilingPowerOfTwo(
+            Runtime.getRuntime().availableProcessors());
+    private static final int BUFFER_SIZE = 16;
+    private static final int DRAIN_THRESHOLD = BUFFER_SIZE / 2;
 
-    private final LinkedHashMap<K, V> cache;
-    private final ReentrantLock lock = new ReentrantLock();
+    private final ConcurrentHashMap<K, Node<K, V>> data;
+    private final ReentrantLock evictionLock = new ReentrantLock();
+    private final ReadBuffer[] readBuffers = new ReadBuffer[STRIPE_COUNT];
+    private final FrequencySketch sketch;
     private final int maxSize;
+    private final int windowMaxSize;
+    private final int protectedMaxSize;
+
+    private final AccessOrder<K, V> window = new AccessOrder<>();
+    private final AccessOrder<K, V> probation = new AccessOrder<>();
+    private final AccessOrder<K, V> protectedSegment = new AccessOrder<>();
 
     /**
-     * Создает новый экземпляр LRU-кэша с указанным максимальным размером.
+     * Создает новый экземпляр кэша с указанным максимальным размером.
      *
      * @param maxSize максимальное количество элементов в кэше
      * @throws IllegalArgumentException если maxSize меньше или равен 0
@@ -30,16 +58,13 @@ public class CacheUtil<K, V> {
             throw new IllegalArgumentException("Размер кэша должен быть положительным числом");
         }
         this.maxSize = maxSize;
-        this.cache = new LinkedHashMap<>(maxSize, 0.75f, true) {
-            @Override
-            protected boolean removeEldestEntry(final Map.Entry<K, V> eldest) {
-                boolean shouldRemove = size() > maxSize;
-                if (shouldRemove) {
-                    LOGGER.info("Удалена старая запись (достигнут лимит элементов)");
-                }
-                return shouldRemove;
-            }
-        };
+        this.windowMaxSize = Math.max(1, maxSize / 100);
+        this.protectedMaxSize = (int) ((maxSize - windowMaxSize) * 0.8);
+        this.data = new ConcurrentHashMap<>(maxSize);
+        this.sketch = new FrequencySketch(maxSize);
+        for (int i = 0; i < readBuffers.length; i++) {
+            readBuffers[i] = new ReadBuffer();
+        }
     }
 
     /**
@@ -49,18 +74,19 @@ public class CacheUtil<K, V> {
      * @return значение, соответствующее ключу, или null если ключ отсутствует
      */
     public V get(final K key) {
-        lock.lock();
-        try {
-            V value = cache.get(key);
-            if (value != null) {
-                LOGGER.info("Получено из кэша по ключу: ");
-            } else {
-                LOGGER.info("Данные не найдены в кэше по ключу:");
+        Node<K, V> node = data.get(key);
+        if (node == null) {
+            return null;
+        }
+        ReadBuffer buffer = readBuffers[(int) Thread.currentThread().getId() & (STRIPE_COUNT - 1)];
+        if (buffer.offer(node) && evictionLock.tryLock()) {
+            try {
+                drainReadBuffers();
+            } finally {
+                evictionLock.unlock();
             }
-            return value;
-        } finally {
-            lock.unlock();
         }
+        return node.value;
     }
 
     /**
@@ -74,12 +100,23 @@ public class CacheUtil<K, V> {
         if (key == null || value == null) {
             throw new IllegalArgumentException("Ключ и значение не могут быть null");
         }
-        lock.lock();
+        evictionLock.lock();
         try {
-            cache.put(key, value);
+            drainReadBuffers();
+            Node<K, V> node = data.get(key);
+            if (node != null) {
+                node.value = value;
+                onAccess(node);
+            } else {
+                node = new Node<>(key, value);
+                data.put(key, node);
+                sketch.increment(node.hash);
+                window.addLast(node);
+                evict();
+            }
             LOGGER.info("Сохранено в кэш.");
         } finally {
-            lock.unlock();
+            evictionLock.unlock();
         }
     }
 
@@ -89,11 +126,264 @@ public class CacheUtil<K, V> {
      * @return количество элементов в кэше
      */
     public int size() {
-        lock.lock();
-        try {
-            return cache.size();
-        } finally {
-            lock.unlock();
+        return data.size();
+    }
+
+    /**
+     * Applies the buffered reads to the access order and the frequency sketch. Must be
+     * called with the eviction lock held.
+     */
+    private void drainReadBuffers() {
+        for (ReadBuffer buffer : readBuffers) {
+            buffer.drainTo(this);
+        }
+    }
+
+    /**
+     * Records one access: window and protected entries move to the tail of their
+     * segment, probation entries are promoted to the protected segment.
+     */
+    private void onAccess(Node<K, V> node) {
+        if (node.segment == Node.REMOVED) {
+            return;
+        }
+        sketch.increment(node.hash);
+        switch (node.segment) {
+            case Node.WINDOW -> window.moveToLast(node);
+            case Node.PROBATION -> {
+                probation.remove(node);
+                node.segment = Node.PROTECTED;
+                protectedSegment.addLast(node);
+                while (protectedSegment.size > protectedMaxSize) {
+                    Node<K, V> demoted = protectedSegment.removeFirst();
+                    demoted.segment = Node.PROBATION;
+                    probation.addLast(demoted);
+                }
+            }
+            default -> protectedSegment.moveToLast(node);
+        }
+    }
+
+    /**
+     * Moves the entries that overflow the window into probation, then, while the cache is
+     * too large, keeps the more frequent of the newest probation entry and the oldest one.
+     */
+    private void evict() {
+        while (window.size > windowMaxSize) {
+            Node<K, V> candidate = window.removeFirst();
+            candidate.segment = Node.PROBATION;
+            probation.addLast(candidate);
+        }
+        while (data.size() > maxSize) {
+            Node<K, V> victim = probation.first;
+            Node<K, V> candidate = probation.last;
+            if (victim == null) {
+                remove(protectedSegment.first != null ? protectedSegment.first : window.first);
+            } else if (victim != candidate
+                    && sketch.frequency(candidate.hash) > sketch.frequency(victim.hash)) {
+                remove(victim);
+            } else {
+                remove(candidate);
+            }
+        }
+    }
+
+    private void remove(Node<K, V> node) {
+        switch (node.segment) {
+            case Node.WINDOW -> window.remove(node);
+            case Node.PROBATION -> probation.remove(node);
+            default -> protectedSegment.remove(node);
+        }
+        node.segment = Node.REMOVED;
+        data.remove(node.key, node);
+        LOGGER.info("Удалена старая запись (достигнут лимит элементов)");
+    }
+
+    private static int ceilingPowerOfTwo(int value) {
+        return value <= 1 ? 1 : Integer.highestOneBit(value - 1) << 1;
+    }
+
+    /**
+     * Cache entry. The links and the segment are only touched under the eviction lock;
+     * the value is read without it.
+     */
+    private static final class Node<K, V> {
+        static final int WINDOW = 0;
+        static final int PROBATION = 1;
+        static final int PROTECTED = 2;
+        static final int REMOVED = 3;
+
+        final K key;
+        final int hash;
+        volatile V value;
+        int segment = WINDOW;
+        Node<K, V> prev;
+        Node<K, V> next;
+
+        Node(K key, V value) {
+            this.key = key;
+            this.hash = FrequencySketch.spread(key.hashCode());
+            this.value = value;
+        }
+    }
+
+    /**
+     * Doubly linked list of the entries of one segment, from least to most recently used.
+     */
+    private static final class AccessOrder<K, V> {
+        Node<K, V> first;
+        Node<K, V> last;
+        int size;
+
+        void addLast(Node<K, V> node) {
+            node.prev = last;
+            node.next = null;
+            if (last == null) {
+                first = node;
+            } else {
+                last.next = node;
+            }
+            last = node;
+            size++;
+        }
+
+        void remove(Node<K, V> node) {
+            if (node.prev == null) {
+                first = node.next;
+            } else {
+                node.prev.next = node.next;
+            }
+            if (node.next == null) {
+                last = node.prev;
+            } else {
+                node.next.prev = node.prev;
+            }
+            node.prev = null;
+            node.next = null;
+            size--;
+        }
+
+        Node<K, V> removeFirst() {
+            Node<K, V> node = first;
+            remove(node);
+            return node;
+        }
+
+        void moveToLast(Node<K, V> node) {
+            if (node != last) {
+                remove(node);
+                addLast(node);
+            }
+        }
+    }
+
+    /**
+     * Lossy ring buffer of reads of one stripe. Readers claim slots with a CAS and drop the
+     * read when the buffer is full or the CAS fails; only the holder of the eviction lock
+     * drains it.
+     */
+    private static final class ReadBuffer {
+        private final AtomicReferenceArray<Node<?, ?>> slots =
+                new AtomicReferenceArray<>(BUFFER_SIZE);
+        private final AtomicLong writes = new AtomicLong();
+        private volatile long reads;
+
+        /**
+         * Records a read.
+         *
+         * @return true if enough reads are pending to be worth draining
+         */
+        boolean offer(Node<?, ?> node) {
+            long head = reads;
+            long tail = writes.get();
+            long pending = tail - head;
+            if (pending >= BUFFER_SIZE) {
+                return true;
+            }
+            if (writes.compareAndSet(tail, tail + 1)) {
+                slots.lazySet((int) (tail & (BUFFER_SIZE - 1)), node);
+                return pending + 1 >= DRAIN_THRESHOLD;
+            }
+            return false;
+        }
+
+        @SuppressWarnings("unchecked")
+        <K, V> void drainTo(CacheUtil<K, V> cache) {
+            long head = reads;
+            long tail = writes.get();
+            for (; head < tail; head++) {
+                int index = (int) (head & (BUFFER_SIZE - 1));
+                Node<K, V> node = (Node<K, V>) slots.get(index);
+                if (node == null) {
+                    // The slot was claimed but its node is not stored yet.
+                    break;
+                }
+                slots.lazySet(index, null);
+                cache.onAccess(node);
+            }
+            reads = head;
+        }
+    }
+
+    /**
+     * Count-min sketch of access frequencies with four 4-bit counters per key. All counters
+     * are halved once the number of increments reaches ten times the cache size, so the
+     * sketch follows changes of the workload.
+     */
+    private static final class FrequencySketch {
+        private static final long[] SEEDS = {
+            0xc3a5c85c97cb3127L, 0xb492b66fbe98f273L, 0x9ae16a3b2f90404fL, 0xcbf29ce484222325L};
+        private static final long RESET_MASK = 0x7777777777777777L;
+
+        private final long[] table;
+        private final int sampleSize;
+        private int additions;
+
+        FrequencySketch(int maxSize) {
+            this.table = new long[ceilingPowerOfTwo(Math.max(maxSize, 8))];
+            this.sampleSize = 10 * Math.max(maxSize, 8);
+        }
+
+        static int spread(int hash) {
+            int h = hash * 0x9e3779b9;
+            return h ^ (h >>> 16);
+        }
+
+        int frequency(int hash) {
+            int frequency = Integer.MAX_VALUE;
+            for (int i = 0; i < SEEDS.length; i++) {
+                long word = table[indexOf(hash, i)];
+                frequency = Math.min(frequency, (int) ((word >>> shiftOf(hash, i)) & 0xF));
+            }
+            return frequency;
+        }
+
+        void increment(int hash) {
+            boolean added = false;
+            for (int i = 0; i < SEEDS.length; i++) {
+                int index = indexOf(hash, i);
+                int shift = shiftOf(hash, i);
+                if (((table[index] >>> shift) & 0xF) != 0xF) {
+                    table[index] += 1L << shift;
+                    added = true;
+                }
+            }
+            if (added && ++additions == sampleSize) {
+                for (int i = 0; i < table.length; i++) {
+                    table[i] = (table[i] >>> 1) & RESET_MASK;
+                }
+                additions /= 2;
+            }
+        }
+
+        private int indexOf(int hash, int i) {
+            long h = (hash + SEEDS[i]) * SEEDS[i];
+            h += h >>> 32;
+            return (int) h & (table.length - 1);
+        }
+
+        private static int shiftOf(int hash, int i) {
+            return ((hash >>> (i << 3)) & 0xF) << 2;
         }
     }
-}
\ No newline at end of file
+}
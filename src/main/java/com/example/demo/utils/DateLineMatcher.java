@@ -0,0 +1,29 @@
+package com.example.demo.utils;
+
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Matches lines that contain a date, e.g. {@code 2025-04-30}.
+ *
+ * <p>Almost every matching line starts with the date as part of its timestamp, so the
+ * leading bytes are compared first and the rest of the line is searched only when the
+ * prefix differs.
+ */
+public class DateLineMatcher implements LineMatcher {
+    private final byte[] date;
+
+    /**
+     * Creates a matcher for the given date.
+     *
+     * @param date the date in format yyyy-MM-dd
+     */
+    public DateLineMatcher(String date) {
+        this.date = date.getBytes(StandardCharsets.US_ASCII);
+    }
+
+    @Override
+    public boolean matches(byte[] buf, int start, int end) {
+        return ByteSearch.startsWith(buf, start, end, date)
+                || ByteSearch.indexOf(buf, start + 1, end, date) >= 0;
+    }
+}
@@ -0,0 +1,81 @@
+package com.example.demo.utils;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Map;
+
+/**
+ * Visitor that copies every line to the outputs of the dates it contains, so that one scan
+ * produces the results of several date tasks.
+ *
+ * <p>A line is routed to a date under the same rule as {@link DateLineMatcher}: it contains
+ * the date anywhere. Candidate positions are found by the separators of a
+ * {@code yyyy-MM-dd} date and looked up among the requested dates, so the cost per line
+ * does not grow with their number. A line that contains a date twice is written once.
+ * Lines are written with a {@code \n} terminator. Write failures are rethrown as
+ * {@link UncheckedIOException}.
+ */
+public class DateLineRouter implements LineMatcher {
+    private static final int DATE_LENGTH = 10;
+
+    private final int[] days;
+    private final OutputStream[] outputs;
+    private final long[] lastLine;
+    private long line;
+
+    /**
+     * Creates a router over the outputs of the given dates.
+     *
+     * @param outputs output of every date in format yyyy-MM-dd
+     */
+    public DateLineRouter(Map<String, OutputStream> outputs) {
+        this.days = new int[outputs.size()];
+        int i = 0;
+        for (String date : outputs.keySet()) {
+            byte[] bytes = date.getBytes(StandardCharsets.US_ASCII);
+            days[i++] = LogTimestamps.dayKey(bytes, 0, bytes.length);
+        }
+        Arrays.sort(days);
+        this.outputs = new OutputStream[days.length];
+        for (Map.Entry<String, OutputStream> entry : outputs.entrySet()) {
+            byte[] bytes = entry.getKey().getBytes(StandardCharsets.US_ASCII);
+            int index = Arrays.binarySearch(days, LogTimestamps.dayKey(bytes, 0, bytes.length));
+            if (index < 0 || this.outputs[index] != null) {
+                throw new IllegalArgumentException("Invalid or duplicate date: " + entry.getKey());
+            }
+            this.outputs[index] = entry.getValue();
+        }
+        this.lastLine = new long[days.length];
+    }
+
+    @Override
+    public boolean matches(byte[] buf, int start, int end) {
+        line++;
+        boolean routed = false;
+        for (int i = start; i + DATE_LENGTH <= end; i++) {
+            if (buf[i + 4] != '-' || buf[i + 7] != '-') {
+                continue;
+            }
+            int day = LogTimestamps.dayKey(buf, i, end - i);
+            int index = day < 0 ? -1 : Arrays.binarySearch(days, day);
+            if (index >= 0 && lastLine[index] != line) {
+                lastLine[index] = line;
+                write(outputs[index], buf, start, end);
+                routed = true;
+            }
+        }
+        return routed;
+    }
+
+    private static void write(OutputStream out, byte[] buf, int start, int end) {
+        try {
+            out.write(buf, start, end - start);
+            out.write('\n');
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
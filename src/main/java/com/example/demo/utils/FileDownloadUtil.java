@@ -0,0 +1,226 @@
+package com.example.demo.utils;
+
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.Enumeration;
+import java.util.List;
+import java.util.zip.GZIPInputStream;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpRange;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.context.request.ServletWebRequest;
+
+/**
+ * Writes a file to an HTTP response with support for conditional and range requests.
+ *
+ * <p>The file is validated by an {@code ETag} derived from its size and modification time
+ * and by {@code Last-Modified}. A single byte range is answered with 206; several ranges
+ * are answered with the whole file. The body never passes through heap buffers of the
+ * application: Tomcat's sendfile is used when the connector supports it, otherwise the
+ * bytes go through {@link FileChannel#transferTo}.
+ *
+ * <p>Gzip-compressed files are sent as they are with {@code Content-Encoding: gzip} to
+ * clients that accept it and decompressed on the fly for the others. The decompressed
+ * representation has its own {@code ETag} and supports conditional requests, but not
+ * ranges.
+ */
+public final class FileDownloadUtil {
+    private static final String SENDFILE_SUPPORT = "org.apache.tomcat.sendfile.support";
+    private static final String SENDFILE_FILENAME = "org.apache.tomcat.sendfile.filename";
+    private static final String SENDFILE_START = "org.apache.tomcat.sendfile.start";
+    private static final String SENDFILE_END = "org.apache.tomcat.sendfile.end";
+    private static final long SENDFILE_THRESHOLD = 48 * 1024;
+    private static final String GZIP = "gzip";
+
+    private FileDownloadUtil() {
+        throw new UnsupportedOperationException("Utility class");
+    }
+
+    /**
+     * Sends a gzip-compressed {@code file} as an attachment, choosing the representation
+     * from the {@code Accept-Encoding} request header.
+     *
+     * @param request the current request
+     * @param response the response to write
+     * @param file gzip-compressed file to send
+     * @param contentType value of the {@code Content-Type} header of the decompressed content
+     * @param fileName file name suggested to the client
+     * @throws IOException if the file cannot be read or the response cannot be written
+     */
+    public static void sendGzip(HttpServletRequest request, HttpServletResponse response,
+                                Path file, String contentType, String fileName)
+            throws IOException {
+        response.setHeader(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING);
+        if (acceptsGzip(request)) {
+            response.setHeader(HttpHeaders.CONTENT_ENCODING, GZIP);
+            sendFile(request, response, file, contentType, fileName);
+            return;
+        }
+
+        // The decompressed length is unknown without reading the whole file, so this
+        // representation is sent without Content-Length and without range support.
+        BasicFileAttributes attributes = Files.readAttributes(file, BasicFileAttributes.class);
+        long lastModified = attributes.lastModifiedTime().toMillis();
+        String etag = etag(attributes, "-identity");
+        if (new ServletWebRequest(request, response).checkNotModified(etag, lastModified)) {
+            return;
+        }
+
+        response.setHeader(HttpHeaders.ACCEPT_RANGES, "none");
+        response.setHeader(HttpHeaders.CONTENT_DISPOSITION,
+                "attachment; filename=\"" + fileName + "\"");
+        response.setContentType(contentType);
+        if (HttpMethod.HEAD.matches(request.getMethod())) {
+            return;
+        }
+        try (InputStream in = new GZIPInputStream(Files.newInputStream(file))) {
+            in.transferTo(response.getOutputStream());
+        }
+    }
+
+    /**
+     * Sends {@code file} as an attachment.
+     *
+     * @param request the current request
+     * @param response the response to write
+     * @param file file to send
+     * @param contentType value of the {@code Content-Type} header
+     * @param fileName file name suggested to the client
+     * @throws IOException if the file cannot be read or the response cannot be written
+     */
+    public static void sendFile(HttpServletRequest request, HttpServletResponse response,
+                                Path file, String contentType, String fileName)
+            throws IOException {
+        BasicFileAttributes attributes = Files.readAttributes(file, BasicFileAttributes.class);
+        long length = attributes.size();
+        long lastModified = attributes.lastModifiedTime().toMillis();
+        String etag = etag(attributes, "");
+
+        ServletWebRequest webRequest = new ServletWebRequest(request, response);
+        if (webRequest.checkNotModified(etag, lastModified)) {
+            return;
+        }
+
+        response.setHeader(HttpHeaders.ACCEPT_RANGES, "bytes");
+        response.setHeader(HttpHeaders.CONTENT_DISPOSITION,
+                "attachment; filename=\"" + fileName + "\"");
+        response.setContentType(contentType);
+
+        long start = 0;
+        long end = length;
+        HttpRange range = requestedRange(request, etag, lastModified);
+        if (range != null) {
+            start = range.getRangeStart(length);
+            end = range.getRangeEnd(length) + 1;
+            if (start >= length || start >= end) {
+                response.setHeader(HttpHeaders.CONTENT_RANGE, "bytes */" + length);
+                response.sendError(HttpStatus.REQUESTED_RANGE_NOT_SATISFIABLE.value());
+                return;
+            }
+            response.setStatus(HttpStatus.PARTIAL_CONTENT.value());
+            response.setHeader(HttpHeaders.CONTENT_RANGE,
+                    "bytes " + start + "-" + (end - 1) + "/" + length);
+        }
+        response.setContentLengthLong(end - start);
+
+        if (HttpMethod.HEAD.matches(request.getMethod())) {
+            return;
+        }
+        if (Boolean.TRUE.equals(request.getAttribute(SENDFILE_SUPPORT))
+                && end - start >= SENDFILE_THRESHOLD) {
+            request.setAttribute(SENDFILE_FILENAME, file.toAbsolutePath().toString());
+            request.setAttribute(SENDFILE_START, start);
+            request.setAttribute(SENDFILE_END, end);
+            return;
+        }
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            WritableByteChannel target = Channels.newChannel(response.getOutputStream());
+            long position = start;
+            while (position < end) {
+                position += channel.transferTo(position, end - position, target);
+            }
+        }
+    }
+
+    /**
+     * Derives a strong validator from the size and modification time of the file;
+     * {@code variant} tells apart representations of the same file.
+     */
+    private static String etag(BasicFileAttributes attributes, String variant) {
+        return "\"" + Long.toHexString(attributes.size()) + "-"
+                + Long.toHexString(attributes.lastModifiedTime().toMillis()) + variant + "\"";
+    }
+
+    /**
+     * Returns the single range to serve, or null if the whole file should be sent because
+     * there is no usable {@code Range} header or {@code If-Range} no longer matches.
+     */
+    private static HttpRange requestedRange(HttpServletRequest request, String etag,
+                                            long lastModified) {
+        String header = request.getHeader(HttpHeaders.RANGE);
+        if (header == null || !ifRangeMatches(request, etag, lastModified)) {
+            return null;
+        }
+        try {
+            List<HttpRange> ranges = HttpRange.parseRanges(header);
+            return ranges.size() == 1 ? ranges.get(0) : null;
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+    }
+
+    private static boolean acceptsGzip(HttpServletRequest request) {
+        Enumeration<String> headers = request.getHeaders(HttpHeaders.ACCEPT_ENCODING);
+        while (headers != null && headers.hasMoreElements()) {
+            for (String coding : headers.nextElement().split(",")) {
+                String[] parts = coding.trim().split(";");
+                String name = parts[0].trim();
+                if ((GZIP.equalsIgnoreCase(name) || "x-gzip".equalsIgnoreCase(name)
+                        || "*".equals(name)) && !isZeroQuality(parts)) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    private static boolean isZeroQuality(String[] parts) {
+        for (int i = 1; i < parts.length; i++) {
+            String parameter = parts[i].trim();
+            if (parameter.startsWith("q=")) {
+                try {
+                    return Double.parseDouble(parameter.substring(2)) == 0;
+                } catch (NumberFormatException e) {
+                    return false;
+                }
+            }
+        }
+        return false;
+    }
+
+    private static boolean ifRangeMatches(HttpServletRequest request, String etag,
+                                          long lastModified) {
+        String ifRange = request.getHeader(HttpHeaders.IF_RANGE);
+        if (ifRange == null) {
+            return true;
+        }
+        if (ifRange.startsWith("\"") || ifRange.startsWith("W/")) {
+            return ifRange.equals(etag);
+        }
+        try {
+            return request.getDateHeader(HttpHeaders.IF_RANGE) / 1000 == lastModified / 1000;
+        } catch (IllegalArgumentException e) {
+            return false;
+        }
+    }
+}
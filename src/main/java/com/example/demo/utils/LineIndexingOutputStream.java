@@ -0,0 +1,74 @@
+package com.example.demo.utils;
+
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Path;
+import java.util.Arrays;
+
+/**
+ * Pass-through stream that records where lines start in the bytes written through it, so
+ * that a line-offset index can be stored next to a result file when it is complete.
+ *
+ * <p>Offsets count the bytes written to this stream, before any compression applied by
+ * the underlying stream. Every {@link ResultLineIndex#STRIDE}-th line start is kept.
+ */
+public class LineIndexingOutputStream extends FilterOutputStream {
+    private long[] checkpoints = new long[256];
+    private int checkpointCount;
+    private long position;
+    private long lines;
+    private boolean lineOpen;
+
+    /**
+     * Creates a stream that writes to {@code out}.
+     *
+     * @param out the underlying stream
+     */
+    public LineIndexingOutputStream(OutputStream out) {
+        super(out);
+    }
+
+    @Override
+    public void write(int b) throws IOException {
+        out.write(b);
+        track((byte) b);
+    }
+
+    @Override
+    public void write(byte[] b, int off, int len) throws IOException {
+        out.write(b, off, len);
+        for (int i = off; i < off + len; i++) {
+            track(b[i]);
+        }
+    }
+
+    /**
+     * Stores the index of the lines written so far.
+     *
+     * @param result the result file the lines were written to
+     * @throws IOException if the index cannot be written
+     */
+    public void writeIndex(Path result) throws IOException {
+        long total = lines + (lineOpen ? 1 : 0);
+        ResultLineIndex.write(result, total, position,
+                Arrays.copyOf(checkpoints, checkpointCount));
+    }
+
+    private void track(byte b) {
+        if (!lineOpen) {
+            if (lines % ResultLineIndex.STRIDE == 0) {
+                if (checkpointCount == checkpoints.length) {
+                    checkpoints = Arrays.copyOf(checkpoints, checkpointCount * 2);
+                }
+                checkpoints[checkpointCount++] = position;
+            }
+            lineOpen = true;
+        }
+        position++;
+        if (b == '\n') {
+            lines++;
+            lineOpen = false;
+        }
+    }
+}
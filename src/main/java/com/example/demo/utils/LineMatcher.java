@@ -0,0 +1,32 @@
+package com.example.demo.utils;
+
+/**
+ * Predicate over one raw log line held in a byte buffer.
+ *
+ * <p>Implementations inspect the bytes in place and must not retain the buffer, which is
+ * reused for the next lines. Lines of one scan are passed in file order, so a matcher may
+ * carry state from one line to the next; such matchers return a fresh copy from
+ * {@link #fork()} for every independent scan.
+ */
+@FunctionalInterface
+public interface LineMatcher {
+
+    /**
+     * Tests one line.
+     *
+     * @param buf buffer holding the line
+     * @param start index of the first byte of the line
+     * @param end index just past the last byte of the line, excluding the line terminator
+     * @return {@code true} if the line belongs to the result
+     */
+    boolean matches(byte[] buf, int start, int end);
+
+    /**
+     * Returns a matcher for a new scan that starts at the beginning of a log record.
+     *
+     * @return this matcher if it is stateless, otherwise a copy with reset state
+     */
+    default LineMatcher fork() {
+        return this;
+    }
+}
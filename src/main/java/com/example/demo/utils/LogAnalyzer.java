@@ -0,0 +1,174 @@
+package com.example.demo.utils;
+
+import com.example.demo.model.LogAnalytics;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Collects per-minute counts and top error signatures of the records in a time interval.
+ *
+ * <p>The analyzer is fed every line of a scan through {@link #matches} and never selects
+ * any, so a scan with it writes nothing. Level and logger names are only decoded when they
+ * differ from the previous record, and messages only for {@code ERROR} records. Memory is
+ * bounded by the number of minutes and loggers in the interval plus a fixed-size
+ * {@link SpaceSaving} table of error signatures. Lines must be passed in file order from a
+ * single thread; {@link #fork()} returns this instance so that the scan shares it.
+ */
+public final class LogAnalyzer implements LineMatcher {
+    private static final int MAX_SIGNATURE_LENGTH = 200;
+    private static final String[] LEVELS = {"TRACE", "DEBUG", "INFO", "WARN", "ERROR"};
+    private static final byte[][] LEVEL_BYTES = new byte[LEVELS.length][];
+    private static final int ERROR = LEVELS.length - 1;
+
+    static {
+        for (int i = 0; i < LEVELS.length; i++) {
+            LEVEL_BYTES[i] = LEVELS[i].getBytes(StandardCharsets.US_ASCII);
+        }
+    }
+
+    private final long from;
+    private final long to;
+    private final SpaceSaving<String> errors;
+    private final Map<Long, Minute> minutes = new TreeMap<>();
+    private final LogLine line = new LogLine();
+    private long currentMinute = Long.MIN_VALUE;
+    private Minute current;
+    private byte[] loggerBytes = new byte[0];
+    private String logger = "";
+
+    /**
+     * Creates an analyzer for an interval.
+     *
+     * @param from start of the interval, inclusive
+     * @param to end of the interval, exclusive
+     * @param errorCapacity number of error signatures tracked by the heavy-hitters table
+     */
+    public LogAnalyzer(LocalDateTime from, LocalDateTime to, int errorCapacity) {
+        this.from = LogTimestamps.epochSecond(from);
+        this.to = LogTimestamps.epochSecond(to);
+        this.errors = new SpaceSaving<>(errorCapacity);
+    }
+
+    @Override
+    public boolean matches(byte[] buf, int start, int end) {
+        if (!line.parse(buf, start, end)) {
+            return false;
+        }
+        long timestamp = line.timestamp();
+        if (timestamp < from || timestamp >= to) {
+            return false;
+        }
+        long minute = Math.floorDiv(timestamp, 60);
+        if (minute != currentMinute) {
+            currentMinute = minute;
+            current = minutes.computeIfAbsent(minute, key -> new Minute());
+        }
+        if (!line.loggerEquals(loggerBytes)) {
+            logger = line.logger();
+            loggerBytes = logger.getBytes(StandardCharsets.UTF_8);
+        }
+        current.loggers.computeIfAbsent(logger, key -> new long[1])[0]++;
+
+        int level = levelIndex();
+        if (level >= 0) {
+            current.levels[level]++;
+        } else {
+            current.otherLevels.computeIfAbsent(line.level(), key -> new long[1])[0]++;
+        }
+        if (level == ERROR) {
+            errors.add(signature(buf, end));
+        }
+        return false;
+    }
+
+    @Override
+    public LineMatcher fork() {
+        return this;
+    }
+
+    /**
+     * Builds the result of the lines seen so far.
+     *
+     * @param from start of the interval, as requested
+     * @param to end of the interval, as requested
+     * @param topErrors number of error signatures to report
+     * @return the analytics of the interval
+     */
+    public LogAnalytics result(LocalDateTime from, LocalDateTime to, int topErrors) {
+        List<LogAnalytics.MinuteCounts> counts = new ArrayList<>(minutes.size());
+        minutes.forEach((minute, entry) -> counts.add(new LogAnalytics.MinuteCounts(
+                LocalDateTime.ofEpochSecond(minute * 60, 0, ZoneOffset.UTC),
+                entry.levelCounts(), toCounts(entry.loggers))));
+        List<LogAnalytics.ErrorSignature> signatures = errors.top(topErrors).stream()
+                .map(entry -> new LogAnalytics.ErrorSignature(entry.key(), entry.count(),
+                        entry.error()))
+                .toList();
+        return new LogAnalytics(from, to, counts, signatures);
+    }
+
+    private int levelIndex() {
+        for (int i = LEVEL_BYTES.length - 1; i >= 0; i--) {
+            if (line.levelEquals(LEVEL_BYTES[i])) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Logger and message of an error record with digit runs collapsed to {@code #}, so
+     * that messages differing only in IDs, counts or durations share a signature.
+     */
+    private String signature(byte[] buf, int end) {
+        StringBuilder signature = new StringBuilder(logger.length() + 64).append(logger)
+                .append(": ");
+        String message = new String(buf, line.messageStart(), end - line.messageStart(),
+                StandardCharsets.UTF_8);
+        boolean inNumber = false;
+        for (int i = 0; i < message.length()
+                && signature.length() < MAX_SIGNATURE_LENGTH; i++) {
+            char c = message.charAt(i);
+            if (Character.isDigit(c)) {
+                if (!inNumber) {
+                    signature.append('#');
+                }
+                inNumber = true;
+            } else {
+                signature.append(c);
+                inNumber = false;
+            }
+        }
+        return signature.toString();
+    }
+
+    private static Map<String, Long> toCounts(Map<String, long[]> counters) {
+        Map<String, Long> counts = new TreeMap<>();
+        counters.forEach((key, count) -> counts.put(key, count[0]));
+        return counts;
+    }
+
+    /**
+     * Counters of one minute.
+     */
+    private static final class Minute {
+        private final long[] levels = new long[LEVELS.length];
+        private final Map<String, long[]> otherLevels = new HashMap<>();
+        private final Map<String, long[]> loggers = new HashMap<>();
+
+        Map<String, Long> levelCounts() {
+            Map<String, Long> counts = toCounts(otherLevels);
+            for (int i = 0; i < LEVELS.length; i++) {
+                if (levels[i] > 0) {
+                    counts.put(LEVELS[i], levels[i]);
+                }
+            }
+            return counts;
+        }
+    }
+}
@@ -0,0 +1,126 @@
+package com.example.demo.utils;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.Arrays;
+import java.util.Objects;
+
+/**
+ * Follows a growing log file by tracking the position of the last complete line read.
+ *
+ * <p>Every call to {@link #readAppended} hands over the complete lines appended since the
+ * previous call; a trailing partial line is kept until its line break arrives. When the
+ * file is replaced, e.g. by log rotation, the rest of the old file is read first and the
+ * new file is followed from its beginning; when it is truncated, it is followed from its
+ * beginning as well. One follower holds at most one open file handle.
+ */
+public final class LogFileFollower implements Closeable {
+    private final Path file;
+    private final boolean fromEnd;
+    private byte[] buf;
+    private int filled;
+    private FileChannel channel;
+    private Object fileKey;
+    private long position;
+    private boolean opened;
+
+    /**
+     * Creates a follower; the file is opened on the first read.
+     *
+     * @param file log file to follow; it does not have to exist yet
+     * @param bufferSize initial size of the read buffer
+     * @param fromEnd whether to skip the content present when the file is first opened
+     */
+    public LogFileFollower(Path file, int bufferSize, boolean fromEnd) {
+        this.file = file;
+        this.fromEnd = fromEnd;
+        this.buf = new byte[bufferSize];
+    }
+
+    /**
+     * Receives a batch of complete lines.
+     */
+    @FunctionalInterface
+    public interface LinesConsumer {
+
+        /**
+         * Accepts complete lines.
+         *
+         * @param buf buffer holding the lines; it is reused after the call returns
+         * @param end index just past the line break of the last line, lines start at 0
+         * @throws IOException if the lines cannot be processed
+         */
+        void accept(byte[] buf, int end) throws IOException;
+    }
+
+    /**
+     * Reads the complete lines appended since the previous call.
+     *
+     * @param consumer receiver of the lines, called once per filled buffer
+     * @throws IOException if the file cannot be read
+     */
+    public void readAppended(LinesConsumer consumer) throws IOException {
+        if (!Files.exists(file)) {
+            return;
+        }
+        BasicFileAttributes attributes = Files.readAttributes(file, BasicFileAttributes.class);
+        boolean replaced = channel != null && !Objects.equals(attributes.fileKey(), fileKey);
+        if (replaced) {
+            drain(consumer);
+            closeChannel();
+        }
+        if (channel == null) {
+            channel = FileChannel.open(file, StandardOpenOption.READ);
+            fileKey = attributes.fileKey();
+            position = !opened && fromEnd ? channel.size() : 0;
+            filled = 0;
+            opened = true;
+        } else if (attributes.size() < position + filled) {
+            position = 0;
+            filled = 0;
+        }
+        drain(consumer);
+    }
+
+    private void drain(LinesConsumer consumer) throws IOException {
+        while (true) {
+            if (filled == buf.length) {
+                buf = Arrays.copyOf(buf, buf.length * 2);
+            }
+            int read = channel.read(ByteBuffer.wrap(buf, filled, buf.length - filled),
+                    position + filled);
+            if (read <= 0) {
+                return;
+            }
+            filled += read;
+            int end = filled;
+            while (end > 0 && buf[end - 1] != '\n') {
+                end--;
+            }
+            if (end > 0) {
+                consumer.accept(buf, end);
+                System.arraycopy(buf, end, buf, 0, filled - end);
+                position += end;
+                filled -= end;
+            }
+        }
+    }
+
+    private void closeChannel() throws IOException {
+        if (channel != null) {
+            channel.close();
+            channel = null;
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        closeChannel();
+    }
+}
@@ -0,0 +1,64 @@
+package com.example.demo.utils;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Identifies a log file by a hash of its first line.
+ *
+ * <p>Indexes persisted next to the log store the fingerprint of the file they describe, so
+ * that after a restart they can tell whether the log was rotated or rewritten in the
+ * meantime; unlike file keys it survives copies and does not depend on the file system.
+ */
+public final class LogFingerprint {
+
+    /**
+     * Number of leading bytes of the first line that are hashed.
+     */
+    public static final int LENGTH = 256;
+
+    private LogFingerprint() {
+        throw new UnsupportedOperationException("Utility class");
+    }
+
+    /**
+     * Computes the fingerprint of a first line.
+     *
+     * @param buf buffer holding the line
+     * @param start index of the first byte of the line
+     * @param end index of the line break ending the line
+     * @return FNV-1a hash of up to {@link #LENGTH} bytes of the line; never zero, so that
+     *         zero can stand for a log whose first line is not complete yet
+     */
+    public static long of(byte[] buf, int start, int end) {
+        long hash = 0xcbf29ce484222325L;
+        for (int i = start; i < Math.min(end, start + LENGTH); i++) {
+            hash = (hash ^ (buf[i] & 0xff)) * 0x100000001b3L;
+        }
+        return hash == 0 ? 1 : hash;
+    }
+
+    /**
+     * Reads the fingerprint of a log file.
+     *
+     * @param file the log file
+     * @return the fingerprint of its first line, or of its content if it has no line break
+     *         within the first {@link #LENGTH} bytes
+     * @throws IOException if the file cannot be read
+     */
+    public static long read(Path file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            ByteBuffer head = ByteBuffer.allocate(LENGTH);
+            int read = Math.max(0, channel.read(head, 0));
+            byte[] buf = head.array();
+            int end = 0;
+            while (end < read && buf[end] != '\n') {
+                end++;
+            }
+            return of(buf, 0, end);
+        }
+    }
+}
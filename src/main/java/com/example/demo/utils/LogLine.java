@@ -0,0 +1,223 @@
+package com.example.demo.utils;
+
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Reusable view of the fields of one line in the Spring Boot file log layout:
+ * <pre>
+ * 2025-04-30T19:13:36.325+03:00  INFO 5548 --- [app] [main] [corr] c.e.demo.Application : text
+ * </pre>
+ * The application name and correlation groups are optional. {@link #parse} only records
+ * field boundaries inside the caller's buffer, so parsing a line allocates nothing; the
+ * view stays valid until the buffer is modified or the next line is parsed.
+ */
+public final class LogLine {
+    private static final int MAX_GROUPS = 4;
+    private static final byte[] SEPARATOR = {' ', '-', '-', '-', ' '};
+
+    private byte[] buf;
+    private long timestamp;
+    private int levelStart;
+    private int levelEnd;
+    private final int[] groupStart = new int[MAX_GROUPS];
+    private final int[] groupEnd = new int[MAX_GROUPS];
+    private int groupCount;
+    private int loggerStart;
+    private int loggerEnd;
+    private int messageStart;
+    private int end;
+
+    /**
+     * Parses one line.
+     *
+     * @param buf buffer holding the line
+     * @param start index of the first byte of the line
+     * @param end index just past the last byte of the line, excluding the line terminator
+     * @return {@code false} if the line does not start with a timestamp, i.e. it continues
+     *         the previous record; the other fields are then undefined
+     */
+    public boolean parse(byte[] buf, int start, int end) {
+        this.buf = buf;
+        this.end = end;
+        timestamp = LogTimestamps.epochSecond(buf, start, end - start);
+        if (timestamp < 0) {
+            return false;
+        }
+        int p = start + LogTimestamps.LENGTH;
+        while (p < end && buf[p] != ' ') {
+            p++;
+        }
+        p = skipSpaces(p);
+        levelStart = p;
+        while (p < end && buf[p] != ' ') {
+            p++;
+        }
+        levelEnd = p;
+
+        groupCount = 0;
+        loggerStart = end;
+        loggerEnd = end;
+        messageStart = end;
+        int separator = ByteSearch.indexOf(buf, p, end, SEPARATOR);
+        if (separator < 0) {
+            return true;
+        }
+        p = separator + SEPARATOR.length;
+        while (p < end && buf[p] == '[' && groupCount < MAX_GROUPS) {
+            int close = p + 1;
+            while (close < end && !(buf[close] == ']' && (close + 1 == end || buf[close + 1] == ' '))) {
+                close++;
+            }
+            if (close >= end) {
+                break;
+            }
+            groupStart[groupCount] = p + 1;
+            groupEnd[groupCount] = close;
+            groupCount++;
+            p = skipSpaces(close + 1);
+        }
+        loggerStart = p;
+        while (p < end && buf[p] != ' ') {
+            p++;
+        }
+        loggerEnd = p;
+        p = skipSpaces(p);
+        if (p < end && buf[p] == ':') {
+            messageStart = Math.min(p + 2, end);
+        }
+        return true;
+    }
+
+    /**
+     * Returns the timestamp of the line in epoch seconds, see {@link LogTimestamps}.
+     *
+     * @return the timestamp
+     */
+    public long timestamp() {
+        return timestamp;
+    }
+
+    /**
+     * Checks whether the level field equals {@code level}.
+     *
+     * @param level level name in ASCII, e.g. {@code ERROR}
+     * @return {@code true} if the line has that level
+     */
+    public boolean levelEquals(byte[] level) {
+        return rangeEquals(levelStart, levelEnd, level);
+    }
+
+    /**
+     * Returns the level field as a string; allocates.
+     *
+     * @return the level, e.g. {@code INFO}
+     */
+    public String level() {
+        return new String(buf, levelStart, levelEnd - levelStart, StandardCharsets.US_ASCII);
+    }
+
+    /**
+     * Checks whether the logger name starts with {@code prefix}.
+     *
+     * @param prefix expected leading bytes of the logger name
+     * @return {@code true} if the logger name starts with {@code prefix}
+     */
+    public boolean loggerStartsWith(byte[] prefix) {
+        return ByteSearch.startsWith(buf, loggerStart, loggerEnd, prefix);
+    }
+
+    /**
+     * Checks whether the logger name equals {@code logger}.
+     *
+     * @param logger expected logger name as written in the line
+     * @return {@code true} if the logger name equals {@code logger}
+     */
+    public boolean loggerEquals(byte[] logger) {
+        return rangeEquals(loggerStart, loggerEnd, logger);
+    }
+
+    /**
+     * Returns the logger name as written in the line; allocates.
+     *
+     * @return the possibly abbreviated logger name
+     */
+    public String logger() {
+        return new String(buf, loggerStart, loggerEnd - loggerStart, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Checks whether one of the bracketed groups before the logger, which hold the thread
+     * name and optionally the application name and correlation IDs, equals {@code value}.
+     *
+     * @param value expected group content
+     * @return {@code true} if a group equals {@code value}
+     */
+    public boolean hasGroup(byte[] value) {
+        for (int i = 0; i < groupCount; i++) {
+            if (rangeEquals(groupStart[i], groupEnd[i], value)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Finds the first bracketed group before the logger that starts with {@code prefix}.
+     *
+     * @param prefix expected leading bytes of the group content
+     * @return index in the parsed buffer just past the prefix, or -1 if there is no such
+     *         group; the group content ends at {@link #groupEnd(int)}
+     */
+    public int groupValueStart(byte[] prefix) {
+        for (int i = 0; i < groupCount; i++) {
+            if (ByteSearch.startsWith(buf, groupStart[i], groupEnd[i], prefix)) {
+                return groupStart[i] + prefix.length;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Returns the index just past the bracketed group that contains {@code position}.
+     *
+     * @param position index returned by {@link #groupValueStart(byte[])}
+     * @return end of the group content, excluding the closing bracket
+     */
+    public int groupEnd(int position) {
+        for (int i = 0; i < groupCount; i++) {
+            if (position >= groupStart[i] && position <= groupEnd[i]) {
+                return groupEnd[i];
+            }
+        }
+        return position;
+    }
+
+    /**
+     * Returns the index of the first byte of the message in the parsed buffer.
+     *
+     * @return start of the message, or the end of the line if there is none
+     */
+    public int messageStart() {
+        return messageStart;
+    }
+
+    /**
+     * Returns the index just past the last byte of the parsed line.
+     *
+     * @return end of the line
+     */
+    public int end() {
+        return end;
+    }
+
+    private boolean rangeEquals(int from, int to, byte[] value) {
+        return to - from == value.length && ByteSearch.startsWith(buf, from, to, value);
+    }
+
+    private int skipSpaces(int p) {
+        while (p < end && buf[p] == ' ') {
+            p++;
+        }
+        return p;
+    }
+}
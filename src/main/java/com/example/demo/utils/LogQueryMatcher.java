@@ -0,0 +1,131 @@
+package com.example.demo.utils;
+
+import com.example.demo.model.LogQuery;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.regex.Pattern;
+
+/**
+ * Matches the records selected by a {@link LogQuery}.
+ *
+ * <p>All conditions of the query are fused into one pass over the line: the header is
+ * parsed once with {@link LogLine} and the checks run from the cheapest to the most
+ * expensive, so the time range, levels, logger and thread reject most lines before the
+ * keywords are searched, and only lines that pass everything else are decoded for the
+ * regular expressions. Continuation lines, such as stack trace frames, carry no header and
+ * follow the verdict of the record they belong to, which makes this matcher stateful; use
+ * {@link #fork()} for every independent scan.
+ */
+public final class LogQueryMatcher implements LineMatcher {
+    private final long from;
+    private final long to;
+    private final byte[][] levels;
+    private final byte[] logger;
+    private final byte[] thread;
+    private final byte[][] keywords;
+    private final Pattern[] regexes;
+
+    private final LogLine line = new LogLine();
+    private boolean recordMatched;
+
+    private LogQueryMatcher(long from, long to, byte[][] levels, byte[] logger, byte[] thread,
+                            byte[][] keywords, Pattern[] regexes) {
+        this.from = from;
+        this.to = to;
+        this.levels = levels;
+        this.logger = logger;
+        this.thread = thread;
+        this.keywords = keywords;
+        this.regexes = regexes;
+    }
+
+    /**
+     * Compiles a query into a matcher.
+     *
+     * @param query the query; empty conditions do not restrict the result
+     * @return a matcher positioned before the first record
+     * @throws java.util.regex.PatternSyntaxException if a regular expression is invalid
+     */
+    public static LogQueryMatcher compile(LogQuery query) {
+        long from = query.getFrom() != null
+                ? LogTimestamps.epochSecond(query.getFrom()) : Long.MIN_VALUE;
+        long to = query.getTo() != null
+                ? LogTimestamps.epochSecond(query.getTo()) : Long.MAX_VALUE;
+        byte[][] levels = query.getLevels() == null || query.getLevels().isEmpty()
+                ? null
+                : query.getLevels().stream()
+                        .map(level -> level.getBytes(StandardCharsets.US_ASCII))
+                        .toArray(byte[][]::new);
+        return new LogQueryMatcher(from, to, levels, bytesOrNull(query.getLogger()),
+                bytesOrNull(query.getThread()), toBytes(query.getKeywords()),
+                query.getRegexes() == null ? new Pattern[0]
+                        : query.getRegexes().stream().map(Pattern::compile)
+                                .toArray(Pattern[]::new));
+    }
+
+    @Override
+    public boolean matches(byte[] buf, int start, int end) {
+        if (!line.parse(buf, start, end)) {
+            return recordMatched;
+        }
+        recordMatched = matchesRecord(buf, start, end);
+        return recordMatched;
+    }
+
+    @Override
+    public LineMatcher fork() {
+        return new LogQueryMatcher(from, to, levels, logger, thread, keywords, regexes);
+    }
+
+    private boolean matchesRecord(byte[] buf, int start, int end) {
+        long timestamp = line.timestamp();
+        if (timestamp < from || timestamp >= to) {
+            return false;
+        }
+        if (levels != null && !anyLevel()) {
+            return false;
+        }
+        if (logger != null && !line.loggerStartsWith(logger)) {
+            return false;
+        }
+        if (thread != null && !line.hasGroup(thread)) {
+            return false;
+        }
+        for (byte[] keyword : keywords) {
+            if (ByteSearch.indexOf(buf, start, end, keyword) < 0) {
+                return false;
+            }
+        }
+        if (regexes.length == 0) {
+            return true;
+        }
+        String message = new String(buf, line.messageStart(), end - line.messageStart(),
+                StandardCharsets.UTF_8);
+        for (Pattern regex : regexes) {
+            if (!regex.matcher(message).find()) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private boolean anyLevel() {
+        for (byte[] level : levels) {
+            if (line.levelEquals(level)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static byte[] bytesOrNull(String value) {
+        return value == null || value.isEmpty() ? null : value.getBytes(StandardCharsets.UTF_8);
+    }
+
+    private static byte[][] toBytes(List<String> values) {
+        return values == null ? new byte[0][]
+                : values.stream().filter(value -> !value.isEmpty())
+                        .map(value -> value.getBytes(StandardCharsets.UTF_8))
+                        .toArray(byte[][]::new);
+    }
+}
@@ -0,0 +1,209 @@
+package com.example.demo.utils;
+
+import java.io.ByteArrayOutputStream;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Lock-free ring buffer of the most recent formatted log events.
+ *
+ * <p>Every event takes the next sequence number from an atomic counter and is stored in the
+ * slot that number maps to, replacing the event {@code maxEvents} positions older. When the
+ * retained bytes exceed {@code maxBytes}, writers evict the oldest events by advancing the
+ * tail with compare-and-set, so no writer ever blocks another and logging threads never
+ * wait for readers. Readers copy what they need and tolerate slots that a writer has
+ * claimed but not filled yet. One reader thread at a time may wait for new events with
+ * {@link #awaitAppend}.
+ */
+public final class LogRingBuffer {
+    private final int capacity;
+    private final long maxBytes;
+    private final AtomicReferenceArray<Entry> slots;
+    private final AtomicLong head = new AtomicLong();
+    private final AtomicLong tail = new AtomicLong();
+    private final AtomicLong bytes = new AtomicLong();
+    private volatile Thread waiter;
+
+    /**
+     * Creates an empty buffer.
+     *
+     * @param maxEvents maximum number of retained events
+     * @param maxBytes maximum total size of the retained events
+     */
+    public LogRingBuffer(int maxEvents, long maxBytes) {
+        if (maxEvents <= 0 || maxBytes <= 0) {
+            throw new IllegalArgumentException("Ring buffer limits must be positive");
+        }
+        this.capacity = maxEvents;
+        this.maxBytes = maxBytes;
+        this.slots = new AtomicReferenceArray<>(maxEvents);
+    }
+
+    /**
+     * Adds an event, evicting the oldest ones if the buffer is full.
+     *
+     * @param timestamp time of the event in epoch milliseconds
+     * @param event the event formatted as in the log file, line terminators included
+     */
+    public void append(long timestamp, byte[] event) {
+        long sequence = head.getAndIncrement();
+        Entry entry = new Entry(sequence, timestamp, event);
+        int index = index(sequence);
+        Entry previous = slots.getAndSet(index, entry);
+        long held = bytes.addAndGet(event.length - (previous == null ? 0 : previous.event.length));
+        // A concurrent writer may have evicted this sequence before the entry was stored.
+        if (sequence < tail.get() && slots.compareAndSet(index, entry, null)) {
+            held = bytes.addAndGet(-event.length);
+        }
+        while (held > maxBytes && evictOldest(sequence)) {
+            held = bytes.get();
+        }
+        Thread reader = waiter;
+        if (reader != null) {
+            LockSupport.unpark(reader);
+        }
+    }
+
+    /**
+     * Returns the sequence number the next event will get.
+     *
+     * @return the number of events appended so far
+     */
+    public long nextSequence() {
+        return head.get();
+    }
+
+    /**
+     * Returns the sequence number of the oldest event that may still be retained.
+     *
+     * @return the sequence number a reader that fell behind can continue from
+     */
+    public long oldestSequence() {
+        return oldest(head.get());
+    }
+
+    /**
+     * Copies the retained events at or after {@code fromMillis} and before
+     * {@code toMillis}, provided the buffer still holds an earlier event, which proves that
+     * none of the requested ones was evicted.
+     *
+     * @param fromMillis start of the requested period in epoch milliseconds, inclusive
+     * @param toMillis end of the requested period in epoch milliseconds, exclusive
+     * @return the events in the order they were appended, or an empty optional if the
+     *         buffer does not reach back to {@code fromMillis}
+     */
+    public Optional<byte[]> since(long fromMillis, long toMillis) {
+        long end = head.get();
+        long sequence = oldest(end);
+        Entry first = null;
+        for (; sequence < end && first == null; sequence++) {
+            first = valid(sequence);
+        }
+        if (first == null || first.timestamp >= fromMillis) {
+            return Optional.empty();
+        }
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        for (; sequence < end; sequence++) {
+            Entry entry = valid(sequence);
+            if (entry != null && entry.timestamp >= fromMillis && entry.timestamp < toMillis) {
+                out.writeBytes(entry.event);
+            }
+        }
+        // Writers may have evicted events while they were copied. Eviction runs in sequence
+        // order, so if the earlier event is still retained, no copied or skipped slot after
+        // it was lost.
+        if (oldest(head.get()) > first.sequence) {
+            return Optional.empty();
+        }
+        return Optional.of(out.toByteArray());
+    }
+
+    /**
+     * Copies the events appended from sequence {@code cursor} on, stopping at the first
+     * event that is claimed but not stored yet.
+     *
+     * @param cursor sequence number of the first event to copy
+     * @param out receiver of the events
+     * @return sequence number to continue from, or {@code -1} if events after
+     *         {@code cursor} were evicted before they could be read
+     */
+    public long read(long cursor, ByteArrayOutputStream out) {
+        long end = head.get();
+        if (cursor < oldest(end)) {
+            return -1;
+        }
+        for (; cursor < end; cursor++) {
+            Entry entry = valid(cursor);
+            if (entry == null) {
+                return cursor < oldest(head.get()) ? -1 : cursor;
+            }
+            out.writeBytes(entry.event);
+        }
+        return cursor;
+    }
+
+    /**
+     * Waits until an event with sequence number {@code cursor} or later is appended.
+     *
+     * @param cursor sequence number of the awaited event
+     * @param timeout maximum time to wait
+     * @param unit unit of {@code timeout}
+     * @throws InterruptedException if the thread is interrupted while waiting
+     */
+    public void awaitAppend(long cursor, long timeout, TimeUnit unit) throws InterruptedException {
+        waiter = Thread.currentThread();
+        try {
+            if (head.get() <= cursor) {
+                LockSupport.parkNanos(this, unit.toNanos(timeout));
+            }
+        } finally {
+            waiter = null;
+        }
+        if (Thread.interrupted()) {
+            throw new InterruptedException();
+        }
+    }
+
+    /**
+     * Evicts the oldest retained event unless it is {@code newest}.
+     *
+     * @return {@code false} if nothing older than {@code newest} is left to evict
+     */
+    private boolean evictOldest(long newest) {
+        while (true) {
+            long current = tail.get();
+            long oldest = Math.max(current, head.get() - capacity);
+            if (oldest >= newest) {
+                return false;
+            }
+            if (tail.compareAndSet(current, oldest + 1)) {
+                int index = index(oldest);
+                Entry entry = slots.get(index);
+                if (entry != null && entry.sequence == oldest
+                        && slots.compareAndSet(index, entry, null)) {
+                    bytes.addAndGet(-entry.event.length);
+                }
+                return true;
+            }
+        }
+    }
+
+    private long oldest(long end) {
+        return Math.max(tail.get(), end - capacity);
+    }
+
+    private Entry valid(long sequence) {
+        Entry entry = slots.get(index(sequence));
+        return entry != null && entry.sequence == sequence ? entry : null;
+    }
+
+    private int index(long sequence) {
+        return (int) (sequence % capacity);
+    }
+
+    private record Entry(long sequence, long timestamp, byte[] event) {
+    }
+}
@@ -0,0 +1,123 @@
+package com.example.demo.utils;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+
+/**
+ * Allocation-free parsing of the timestamp that starts every Spring Boot log line,
+ * e.g. {@code 2025-04-30T19:13:36.325+03:00}.
+ *
+ * <p>Only the local date-time part is read; the zone offset is ignored because a single
+ * log file is written with one offset. Instants are expressed as epoch seconds of that
+ * local date-time in UTC so they compare in file order.
+ */
+public final class LogTimestamps {
+
+    /**
+     * Length of the {@code yyyy-MM-ddTHH:mm:ss} prefix.
+     */
+    public static final int LENGTH = 19;
+
+    private static final int DATE_LENGTH = 10;
+
+    private LogTimestamps() {
+        throw new UnsupportedOperationException("Utility class");
+    }
+
+    /**
+     * Reads the date of a line as a {@code yyyyMMdd} number.
+     *
+     * @param buf buffer holding the line
+     * @param off index of the first byte of the line
+     * @param len number of bytes available from {@code off}
+     * @return the date key, or -1 if the line does not start with a date
+     */
+    public static int dayKey(byte[] buf, int off, int len) {
+        if (len < DATE_LENGTH || buf[off + 4] != '-' || buf[off + 7] != '-') {
+            return -1;
+        }
+        int year = digits(buf, off, 4);
+        int month = digits(buf, off + 5, 2);
+        int day = digits(buf, off + 8, 2);
+        if (year < 0 || month < 0 || day < 0) {
+            return -1;
+        }
+        return year * 10000 + month * 100 + day;
+    }
+
+    /**
+     * Reads the timestamp of a line.
+     *
+     * @param buf buffer holding the line
+     * @param off index of the first byte of the line
+     * @param len number of bytes available from {@code off}
+     * @return epoch seconds of the timestamp, or -1 if the line does not start with one
+     */
+    public static long epochSecond(byte[] buf, int off, int len) {
+        int dayKey = dayKey(buf, off, len);
+        if (dayKey < 0 || len < LENGTH || buf[off + 10] != 'T'
+                || buf[off + 13] != ':' || buf[off + 16] != ':') {
+            return -1;
+        }
+        int hour = digits(buf, off + 11, 2);
+        int minute = digits(buf, off + 14, 2);
+        int second = digits(buf, off + 17, 2);
+        if (hour < 0 || minute < 0 || second < 0) {
+            return -1;
+        }
+        long epochDay = epochDay(dayKey);
+        if (epochDay == Long.MIN_VALUE) {
+            return -1;
+        }
+        return epochDay * 86_400 + hour * 3600L + minute * 60L + second;
+    }
+
+    /**
+     * Converts a local date to the epoch seconds of its midnight.
+     *
+     * @param date the date
+     * @return epoch seconds comparable with {@link #epochSecond(byte[], int, int)}
+     */
+    public static long epochSecond(LocalDate date) {
+        return date.toEpochDay() * 86_400;
+    }
+
+    /**
+     * Converts a local date-time to epoch seconds.
+     *
+     * @param dateTime the date-time
+     * @return epoch seconds comparable with {@link #epochSecond(byte[], int, int)}
+     */
+    public static long epochSecond(LocalDateTime dateTime) {
+        return dateTime.toEpochSecond(ZoneOffset.UTC);
+    }
+
+    private static long epochDay(int dayKey) {
+        int year = dayKey / 10000;
+        int month = dayKey / 100 % 100;
+        int day = dayKey % 100;
+        if (month < 1 || month > 12 || day < 1 || day > 31) {
+            return Long.MIN_VALUE;
+        }
+        // Days-from-civil, valid for the proleptic Gregorian calendar.
+        int y = month <= 2 ? year - 1 : year;
+        int era = Math.floorDiv(y, 400);
+        int yoe = y - era * 400;
+        int doy = (153 * (month + (month > 2 ? -3 : 9)) + 2) / 5 + day - 1;
+        int doe = yoe * 365 + yoe / 4 - yoe / 100 + doy;
+        return era * 146_097L + doe - 719_468;
+    }
+
+    private static int digits(byte[] buf, int off, int count) {
+        int value = 0;
+        for (int i = off; i < off + count; i++) {
+            int digit = buf[i] - '0';
+            if (digit < 0 || digit > 9) {
+                return -1;
+            }
+            value = value * 10 + digit;
+        }
+        return value;
+    }
+}
@@ -0,0 +1,35 @@
+package com.example.demo.utils;
+
+import ch.qos.logback.classic.pattern.ClassicConverter;
+import ch.qos.logback.classic.spi.ILoggingEvent;
+import java.util.Map;
+
+/**
+ * Logback converter that writes the correlation ID of the HTTP request an event was
+ * logged in as a bracketed group, e.g. {@code [rid=3f2a9c0d41b7e865] }, followed by a
+ * space. Events logged outside a request produce nothing.
+ *
+ * <p>{@code logback-spring.xml} registers it as {@code %requestId} and puts it at the
+ * correlation position of Spring Boot's layout, where {@link LogLine} reads it as one of
+ * the groups before the logger.
+ */
+public class RequestIdConverter extends ClassicConverter {
+
+    /**
+     * MDC key holding the correlation ID of the current request.
+     */
+    public static final String MDC_KEY = "requestId";
+
+    /**
+     * Prefix of the group content that identifies the correlation ID.
+     */
+    public static final String GROUP_PREFIX = "rid=";
+
+    @Override
+    public String convert(ILoggingEvent event) {
+        Map<String, String> mdc = event.getMDCPropertyMap();
+        String requestId = mdc != null ? mdc.get(MDC_KEY) : null;
+        return requestId == null || requestId.isEmpty()
+                ? "" : "[" + GROUP_PREFIX + requestId + "] ";
+    }
+}
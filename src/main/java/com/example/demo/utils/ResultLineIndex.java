@@ -0,0 +1,225 @@
+package com.example.demo.utils;
+
+import com.example.demo.model.LogLinesPage;
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.zip.GZIPInputStream;
+
+/**
+ * Line-offset index of a result file, stored next to it as {@code <result>.lines}.
+ *
+ * <p>The index holds the offset of every {@link #STRIDE}-th line of the uncompressed
+ * result, so a page of a plain result is read with one seek to the nearest preceding
+ * indexed line and one sequential read. Gzip results cannot be entered in the middle and
+ * are decompressed from the start; the index still provides their line count.
+ *
+ * <p>File layout: {@code MAGIC, STRIDE, line count, total bytes, offset count} as longs,
+ * followed by the offsets.
+ */
+public final class ResultLineIndex {
+
+    /**
+     * Number of lines between indexed line starts.
+     */
+    public static final int STRIDE = 64;
+
+    private static final long MAGIC = 0x4C494E45_4944_0001L;
+    private static final String SUFFIX = ".lines";
+    private static final int HEADER_BYTES = 5 * Long.BYTES;
+
+    private ResultLineIndex() {
+        throw new UnsupportedOperationException("Utility class");
+    }
+
+    /**
+     * Returns the index file of a result file.
+     *
+     * @param result the result file
+     * @return path of its line index
+     */
+    public static Path sidecar(Path result) {
+        return result.resolveSibling(result.getFileName() + SUFFIX);
+    }
+
+    /**
+     * Writes the index of a result file.
+     *
+     * @param result the result file
+     * @param lines number of lines in the result
+     * @param bytes number of uncompressed bytes in the result
+     * @param offsets offsets of every {@link #STRIDE}-th line start
+     * @throws IOException if the index cannot be written
+     */
+    static void write(Path result, long lines, long bytes, long[] offsets) throws IOException {
+        // Written aside and moved into place, so that concurrent readers, which may rebuild
+        // the same index, never see a partial file.
+        Path index = sidecar(result);
+        Path tempFile = Files.createTempFile(index.toAbsolutePath().getParent(),
+                index.getFileName().toString(), ".tmp");
+        try {
+            try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(
+                    Files.newOutputStream(tempFile)))) {
+                out.writeLong(MAGIC);
+                out.writeLong(STRIDE);
+                out.writeLong(lines);
+                out.writeLong(bytes);
+                out.writeLong(offsets.length);
+                for (long offset : offsets) {
+                    out.writeLong(offset);
+                }
+            }
+            Files.move(tempFile, index, StandardCopyOption.REPLACE_EXISTING,
+                    StandardCopyOption.ATOMIC_MOVE);
+        } finally {
+            Files.deleteIfExists(tempFile);
+        }
+    }
+
+    /**
+     * Reads up to {@code limit} lines of a result file starting at line {@code from}.
+     * A missing or damaged index is rebuilt from the result first.
+     *
+     * @param result the result file, plain or gzip-compressed
+     * @param from number of the first line to return, counted from 0
+     * @param limit maximum number of lines to return
+     * @return the page of lines without line terminators
+     * @throws IOException if the result or its index cannot be read
+     */
+    public static LogLinesPage read(Path result, long from, int limit) throws IOException {
+        Header header = readHeader(result);
+        if (header == null) {
+            rebuild(result);
+            header = readHeader(result);
+            if (header == null) {
+                throw new IOException("Cannot index result file " + result);
+            }
+        }
+        List<String> lines = new ArrayList<>();
+        if (from < header.lines && limit > 0) {
+            if (isGzip(result)) {
+                try (InputStream in = new BufferedInputStream(new GZIPInputStream(
+                        Files.newInputStream(result)))) {
+                    readLines(in, from, limit, lines);
+                }
+            } else {
+                long offset = checkpoint(result, from / header.stride);
+                try (FileChannel channel = FileChannel.open(result, StandardOpenOption.READ)) {
+                    channel.position(offset);
+                    readLines(new BufferedInputStream(Channels.newInputStream(channel)),
+                            from % header.stride, limit, lines);
+                }
+            }
+        }
+        return new LogLinesPage(from, header.lines, lines);
+    }
+
+    /**
+     * Deletes the index of a result file, if there is one.
+     *
+     * @param result the result file
+     * @throws IOException if the index exists but cannot be deleted
+     */
+    public static void delete(Path result) throws IOException {
+        Files.deleteIfExists(sidecar(result));
+    }
+
+    private static void rebuild(Path result) throws IOException {
+        try (InputStream in = isGzip(result)
+                ? new GZIPInputStream(Files.newInputStream(result))
+                : Files.newInputStream(result);
+             LineIndexingOutputStream indexer =
+                     new LineIndexingOutputStream(OutputStream.nullOutputStream())) {
+            in.transferTo(indexer);
+            indexer.writeIndex(result);
+        }
+    }
+
+    private static Header readHeader(Path result) throws IOException {
+        Path index = sidecar(result);
+        if (!Files.exists(index) || Files.size(index) < HEADER_BYTES) {
+            return null;
+        }
+        try (DataInputStream in = new DataInputStream(Files.newInputStream(index))) {
+            if (in.readLong() != MAGIC) {
+                return null;
+            }
+            long stride = in.readLong();
+            long lines = in.readLong();
+            in.readLong();
+            long count = in.readLong();
+            if (stride <= 0 || Files.size(index) != HEADER_BYTES + count * Long.BYTES) {
+                return null;
+            }
+            return new Header(stride, lines);
+        }
+    }
+
+    private static long checkpoint(Path result, long number) throws IOException {
+        try (FileChannel channel = FileChannel.open(sidecar(result), StandardOpenOption.READ)) {
+            ByteBuffer buf = ByteBuffer.allocate(Long.BYTES);
+            long position = HEADER_BYTES + number * Long.BYTES;
+            while (buf.hasRemaining()) {
+                if (channel.read(buf, position + buf.position()) < 0) {
+                    throw new EOFException("Truncated line index of " + result);
+                }
+            }
+            return buf.flip().getLong();
+        }
+    }
+
+    /**
+     * Skips {@code skip} lines of {@code in} and collects up to {@code limit} lines.
+     */
+    private static void readLines(InputStream in, long skip, int limit, List<String> lines)
+            throws IOException {
+        ByteArrayOutputStream line = new ByteArrayOutputStream();
+        for (int b; lines.size() < limit && (b = in.read()) >= 0; ) {
+            if (skip > 0) {
+                if (b == '\n') {
+                    skip--;
+                }
+                continue;
+            }
+            if (b != '\n') {
+                line.write(b);
+                continue;
+            }
+            lines.add(decode(line));
+            line.reset();
+        }
+        if (line.size() > 0 && lines.size() < limit) {
+            lines.add(decode(line));
+        }
+    }
+
+    private static String decode(ByteArrayOutputStream line) {
+        byte[] bytes = line.toByteArray();
+        int length = bytes.length > 0 && bytes[bytes.length - 1] == '\r'
+                ? bytes.length - 1 : bytes.length;
+        return new String(bytes, 0, length, StandardCharsets.UTF_8);
+    }
+
+    private static boolean isGzip(Path result) {
+        return result.getFileName().toString().endsWith(".gz");
+    }
+
+    private record Header(long stride, long lines) {
+    }
+}
@@ -0,0 +1,42 @@
+package com.example.demo.utils;
+
+import ch.qos.logback.classic.spi.ILoggingEvent;
+import ch.qos.logback.core.UnsynchronizedAppenderBase;
+import ch.qos.logback.core.encoder.Encoder;
+import ch.qos.logback.core.util.FileSize;
+import lombok.Getter;
+import lombok.Setter;
+
+/**
+ * Logback appender that keeps the most recent events in a {@link LogRingBuffer}, formatted
+ * by its encoder exactly as the file appender writes them.
+ *
+ * <p>The appender does not synchronize: events are encoded on the logging thread and added
+ * to the lock-free buffer, so it never makes logging threads wait for each other. The
+ * {@code file} property names the log file the buffer mirrors; readers only use the buffer
+ * in place of that file.
+ */
+@Getter
+@Setter
+public class RingBufferAppender extends UnsynchronizedAppenderBase<ILoggingEvent> {
+    private Encoder<ILoggingEvent> encoder;
+    private String file;
+    private int maxEvents = 10_000;
+    private FileSize maxSize = FileSize.valueOf("16MB");
+    private volatile LogRingBuffer buffer;
+
+    @Override
+    public void start() {
+        if (encoder == null) {
+            addError("No encoder set for the appender named [" + name + "]");
+            return;
+        }
+        buffer = new LogRingBuffer(maxEvents, maxSize.getSize());
+        super.start();
+    }
+
+    @Override
+    protected void append(ILoggingEvent event) {
+        buffer.append(event.getTimeStamp(), encoder.encode(event));
+    }
+}
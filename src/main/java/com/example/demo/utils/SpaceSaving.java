@@ -0,0 +1,144 @@
+package com.example.demo.utils;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Approximate top-K counter with fixed memory (the Space-Saving algorithm).
+ *
+ * <p>At most {@code capacity} items are tracked. When a new item arrives and the table is
+ * full, it replaces the item with the smallest count and inherits that count as its
+ * possible overestimation. Every item whose true frequency exceeds
+ * {@code total / capacity} is guaranteed to be tracked, and reported counts exceed the
+ * true counts by at most their {@link Entry#error()}. Counters are kept in an indexed
+ * min-heap, so each update costs {@code O(log capacity)}. Not thread-safe.
+ *
+ * @param <K> type of the counted items
+ */
+public final class SpaceSaving<K> {
+    private final int capacity;
+    private final Map<K, Integer> positions;
+    private final Object[] keys;
+    private final long[] counts;
+    private final long[] errors;
+    private int size;
+
+    /**
+     * Creates a counter.
+     *
+     * @param capacity maximum number of tracked items
+     */
+    public SpaceSaving(int capacity) {
+        if (capacity <= 0) {
+            throw new IllegalArgumentException("Capacity must be positive");
+        }
+        this.capacity = capacity;
+        this.positions = new HashMap<>(capacity * 2);
+        this.keys = new Object[capacity];
+        this.counts = new long[capacity];
+        this.errors = new long[capacity];
+    }
+
+    /**
+     * Counts one occurrence of {@code key}.
+     *
+     * @param key the item
+     */
+    public void add(K key) {
+        Integer position = positions.get(key);
+        if (position != null) {
+            counts[position]++;
+            siftDown(position);
+            return;
+        }
+        if (size < capacity) {
+            keys[size] = key;
+            counts[size] = 1;
+            errors[size] = 0;
+            positions.put(key, size);
+            siftUp(size++);
+            return;
+        }
+        positions.remove(keys[0]);
+        keys[0] = key;
+        errors[0] = counts[0];
+        counts[0]++;
+        positions.put(key, 0);
+        siftDown(0);
+    }
+
+    /**
+     * Returns the most frequent items.
+     *
+     * @param limit maximum number of items to return
+     * @return items ordered by descending count
+     */
+    @SuppressWarnings("unchecked")
+    public List<Entry<K>> top(int limit) {
+        List<Entry<K>> entries = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            entries.add(new Entry<>((K) keys[i], counts[i], errors[i]));
+        }
+        entries.sort(Comparator.comparingLong((Entry<K> entry) -> entry.count()).reversed());
+        return entries.subList(0, Math.min(limit, entries.size()));
+    }
+
+    private void siftUp(int i) {
+        while (i > 0) {
+            int parent = (i - 1) / 2;
+            if (counts[parent] <= counts[i]) {
+                return;
+            }
+            swap(i, parent);
+            i = parent;
+        }
+    }
+
+    private void siftDown(int i) {
+        while (true) {
+            int smallest = i;
+            int left = 2 * i + 1;
+            int right = left + 1;
+            if (left < size && counts[left] < counts[smallest]) {
+                smallest = left;
+            }
+            if (right < size && counts[right] < counts[smallest]) {
+                smallest = right;
+            }
+            if (smallest == i) {
+                return;
+            }
+            swap(i, smallest);
+            i = smallest;
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private void swap(int a, int b) {
+        Object key = keys[a];
+        keys[a] = keys[b];
+        keys[b] = key;
+        long count = counts[a];
+        counts[a] = counts[b];
+        counts[b] = count;
+        long error = errors[a];
+        errors[a] = errors[b];
+        errors[b] = error;
+        positions.put((K) keys[a], a);
+        positions.put((K) keys[b], b);
+    }
+
+    /**
+     * Tracked item with its estimated count.
+     *
+     * @param key the item
+     * @param count estimated number of occurrences, never below the true number
+     * @param error maximum overestimation of {@code count}
+     * @param <K> type of the item
+     */
+    public record Entry<K>(K key, long count, long error) {
+    }
+}
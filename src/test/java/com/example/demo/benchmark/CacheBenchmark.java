@@ -0,0 +1,238 @@
+package com.example.demo.benchmark;
+
+import com.example.demo.utils.CacheUtil;
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.slf4j.LoggerFactory;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Compares the former {@link CacheUtil}, an access-ordered {@code LinkedHashMap} behind one
+ * {@code ReentrantLock}, with the current lock-free W-TinyLFU implementation.
+ *
+ * <p>{@link #read} measures the throughput of hits from all threads. {@link #readThrough}
+ * requests Zipf-distributed keys from a key space ten times the cache size, puts every
+ * miss, and reports the hit and miss counts, so that the hit rates of the two eviction
+ * policies can be compared as well. Reads of neither implementation log; the put and
+ * eviction messages of the cache are turned off so that the appender does not dominate
+ * {@link #readThrough}.
+ *
+ * <p>Run with {@code mvn test-compile} followed by the {@link #main} method on the test
+ * classpath; add {@code -t <n>} to the JMH options to vary the number of threads.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@Threads(Threads.MAX)
+public class CacheBenchmark {
+
+    private static final int MAX_SIZE = 1000;
+    private static final int KEY_SPACE = 10 * MAX_SIZE;
+    private static final int SAMPLES = 1 << 16;
+
+    @Param({"locked", "concurrent"})
+    private String implementation;
+
+    private Cache cache;
+    private String[] keys;
+    private int[] zipfSamples;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        ((ch.qos.logback.classic.Logger) LoggerFactory.getLogger(CacheUtil.class))
+                .setLevel(ch.qos.logback.classic.Level.WARN);
+        cache = "locked".equals(implementation)
+                ? new LockedCache(MAX_SIZE) : new ConcurrentCache(MAX_SIZE);
+        keys = new String[KEY_SPACE];
+        for (int i = 0; i < KEY_SPACE; i++) {
+            keys[i] = "author-" + i;
+        }
+        for (int i = 0; i < MAX_SIZE; i++) {
+            cache.put(keys[i], keys[i]);
+        }
+        zipfSamples = zipf(new SplittableRandom(42), SAMPLES, KEY_SPACE, 0.99);
+    }
+
+    /**
+     * Reads keys that are all in the cache.
+     */
+    @Benchmark
+    public Object read(Cursor cursor) {
+        return cache.get(keys[cursor.next() % MAX_SIZE]);
+    }
+
+    /**
+     * Reads Zipf-distributed keys and puts the misses, like a service that caches
+     * repository results.
+     */
+    @Benchmark
+    public Object readThrough(Cursor cursor, HitCounters counters) {
+        String key = keys[zipfSamples[cursor.next() & (SAMPLES - 1)]];
+        Object value = cache.get(key);
+        if (value != null) {
+            counters.hits++;
+            return value;
+        }
+        counters.misses++;
+        cache.put(key, key);
+        return key;
+    }
+
+    /**
+     * Runs the benchmark from the test classpath.
+     *
+     * @param args ignored
+     * @throws RunnerException if JMH fails to run
+     */
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(CacheBenchmark.class.getSimpleName())
+                .build()).run();
+    }
+
+    /**
+     * Draws ranks of a Zipf distribution by inverting its cumulative distribution.
+     */
+    private static int[] zipf(SplittableRandom random, int count, int ranks, double skew) {
+        double[] cumulative = new double[ranks];
+        double sum = 0;
+        for (int i = 0; i < ranks; i++) {
+            sum += 1 / Math.pow(i + 1, skew);
+            cumulative[i] = sum;
+        }
+        int[] samples = new int[count];
+        for (int i = 0; i < count; i++) {
+            double u = random.nextDouble() * sum;
+            int low = 0;
+            int high = ranks - 1;
+            while (low < high) {
+                int mid = (low + high) >>> 1;
+                if (cumulative[mid] < u) {
+                    low = mid + 1;
+                } else {
+                    high = mid;
+                }
+            }
+            samples[i] = low;
+        }
+        return samples;
+    }
+
+    /**
+     * Per-thread position in the key sequences, started at a random offset so that the
+     * threads do not request the same keys in lockstep.
+     */
+    @State(Scope.Thread)
+    public static class Cursor {
+        private int position;
+
+        @Setup(Level.Trial)
+        public void setUp() {
+            position = new SplittableRandom().nextInt(SAMPLES);
+        }
+
+        int next() {
+            return position++ & Integer.MAX_VALUE;
+        }
+    }
+
+    /**
+     * Hits and misses of {@link #readThrough}, reported by JMH next to the throughput.
+     */
+    @AuxCounters(AuxCounters.Type.EVENTS)
+    @State(Scope.Thread)
+    public static class HitCounters {
+        public long hits;
+        public long misses;
+
+        @Setup(Level.Iteration)
+        public void reset() {
+            hits = 0;
+            misses = 0;
+        }
+    }
+
+    private interface Cache {
+        Object get(String key);
+
+        void put(String key, String value);
+    }
+
+    private static final class ConcurrentCache implements Cache {
+        private final CacheUtil<String, String> cache;
+
+        ConcurrentCache(int maxSize) {
+            this.cache = new CacheUtil<>(maxSize);
+        }
+
+        @Override
+        public Object get(String key) {
+            return cache.get(key);
+        }
+
+        @Override
+        public void put(String key, String value) {
+            cache.put(key, value);
+        }
+    }
+
+    /**
+     * The former {@code CacheUtil}: every read reorders the map under the global lock.
+     */
+    private static final class LockedCache implements Cache {
+        private final LinkedHashMap<String, String> cache;
+        private final ReentrantLock lock = new ReentrantLock();
+
+        LockedCache(int maxSize) {
+            this.cache = new LinkedHashMap<>(maxSize, 0.75f, true) {
+                @Override
+                protected boolean removeEldestEntry(Map.Entry<String, String> eldest) {
+                    return size() > maxSize;
+                }
+            };
+        }
+
+        @Override
+        public Object get(String key) {
+            lock.lock();
+            try {
+                return cache.get(key);
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        @Override
+        public void put(String key, String value) {
+            lock.lock();
+            try {
+                cache.put(key, value);
+            } finally {
+                lock.unlock();
+            }
+        }
+    }
+}
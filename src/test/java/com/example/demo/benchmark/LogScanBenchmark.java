@@ -0,0 +1,118 @@
+package com.example.demo.benchmark;
+
+import com.example.demo.config.LogProperties;
+import com.example.demo.service.LogExtractor;
+import com.example.demo.utils.ByteRange;
+import com.example.demo.utils.DateLineMatcher;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+/**
+ * Compares the former {@code Files.lines(...).filter(contains)} extraction with the
+ * byte-level {@link LogExtractor} on a synthetic log where one line in ten matches.
+ *
+ * <p>Run with {@code mvn test-compile} followed by the {@link #main} method on the test
+ * classpath; add {@code -prof gc} to the JMH options to compare allocation rates.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class LogScanBenchmark {
+
+    private static final String DATE = "2025-04-30";
+
+    @Param({"64"})
+    private int sizeMb;
+
+    private Path logFile;
+    private LogExtractor logExtractor;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        logFile = Files.createTempFile("log-scan-benchmark-", ".log");
+        long target = sizeMb * 1024L * 1024L;
+        long written = 0;
+        try (Writer writer = new BufferedWriter(Files.newBufferedWriter(logFile))) {
+            for (int i = 0; written < target; i++) {
+                String line = (i % 10 == 0 ? DATE : "2025-04-29")
+                        + "T10:00:00.000+03:00  INFO 5548 --- [nio-8080-exec-1] "
+                        + "c.e.demo.controller.UserController       : Method called: "
+                        + "UserController.getUsers() request " + i + "\n";
+                writer.write(line);
+                written += line.length();
+            }
+        }
+        logExtractor = new LogExtractor(new LogProperties());
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        logExtractor.shutdown();
+        Files.deleteIfExists(logFile);
+    }
+
+    /**
+     * Decodes every line into a {@code String} and keeps the matches, like the original
+     * {@code LogService.processTask}.
+     */
+    @Benchmark
+    public long filesLines() throws IOException {
+        try (Stream<String> lines = Files.lines(logFile)) {
+            List<String> matched = lines.filter(line -> line.contains(DATE)).toList();
+            long bytes = 0;
+            for (String line : matched) {
+                bytes += line.getBytes(StandardCharsets.UTF_8).length + 1;
+            }
+            return bytes;
+        }
+    }
+
+    /**
+     * Matches raw bytes and copies matching ranges without decoding.
+     */
+    @Benchmark
+    public long byteMatcher() throws IOException {
+        return logExtractor.extract(logFile, ByteRange.ALL, new DateLineMatcher(DATE),
+                OutputStream.nullOutputStream());
+    }
+
+    /**
+     * Runs the benchmark from the test classpath.
+     *
+     * @param args ignored
+     * @throws RunnerException if JMH fails to run
+     */
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(LogScanBenchmark.class.getSimpleName())
+                .build()).run();
+    }
+}
@@ -1,31 +1,298 @@
 package com.example.demo.controller;
 
+import com.example.demo.exception.ResourceNotFoundException;
+import com.example.demo.model.LogTask;
+import com.example.demo.model.LogTaskStatus;
+import com.example.demo.model.LogQuery;
+import com.example.demo.service.LogService;
+import com.example.demo.service.LogTailService;
+import com.example.demo.service.LogTaskEvents;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.api.io.TempDir;
 import org.mockito.InjectMocks;
+import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
-import org.springframework.core.io.FileSystemResource;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
-import java.time.LocalDate;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Map;
+import java.util.zip.GZIPOutputStream;
 
 import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
 
 @ExtendWith(MockitoExtension.class)
 class LogControllerTest {
 
+    @Mock
+    private LogService logService;
+
+    @Mock
+    private LogTaskEvents taskEvents;
+
+    @Mock
+    private LogTailService tailService;
+
     @InjectMocks
     private LogController logController;
 
+    @TempDir
+    Path tempDir;
+
+    @Test
+    void createLogTask_ValidDate_ReturnsTaskId() {
+        // Arrange
+        when(logService.createLogTask("2025-04-30")).thenReturn("1");
+
+        // Act
+        ResponseEntity<Object> response = logController.createLogTask("2025-04-30", null, null, null);
+
+        // Assert
+        assertEquals(HttpStatus.OK, response.getStatusCode());
+        assertEquals("1", response.getBody());
+    }
+
+    @Test
+    void getTaskStatus_ExistingTask_ReturnsStatus() {
+        // Arrange
+        LogTask task = new LogTask("1", "2025-04-30", LogTaskStatus.PROCESSING);
+        when(logService.getTaskStatus("1")).thenReturn(task);
+
+        // Act
+        ResponseEntity<Map<String, Object>> response = logController.getTaskStatus("1");
+
+        // Assert
+        assertEquals(HttpStatus.OK, response.getStatusCode());
+        assertEquals("PROCESSING", response.getBody().get("status"));
+        assertEquals(0L, response.getBody().get("bytesScanned"));
+    }
+
+    @Test
+    void cancelTask_RunningTask_ReturnsCancelledStatus() {
+        // Arrange
+        LogTask task = new LogTask("1", "2025-04-30", LogTaskStatus.CANCELLED);
+        when(logService.cancelTask("1")).thenReturn(task);
+
+        // Act
+        ResponseEntity<Map<String, Object>> response = logController.cancelTask("1");
+
+        // Assert
+        assertEquals(HttpStatus.OK, response.getStatusCode());
+        assertEquals("CANCELLED", response.getBody().get("status"));
+    }
+
     @Test
-    void getLogFileByDate_NoMatchingEntries_ReturnsNoContent() {
+    void tail_Query_SubscribesToLiveTail() {
         // Arrange
-        String testDate = LocalDate.now().plusDays(1).toString(); // Future date with no logs
+        LogQuery query = new LogQuery();
+        SseEmitter emitter = new SseEmitter();
+        when(tailService.subscribe(query)).thenReturn(emitter);
 
         // Act
-        ResponseEntity<FileSystemResource> response = logController.getLogFileByDate(testDate);
+        SseEmitter result = logController.tail(query);
 
         // Assert
-        assertEquals(HttpStatus.NO_CONTENT, response.getStatusCode());
+        assertSame(emitter, result);
+    }
+
+    @Test
+    void followTask_ExistingTask_SubscribesToTaskEvents() {
+        // Arrange
+        LogTask task = new LogTask("1", "2025-04-30", LogTaskStatus.PROCESSING);
+        SseEmitter emitter = new SseEmitter();
+        when(logService.getTaskStatus("1")).thenReturn(task);
+        when(taskEvents.subscribe(task)).thenReturn(emitter);
+
+        // Act
+        SseEmitter result = logController.followTask("1");
+
+        // Assert
+        assertSame(emitter, result);
+    }
+
+    @Test
+    void downloadLogFile_TaskNotCompleted_ReturnsStatusMessage() {
+        // Arrange
+        LogTask task = new LogTask("1", "2025-04-30", LogTaskStatus.PROCESSING);
+        when(logService.getTaskForDownload("1")).thenReturn(task);
+
+        // Act
+        ResponseEntity<Object> response = logController.downloadLogFile("1",
+                new MockHttpServletRequest("GET", "/api/logs/1/download"),
+                new MockHttpServletResponse());
+
+        // Assert
+        assertEquals(HttpStatus.OK, response.getStatusCode());
+        assertEquals("PROCESSING", ((Map<?, ?>) response.getBody()).get("status"));
+    }
+
+    @Test
+    void downloadLogFile_UnknownTask_ReturnsNotFound() {
+        // Arrange
+        when(logService.getTaskForDownload("42"))
+                .thenThrow(new ResourceNotFoundException("Task not found with id: 42"));
+
+        // Act
+        ResponseEntity<Object> response = logController.downloadLogFile("42",
+                new MockHttpServletRequest("GET", "/api/logs/42/download"),
+                new MockHttpServletResponse());
+
+        // Assert
+        assertEquals(HttpStatus.NOT_FOUND, response.getStatusCode());
+    }
+
+    @Test
+    void downloadLogFile_Completed_WritesWholeFile() throws IOException {
+        // Arrange
+        completedTask("0123456789");
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/api/logs/1/download");
+        MockHttpServletResponse response = new MockHttpServletResponse();
+
+        // Act
+        ResponseEntity<Object> result = logController.downloadLogFile("1", request, response);
+
+        // Assert
+        assertNull(result);
+        assertEquals(HttpStatus.OK.value(), response.getStatus());
+        assertEquals("0123456789", response.getContentAsString());
+        assertEquals("bytes", response.getHeader(HttpHeaders.ACCEPT_RANGES));
+        assertNotNull(response.getHeader(HttpHeaders.ETAG));
+    }
+
+    @Test
+    void downloadLogFile_RangeRequest_ReturnsPartialContent() throws IOException {
+        // Arrange
+        completedTask("0123456789");
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/api/logs/1/download");
+        request.addHeader(HttpHeaders.RANGE, "bytes=4-");
+        MockHttpServletResponse response = new MockHttpServletResponse();
+
+        // Act
+        logController.downloadLogFile("1", request, response);
+
+        // Assert
+        assertEquals(HttpStatus.PARTIAL_CONTENT.value(), response.getStatus());
+        assertEquals("456789", response.getContentAsString());
+        assertEquals("bytes 4-9/10", response.getHeader(HttpHeaders.CONTENT_RANGE));
+    }
+
+    @Test
+    void downloadLogFile_RangeBeyondEnd_ReturnsNotSatisfiable() throws IOException {
+        // Arrange
+        completedTask("0123456789");
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/api/logs/1/download");
+        request.addHeader(HttpHeaders.RANGE, "bytes=10-20");
+        MockHttpServletResponse response = new MockHttpServletResponse();
+
+        // Act
+        logController.downloadLogFile("1", request, response);
+
+        // Assert
+        assertEquals(HttpStatus.REQUESTED_RANGE_NOT_SATISFIABLE.value(), response.getStatus());
+        assertEquals("bytes */10", response.getHeader(HttpHeaders.CONTENT_RANGE));
+    }
+
+    @Test
+    void downloadLogFile_MatchingETag_ReturnsNotModified() throws IOException {
+        // Arrange
+        completedTask("0123456789");
+        MockHttpServletResponse first = new MockHttpServletResponse();
+        logController.downloadLogFile("1",
+                new MockHttpServletRequest("GET", "/api/logs/1/download"), first);
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/api/logs/1/download");
+        request.addHeader(HttpHeaders.IF_NONE_MATCH, first.getHeader(HttpHeaders.ETAG));
+        MockHttpServletResponse response = new MockHttpServletResponse();
+
+        // Act
+        logController.downloadLogFile("1", request, response);
+
+        // Assert
+        assertEquals(HttpStatus.NOT_MODIFIED.value(), response.getStatus());
+        assertEquals(0, response.getContentAsByteArray().length);
+    }
+
+    @Test
+    void downloadLogFile_GzipResultAndGzipClient_SendsCompressedBytes() throws IOException {
+        // Arrange
+        byte[] compressed = completedGzipTask("compressed log");
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/api/logs/1/download");
+        request.addHeader(HttpHeaders.ACCEPT_ENCODING, "deflate, gzip;q=0.8");
+        MockHttpServletResponse response = new MockHttpServletResponse();
+
+        // Act
+        logController.downloadLogFile("1", request, response);
+
+        // Assert
+        assertEquals("gzip", response.getHeader(HttpHeaders.CONTENT_ENCODING));
+        assertArrayEquals(compressed, response.getContentAsByteArray());
+    }
+
+    @Test
+    void downloadLogFile_GzipResultAndPlainClient_SendsDecompressedText() throws IOException {
+        // Arrange
+        completedGzipTask("compressed log");
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/api/logs/1/download");
+        request.addHeader(HttpHeaders.ACCEPT_ENCODING, "gzip;q=0");
+        MockHttpServletResponse response = new MockHttpServletResponse();
+
+        // Act
+        logController.downloadLogFile("1", request, response);
+
+        // Assert
+        assertNull(response.getHeader(HttpHeaders.CONTENT_ENCODING));
+        assertEquals("compressed log", response.getContentAsString());
+    }
+
+    @Test
+    void downloadLogFile_PlainClientRevalidates_ReturnsNotModified() throws IOException {
+        // Arrange
+        completedGzipTask("compressed log");
+        MockHttpServletRequest first = new MockHttpServletRequest("GET", "/api/logs/1/download");
+        first.addHeader(HttpHeaders.ACCEPT_ENCODING, "identity");
+        MockHttpServletResponse firstResponse = new MockHttpServletResponse();
+        logController.downloadLogFile("1", first, firstResponse);
+        String etag = firstResponse.getHeader(HttpHeaders.ETAG);
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/api/logs/1/download");
+        request.addHeader(HttpHeaders.ACCEPT_ENCODING, "identity");
+        request.addHeader(HttpHeaders.IF_NONE_MATCH, etag);
+        MockHttpServletResponse response = new MockHttpServletResponse();
+
+        // Act
+        logController.downloadLogFile("1", request, response);
+
+        // Assert
+        assertNotNull(etag);
+        assertEquals("none", firstResponse.getHeader(HttpHeaders.ACCEPT_RANGES));
+        assertEquals(304, response.getStatus());
+        assertEquals(0, response.getContentLength());
+    }
+
+    private byte[] completedGzipTask(String content) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (GZIPOutputStream gzip = new GZIPOutputStream(bytes)) {
+            gzip.write(content.getBytes(StandardCharsets.UTF_8));
+        }
+        Path file = Files.write(tempDir.resolve("logs-2025-04-30.log.gz"), bytes.toByteArray());
+        LogTask task = new LogTask("1", "2025-04-30", LogTaskStatus.COMPLETED);
+        task.setFilePath(file.toString());
+        when(logService.getTaskForDownload("1")).thenReturn(task);
+        return bytes.toByteArray();
+    }
+
+    private void completedTask(String content) throws IOException {
+        Path file = Files.writeString(tempDir.resolve("logs-2025-04-30.log"), content);
+        LogTask task = new LogTask("1", "2025-04-30", LogTaskStatus.COMPLETED);
+        task.setFilePath(file.toString());
+        when(logService.getTaskForDownload("1")).thenReturn(task);
     }
-}
\ No newline at end of file
+}
@@ -49,4 +49,18 @@ class ExceptionsTest {
         ResourceNotFoundException exception = new ResourceNotFoundException(message);
         assertEquals(message, exception.getMessage());
     }
-}
\ No newline at end of file
+
+    @Test
+    void taskNotReadyException_HasCorrectResponseStatus() {
+        ResponseStatus annotation = TaskNotReadyException.class.getAnnotation(ResponseStatus.class);
+        assertNotNull(annotation);
+        assertEquals(HttpStatus.TOO_EARLY, annotation.value());
+    }
+
+    @Test
+    void taskNotReadyException_ConstructorSetsMessage() {
+        String message = "Log file not ready yet";
+        TaskNotReadyException exception = new TaskNotReadyException(message);
+        assertEquals(message, exception.getMessage());
+    }
+}
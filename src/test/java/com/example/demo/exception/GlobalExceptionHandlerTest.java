@@ -80,6 +80,22 @@ class GlobalExceptionHandlerTest {
         assertEquals(message, response.getBody().getMessage());
     }
 
+    @Test
+    void handleTaskNotReady_ReturnsCorrectResponse() {
+        // Arrange
+        String message = "Log file not ready yet";
+        TaskNotReadyException ex = new TaskNotReadyException(message);
+
+        // Act
+        ResponseEntity<ErrorResponse> response = exceptionHandler.handleTaskNotReady(ex);
+
+        // Assert
+        assertNotNull(response);
+        assertEquals(HttpStatus.TOO_EARLY, response.getStatusCode());
+        assertNotNull(response.getBody());
+        assertEquals(message, response.getBody().getMessage());
+    }
+
     @Test
     void handleAllExceptions_ReturnsCorrectResponse() {
         // Arrange
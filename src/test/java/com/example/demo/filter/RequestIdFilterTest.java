@@ -0,0 +1,62 @@
+package com.example.demo.filter;
+
+import com.example.demo.config.LogProperties;
+import com.example.demo.utils.RequestIdConverter;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.slf4j.MDC;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class RequestIdFilterTest {
+
+    private LogProperties properties;
+    private RequestIdFilter filter;
+    private MockHttpServletRequest request;
+    private MockHttpServletResponse response;
+
+    @BeforeEach
+    void setUp() {
+        properties = new LogProperties();
+        filter = new RequestIdFilter(properties);
+        request = new MockHttpServletRequest();
+        request.addHeader(RequestIdFilter.HEADER, "client-id");
+        response = new MockHttpServletResponse();
+    }
+
+    @Test
+    void doFilter_ClientIdNotTrusted_GeneratesId() throws Exception {
+        // Arrange
+        AtomicReference<String> logged = new AtomicReference<>();
+
+        // Act
+        filter.doFilter(request, response,
+                (req, res) -> logged.set(MDC.get(RequestIdConverter.MDC_KEY)));
+
+        // Assert
+        String requestId = response.getHeader(RequestIdFilter.HEADER);
+        assertNotEquals("client-id", requestId);
+        assertTrue(RequestIdFilter.VALID_ID.matcher(requestId).matches());
+        assertEquals(requestId, logged.get());
+        assertNull(MDC.get(RequestIdConverter.MDC_KEY));
+    }
+
+    @Test
+    void doFilter_ClientIdTrusted_ReusesIt() throws Exception {
+        // Arrange
+        properties.getRequests().setTrustClientId(true);
+        AtomicReference<String> logged = new AtomicReference<>();
+
+        // Act
+        filter.doFilter(request, response,
+                (req, res) -> logged.set(MDC.get(RequestIdConverter.MDC_KEY)));
+
+        // Assert
+        assertEquals("client-id", response.getHeader(RequestIdFilter.HEADER));
+        assertEquals("client-id", logged.get());
+    }
+}
@@ -0,0 +1,168 @@
+package com.example.demo.service;
+
+import com.example.demo.config.LogProperties;
+import com.example.demo.utils.ArchiveSlice;
+import com.example.demo.utils.BlockGzipIndex;
+import com.example.demo.utils.ByteRange;
+import com.example.demo.utils.LogTimestamps;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.util.unit.DataSize;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.Arrays;
+import java.util.List;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class LogArchivesTest {
+
+    private static final LocalDate DAY = LocalDate.parse("2025-04-30");
+
+    @TempDir
+    Path tempDir;
+
+    private LogProperties properties;
+    private LogArchives archives;
+    private Path archive;
+    private String content;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        properties = new LogProperties();
+        properties.setFile(tempDir.resolve("application.log").toString());
+        properties.getArchives().setBlockSize(DataSize.ofKilobytes(4));
+        archives = new LogArchives(properties);
+        StringBuilder log = new StringBuilder();
+        for (int i = 0; i < 3600; i++) {
+            log.append(DAY).append(String.format("T10:%02d:%02d.000+03:00", i / 60, i % 60))
+                    .append("  INFO 1 --- [main] a.b.C : event ").append(i).append('\n');
+        }
+        content = log.toString();
+        archive = tempDir.resolve("application.log.2025-04-30.0.gz");
+        try (OutputStream out = new GZIPOutputStream(Files.newOutputStream(archive))) {
+            out.write(content.getBytes(StandardCharsets.UTF_8));
+        }
+    }
+
+    @Test
+    void compact_GzipArchive_StaysReadableAsGzipAndGetsBlockTable() throws IOException {
+        // Act
+        archives.compact(archive);
+
+        // Assert
+        assertTrue(BlockGzipIndex.load(archive).isPresent());
+        try (InputStream in = new GZIPInputStream(Files.newInputStream(archive))) {
+            assertEquals(content, new String(in.readAllBytes(), StandardCharsets.UTF_8));
+        }
+        assertFalse(Files.exists(tempDir.resolve("application.log.2025-04-30.0.gz.tmp")));
+    }
+
+    @Test
+    void slices_CompactedArchive_CoversOnlyBlocksOfTheRange() throws IOException {
+        // Arrange
+        archives.compact(archive);
+        long from = LogTimestamps.epochSecond(LocalDateTime.parse("2025-04-30T10:30:00"));
+        long to = LogTimestamps.epochSecond(LocalDateTime.parse("2025-04-30T10:31:00"));
+
+        // Act
+        List<ArchiveSlice> slices = archives.slices(DAY, DAY, from, to);
+
+        // Assert
+        assertEquals(1, slices.size());
+        ByteRange range = slices.get(0).range();
+        assertTrue(range.length() < Files.size(archive) / 10, "slice " + range);
+        byte[] compressed = Arrays.copyOfRange(Files.readAllBytes(archive),
+                (int) range.start(), (int) range.end());
+        String text;
+        try (InputStream in = new GZIPInputStream(new ByteArrayInputStream(compressed))) {
+            text = new String(in.readAllBytes(), StandardCharsets.UTF_8);
+        }
+        assertTrue(text.contains("T10:30:00.000+03:00  INFO 1 --- [main] a.b.C : event 1800\n"));
+        assertTrue(text.contains("T10:30:59.000+03:00  INFO 1 --- [main] a.b.C : event 1859\n"));
+        assertTrue(archives.slices(DAY.minusDays(1), DAY.minusDays(1),
+                Long.MIN_VALUE, Long.MAX_VALUE).isEmpty());
+    }
+
+    @Test
+    void slices_RecordSpansBlockBoundaryAtRangeEnd_CoversItsContinuationLines()
+            throws IOException {
+        // Arrange
+        StringBuilder log = new StringBuilder();
+        for (int i = 0; i < 60; i++) {
+            log.append(DAY).append(String.format("T10:29:%02d.000+03:00", i))
+                    .append("  INFO 1 --- [main] a.b.C : event ").append(i).append('\n');
+        }
+        log.append(DAY).append("T10:30:00.000+03:00 ERROR 1 --- [main] a.b.C : failed\n");
+        for (int i = 0; i < 200; i++) {
+            log.append("\tat a.b.C.method(C.java:").append(i).append(")\n");
+        }
+        for (int i = 1; i < 60; i++) {
+            log.append(DAY).append(String.format("T10:30:%02d.000+03:00", i))
+                    .append("  INFO 1 --- [main] a.b.C : event ").append(i).append('\n');
+        }
+        try (OutputStream out = new GZIPOutputStream(Files.newOutputStream(archive))) {
+            out.write(log.toString().getBytes(StandardCharsets.UTF_8));
+        }
+        archives.compact(archive);
+        long from = LogTimestamps.epochSecond(LocalDateTime.parse("2025-04-30T10:30:00"));
+        long to = LogTimestamps.epochSecond(LocalDateTime.parse("2025-04-30T10:30:01"));
+
+        // Act
+        List<ArchiveSlice> slices = archives.slices(DAY, DAY, from, to);
+
+        // Assert
+        ByteRange range = slices.get(0).range();
+        byte[] compressed = Arrays.copyOfRange(Files.readAllBytes(archive),
+                (int) range.start(), (int) range.end());
+        String text;
+        try (InputStream in = new GZIPInputStream(new ByteArrayInputStream(compressed))) {
+            text = new String(in.readAllBytes(), StandardCharsets.UTF_8);
+        }
+        assertTrue(text.contains("T10:30:00.000+03:00 ERROR 1 --- [main] a.b.C : failed\n"));
+        assertTrue(text.contains("\tat a.b.C.method(C.java:199)\n"));
+    }
+
+    @Test
+    void compactInBackground_ArchiveRemoved_DeletesItsBlockTable() throws IOException {
+        // Arrange
+        properties.getArchives().setBlockCompression(true);
+        properties.getArchives().setMinAge(Duration.ZERO);
+        archives.compactInBackground();
+        assertTrue(Files.exists(BlockGzipIndex.sidecar(archive)));
+        Files.delete(archive);
+
+        // Act
+        archives.compactInBackground();
+
+        // Assert
+        assertFalse(Files.exists(BlockGzipIndex.sidecar(archive)));
+    }
+
+    @Test
+    void compactInBackground_BlockCompressionNotEnabled_LeavesArchiveUntouched()
+            throws IOException {
+        // Arrange
+        properties.getArchives().setMinAge(Duration.ZERO);
+        byte[] original = Files.readAllBytes(archive);
+
+        // Act
+        archives.compactInBackground();
+
+        // Assert
+        assertArrayEquals(original, Files.readAllBytes(archive));
+        assertFalse(Files.exists(BlockGzipIndex.sidecar(archive)));
+    }
+}
@@ -0,0 +1,255 @@
+package com.example.demo.service;
+
+import com.example.demo.config.LogProperties;
+import com.example.demo.model.LogTaskProgress;
+import com.example.demo.utils.ArchiveSlice;
+import com.example.demo.utils.ByteRange;
+import com.example.demo.utils.DateLineMatcher;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.util.unit.DataSize;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.Writer;
+import java.lang.management.ManagementFactory;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CancellationException;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class LogExtractorTest {
+
+    private static final long MEMORY_CEILING = 16L * 1024 * 1024;
+    private static final long ALLOCATION_CEILING = 1024 * 1024;
+
+    @TempDir
+    Path tempDir;
+
+    private LogProperties properties;
+    private LogExtractor logExtractor;
+
+    @BeforeEach
+    void setUp() {
+        properties = new LogProperties();
+        properties.setBufferSize(DataSize.ofKilobytes(8));
+        logExtractor = new LogExtractor(properties);
+    }
+
+    @Test
+    void extract_MixedDates_WritesOnlyMatchingLines() throws IOException {
+        // Arrange
+        Path log = Files.writeString(tempDir.resolve("application.log"),
+                "2025-04-29T10:00:00.000+03:00  INFO 1 --- [main] a.b.C : old\n"
+                        + "2025-04-30T10:00:00.000+03:00  INFO 1 --- [main] a.b.C : first\n"
+                        + "\tat a.b.C.method(C.java:1)\n"
+                        + "2025-04-30T10:00:01.000+03:00 ERROR 1 --- [main] a.b.C : second\n");
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+        // Act
+        long written = logExtractor.extract(log, ByteRange.ALL,
+                new DateLineMatcher("2025-04-30"), out);
+
+        // Assert
+        String expected = "2025-04-30T10:00:00.000+03:00  INFO 1 --- [main] a.b.C : first\n"
+                + "2025-04-30T10:00:01.000+03:00 ERROR 1 --- [main] a.b.C : second\n";
+        assertEquals(expected, out.toString(StandardCharsets.UTF_8));
+        assertEquals(out.size(), written);
+    }
+
+    @Test
+    void extract_LargeMatchSet_StreamsThroughBoundedBuffer() throws IOException {
+        // Arrange
+        String line = "2025-04-30T10:00:00.000+03:00  INFO 1 --- [main] a.b.C : payload "
+                + "x".repeat(200);
+        int lines = 200_000;
+        Path log = tempDir.resolve("application.log");
+        try (Writer writer = Files.newBufferedWriter(log)) {
+            for (int i = 0; i < lines; i++) {
+                writer.write(line);
+                writer.write('\n');
+            }
+        }
+        long expectedBytes = (long) lines * (line.length() + 1);
+        System.gc();
+        long heapBefore = usedHeap();
+        ChunkRecordingOutputStream out = new ChunkRecordingOutputStream(expectedBytes / 2);
+
+        // Act
+        long written = logExtractor.extract(log, ByteRange.ALL,
+                new DateLineMatcher("2025-04-30"), out);
+
+        // Assert
+        assertEquals(expectedBytes, written);
+        assertEquals(expectedBytes, out.total);
+        assertTrue(out.largestChunk <= properties.getBufferSize().toBytes(),
+                "Largest chunk " + out.largestChunk + " exceeds the buffer size");
+        assertTrue(out.heapAtCheckpoint - heapBefore < MEMORY_CEILING,
+                "Heap grew by " + (out.heapAtCheckpoint - heapBefore) + " bytes mid-extraction");
+    }
+
+    @Test
+    void extract_ParallelScan_MatchesSequentialOutputByteForByte() throws IOException {
+        // Arrange
+        StringBuilder content = new StringBuilder();
+        for (int i = 0; i < 5_000; i++) {
+            String date = i % 3 == 0 ? "2025-04-29" : "2025-04-30";
+            content.append(date).append("T10:00:00.000+03:00  INFO 1 --- [main] a.b.C : line ")
+                    .append(i).append(i % 11 == 0 ? "\r\n" : "\n");
+            if (i % 17 == 0) {
+                content.append("\tat a.b.C.method(C.java:").append(i).append(")\n");
+            }
+        }
+        content.append("2025-04-30T10:00:00.000+03:00  INFO 1 --- [main] a.b.C : no newline");
+        Path log = Files.writeString(tempDir.resolve("application.log"), content);
+        ByteArrayOutputStream sequential = new ByteArrayOutputStream();
+        logExtractor.extract(log, ByteRange.ALL, new DateLineMatcher("2025-04-30"), sequential);
+
+        properties.getScan().setParallel(true);
+        properties.getScan().setChunkSize(DataSize.ofBytes(1000));
+        properties.getScan().setParallelism(4);
+        LogExtractor parallelExtractor = new LogExtractor(properties);
+        ByteArrayOutputStream parallel = new ByteArrayOutputStream();
+
+        // Act
+        long written;
+        try {
+            written = parallelExtractor.extract(log, ByteRange.ALL,
+                    new DateLineMatcher("2025-04-30"), parallel);
+        } finally {
+            parallelExtractor.shutdown();
+        }
+
+        // Assert
+        assertArrayEquals(sequential.toByteArray(), parallel.toByteArray());
+        assertEquals(parallel.size(), written);
+    }
+
+    @Test
+    void extract_MostlyNonMatchingLines_AllocatesIndependentlyOfLineCount() throws IOException {
+        // Arrange
+        Path log = tempDir.resolve("application.log");
+        try (Writer writer = Files.newBufferedWriter(log)) {
+            for (int i = 0; i < 200_000; i++) {
+                writer.write(i % 1000 == 0 ? "2025-04-30" : "2025-04-29");
+                writer.write("T10:00:00.000+03:00  INFO 1 --- [main] a.b.C : line " + i + "\n");
+            }
+        }
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        logExtractor.extract(log, ByteRange.ALL, new DateLineMatcher("2025-04-29"),
+                OutputStream.nullOutputStream());
+        com.sun.management.ThreadMXBean threads =
+                (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        long before = threads.getCurrentThreadAllocatedBytes();
+
+        // Act
+        logExtractor.extract(log, ByteRange.ALL, new DateLineMatcher("2025-04-30"), out);
+
+        // Assert
+        long allocated = threads.getCurrentThreadAllocatedBytes() - before - out.size();
+        assertEquals(200, out.toString(StandardCharsets.UTF_8).lines().count());
+        assertTrue(allocated < ALLOCATION_CEILING,
+                "Scanning 200k lines allocated " + allocated + " bytes");
+    }
+
+    @Test
+    void extract_CancelledDuringScan_StopsBeforeNextBuffer() throws IOException {
+        // Arrange
+        StringBuilder content = new StringBuilder();
+        for (int i = 0; i < 10_000; i++) {
+            content.append("2025-04-30T10:00:00.000+03:00  INFO 1 --- [main] a.b.C : line ")
+                    .append(i).append('\n');
+        }
+        Path log = Files.writeString(tempDir.resolve("application.log"), content);
+        LogTaskProgress progress = new LogTaskProgress();
+        OutputStream cancellingTarget = new OutputStream() {
+            @Override
+            public void write(int b) {
+                progress.cancel();
+            }
+
+            @Override
+            public void write(byte[] b, int off, int len) {
+                progress.cancel();
+            }
+        };
+        properties.setBufferSize(DataSize.ofBytes(512));
+
+        // Act & Assert
+        assertThrows(CancellationException.class, () -> logExtractor.extract(log,
+                ByteRange.ALL, new DateLineMatcher("2025-04-30"), cancellingTarget, progress));
+        assertTrue(progress.getBytesScanned() < Files.size(log) / 2);
+    }
+
+    @Test
+    void extract_ArchiveFails_LeavesNoSpoolFiles() throws IOException {
+        // Arrange
+        StringBuilder content = new StringBuilder();
+        for (int i = 0; i < 20_000; i++) {
+            content.append("2025-04-30T10:00:00.000+03:00  INFO 1 --- [main] a.b.C : line ")
+                    .append(i).append('\n');
+        }
+        Path log = Files.writeString(tempDir.resolve("application.log"), "");
+        Path spoolDir = Files.createDirectory(tempDir.resolve("spool"));
+        List<ArchiveSlice> archives = new ArrayList<>();
+        archives.add(ArchiveSlice.of(Files.writeString(
+                tempDir.resolve("application.log.0.gz"), "not a gzip stream")));
+        for (int i = 1; i <= 8; i++) {
+            archives.add(ArchiveSlice.of(Files.writeString(
+                    tempDir.resolve("application.log." + i), content)));
+        }
+
+        // Act
+        assertThrows(IOException.class, () -> logExtractor.extract(log, List.of(ByteRange.ALL),
+                archives, new DateLineMatcher("2025-04-30"), OutputStream.nullOutputStream(),
+                new LogTaskProgress(), spoolDir));
+
+        // Assert
+        try (Stream<Path> left = Files.list(spoolDir)) {
+            assertEquals(List.of(), left.toList());
+        }
+    }
+
+    private static long usedHeap() {
+        Runtime runtime = Runtime.getRuntime();
+        return runtime.totalMemory() - runtime.freeMemory();
+    }
+
+    /**
+     * Discards its input, remembering the total size and the largest single write.
+     * Once the checkpoint is passed it samples the retained heap after a full GC.
+     */
+    private static final class ChunkRecordingOutputStream extends OutputStream {
+        private final long checkpoint;
+        private long total;
+        private int largestChunk;
+        private long heapAtCheckpoint;
+
+        ChunkRecordingOutputStream(long checkpoint) {
+            this.checkpoint = checkpoint;
+        }
+
+        @Override
+        public void write(int b) {
+            total++;
+            largestChunk = Math.max(largestChunk, 1);
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) {
+            total += len;
+            largestChunk = Math.max(largestChunk, len);
+            if (heapAtCheckpoint == 0 && total >= checkpoint) {
+                System.gc();
+                heapAtCheckpoint = usedHeap();
+            }
+        }
+    }
+}
@@ -0,0 +1,155 @@
+package com.example.demo.service;
+
+import com.example.demo.config.LogProperties;
+import com.example.demo.utils.ByteRange;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.util.unit.DataSize;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+import java.util.Optional;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class LogKeywordIndexTest {
+
+    @TempDir
+    Path tempDir;
+
+    private Path logFile;
+    private LogProperties properties;
+
+    @BeforeEach
+    void setUp() {
+        logFile = tempDir.resolve("application.log");
+        properties = new LogProperties();
+        properties.setFile(logFile.toString());
+        properties.setBufferSize(DataSize.ofBytes(256));
+        properties.getKeywords().setEnabled(true);
+        properties.getKeywords().setBlockSize(DataSize.ofBytes(300));
+    }
+
+    @Test
+    void candidates_PartialTokens_ReturnsBlocksOfMatchingRecordsAndUnindexedTail()
+            throws IOException {
+        // Arrange
+        String before = records(0, 20);
+        String match = record(20, "failed: java.lang.IllegalStateException: order 17");
+        Files.writeString(logFile, before + match + records(21, 40));
+        LogKeywordIndex index = new LogKeywordIndex(properties);
+        index.refresh();
+        long indexed = Files.size(logFile);
+
+        // Act
+        List<ByteRange> ranges = index.candidates(List.of("StateExc", "order 17")).orElseThrow();
+
+        // Assert
+        assertEquals(2, ranges.size());
+        assertTrue(ranges.get(0).start() <= before.length());
+        assertTrue(ranges.get(0).end() >= before.length() + match.length());
+        assertTrue(ranges.get(0).length() < indexed / 4);
+        assertEquals(new ByteRange(indexed, Long.MAX_VALUE), ranges.get(1));
+    }
+
+    @Test
+    void candidates_KeywordAbsent_ReturnsOnlyUnindexedTail() throws IOException {
+        // Arrange
+        Files.writeString(logFile, records(0, 40));
+        LogKeywordIndex index = new LogKeywordIndex(properties);
+        index.refresh();
+
+        // Act
+        List<ByteRange> ranges = index.candidates(List.of("user-999")).orElseThrow();
+
+        // Assert
+        assertEquals(List.of(new ByteRange(Files.size(logFile), Long.MAX_VALUE)), ranges);
+    }
+
+    @Test
+    void refresh_ManySmallSegments_MergesAndKeepsAllPostings() throws IOException {
+        // Arrange
+        properties.getKeywords().setMaxBufferedPostings(10);
+        properties.getKeywords().setMaxSegments(3);
+        Files.writeString(logFile, record(0, "first marker") + records(1, 60));
+        LogKeywordIndex index = new LogKeywordIndex(properties);
+        index.refresh();
+        Files.writeString(logFile, records(60, 90) + record(90, "last marker"),
+                StandardOpenOption.APPEND);
+
+        // Act
+        index.refresh();
+
+        // Assert
+        assertTrue(segmentCount() <= 3, "segments: " + segmentCount());
+        List<ByteRange> ranges = index.candidates(List.of("marker")).orElseThrow();
+        assertEquals(0, ranges.get(0).start());
+        assertEquals(2, ranges.size());
+        assertEquals(Long.MAX_VALUE, ranges.get(1).end());
+    }
+
+    @Test
+    void candidates_AfterRestart_UsesCheckpointAndResumes() throws IOException {
+        // Arrange
+        Files.writeString(logFile, records(0, 40));
+        new LogKeywordIndex(properties).refresh();
+        Files.writeString(logFile, record(40, "late arrival"), StandardOpenOption.APPEND);
+        long appendedAt = Files.size(logFile) - record(40, "late arrival").length();
+        LogKeywordIndex restarted = new LogKeywordIndex(properties);
+
+        // Act
+        restarted.refresh();
+        List<ByteRange> ranges = restarted.candidates(List.of("arrival")).orElseThrow();
+
+        // Assert
+        assertTrue(ranges.get(0).start() <= appendedAt);
+        assertTrue(ranges.get(0).start() > 0);
+    }
+
+    @Test
+    void candidates_LogReplacedOrIndexDropped_FallsBackToFullScan() throws IOException {
+        // Arrange
+        Files.writeString(logFile, records(0, 40));
+        LogKeywordIndex index = new LogKeywordIndex(properties);
+        index.refresh();
+        Files.writeString(logFile, records(100, 140));
+
+        // Act
+        Optional<List<ByteRange>> replaced = index.candidates(List.of("user"));
+        index.refresh();
+        index.rebuild();
+        Optional<List<ByteRange>> dropped = index.candidates(List.of("user"));
+
+        // Assert
+        assertTrue(replaced.isEmpty());
+        assertTrue(dropped.isEmpty());
+    }
+
+    private long segmentCount() throws IOException {
+        try (Stream<Path> files = Files.list(tempDir.resolve("application.log.kwi"))) {
+            return files.filter(file -> file.getFileName().toString().startsWith("segment-"))
+                    .count();
+        }
+    }
+
+    private static String records(int from, int to) {
+        StringBuilder builder = new StringBuilder();
+        for (int i = from; i < to; i++) {
+            builder.append(record(i, "request from user-" + i));
+            if (i % 7 == 0) {
+                builder.append("\tat a.b.C.method(C.java:").append(i).append(")\n");
+            }
+        }
+        return builder.toString();
+    }
+
+    private static String record(int i, String message) {
+        return String.format("2025-04-30T10:%02d:%02d.000+03:00  INFO 1 --- [main] a.b.C : %s%n",
+                i / 60, i % 60, message);
+    }
+}
@@ -0,0 +1,230 @@
+package com.example.demo.service;
+
+import com.example.demo.config.LogProperties;
+import com.example.demo.model.LogDaySummary;
+import com.example.demo.utils.ByteRange;
+import com.example.demo.utils.LogTimestamps;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.util.unit.DataSize;
+
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDate;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class LogOffsetIndexTest {
+
+    @TempDir
+    Path tempDir;
+
+    private Path logFile;
+    private LogProperties properties;
+
+    @BeforeEach
+    void setUp() {
+        logFile = tempDir.resolve("application.log");
+        properties = new LogProperties();
+        properties.setFile(logFile.toString());
+        properties.setBufferSize(DataSize.ofBytes(256));
+        properties.getIndex().setInterval(DataSize.ofBytes(512));
+    }
+
+    @Test
+    void locate_MiddleDay_ReturnsExactlyThatDaysLines() throws IOException {
+        // Arrange
+        String before = lines("2025-04-28", 40) + lines("2025-04-29", 40);
+        String day = lines("2025-04-30", 40);
+        Files.writeString(logFile, before + day + lines("2025-05-01", 40));
+        LogOffsetIndex index = new LogOffsetIndex(properties);
+
+        // Act
+        ByteRange range = index.locate(LocalDate.of(2025, 4, 30));
+
+        // Assert
+        assertEquals(before.length(), range.start());
+        assertEquals(day, slice(range));
+    }
+
+    @Test
+    void locate_DayStillBeingWritten_ExtendsToEndOfFile() throws IOException {
+        // Arrange
+        Files.writeString(logFile, lines("2025-04-29", 10) + lines("2025-04-30", 10));
+        LogOffsetIndex index = new LogOffsetIndex(properties);
+        index.locate(LocalDate.of(2025, 4, 30));
+        Files.writeString(logFile, lines("2025-04-30", 5), StandardOpenOption.APPEND);
+
+        // Act
+        ByteRange range = index.locate(LocalDate.of(2025, 4, 30));
+
+        // Assert
+        assertEquals(Files.size(logFile), range.end());
+        assertEquals(lines("2025-04-30", 10) + lines("2025-04-30", 5), slice(range));
+    }
+
+    @Test
+    void locate_AfterRestart_ReusesPersistedIndex() throws IOException {
+        // Arrange
+        String before = lines("2025-04-29", 20);
+        Files.writeString(logFile, before + lines("2025-04-30", 20));
+        new LogOffsetIndex(properties).refresh();
+        Path indexFile = tempDir.resolve("application.log.idx");
+        long indexSize = Files.size(indexFile);
+
+        // Act
+        ByteRange range = new LogOffsetIndex(properties).locate(LocalDate.of(2025, 4, 30));
+
+        // Assert
+        assertEquals(indexSize, Files.size(indexFile));
+        assertEquals(before.length(), range.start());
+    }
+
+    @Test
+    void locate_TruncatedLog_RebuildsIndex() throws IOException {
+        // Arrange
+        Files.writeString(logFile, lines("2025-04-29", 40));
+        LogOffsetIndex index = new LogOffsetIndex(properties);
+        index.refresh();
+        String rotated = lines("2025-04-30", 3);
+        Files.writeString(logFile, rotated);
+
+        // Act
+        ByteRange range = index.locate(LocalDate.of(2025, 4, 30));
+
+        // Assert
+        assertEquals(new ByteRange(0, rotated.length()), range);
+    }
+
+    @Test
+    void locate_MissingDay_ReturnsEmptyRange() throws IOException {
+        // Arrange
+        Files.writeString(logFile, lines("2025-04-29", 10) + lines("2025-05-01", 10));
+        LogOffsetIndex index = new LogOffsetIndex(properties);
+
+        // Act
+        ByteRange range = index.locate(LocalDate.of(2025, 4, 30));
+
+        // Assert
+        assertEquals(0, range.length());
+    }
+
+    @Test
+    void locate_LogReplacedByLargerFile_RebuildsIndex() throws IOException {
+        // Arrange
+        Files.writeString(logFile, lines("2025-04-29", 5));
+        LogOffsetIndex index = new LogOffsetIndex(properties);
+        index.refresh();
+        String rotated = lines("2025-04-30", 40);
+        Files.writeString(logFile, rotated);
+
+        // Act
+        ByteRange range = index.locate(LocalDate.of(2025, 4, 30));
+
+        // Assert
+        assertEquals(new ByteRange(0, rotated.length()), range);
+        assertEquals(List.of(LocalDate.of(2025, 4, 30)),
+                index.days().stream().map(LogDaySummary::date).toList());
+    }
+
+    @Test
+    void estimate_BeforeAndAfterRefresh_UsesOnlyPublishedIndex() throws IOException {
+        // Arrange
+        String before = lines("2025-04-29", 40);
+        String day = lines("2025-04-30", 40);
+        Files.writeString(logFile, before + day + lines("2025-05-01", 40));
+        LogOffsetIndex index = new LogOffsetIndex(properties);
+        long from = LogTimestamps.epochSecond(LocalDate.of(2025, 4, 30));
+        long to = LogTimestamps.epochSecond(LocalDate.of(2025, 5, 1));
+
+        // Act
+        boolean estimatedCold = index.estimate(from, to).isPresent();
+        index.refresh();
+        ByteRange range = index.estimate(from, to).orElseThrow();
+
+        // Assert
+        assertFalse(estimatedCold);
+        assertEquals(index.locate(from, to), range);
+        assertEquals(before.length() + day.length(), range.end());
+    }
+
+    @Test
+    void days_LinesAppendedBetweenRefreshes_CountsEveryRecordOnce() throws IOException {
+        // Arrange
+        String first = lines("2025-04-29", 10);
+        Files.writeString(logFile, first + lines("2025-04-30", 3));
+        LogOffsetIndex index = new LogOffsetIndex(properties);
+        index.refreshInBackground();
+        Files.writeString(logFile, lines("2025-04-30", 4)
+                + "2025-04-30T11:00:00.000+03:00 ERROR 1 --- [main] a.b.C : failed\n",
+                StandardOpenOption.APPEND);
+
+        // Act
+        List<LogDaySummary> days = index.days();
+
+        // Assert
+        assertEquals(2, days.size());
+        assertEquals(10, days.get(0).records());
+        assertEquals(0, days.get(0).offset());
+        assertEquals(8, days.get(1).records());
+        assertEquals(first.length(), days.get(1).offset());
+        assertEquals(7, days.get(1).levels().get("INFO"));
+        assertEquals(1, days.get(1).levels().get("ERROR"));
+    }
+
+    @Test
+    void days_AfterRestart_ResumesFromCheckpoint() throws IOException {
+        // Arrange
+        Files.writeString(logFile, lines("2025-04-30", 10));
+        new LogOffsetIndex(properties).refresh();
+        Files.writeString(logFile, lines("2025-04-30", 5), StandardOpenOption.APPEND);
+
+        // Act
+        List<LogDaySummary> days = new LogOffsetIndex(properties).days();
+
+        // Assert
+        assertEquals(1, days.size());
+        assertEquals(15, days.get(0).records());
+    }
+
+    @Test
+    void days_CountersMissing_RebuildsFromStart() throws IOException {
+        // Arrange
+        Files.writeString(logFile, lines("2025-04-30", 10));
+        new LogOffsetIndex(properties).refresh();
+        Files.delete(tempDir.resolve("application.log.days"));
+
+        // Act
+        List<LogDaySummary> days = new LogOffsetIndex(properties).days();
+
+        // Assert
+        assertEquals(10, days.get(0).records());
+    }
+
+    private String slice(ByteRange range) throws IOException {
+        try (RandomAccessFile file = new RandomAccessFile(logFile.toFile(), "r")) {
+            byte[] bytes = new byte[(int) range.length()];
+            file.seek(range.start());
+            file.readFully(bytes);
+            return new String(bytes, StandardCharsets.UTF_8);
+        }
+    }
+
+    private static String lines(String date, int count) {
+        StringBuilder builder = new StringBuilder();
+        for (int i = 0; i < count; i++) {
+            builder.append(date).append(String.format("T10:%02d:%02d.000+03:00", i / 60, i % 60))
+                    .append("  INFO 1 --- [main] a.b.C : line ").append(i).append('\n');
+            if (i % 7 == 0) {
+                builder.append("\tat a.b.C.method(C.java:").append(i).append(")\n");
+            }
+        }
+        return builder.toString();
+    }
+}
@@ -0,0 +1,44 @@
+package com.example.demo.service;
+
+import com.example.demo.exception.BadRequestException;
+import com.example.demo.model.LogQuery;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class LogQueryValidatorTest {
+
+    @Test
+    void validate_LowerCaseLevels_NormalizesThem() {
+        // Arrange
+        LogQuery query = new LogQuery();
+        query.setLevels(Set.of("warn", "Error"));
+
+        // Act
+        LogQueryValidator.validate(query);
+
+        // Assert
+        assertEquals(Set.of("WARN", "ERROR"), query.getLevels());
+    }
+
+    @Test
+    void validate_InvalidQuery_ThrowsBadRequest() {
+        // Arrange
+        LogQuery emptyInterval = new LogQuery();
+        emptyInterval.setFrom(LocalDateTime.parse("2025-04-30T10:00:00"));
+        emptyInterval.setTo(LocalDateTime.parse("2025-04-30T10:00:00"));
+        LogQuery unknownLevel = new LogQuery();
+        unknownLevel.setLevels(Set.of("FATAL"));
+        LogQuery invalidRegex = new LogQuery();
+        invalidRegex.setRegexes(List.of("order ("));
+
+        // Act & Assert
+        assertThrows(BadRequestException.class, () -> LogQueryValidator.validate(emptyInterval));
+        assertThrows(BadRequestException.class, () -> LogQueryValidator.validate(unknownLevel));
+        assertThrows(BadRequestException.class, () -> LogQueryValidator.validate(invalidRegex));
+    }
+}
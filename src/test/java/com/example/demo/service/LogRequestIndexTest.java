@@ -0,0 +1,126 @@
+package com.example.demo.service;
+
+import com.example.demo.config.LogProperties;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.util.unit.DataSize;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class LogRequestIndexTest {
+
+    @TempDir
+    Path tempDir;
+
+    private Path logFile;
+    private LogProperties properties;
+
+    @BeforeEach
+    void setUp() {
+        logFile = tempDir.resolve("application.log");
+        properties = new LogProperties();
+        properties.setFile(logFile.toString());
+        properties.setBufferSize(DataSize.ofBytes(256));
+    }
+
+    @Test
+    void lines_IndexedAndAppendedRecords_ReturnsRecordsOfRequestWithContinuation()
+            throws IOException {
+        // Arrange
+        String failure = record(1, "a1", "failed") + "java.lang.IllegalStateException: x\n"
+                + "\tat a.b.C.run(C.java:1)\n";
+        Files.writeString(logFile, record(0, "a1", "start") + record(0, null, "startup")
+                + record(0, "b2", "other") + failure + record(2, "a10", "prefix"));
+        LogRequestIndex index = new LogRequestIndex(properties);
+        index.refresh();
+        Files.writeString(logFile, record(3, "a1", "late"), StandardOpenOption.APPEND);
+        List<String> lines = new ArrayList<>();
+
+        // Act
+        boolean complete = index.lines("a1", lines, 100);
+
+        // Assert
+        assertTrue(complete);
+        assertEquals(List.of(line(0, "a1", "start"), line(1, "a1", "failed"),
+                "java.lang.IllegalStateException: x", "\tat a.b.C.run(C.java:1)",
+                line(3, "a1", "late")), lines);
+        assertTrue(Files.exists(tempDir.resolve("application.log.rqi").resolve("checkpoint")));
+    }
+
+    @Test
+    void refresh_ManySmallSegments_MergesAndKeepsAllEntries() throws IOException {
+        // Arrange
+        properties.getRequests().setMaxBufferedEntries(5);
+        properties.getRequests().setMaxSegments(3);
+        StringBuilder log = new StringBuilder();
+        for (int i = 0; i < 40; i++) {
+            log.append(record(i, "r" + i % 4, "event " + i));
+        }
+        Files.writeString(logFile, log);
+        LogRequestIndex index = new LogRequestIndex(properties);
+        List<String> lines = new ArrayList<>();
+
+        // Act
+        index.refresh();
+
+        // Assert
+        try (Stream<Path> files = Files.list(tempDir.resolve("application.log.rqi"))) {
+            assertTrue(files.filter(file -> file.getFileName().toString().startsWith("segment-"))
+                    .count() <= 3);
+        }
+        assertTrue(index.lines("r1", lines, 100));
+        assertEquals(10, lines.size());
+        assertEquals(line(37, "r1", "event 37"), lines.get(9));
+    }
+
+    @Test
+    void lines_LogRewrittenAfterIndexing_ScansNewLogInsteadOfStaleOffsets() throws IOException {
+        // Arrange
+        Files.writeString(logFile, record(0, "old", "first") + record(1, "x", "second"));
+        LogRequestIndex index = new LogRequestIndex(properties);
+        index.refresh();
+        Files.writeString(logFile, record(5, "x", "rewritten") + record(6, "y", "more"));
+        List<String> lines = new ArrayList<>();
+
+        // Act
+        index.lines("x", lines, 100);
+
+        // Assert
+        assertEquals(List.of(line(5, "x", "rewritten")), lines);
+    }
+
+    @Test
+    void lines_MoreLinesThanLimit_ReturnsIncomplete() throws IOException {
+        // Arrange
+        Files.writeString(logFile, record(0, "a", "one") + record(1, "a", "two")
+                + record(2, "a", "three"));
+        LogRequestIndex index = new LogRequestIndex(properties);
+        index.refresh();
+        List<String> lines = new ArrayList<>();
+
+        // Act
+        boolean complete = index.lines("a", lines, 2);
+
+        // Assert
+        assertFalse(complete);
+        assertEquals(2, lines.size());
+    }
+
+    private static String record(int i, String requestId, String message) {
+        return line(i, requestId, message) + "\n";
+    }
+
+    private static String line(int i, String requestId, String message) {
+        return String.format("2025-04-30T10:00:%02d.000+03:00  INFO 1 --- [exec-%d] %sa.b.C : %s",
+                i, i, requestId == null ? "" : "[rid=" + requestId + "] ", message);
+    }
+}
@@ -0,0 +1,166 @@
+package com.example.demo.service;
+
+import com.example.demo.config.LogProperties;
+import com.example.demo.model.LogTask;
+import com.example.demo.model.LogTaskStatus;
+import com.example.demo.repository.LogTaskRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.util.unit.DataSize;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.Instant;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class LogRetentionServiceTest {
+
+    @TempDir
+    Path tempDir;
+
+    private LogProperties properties;
+    private LogTaskRepository taskRepository;
+    private LogRetentionService retentionService;
+
+    @BeforeEach
+    void setUp() {
+        properties = new LogProperties();
+        properties.setResultDir(tempDir.toString());
+        taskRepository = new LogTaskRepository();
+        retentionService = new LogRetentionService(taskRepository,
+                new LogSliceStore(properties), properties);
+    }
+
+    @Test
+    void sweep_ExpiredTask_RemovesTaskAndFile() throws IOException {
+        // Arrange
+        properties.getRetention().setTtl(Duration.ofMinutes(10));
+        LogTask expired = completedTask("1", "logs-a.log", 10, Duration.ofMinutes(11));
+        LogTask fresh = completedTask("2", "logs-b.log", 10, Duration.ofMinutes(1));
+
+        // Act
+        retentionService.sweep();
+
+        // Assert
+        assertTrue(taskRepository.findById("1").isEmpty());
+        assertFalse(Files.exists(Path.of(expired.getFilePath())));
+        assertTrue(taskRepository.findById("2").isPresent());
+        assertTrue(Files.exists(Path.of(fresh.getFilePath())));
+    }
+
+    @Test
+    void sweep_OldTaskReadRecently_KeepsTask() throws IOException {
+        // Arrange
+        properties.getRetention().setTtl(Duration.ofMinutes(10));
+        LogTask read = completedTask("1", "logs-a.log", 10, Duration.ofMinutes(11));
+        read.markAccessed();
+
+        // Act
+        retentionService.sweep();
+
+        // Assert
+        assertTrue(taskRepository.findById("1").isPresent());
+        assertTrue(Files.exists(Path.of(read.getFilePath())));
+    }
+
+    @Test
+    void sweep_ExpiredTaskSharesFileWithLiveTask_KeepsFile() throws IOException {
+        // Arrange
+        properties.getRetention().setTtl(Duration.ofMinutes(10));
+        LogTask expired = completedTask("1", "logs-a.log", 10, Duration.ofMinutes(11));
+        LogTask reused = new LogTask("2", "2025-04-30", LogTaskStatus.COMPLETED);
+        reused.setFilePath(expired.getFilePath());
+        taskRepository.save(reused);
+
+        // Act
+        retentionService.sweep();
+
+        // Assert
+        assertTrue(taskRepository.findById("1").isEmpty());
+        assertTrue(Files.exists(Path.of(expired.getFilePath())));
+    }
+
+    @Test
+    void sweep_TooManyTasks_DropsOldestFinishedFirst() throws IOException {
+        // Arrange
+        properties.getRetention().setMaxTasks(2);
+        taskRepository.save(new LogTask("0", "2025-04-30", LogTaskStatus.PROCESSING));
+        completedTask("1", "logs-a.log", 10, Duration.ofMinutes(3));
+        completedTask("2", "logs-b.log", 10, Duration.ofMinutes(2));
+        completedTask("3", "logs-c.log", 10, Duration.ofMinutes(1));
+
+        // Act
+        retentionService.sweep();
+
+        // Assert
+        assertEquals(2, retentionService.getTaskCount());
+        assertTrue(taskRepository.findById("0").isPresent());
+        assertTrue(taskRepository.findById("3").isPresent());
+    }
+
+    @Test
+    void sweep_OverDiskQuota_DropsLeastRecentlyRequestedResults() throws IOException {
+        // Arrange
+        properties.getRetention().setDiskQuota(DataSize.ofBytes(250));
+        completedTask("1", "logs-a.log", 100, Duration.ofMinutes(3));
+        completedTask("2", "logs-b.log", 100, Duration.ofMinutes(2));
+        completedTask("3", "logs-c.log", 100, Duration.ofMinutes(1));
+        assertEquals(300, retentionService.getBytesHeld());
+
+        // Act
+        retentionService.sweep();
+
+        // Assert
+        assertEquals(200, retentionService.getBytesHeld());
+        assertTrue(taskRepository.findById("1").isEmpty());
+        assertFalse(Files.exists(tempDir.resolve("logs-a.log")));
+    }
+
+    @Test
+    void sweep_OverDiskQuota_KeepsRecentlyDownloadedResult() throws IOException {
+        // Arrange
+        properties.getRetention().setDiskQuota(DataSize.ofBytes(250));
+        completedTask("1", "logs-a.log", 100, Duration.ofMinutes(3)).markAccessed();
+        completedTask("2", "logs-b.log", 100, Duration.ofMinutes(2));
+        completedTask("3", "logs-c.log", 100, Duration.ofMinutes(1));
+
+        // Act
+        retentionService.sweep();
+
+        // Assert
+        assertTrue(taskRepository.findById("1").isPresent());
+        assertTrue(taskRepository.findById("2").isEmpty());
+        assertFalse(Files.exists(tempDir.resolve("logs-b.log")));
+    }
+
+    @Test
+    void purgeOrphanedResults_FilesFromPreviousRun_DeletesOnlyResults() throws IOException {
+        // Arrange
+        Path stale = Files.writeString(tempDir.resolve("logs-2025-04-30-1.log"), "old");
+        Path other = Files.writeString(tempDir.resolve("notes.txt"), "keep");
+
+        // Act
+        retentionService.purgeOrphanedResults();
+
+        // Assert
+        assertFalse(Files.exists(stale));
+        assertTrue(Files.exists(other));
+    }
+
+    private LogTask completedTask(String id, String fileName, int size, Duration age)
+            throws IOException {
+        Path file = Files.write(tempDir.resolve(fileName), new byte[size]);
+        LogTask task = new LogTask(id, "2025-04-30", LogTaskStatus.COMPLETED);
+        task.setFilePath(file.toString());
+        Instant completedAt = Instant.now().minus(age);
+        task.setCreatedAt(completedAt);
+        task.setCompletedAt(completedAt);
+        task.setLastAccessedAt(completedAt);
+        taskRepository.save(task);
+        return task;
+    }
+}
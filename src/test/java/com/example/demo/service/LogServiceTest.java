@@ -0,0 +1,735 @@
+package com.example.demo.service;
+
+import com.example.demo.config.LogProperties;
+import com.example.demo.exception.BadRequestException;
+import com.example.demo.exception.TaskNotReadyException;
+import com.example.demo.exception.TooManyRequestsException;
+import com.example.demo.model.LogAnalytics;
+import com.example.demo.model.LogLinesPage;
+import com.example.demo.model.LogPreview;
+import com.example.demo.model.LogQuery;
+import com.example.demo.model.LogTask;
+import com.example.demo.model.LogTaskProgress;
+import com.example.demo.model.LogTaskStatus;
+import com.example.demo.repository.LogTaskRepository;
+import com.example.demo.utils.CacheUtil;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.util.unit.DataSize;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.List;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipInputStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class LogServiceTest {
+
+    private static final String DATE = "2025-04-30";
+
+    @TempDir
+    Path tempDir;
+
+    @Mock
+    private LogService selfProxy;
+
+    @Mock
+    private LogTaskScheduler taskScheduler;
+
+    @Mock
+    private RecentLogEvents recentEvents;
+
+    private Path logFile;
+    private LogProperties properties;
+    private LogTaskRepository taskRepository;
+    private LogExtractor logExtractor;
+    private LogKeywordIndex keywordIndex;
+    private LogService logService;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        logFile = Files.writeString(tempDir.resolve("application.log"),
+                DATE + "T10:00:00.000+03:00  INFO 1 --- [main] a.b.C : line\n");
+        properties = new LogProperties();
+        properties.setFile(logFile.toString());
+        properties.setProcessingDelay(Duration.ZERO);
+        properties.setResultDir(tempDir.resolve("results").toString());
+        properties.getSlices().setDir(tempDir.resolve("slices").toString());
+        taskRepository = new LogTaskRepository();
+        logExtractor = new LogExtractor(properties);
+        lenient().doAnswer(invocation -> {
+            invocation.<Runnable>getArgument(2).run();
+            return null;
+        }).when(taskScheduler).submit(anyString(), anyLong(), any(Runnable.class));
+        keywordIndex = new LogKeywordIndex(properties);
+        logService = newLogService(Clock.systemDefaultZone());
+    }
+
+    private LogService newLogService(Clock clock) {
+        return new LogService(taskRepository, logExtractor,
+                new LogOffsetIndex(properties), keywordIndex, new LogRequestIndex(properties),
+                recentEvents,
+                new LogArchives(properties), new LogSliceStore(properties), properties,
+                new CacheUtil<>(10),
+                new CacheUtil<>(10), new LogTaskEvents(properties), taskScheduler, clock,
+                selfProxy);
+    }
+
+    @AfterEach
+    void tearDown() {
+        logExtractor.shutdown();
+    }
+
+    @Test
+    void createLogTask_SameDateWhileRunning_JoinsRunningTask() {
+        // Act
+        String firstId = logService.createLogTask(DATE);
+        String secondId = logService.createLogTask(DATE);
+
+        // Assert
+        assertNotEquals(firstId, secondId);
+        assertSame(logService.getTaskStatus(firstId), taskRepository.findById(secondId).orElseThrow());
+        verify(selfProxy, times(1)).processTask(any(LogTask.class));
+    }
+
+    @Test
+    void createLogTask_LogUnchangedSinceExtraction_CompletesFromCache() {
+        // Arrange
+        String firstId = logService.createLogTask(DATE);
+        logService.processTask(logService.getTaskStatus(firstId));
+        String resultPath = capturedResultPath();
+
+        // Act
+        String secondId = logService.createLogTask(DATE);
+
+        // Assert
+        LogTask second = logService.getTaskStatus(secondId);
+        assertEquals(LogTaskStatus.COMPLETED, second.getStatus());
+        assertEquals(resultPath, second.getFilePath());
+        verify(selfProxy, times(1)).processTask(any(LogTask.class));
+    }
+
+    @Test
+    void createLogTask_SliceMaterialized_CompletesFromSliceWithoutScan() throws IOException {
+        // Arrange
+        LocalDate today = LocalDate.now();
+        String yesterday = today.minusDays(1).toString();
+        String older = yesterday + "T23:59:59.000+03:00  INFO 1 --- [main] a.b.C : late\n";
+        Files.writeString(logFile, today.minusDays(2) + "T10:00:00.000+03:00  INFO 1 --- "
+                + "[main] a.b.C : old\n" + older
+                + today + "T00:00:01.000+03:00  INFO 1 --- [main] a.b.C : new\n");
+        properties.getSlices().setRetention(Duration.ofDays(3));
+        logService.materializeSlices();
+
+        // Act
+        String taskId = logService.createLogTask(yesterday);
+
+        // Assert
+        LogTask task = logService.getTaskStatus(taskId);
+        assertEquals(LogTaskStatus.COMPLETED, task.getStatus());
+        assertTrue(task.getFilePath().startsWith(tempDir.resolve("slices").toString()));
+        try (InputStream in = new GZIPInputStream(Files.newInputStream(Path.of(task.getFilePath())))) {
+            assertEquals(older, new String(in.readAllBytes(), StandardCharsets.UTF_8));
+        }
+        assertEquals(1, logService.getLines(taskId, 0, 10).totalLines());
+        assertEquals(LogTaskStatus.COMPLETED, logService.getTaskStatus(
+                logService.createLogTask(today.minusDays(3).toString())).getStatus());
+        assertEquals(LogTaskStatus.PROCESSING, logService.getTaskStatus(
+                logService.createLogTask(today.toString())).getStatus());
+        verify(selfProxy, times(1)).processTask(any(LogTask.class));
+    }
+
+    @Test
+    void materializeSlices_SliceOutlivedRetention_DeletesIt() throws IOException {
+        // Arrange
+        properties.getSlices().setRetention(Duration.ofDays(1));
+        Path slices = Files.createDirectories(tempDir.resolve("slices"));
+        Path expired = Files.writeString(
+                slices.resolve("logs-" + LocalDate.now().minusDays(2) + ".log.gz"), "");
+
+        // Act
+        logService.materializeSlices();
+
+        // Assert
+        assertFalse(Files.exists(expired));
+        assertTrue(Files.exists(slices.resolve("logs-" + LocalDate.now().minusDays(1) + ".log.gz")));
+        try (var files = Files.list(slices)) {
+            assertTrue(files.noneMatch(file -> file.toString().endsWith(".tmp")));
+        }
+    }
+
+    @Test
+    void createLogTask_LogChangedSinceExtraction_StartsNewTask() throws IOException {
+        // Arrange
+        String firstId = logService.createLogTask(DATE);
+        logService.processTask(logService.getTaskStatus(firstId));
+        Files.writeString(logFile, DATE + "T11:00:00.000+03:00  INFO 1 --- [main] a.b.C : more\n",
+                StandardOpenOption.APPEND);
+
+        // Act
+        String secondId = logService.createLogTask(DATE);
+
+        // Assert
+        assertEquals(LogTaskStatus.PROCESSING, logService.getTaskStatus(secondId).getStatus());
+        verify(selfProxy, times(2)).processTask(any(LogTask.class));
+    }
+
+    @Test
+    void processTask_CompressionEnabled_WritesGzipResult() throws IOException {
+        // Arrange
+        properties.setCompressResults(true);
+        String taskId = logService.createLogTask(DATE);
+
+        // Act
+        logService.processTask(logService.getTaskStatus(taskId));
+
+        // Assert
+        Path result = Path.of(capturedResultPath());
+        assertTrue(result.toString().endsWith(".log.gz"));
+        try (InputStream in = new GZIPInputStream(Files.newInputStream(result))) {
+            assertArrayEquals(Files.readAllBytes(logFile), in.readAllBytes());
+        }
+    }
+
+    @Test
+    void processTask_Query_WritesMatchingRecordsWithContinuationLines() throws IOException {
+        // Arrange
+        Files.writeString(logFile, ""
+                + "2025-04-29T23:59:59.000+03:00 ERROR 1 --- [main] a.b.Job : failed 1\n"
+                + "2025-04-30T10:00:00.000+03:00 ERROR 1 --- [main] a.b.Job : failed 2\n"
+                + "\tat a.b.Job.run(Job.java:10)\n"
+                + "2025-04-30T10:00:01.000+03:00  WARN 1 --- [main] a.b.Job : failed 3\n"
+                + "2025-04-30T10:00:02.000+03:00 ERROR 1 --- [main] x.y.Other : failed 4\n"
+                + "2025-04-30T10:00:03.000+03:00 ERROR 1 --- [main] a.b.Job : done 5\n"
+                + "2025-04-30T11:00:00.000+03:00 ERROR 1 --- [main] a.b.Job : failed 6\n");
+        LogQuery query = new LogQuery();
+        query.setFrom(LocalDateTime.parse("2025-04-30T00:00:00"));
+        query.setTo(LocalDateTime.parse("2025-04-30T11:00:00"));
+        query.setLevels(Set.of("error"));
+        query.setLogger("a.b");
+        query.setKeywords(List.of("failed"));
+        String taskId = logService.createLogTask(query);
+
+        // Act
+        logService.processTask(logService.getTaskStatus(taskId));
+
+        // Assert
+        assertEquals("2025-04-30T10:00:00.000+03:00 ERROR 1 --- [main] a.b.Job : failed 2\n"
+                        + "\tat a.b.Job.run(Job.java:10)\n",
+                Files.readString(Path.of(capturedResultPath())));
+        assertEquals(DATE, logService.getTaskStatus(taskId).getDate());
+    }
+
+    @Test
+    void processTask_KeywordIndexed_ScansOnlyBlocksThatCanMatch() throws IOException {
+        // Arrange
+        properties.getKeywords().setEnabled(true);
+        properties.getKeywords().setBlockSize(DataSize.ofBytes(200));
+        StringBuilder log = new StringBuilder();
+        for (int i = 0; i < 50; i++) {
+            log.append(DATE).append(String.format("T10:00:%02d.000+03:00", i))
+                    .append("  INFO 1 --- [main] a.b.C : request from user-").append(i)
+                    .append('\n');
+            if (i == 42) {
+                log.append("\tat a.b.C.handle(C.java:42)\n");
+            }
+        }
+        Files.writeString(logFile, log.toString());
+        keywordIndex.refresh();
+        LogQuery query = new LogQuery();
+        query.setKeywords(List.of("user-42"));
+        String taskId = logService.createLogTask(query);
+        LogTask task = logService.getTaskStatus(taskId);
+
+        // Act
+        logService.processTask(task);
+
+        // Assert
+        assertEquals(DATE + "T10:00:42.000+03:00  INFO 1 --- [main] a.b.C : request from user-42\n"
+                        + "\tat a.b.C.handle(C.java:42)\n",
+                Files.readString(Path.of(capturedResultPath())));
+        assertTrue(task.getProgress().getTotalBytes() < Files.size(logFile) / 5);
+    }
+
+    @Test
+    void processTask_RecentEventsInMemory_ReadsMemoryInsteadOfFile() throws IOException {
+        // Arrange
+        String recent = "2025-04-30T10:00:05.000+03:00 ERROR 1 --- [main] a.b.C : in memory\n"
+                + "\tat a.b.C.run(C.java:1)\n"
+                + "2025-04-30T10:00:06.000+03:00  INFO 1 --- [main] a.b.C : skipped\n";
+        LogQuery query = new LogQuery();
+        query.setFrom(LocalDateTime.parse("2025-04-30T10:00:00"));
+        query.setLevels(Set.of("ERROR"));
+        when(recentEvents.since(query.getFrom(), null))
+                .thenReturn(Optional.of(recent.getBytes(StandardCharsets.UTF_8)));
+        String taskId = logService.createLogTask(query);
+        LogTask task = logService.getTaskStatus(taskId);
+
+        // Act
+        logService.processTask(task);
+
+        // Assert
+        assertEquals("2025-04-30T10:00:05.000+03:00 ERROR 1 --- [main] a.b.C : in memory\n"
+                        + "\tat a.b.C.run(C.java:1)\n",
+                Files.readString(Path.of(capturedResultPath())));
+        assertEquals(recent.length(), task.getProgress().getBytesScanned());
+        assertEquals(2, task.getProgress().getLinesMatched());
+    }
+
+    @Test
+    void processTask_DateTask_ReadsMemoryOnlyUpToEndOfDay() throws IOException {
+        // Arrange
+        String recent = "2025-04-29T10:00:00.000+03:00  INFO 1 --- [main] a.b.C : day 29\n";
+        when(recentEvents.since(LocalDateTime.parse("2025-04-29T00:00:00"),
+                LocalDateTime.parse("2025-04-30T00:00:00")))
+                .thenReturn(Optional.of(recent.getBytes(StandardCharsets.UTF_8)));
+        String taskId = logService.createLogTask("2025-04-29");
+        LogTask task = logService.getTaskStatus(taskId);
+
+        // Act
+        logService.processTask(task);
+
+        // Assert
+        assertEquals(recent, Files.readString(Path.of(capturedResultPath())));
+    }
+
+    @Test
+    void processTask_DateBatch_WritesZipWithOneFilePerDateInOneScan() throws IOException {
+        // Arrange
+        Files.writeString(logFile, ""
+                + "2025-04-28T10:00:00.000+03:00  INFO 1 --- [main] a.b.C : day 28\n"
+                + "2025-04-29T10:00:00.000+03:00  INFO 1 --- [main] a.b.C : day 29\n"
+                + "\tat a.b.C.run(C.java:1)\n"
+                + "2025-04-30T10:00:00.000+03:00  INFO 1 --- [main] a.b.C : day 30, see 2025-04-29\n"
+                + "2025-05-01T10:00:00.000+03:00  INFO 1 --- [main] a.b.C : day 1\n");
+        String taskId = logService.createLogTask(List.of("2025-04-29..2025-04-30", "2025-04-29"));
+        LogTask task = logService.getTaskStatus(taskId);
+
+        // Act
+        logService.processTask(task);
+
+        // Assert
+        Map<String, String> entries = new LinkedHashMap<>();
+        try (ZipInputStream zip = new ZipInputStream(
+                Files.newInputStream(Path.of(capturedResultPath())))) {
+            for (ZipEntry entry; (entry = zip.getNextEntry()) != null; ) {
+                entries.put(entry.getName(), new String(zip.readAllBytes(), StandardCharsets.UTF_8));
+            }
+        }
+        assertEquals(List.of("logs-2025-04-29.log", "logs-2025-04-30.log"),
+                List.copyOf(entries.keySet()));
+        assertEquals("2025-04-29T10:00:00.000+03:00  INFO 1 --- [main] a.b.C : day 29\n"
+                        + "2025-04-30T10:00:00.000+03:00  INFO 1 --- [main] a.b.C : day 30, see 2025-04-29\n",
+                entries.get("logs-2025-04-29.log"));
+        assertEquals("2025-04-30T10:00:00.000+03:00  INFO 1 --- [main] a.b.C : day 30, see 2025-04-29\n",
+                entries.get("logs-2025-04-30.log"));
+        assertEquals("2025-04-29..2025-04-30", task.getDate());
+        assertEquals(task.getProgress().getTotalBytes(), task.getProgress().getBytesScanned());
+        assertTrue(task.getProgress().getTotalBytes() < Files.size(logFile));
+        try (var files = Files.list(tempDir.resolve("results"))) {
+            assertEquals(1, files.count());
+        }
+    }
+
+    @Test
+    void createLogTask_BatchTooLarge_ThrowsBadRequest() {
+        // Arrange
+        properties.setMaxBatchDates(7);
+
+        // Act & Assert
+        assertThrows(BadRequestException.class,
+                () -> logService.createLogTask(List.of("2025-04-01..2025-04-08")));
+        assertThrows(BadRequestException.class,
+                () -> logService.createLogTask(List.of("2025-04-30..2025-04-29")));
+        assertEquals(0, taskRepository.count());
+    }
+
+    @Test
+    void getLines_CompletedTask_ReadsPageThroughLineIndex() throws IOException {
+        // Arrange
+        Files.writeString(logFile, records(200));
+        String taskId = logService.createLogTask(DATE);
+        logService.processTask(logService.getTaskStatus(taskId));
+        logService.getTaskStatus(taskId).setStatus(LogTaskStatus.COMPLETED);
+        logService.getTaskStatus(taskId).setFilePath(capturedResultPath());
+
+        // Act
+        LogLinesPage page = logService.getLines(taskId, 130, 3);
+
+        // Assert
+        assertEquals(200, page.totalLines());
+        assertEquals(List.of(record(130), record(131), record(132)), page.lines());
+        assertTrue(Files.exists(Path.of(capturedResultPath() + ".lines")));
+        assertEquals(List.of(record(199)), logService.getLines(taskId, 199, 10).lines());
+        assertEquals(List.of(), logService.getLines(taskId, 200, 10).lines());
+    }
+
+    @Test
+    void getLines_CompressedResultWithoutIndex_RebuildsIndexAndReadsPage() throws IOException {
+        // Arrange
+        properties.setCompressResults(true);
+        Files.writeString(logFile, records(100));
+        String taskId = logService.createLogTask(DATE);
+        logService.processTask(logService.getTaskStatus(taskId));
+        String resultPath = capturedResultPath();
+        Files.delete(Path.of(resultPath + ".lines"));
+        logService.getTaskStatus(taskId).setStatus(LogTaskStatus.COMPLETED);
+        logService.getTaskStatus(taskId).setFilePath(resultPath);
+
+        // Act
+        LogLinesPage page = logService.getLines(taskId, 70, 2);
+
+        // Assert
+        assertEquals(100, page.totalLines());
+        assertEquals(List.of(record(70), record(71)), page.lines());
+        try (var files = Files.list(Path.of(resultPath).getParent())) {
+            assertTrue(files.noneMatch(file -> file.toString().endsWith(".tmp")));
+        }
+        assertThrows(BadRequestException.class, () -> logService.getLines(taskId, 0, 0));
+    }
+
+    @Test
+    void getLines_TaskStillProcessing_ThrowsTaskNotReady() {
+        // Arrange
+        String taskId = logService.createLogTask(DATE);
+
+        // Act & Assert
+        assertThrows(TaskNotReadyException.class, () -> logService.getLines(taskId, 0, 10));
+    }
+
+    @Test
+    void createLogTask_WithPreview_ReturnsFirstLinesBeforeTaskRuns() throws IOException {
+        // Arrange
+        Files.writeString(logFile, records(100));
+        doNothing().when(taskScheduler).submit(anyString(), anyLong(), any(Runnable.class));
+
+        // Act
+        LogPreview preview = logService.createLogTask(DATE, 3);
+
+        // Assert
+        assertEquals(List.of(record(0), record(1), record(2)), preview.lines());
+        assertFalse(preview.complete());
+        assertEquals(LogTaskStatus.PROCESSING,
+                logService.getTaskStatus(preview.taskId()).getStatus());
+        assertTrue(logService.createLogTask(DATE, 500).complete());
+        assertThrows(BadRequestException.class, () -> logService.createLogTask(DATE, 0));
+    }
+
+    @Test
+    void processTask_RolledArchives_ReadsArchivesOfTheDayBeforeActiveFile() throws IOException {
+        // Arrange
+        gzip(tempDir.resolve("application.log.2025-04-30.0.gz"),
+                DATE + "T01:00:00.000+03:00  INFO 1 --- [main] a.b.C : archived 0\n"
+                        + "2025-04-29T23:00:00.000+03:00  INFO 1 --- [main] a.b.C : other day\n");
+        Files.writeString(tempDir.resolve("application.log.2025-04-30.1"),
+                DATE + "T02:00:00.000+03:00  INFO 1 --- [main] a.b.C : archived 1\n");
+        Files.writeString(tempDir.resolve("application.log.2025-04-29.0.gz"), "not gzip");
+        String taskId = logService.createLogTask(DATE);
+        LogTask task = logService.getTaskStatus(taskId);
+
+        // Act
+        logService.processTask(task);
+
+        // Assert
+        assertEquals(DATE + "T01:00:00.000+03:00  INFO 1 --- [main] a.b.C : archived 0\n"
+                        + DATE + "T02:00:00.000+03:00  INFO 1 --- [main] a.b.C : archived 1\n"
+                        + DATE + "T10:00:00.000+03:00  INFO 1 --- [main] a.b.C : line\n",
+                Files.readString(Path.of(capturedResultPath())));
+        assertEquals(task.getProgress().getTotalBytes(), task.getProgress().getBytesScanned());
+        assertEquals(3, task.getProgress().getLinesMatched());
+        try (var files = Files.list(tempDir.resolve("results"))) {
+            assertEquals(2, files.count());
+        }
+    }
+
+    @Test
+    void processTask_BlockCompressedArchive_DecompressesOnlyBlocksOfTheQuery() throws IOException {
+        // Arrange
+        properties.getArchives().setBlockSize(DataSize.ofKilobytes(4));
+        Path archive = tempDir.resolve("application.log.2025-04-30.0.gz");
+        gzip(archive, records(3600));
+        new LogArchives(properties).compact(archive);
+        LogQuery query = new LogQuery();
+        query.setFrom(LocalDateTime.parse(DATE + "T10:30:00"));
+        query.setTo(LocalDateTime.parse(DATE + "T10:30:02"));
+        String taskId = logService.createLogTask(query);
+        LogTask task = logService.getTaskStatus(taskId);
+
+        // Act
+        logService.processTask(task);
+
+        // Assert
+        assertEquals(record(1800) + "\n" + record(1801) + "\n",
+                Files.readString(Path.of(capturedResultPath())));
+        assertTrue(task.getProgress().getTotalBytes() < Files.size(archive) / 10);
+    }
+
+    @Test
+    void processTask_Completed_ReportsScanProgress() throws IOException {
+        // Arrange
+        String taskId = logService.createLogTask(DATE);
+        LogTask task = logService.getTaskStatus(taskId);
+
+        // Act
+        logService.processTask(task);
+
+        // Assert
+        LogTaskProgress progress = task.getProgress();
+        assertEquals(Files.size(logFile), progress.getTotalBytes());
+        assertEquals(Files.size(logFile), progress.getBytesScanned());
+        assertEquals(1, progress.getLinesMatched());
+    }
+
+    @Test
+    void cancelTask_OnlyHolder_StopsTaskWithoutResult() throws IOException {
+        // Arrange
+        Path results = Files.createDirectories(Path.of(properties.getResultDir()));
+        String taskId = logService.createLogTask(DATE);
+        LogTask task = logService.getTaskStatus(taskId);
+
+        // Act
+        logService.cancelTask(taskId);
+        logService.processTask(task);
+
+        // Assert
+        assertTrue(task.getProgress().isCancelled());
+        verify(selfProxy).updateTaskStatus(eq(task), eq(LogTaskStatus.CANCELLED), anyString());
+        verify(selfProxy, never()).updateTaskStatus(any(LogTask.class),
+                eq(LogTaskStatus.COMPLETED), anyString());
+        try (var files = Files.list(results)) {
+            assertEquals(0, files.count());
+        }
+    }
+
+    @Test
+    void cancelTask_SharedTask_DetachesOnlyCancelledId() {
+        // Arrange
+        String firstId = logService.createLogTask(DATE);
+        String secondId = logService.createLogTask(DATE);
+
+        // Act
+        LogTask cancelled = logService.cancelTask(secondId);
+
+        // Assert
+        assertEquals(LogTaskStatus.CANCELLED, cancelled.getStatus());
+        assertSame(cancelled, logService.getTaskStatus(secondId));
+        LogTask running = logService.getTaskStatus(firstId);
+        assertEquals(LogTaskStatus.PROCESSING, running.getStatus());
+        assertFalse(running.getProgress().isCancelled());
+    }
+
+    @Test
+    void cancelTask_TaskAlreadyCompleted_KeepsResult() {
+        // Arrange
+        String taskId = logService.createLogTask(DATE);
+        LogTask task = logService.getTaskStatus(taskId);
+        logService.updateTaskStatus(task, LogTaskStatus.COMPLETED, "result.log");
+
+        // Act
+        LogTask returned = logService.cancelTask(taskId);
+
+        // Assert
+        assertSame(task, returned);
+        assertEquals(LogTaskStatus.COMPLETED, task.getStatus());
+        assertFalse(task.getProgress().isCancelled());
+        verify(selfProxy, never()).updateTaskStatus(any(LogTask.class),
+                eq(LogTaskStatus.CANCELLED), anyString());
+    }
+
+    @Test
+    void updateTaskStatus_CancelAfterCompletion_KeepsCompleted() {
+        // Arrange
+        LogTask task = logService.getTaskStatus(logService.createLogTask(DATE));
+        logService.updateTaskStatus(task, LogTaskStatus.COMPLETED, "result.log");
+
+        // Act
+        logService.updateTaskStatus(task, LogTaskStatus.CANCELLED, "Cancelled");
+
+        // Assert
+        assertEquals(LogTaskStatus.COMPLETED, task.getStatus());
+        assertEquals("result.log", task.getFilePath());
+        assertNull(task.getErrorMessage());
+    }
+
+    @Test
+    void analyze_ClosedInterval_CountsPerMinuteAndCachesResult() throws IOException {
+        // Arrange
+        Files.writeString(logFile, ""
+                + "2025-04-30T10:00:05.000+03:00  INFO 1 --- [main] a.b.Job : started\n"
+                + "2025-04-30T10:00:10.000+03:00 ERROR 1 --- [main] a.b.Job : order 17 failed\n"
+                + "java.lang.IllegalStateException: boom\n"
+                + "2025-04-30T10:01:00.000+03:00 ERROR 1 --- [main] a.b.Job : order 42 failed\n"
+                + "2025-04-30T10:01:30.000+03:00  WARN 1 --- [main] x.y.Other : slow\n"
+                + "2025-04-30T10:02:00.000+03:00 ERROR 1 --- [main] a.b.Job : outside\n");
+        LocalDateTime from = LocalDateTime.parse("2025-04-30T10:00:00");
+        LocalDateTime to = LocalDateTime.parse("2025-04-30T10:02:00");
+
+        // Act
+        LogAnalytics analytics = logService.analyze(from, to, 5);
+        Files.writeString(logFile, "");
+
+        // Assert
+        assertEquals(2, analytics.minutes().size());
+        assertEquals(Map.of("INFO", 1L, "ERROR", 1L), analytics.minutes().get(0).levels());
+        assertEquals(Map.of("a.b.Job", 1L, "x.y.Other", 1L),
+                analytics.minutes().get(1).loggers());
+        assertEquals(List.of(new LogAnalytics.ErrorSignature("a.b.Job: order # failed", 2, 0)),
+                analytics.topErrors());
+        assertSame(analytics, logService.analyze(from, to, 5));
+    }
+
+    @Test
+    void analyze_IntervalOpenAtClockTime_DoesNotCacheResult() throws IOException {
+        // Arrange
+        logService = newLogService(Clock.fixed(
+                Instant.parse("2025-04-30T10:01:00Z"), ZoneOffset.UTC));
+        LocalDateTime from = LocalDateTime.parse("2025-04-30T10:00:00");
+        LocalDateTime to = LocalDateTime.parse("2025-04-30T10:02:00");
+        LogAnalytics first = logService.analyze(from, to, 5);
+
+        // Act
+        Files.writeString(logFile,
+                "2025-04-30T10:01:30.000+03:00 ERROR 1 --- [main] a.b.Job : late\n",
+                StandardOpenOption.APPEND);
+        LogAnalytics second = logService.analyze(from, to, 5);
+
+        // Assert
+        assertNotSame(first, second);
+        assertEquals(1, second.topErrors().size());
+    }
+
+    @Test
+    void createLogTask_EquivalentQueryWhileRunning_JoinsRunningTask() {
+        // Arrange
+        LogQuery first = new LogQuery();
+        first.setFrom(LocalDateTime.parse(DATE + "T10:00:00"));
+        first.setLevels(Set.of("warn", "error"));
+        first.setKeywords(List.of("order", "failed"));
+        LogQuery second = new LogQuery();
+        second.setFrom(LocalDateTime.parse(DATE + "T10:00:00.250"));
+        second.setLevels(Set.of("ERROR", "WARN"));
+        second.setKeywords(List.of("failed", "", "order"));
+        second.setLogger("");
+        LogQuery other = new LogQuery();
+        other.setFrom(LocalDateTime.parse(DATE + "T10:00:00"));
+        other.setKeywords(List.of("order|failed"));
+
+        // Act
+        String firstId = logService.createLogTask(first);
+        String secondId = logService.createLogTask(second);
+        String otherId = logService.createLogTask(other);
+
+        // Assert
+        assertSame(logService.getTaskStatus(firstId), logService.getTaskStatus(secondId));
+        assertNotSame(logService.getTaskStatus(firstId), logService.getTaskStatus(otherId));
+        verify(selfProxy, times(2)).processTask(any(LogTask.class));
+    }
+
+    @Test
+    void createLogTask_QueryWithUnknownLevel_ThrowsBadRequest() {
+        // Arrange
+        LogQuery query = new LogQuery();
+        query.setLevels(Set.of("SEVERE"));
+
+        // Act & Assert
+        assertThrows(BadRequestException.class, () -> logService.createLogTask(query));
+        verifyNoInteractions(selfProxy);
+    }
+
+    @Test
+    void createLogTask_LaneFull_RejectsAndForgetsTask() {
+        // Arrange
+        TooManyRequestsException rejection =
+                new TooManyRequestsException("full", Duration.ofSeconds(5));
+        doThrow(rejection).when(taskScheduler).submit(anyString(), anyLong(), any(Runnable.class));
+
+        // Act
+        TooManyRequestsException thrown = assertThrows(TooManyRequestsException.class,
+                () -> logService.createLogTask(DATE));
+
+        // Assert
+        assertSame(rejection, thrown);
+        assertEquals(0, taskRepository.count());
+        doNothing().when(taskScheduler).submit(anyString(), anyLong(), any(Runnable.class));
+        String taskId = logService.createLogTask(DATE);
+        assertEquals(LogTaskStatus.PROCESSING, logService.getTaskStatus(taskId).getStatus());
+    }
+
+    @Test
+    void createLogTask_LaneFullAfterAnotherIdJoined_FailsTaskForJoinedId() {
+        // Arrange
+        String[] joinedId = new String[1];
+        doAnswer(invocation -> {
+            joinedId[0] = logService.createLogTask(DATE);
+            throw new TooManyRequestsException("full", Duration.ofSeconds(5));
+        }).when(taskScheduler).submit(anyString(), anyLong(), any(Runnable.class));
+
+        // Act
+        assertThrows(TooManyRequestsException.class, () -> logService.createLogTask(DATE));
+
+        // Assert
+        LogTask joined = logService.getTaskStatus(joinedId[0]);
+        assertTrue(joined.getProgress().isCancelled());
+        verify(selfProxy).updateTaskStatus(joined, LogTaskStatus.FAILED, "full");
+        assertEquals(1, taskRepository.count());
+    }
+
+    private static void gzip(Path file, String content) throws IOException {
+        try (OutputStream out = new GZIPOutputStream(Files.newOutputStream(file))) {
+            out.write(content.getBytes(StandardCharsets.UTF_8));
+        }
+    }
+
+    private static String records(int count) {
+        StringBuilder log = new StringBuilder();
+        for (int i = 0; i < count; i++) {
+            log.append(record(i)).append('\n');
+        }
+        return log.toString();
+    }
+
+    private static String record(int i) {
+        return DATE + String.format("T10:%02d:%02d.000+03:00", i / 60, i % 60)
+                + "  INFO 1 --- [main] a.b.C : line " + i;
+    }
+
+    private String capturedResultPath() {
+        ArgumentCaptor<String> path = ArgumentCaptor.forClass(String.class);
+        verify(selfProxy).updateTaskStatus(any(LogTask.class), eq(LogTaskStatus.COMPLETED),
+                path.capture());
+        verify(selfProxy, never()).updateTaskStatus(any(LogTask.class),
+                eq(LogTaskStatus.FAILED), anyString());
+        return path.getValue();
+    }
+}
@@ -0,0 +1,94 @@
+package com.example.demo.service;
+
+import com.example.demo.config.LogProperties;
+import com.example.demo.exception.TooManyRequestsException;
+import com.example.demo.model.LogQuery;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@ExtendWith(MockitoExtension.class)
+class LogTailServiceTest {
+
+    @Mock
+    private RecentLogEvents recentEvents;
+
+    @TempDir
+    Path tempDir;
+
+    private LogProperties properties;
+    private LogTailService tailService;
+
+    @BeforeEach
+    void setUp() {
+        properties = new LogProperties();
+        tailService = new LogTailService(properties, recentEvents);
+    }
+
+    @AfterEach
+    void tearDown() {
+        tailService.shutdown();
+    }
+
+    @Test
+    void subscribe_SubscriberCapReached_ThrowsTooManyRequestsWithRetryAfter() {
+        // Arrange
+        properties.getTail().setMaxSubscribers(0);
+
+        // Act
+        TooManyRequestsException thrown = assertThrows(TooManyRequestsException.class,
+                () -> tailService.subscribe(new LogQuery()));
+
+        // Assert
+        assertTrue(thrown.getRetryAfter().compareTo(Duration.ZERO) > 0);
+    }
+
+    @Test
+    void subscribe_ConcurrentSubscribers_NeverExceedsCap() throws Exception {
+        // Arrange
+        properties.setFile(Files.writeString(tempDir.resolve("application.log"), "").toString());
+        properties.getTail().setMaxSubscribers(3);
+        int clients = 16;
+        ExecutorService pool = Executors.newFixedThreadPool(clients);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<Boolean>> results = new ArrayList<>();
+        for (int i = 0; i < clients; i++) {
+            results.add(pool.submit(() -> {
+                start.await();
+                try {
+                    tailService.subscribe(new LogQuery());
+                    return true;
+                } catch (TooManyRequestsException e) {
+                    return false;
+                }
+            }));
+        }
+
+        // Act
+        start.countDown();
+        int accepted = 0;
+        for (Future<Boolean> result : results) {
+            accepted += result.get() ? 1 : 0;
+        }
+        pool.shutdown();
+
+        // Assert
+        assertEquals(3, accepted);
+    }
+}
@@ -0,0 +1,49 @@
+package com.example.demo.service;
+
+import com.example.demo.config.LogProperties;
+import com.example.demo.model.LogTask;
+import com.example.demo.model.LogTaskStatus;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class LogTaskEventsTest {
+
+    private LogTaskEvents taskEvents;
+    private LogTask task;
+
+    @BeforeEach
+    void setUp() {
+        taskEvents = new LogTaskEvents(new LogProperties());
+        task = new LogTask("1", "2025-04-30", LogTaskStatus.PROCESSING);
+    }
+
+    @Test
+    void subscribe_TaskFinishedBeforeSubscription_ClosesStream() {
+        // Arrange
+        task.setStatus(LogTaskStatus.COMPLETED);
+        taskEvents.statusChanged(task);
+
+        // Act
+        SseEmitter emitter = taskEvents.subscribe(task);
+
+        // Assert
+        assertThrows(IllegalStateException.class, () -> emitter.send("late"));
+    }
+
+    @Test
+    void statusChanged_TaskFinished_ClosesOpenStreams() throws Exception {
+        // Arrange
+        SseEmitter emitter = taskEvents.subscribe(task);
+        emitter.send("open");
+
+        // Act
+        task.setStatus(LogTaskStatus.FAILED);
+        taskEvents.statusChanged(task);
+
+        // Assert
+        assertThrows(IllegalStateException.class, () -> emitter.send("late"));
+    }
+}
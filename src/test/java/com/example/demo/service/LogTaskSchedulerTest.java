@@ -0,0 +1,167 @@
+package com.example.demo.service;
+
+import com.example.demo.config.LogProperties;
+import com.example.demo.exception.TooManyRequestsException;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.util.unit.DataSize;
+
+import java.time.Duration;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class LogTaskSchedulerTest {
+
+    private static final long SMALL = 10;
+    private static final long LARGE = 1000;
+
+    private LogProperties properties;
+    private LogTaskScheduler scheduler;
+    private final CountDownLatch release = new CountDownLatch(1);
+
+    @BeforeEach
+    void setUp() {
+        properties = new LogProperties();
+        properties.getLanes().setLargeThreshold(DataSize.ofBytes(LARGE));
+        properties.getLanes().setWorkers(2);
+        properties.getLanes().setMaxLargeRunning(1);
+        properties.getLanes().setLargeQueueCapacity(1);
+    }
+
+    @AfterEach
+    void tearDown() {
+        release.countDown();
+        scheduler.shutdown();
+    }
+
+    @Test
+    void submit_LargeTasksRunning_SmallTaskStillRuns() throws InterruptedException {
+        // Arrange
+        scheduler = new LogTaskScheduler(properties);
+        CountDownLatch largeStarted = new CountDownLatch(1);
+        scheduler.submit("1", LARGE, () -> {
+            largeStarted.countDown();
+            await(release);
+        });
+        assertTrue(largeStarted.await(5, TimeUnit.SECONDS));
+        scheduler.submit("2", LARGE, () -> await(release));
+        CountDownLatch smallDone = new CountDownLatch(1);
+
+        // Act
+        scheduler.submit("3", SMALL, smallDone::countDown);
+
+        // Assert
+        assertTrue(smallDone.await(5, TimeUnit.SECONDS));
+        LogTaskScheduler.LaneStats large = scheduler.stats().get("large");
+        assertEquals(1, large.running());
+        assertEquals(1, large.queued());
+    }
+
+    @Test
+    void submit_LaneFull_ThrowsTooManyRequestsWithRetryAfter() throws InterruptedException {
+        // Arrange
+        scheduler = new LogTaskScheduler(properties);
+        CountDownLatch largeStarted = new CountDownLatch(1);
+        scheduler.submit("1", LARGE, () -> {
+            largeStarted.countDown();
+            await(release);
+        });
+        assertTrue(largeStarted.await(5, TimeUnit.SECONDS));
+        scheduler.submit("2", LARGE, () -> { });
+
+        // Act
+        TooManyRequestsException thrown = assertThrows(TooManyRequestsException.class,
+                () -> scheduler.submit("3", LARGE, () -> { }));
+
+        // Assert
+        assertTrue(thrown.getRetryAfter().compareTo(Duration.ofSeconds(1)) >= 0);
+        assertEquals(1, scheduler.stats().get("large").rejected());
+        assertEquals(0, scheduler.stats().get("small").rejected());
+    }
+
+    @Test
+    void submit_SingleWorkerConfigured_SmallTaskRunsBesideLargeOne() throws InterruptedException {
+        // Arrange
+        properties.getLanes().setWorkers(1);
+        scheduler = new LogTaskScheduler(properties);
+        CountDownLatch largeStarted = new CountDownLatch(1);
+        scheduler.submit("1", LARGE, () -> {
+            largeStarted.countDown();
+            await(release);
+        });
+        assertTrue(largeStarted.await(5, TimeUnit.SECONDS));
+        CountDownLatch smallDone = new CountDownLatch(1);
+
+        // Act
+        scheduler.submit("2", SMALL, smallDone::countDown);
+
+        // Assert
+        assertTrue(smallDone.await(5, TimeUnit.SECONDS));
+    }
+
+    @Test
+    void submit_TaskThrowsError_WorkerKeepsRunningTasks() throws InterruptedException {
+        // Arrange
+        properties.getLanes().setWorkers(2);
+        scheduler = new LogTaskScheduler(properties);
+        for (int i = 0; i < 2; i++) {
+            scheduler.submit("error-" + i, SMALL, () -> {
+                throw new OutOfMemoryError("test");
+            });
+        }
+        // Both tasks only finish if they run at the same time, on both workers.
+        CountDownLatch running = new CountDownLatch(2);
+        CountDownLatch done = new CountDownLatch(2);
+        Runnable task = () -> {
+            running.countDown();
+            await(running);
+            if (running.getCount() == 0) {
+                done.countDown();
+            }
+        };
+
+        // Act
+        scheduler.submit("1", SMALL, task);
+        scheduler.submit("2", SMALL, task);
+
+        // Assert
+        assertTrue(done.await(5, TimeUnit.SECONDS));
+    }
+
+    @Test
+    void stats_TaskWaitedForWorker_RecordsWaitTime() throws InterruptedException {
+        // Arrange
+        scheduler = new LogTaskScheduler(properties);
+        CountDownLatch done = new CountDownLatch(1);
+        scheduler.submit("1", SMALL, () -> sleep(50));
+        scheduler.submit("2", SMALL, () -> sleep(50));
+
+        // Act
+        scheduler.submit("3", SMALL, done::countDown);
+
+        // Assert
+        assertTrue(done.await(5, TimeUnit.SECONDS));
+        LogTaskScheduler.LaneStats small = scheduler.stats().get("small");
+        assertEquals(3, small.submitted());
+        assertTrue(small.maxWaitMillis() >= 40, "max wait " + small.maxWaitMillis());
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static void sleep(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
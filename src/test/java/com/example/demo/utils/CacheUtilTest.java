@@ -0,0 +1,113 @@
+package com.example.demo.utils;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CacheUtilTest {
+
+    @Test
+    void put_MoreKeysThanMaxSize_KeepsSizeBounded() {
+        // Arrange
+        CacheUtil<String, String> cache = new CacheUtil<>(10);
+
+        // Act
+        for (int i = 0; i < 100; i++) {
+            cache.put("key-" + i, "value-" + i);
+        }
+
+        // Assert
+        assertEquals(10, cache.size());
+        assertEquals("value-99", cache.get("key-99"));
+    }
+
+    @Test
+    void put_ExistingKey_ReplacesValueWithoutGrowing() {
+        // Arrange
+        CacheUtil<String, String> cache = new CacheUtil<>(10);
+        cache.put("key", "old");
+
+        // Act
+        cache.put("key", "new");
+
+        // Assert
+        assertEquals("new", cache.get("key"));
+        assertEquals(1, cache.size());
+        assertNull(cache.get("missing"));
+    }
+
+    @Test
+    void get_FrequentKeysDuringScan_SurviveOneOffKeys() {
+        // Arrange
+        CacheUtil<String, String> cache = new CacheUtil<>(100);
+        for (int i = 0; i < 50; i++) {
+            cache.put("hot-" + i, "value");
+        }
+        for (int round = 0; round < 5; round++) {
+            for (int i = 0; i < 50; i++) {
+                cache.get("hot-" + i);
+            }
+        }
+
+        // Act
+        for (int i = 0; i < 1000; i++) {
+            cache.put("scan-" + i, "value");
+        }
+
+        // Assert
+        int retained = 0;
+        for (int i = 0; i < 50; i++) {
+            retained += cache.get("hot-" + i) != null ? 1 : 0;
+        }
+        assertTrue(retained >= 45, "retained " + retained);
+        assertEquals(100, cache.size());
+    }
+
+    @Test
+    void get_ConcurrentReadsAndWrites_ReturnsStoredValuesAndStaysBounded() throws Exception {
+        // Arrange
+        CacheUtil<Integer, String> cache = new CacheUtil<>(64);
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        List<Future<?>> futures = new ArrayList<>();
+
+        // Act
+        for (int t = 0; t < 8; t++) {
+            int seed = t;
+            futures.add(executor.submit(() -> {
+                SplittableRandom random = new SplittableRandom(seed);
+                for (int i = 0; i < 20_000; i++) {
+                    int key = random.nextInt(128);
+                    String value = cache.get(key);
+                    if (value == null) {
+                        cache.put(key, "value-" + key);
+                    } else {
+                        assertEquals("value-" + key, value);
+                    }
+                }
+            }));
+        }
+        for (Future<?> future : futures) {
+            future.get(30, TimeUnit.SECONDS);
+        }
+        executor.shutdown();
+
+        // Assert
+        assertEquals(64, cache.size());
+    }
+
+    @Test
+    void constructor_NonPositiveSize_ThrowsIllegalArgument() {
+        // Act & Assert
+        assertThrows(IllegalArgumentException.class, () -> new CacheUtil<String, String>(0));
+        assertThrows(IllegalArgumentException.class,
+                () -> new CacheUtil<String, String>(1).put("key", null));
+    }
+}
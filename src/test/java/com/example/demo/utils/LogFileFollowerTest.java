@@ -0,0 +1,85 @@
+package com.example.demo.utils;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class LogFileFollowerTest {
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    void readAppended_PartialLine_WaitsForLineBreak() throws IOException {
+        // Arrange
+        Path log = Files.writeString(tempDir.resolve("application.log"), "old\n");
+        try (LogFileFollower follower = new LogFileFollower(log, 4, true)) {
+            follower.readAppended((buf, end) -> fail("existing content must be skipped"));
+            append(log, "first\nsec");
+
+            // Act
+            String firstRead = read(follower);
+            append(log, "ond\n");
+            String secondRead = read(follower);
+
+            // Assert
+            assertEquals("first\n", firstRead);
+            assertEquals("second\n", secondRead);
+        }
+    }
+
+    @Test
+    void readAppended_FileRotated_ReadsRestOfOldFileThenNewFile() throws IOException {
+        // Arrange
+        Path log = Files.writeString(tempDir.resolve("application.log"), "");
+        try (LogFileFollower follower = new LogFileFollower(log, 64, true)) {
+            follower.readAppended((buf, end) -> { });
+            append(log, "last old line\n");
+            Files.move(log, tempDir.resolve("application.log.1"),
+                    StandardCopyOption.ATOMIC_MOVE);
+            Files.writeString(log, "first new line\n");
+
+            // Act
+            String lines = read(follower);
+
+            // Assert
+            assertEquals("last old line\nfirst new line\n", lines);
+        }
+    }
+
+    @Test
+    void readAppended_FileTruncated_FollowsFromBeginning() throws IOException {
+        // Arrange
+        Path log = Files.writeString(tempDir.resolve("application.log"), "");
+        try (LogFileFollower follower = new LogFileFollower(log, 64, false)) {
+            append(log, "a long line before truncation\n");
+            read(follower);
+            Files.writeString(log, "fresh\n", StandardOpenOption.TRUNCATE_EXISTING);
+
+            // Act
+            String lines = read(follower);
+
+            // Assert
+            assertEquals("fresh\n", lines);
+        }
+    }
+
+    private static String read(LogFileFollower follower) throws IOException {
+        StringBuilder lines = new StringBuilder();
+        follower.readAppended((buf, end) ->
+                lines.append(new String(buf, 0, end, StandardCharsets.UTF_8)));
+        return lines.toString();
+    }
+
+    private static void append(Path log, String text) throws IOException {
+        Files.writeString(log, text, StandardOpenOption.APPEND);
+    }
+}
@@ -0,0 +1,83 @@
+package com.example.demo.utils;
+
+import com.example.demo.model.LogQuery;
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class LogQueryMatcherTest {
+
+    private static final String ERROR_LINE = "2025-04-30T10:15:00.000+03:00 ERROR 1 --- [app] "
+            + "[LogTask-1] c.e.demo.service.LogService : Task failed: 7";
+    private static final String INFO_LINE = "2025-04-30T10:16:00.000+03:00  INFO 1 --- [app] "
+            + "[main] c.e.demo.Application : Started in 2.5 seconds";
+
+    @Test
+    void matches_AllConditionsHold_AcceptsRecordAndContinuation() {
+        // Arrange
+        LogQuery query = new LogQuery();
+        query.setFrom(LocalDateTime.parse("2025-04-30T10:00:00"));
+        query.setTo(LocalDateTime.parse("2025-04-30T11:00:00"));
+        query.setLevels(Set.of("ERROR"));
+        query.setLogger("c.e.demo.service");
+        query.setThread("LogTask-1");
+        query.setKeywords(List.of("failed"));
+        query.setRegexes(List.of("failed: \\d+$"));
+        LineMatcher matcher = LogQueryMatcher.compile(query).fork();
+
+        // Act & Assert
+        assertTrue(matches(matcher, ERROR_LINE));
+        assertTrue(matches(matcher, "\tat c.e.demo.service.LogService.processTask(LogService.java:1)"));
+        assertFalse(matches(matcher, INFO_LINE));
+        assertFalse(matches(matcher, "\tat c.e.demo.Application.main(Application.java:1)"));
+    }
+
+    @Test
+    void matches_OutsideTimeRange_RejectsRecord() {
+        // Arrange
+        LogQuery query = new LogQuery();
+        query.setFrom(LocalDateTime.parse("2025-04-30T10:15:01"));
+        LineMatcher matcher = LogQueryMatcher.compile(query);
+
+        // Act & Assert
+        assertFalse(matches(matcher, ERROR_LINE));
+        assertTrue(matches(matcher, INFO_LINE));
+    }
+
+    @Test
+    void matches_ThreadDiffers_RejectsRecord() {
+        // Arrange
+        LogQuery query = new LogQuery();
+        query.setThread("LogTask");
+        LineMatcher matcher = LogQueryMatcher.compile(query);
+
+        // Act & Assert
+        assertFalse(matches(matcher, ERROR_LINE));
+    }
+
+    @Test
+    void fork_StatefulMatcher_StartsWithoutPreviousVerdict() {
+        // Arrange
+        LogQuery query = new LogQuery();
+        query.setLevels(Set.of("ERROR"));
+        LineMatcher matcher = LogQueryMatcher.compile(query);
+        matches(matcher, ERROR_LINE);
+
+        // Act
+        LineMatcher forked = matcher.fork();
+
+        // Assert
+        assertTrue(matches(matcher, "\tat a.b.C.method(C.java:1)"));
+        assertFalse(matches(forked, "\tat a.b.C.method(C.java:1)"));
+    }
+
+    private static boolean matches(LineMatcher matcher, String line) {
+        byte[] bytes = line.getBytes(StandardCharsets.UTF_8);
+        return matcher.matches(bytes, 0, bytes.length);
+    }
+}
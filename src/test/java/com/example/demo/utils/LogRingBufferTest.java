@@ -0,0 +1,217 @@
+package com.example.demo.utils;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Optional;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class LogRingBufferTest {
+
+    @Test
+    void since_OlderEventRetained_ReturnsEventsFromStart() {
+        // Arrange
+        LogRingBuffer buffer = new LogRingBuffer(10, 1024);
+        buffer.append(100, bytes("a\n"));
+        buffer.append(200, bytes("b\n"));
+        buffer.append(300, bytes("c\n"));
+
+        // Act
+        Optional<byte[]> events = buffer.since(200, Long.MAX_VALUE);
+
+        // Assert
+        assertEquals("b\nc\n", new String(events.orElseThrow(), StandardCharsets.UTF_8));
+    }
+
+    @Test
+    void since_EndGiven_LeavesOutLaterEvents() {
+        // Arrange
+        LogRingBuffer buffer = new LogRingBuffer(10, 1024);
+        buffer.append(100, bytes("a\n"));
+        buffer.append(200, bytes("b\n"));
+        buffer.append(300, bytes("c\n"));
+
+        // Act
+        Optional<byte[]> events = buffer.since(200, 300);
+
+        // Assert
+        assertEquals("b\n", new String(events.orElseThrow(), StandardCharsets.UTF_8));
+    }
+
+    @Test
+    void since_StartBeforeOldestEvent_ReturnsEmpty() {
+        // Arrange
+        LogRingBuffer buffer = new LogRingBuffer(2, 1024);
+        buffer.append(100, bytes("a\n"));
+        buffer.append(200, bytes("b\n"));
+        buffer.append(300, bytes("c\n"));
+
+        // Act & Assert
+        assertTrue(buffer.since(150, Long.MAX_VALUE).isEmpty());
+        assertEquals("c\n", new String(buffer.since(250, Long.MAX_VALUE).orElseThrow(),
+                StandardCharsets.UTF_8));
+    }
+
+    @Test
+    void since_EventsEvictedDuringCopy_ReturnsCompleteCopyOrEmpty() throws InterruptedException {
+        // Arrange
+        int capacity = 16;
+        int size = 64 * 1024;
+        LogRingBuffer buffer = new LogRingBuffer(capacity, Long.MAX_VALUE);
+        byte[][] events = new byte[4 * capacity][size];
+        for (int i = 0; i < events.length; i++) {
+            Arrays.fill(events[i], (byte) i);
+        }
+        AtomicBoolean stop = new AtomicBoolean();
+        Thread writer = new Thread(() -> {
+            for (long i = 0; !stop.get(); i++) {
+                buffer.append(i, events[(int) (i % events.length)]);
+            }
+        });
+        writer.start();
+
+        // Act & Assert
+        try {
+            for (int attempt = 0; attempt < 5_000; attempt++) {
+                long from = buffer.oldestSequence() + 1;
+                long appended = buffer.nextSequence() - 1;
+                Optional<byte[]> copied = buffer.since(from, Long.MAX_VALUE);
+                if (copied.isEmpty()) {
+                    continue;
+                }
+                byte[] bytes = copied.get();
+                assertTrue(bytes.length / size >= appended - from,
+                        "events after " + from + " missing");
+                for (int offset = 0, expected = (int) (from % events.length);
+                     offset < bytes.length; offset += size, expected++) {
+                    assertEquals((byte) (expected % events.length), bytes[offset],
+                            "gap in events copied from " + from);
+                }
+            }
+        } finally {
+            stop.set(true);
+            writer.join();
+        }
+    }
+
+    @Test
+    void append_SizeLimitExceeded_EvictsOldestEvents() {
+        // Arrange
+        LogRingBuffer buffer = new LogRingBuffer(100, 6);
+
+        // Act
+        buffer.append(100, bytes("aa\n"));
+        buffer.append(200, bytes("bb\n"));
+        buffer.append(300, bytes("cc\n"));
+
+        // Assert
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        assertEquals(-1, buffer.read(0, out));
+        assertEquals(3, buffer.read(1, out));
+        assertEquals("bb\ncc\n", out.toString(StandardCharsets.UTF_8));
+    }
+
+    @Test
+    void oldestSequence_ReaderFellBehind_ResumesAtOldestRetainedEvent() {
+        // Arrange
+        LogRingBuffer buffer = new LogRingBuffer(2, 1024);
+        buffer.append(100, bytes("a\n"));
+        buffer.append(200, bytes("b\n"));
+        buffer.append(300, bytes("c\n"));
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+        // Act
+        long resume = buffer.oldestSequence();
+
+        // Assert
+        assertEquals(-1, buffer.read(0, out));
+        assertEquals(1, resume);
+        out.reset();
+        assertEquals(3, buffer.read(resume, out));
+        assertEquals("b\nc\n", out.toString(StandardCharsets.UTF_8));
+    }
+
+    @Test
+    void read_CursorOverwritten_ReportsOverrun() {
+        // Arrange
+        LogRingBuffer buffer = new LogRingBuffer(2, 1024);
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        buffer.append(100, bytes("a\n"));
+        long cursor = buffer.read(0, out);
+        buffer.append(200, bytes("b\n"));
+        buffer.append(300, bytes("c\n"));
+        buffer.append(400, bytes("d\n"));
+
+        // Act
+        long next = buffer.read(cursor, out);
+
+        // Assert
+        assertEquals(1, cursor);
+        assertEquals(-1, next);
+    }
+
+    @Test
+    void awaitAppend_EventAppended_WakesWaiter() throws InterruptedException {
+        // Arrange
+        LogRingBuffer buffer = new LogRingBuffer(10, 1024);
+        CountDownLatch woken = new CountDownLatch(1);
+        Thread waiter = new Thread(() -> {
+            try {
+                buffer.awaitAppend(0, 10, TimeUnit.SECONDS);
+                woken.countDown();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        });
+        waiter.start();
+
+        // Act
+        buffer.append(100, bytes("a\n"));
+
+        // Assert
+        assertTrue(woken.await(5, TimeUnit.SECONDS));
+    }
+
+    @Test
+    void append_ConcurrentWriters_KeepsMostRecentEventsWithinLimits() throws InterruptedException {
+        // Arrange
+        LogRingBuffer buffer = new LogRingBuffer(64, 330);
+        Thread[] writers = new Thread[4];
+        for (int w = 0; w < writers.length; w++) {
+            writers[w] = new Thread(() -> {
+                for (int i = 0; i < 10_000; i++) {
+                    buffer.append(i, bytes("0123456789\n"));
+                }
+            });
+        }
+
+        // Act
+        for (Thread writer : writers) {
+            writer.start();
+        }
+        for (Thread writer : writers) {
+            writer.join();
+        }
+
+        // Assert
+        long end = buffer.nextSequence();
+        long oldest = end - 64;
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        while (buffer.read(oldest, out) < 0) {
+            oldest++;
+        }
+        assertEquals(40_000, end);
+        assertTrue(end - oldest > 0 && end - oldest <= 30, "retained " + (end - oldest));
+        assertEquals((end - oldest) * 11, out.size());
+    }
+
+    private static byte[] bytes(String text) {
+        return text.getBytes(StandardCharsets.UTF_8);
+    }
+}
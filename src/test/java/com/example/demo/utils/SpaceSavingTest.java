@@ -0,0 +1,43 @@
+package com.example.demo.utils;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SpaceSavingTest {
+
+    @Test
+    void top_ManyRareItems_KeepsHeavyHittersWithinErrorBound() {
+        // Arrange
+        SpaceSaving<String> counter = new SpaceSaving<>(10);
+        for (int i = 0; i < 10_000; i++) {
+            counter.add(i % 4 == 0 ? "frequent" : i % 10 == 1 ? "common" : "rare-" + i);
+        }
+
+        // Act
+        List<SpaceSaving.Entry<String>> top = counter.top(2);
+
+        // Assert
+        assertEquals("frequent", top.get(0).key());
+        assertEquals("common", top.get(1).key());
+        SpaceSaving.Entry<String> frequent = top.get(0);
+        assertTrue(frequent.count() >= 2500);
+        assertTrue(frequent.count() - frequent.error() <= 2500);
+    }
+
+    @Test
+    void top_FewItems_ReturnsExactCountsInDescendingOrder() {
+        // Arrange
+        SpaceSaving<String> counter = new SpaceSaving<>(10);
+        List.of("a", "b", "a", "c", "a", "b").forEach(counter::add);
+
+        // Act
+        List<SpaceSaving.Entry<String>> top = counter.top(5);
+
+        // Assert
+        assertEquals(List.of(new SpaceSaving.Entry<>("a", 3, 0), new SpaceSaving.Entry<>("b", 2, 0),
+                new SpaceSaving.Entry<>("c", 1, 0)), top);
+    }
+}